@@ -28,14 +28,39 @@ public class ComponentManager extends BaseSystem {
 	private Bag<ComponentMapper> mappers = new Bag(ComponentMapper.class);
 
 	private final ComponentIdentityResolver identityResolver = new ComponentIdentityResolver();
-	final ShortBag entityToIdentity;
+
+	/** Composition id per entity, {@code null} if {@link #wideIdentities}. */
+	private final ShortBag entityToIdentity;
+	/** Composition id per entity, {@code null} unless {@link #wideIdentities}. */
+	private final IntBag entityToWideIdentity;
+	private final boolean wideIdentities;
+
 	protected final ComponentTypeFactory typeFactory;
 
 	/**
 	 * Creates a new instance of {@link ComponentManager}.
 	 */
 	protected ComponentManager(int entityContainerSize) {
-		entityToIdentity = new ShortBag(entityContainerSize);
+		this(entityContainerSize, false);
+	}
+
+	/**
+	 * Creates a new instance of {@link ComponentManager}.
+	 *
+	 * @param entityContainerSize initial capacity of entity stores.
+	 * @param wideIdentities {@code true} to track composition ids as {@code int}.
+	 * @see WorldConfiguration#setWideCompositionIdentity(boolean)
+	 */
+	protected ComponentManager(int entityContainerSize, boolean wideIdentities) {
+		this.wideIdentities = wideIdentities;
+		if (wideIdentities) {
+			entityToIdentity = null;
+			entityToWideIdentity = new IntBag(entityContainerSize);
+		} else {
+			entityToIdentity = new ShortBag(entityContainerSize);
+			entityToWideIdentity = null;
+		}
+
 		typeFactory = new ComponentTypeFactory(this, entityContainerSize);
 	}
 
@@ -149,13 +174,13 @@ public class ComponentManager extends BaseSystem {
 
 	/** Get component composition of entity. */
 	BitVector componentBits(int entityId) {
-		int identityIndex = entityToIdentity.get(entityId);
+		int identityIndex = getIdentity(entityId);
 		return identityResolver.compositionBits.get(identityIndex);
 	}
 
 	/** Get component composition of entity. */
 	private Bag<ComponentMapper> componentMappers(int entityId) {
-		int identityIndex = entityToIdentity.get(entityId);
+		int identityIndex = getIdentity(entityId);
 		return identityResolver.compositionMappers.get(identityIndex);
 	}
 
@@ -168,6 +193,11 @@ public class ComponentManager extends BaseSystem {
 	public int compositionIdentity(BitVector componentBits) {
 		int identity = identityResolver.getIdentity(componentBits);
 		if (identity == -1) {
+			if (!wideIdentities && identityResolver.compositionBits.size() > Short.MAX_VALUE) {
+				throw new RuntimeException("Exceeded " + Short.MAX_VALUE + " unique component compositions; " +
+					"see WorldConfiguration#setWideCompositionIdentity");
+			}
+
 			identity = identityResolver.allocateIdentity(componentBits, this);
 			world.getAspectSubscriptionManager()
 				.processComponentIdentity(identity, componentBits);
@@ -186,7 +216,9 @@ public class ComponentManager extends BaseSystem {
 	 * @return composition identity.
 	 */
 	public int getIdentity(int entityId) {
-		return entityToIdentity.get(entityId);
+		return wideIdentities
+			? entityToWideIdentity.unsafeGet(entityId)
+			: entityToIdentity.get(entityId);
 	}
 
 	/**
@@ -216,7 +248,39 @@ public class ComponentManager extends BaseSystem {
 	 * @param compositionId composition id
 	 */
 	void setIdentity(int entityId, int compositionId) {
-		entityToIdentity.unsafeSet(entityId, (short) compositionId);
+		if (wideIdentities)
+			entityToWideIdentity.unsafeSet(entityId, compositionId);
+		else
+			entityToIdentity.unsafeSet(entityId, (short) compositionId);
+	}
+
+	/** Assigns {@code compositionId} to {@code entityIds[from..to)}. */
+	void setIdentity(int[] entityIds, int from, int to, int compositionId) {
+		if (wideIdentities) {
+			IntBag identities = entityToWideIdentity;
+			for (int i = from; to > i; i++)
+				identities.unsafeSet(entityIds[i], compositionId);
+		} else {
+			ShortBag identities = entityToIdentity;
+			short identity = (short) compositionId;
+			for (int i = from; to > i; i++)
+				identities.unsafeSet(entityIds[i], identity);
+		}
+	}
+
+	/**
+	 * @return {@code true} if composition ids are tracked as {@code int},
+	 *         lifting the limit of {@link Short#MAX_VALUE} compositions.
+	 */
+	public boolean isWideCompositionIdentity() {
+		return wideIdentities;
+	}
+
+	/**
+	 * @return number of distinct compositions, including the empty composition.
+	 */
+	public int getCompositionCount() {
+		return identityResolver.compositionBits.size();
 	}
 
 	/**
@@ -228,34 +292,105 @@ public class ComponentManager extends BaseSystem {
 
 	public void ensureCapacity(int newSize) {
 		typeFactory.initialMapperCapacity = newSize;
-		entityToIdentity.ensureCapacity(newSize);
+		if (wideIdentities)
+			entityToWideIdentity.ensureCapacity(newSize);
+		else
+			entityToIdentity.ensureCapacity(newSize);
 		for (ComponentMapper mapper : mappers) {
 			mapper.components.ensureCapacity(newSize);
 		}
 	}
 
+	/**
+	 * Moves components and composition of entities to new ids, as part
+	 * of {@link World#compact()}.
+	 *
+	 * @param from ids of entities to move.
+	 * @param to new ids, without components; matched by index.
+	 */
+	void move(IntBag from, IntBag to) {
+		int[] src = from.getData();
+		int[] dst = to.getData();
+		for (int i = 0, s = from.size(); s > i; i++) {
+			int entityId = src[i];
+			Bag<ComponentMapper> mappers = componentMappers(entityId);
+			for (int j = 0, size = mappers.size(); size > j; j++) {
+				mappers.get(j).move(entityId, dst[i]);
+			}
+
+			setIdentity(dst[i], getIdentity(entityId));
+			setIdentity(entityId, NO_COMPONENTS);
+		}
+	}
+
+	/**
+	 * Trims entity stores to entity ids below {@code capacity}.
+	 */
+	void shrink(int capacity) {
+		typeFactory.initialMapperCapacity = capacity;
+		if (wideIdentities)
+			entityToWideIdentity.shrink(capacity);
+		else
+			entityToIdentity.shrink(capacity);
+		for (ComponentMapper mapper : mappers) {
+			mapper.shrink(capacity);
+		}
+	}
+
+	/**
+	 * @return estimated bytes of storage per entity id, across
+	 *         composition ids and all component mappers.
+	 */
+	int bytesPerEntity() {
+		int bytes = wideIdentities ? 4 : 2;
+		for (ComponentMapper mapper : mappers) {
+			bytes += mapper.bytesPerEntity();
+		}
+
+		return bytes;
+	}
+
 	/** Tracks all unique component compositions. */
 	static final class ComponentIdentityResolver {
 		final Bag<BitVector> compositionBits;
 		final Bag<Bag<ComponentMapper>> compositionMappers;
 
+		/** Hash of each composition, indexed by identity. */
+		private final IntBag compositionHashes;
+
+		/**
+		 * Open-addressing (linear probing) index of compositions, keyed on
+		 * {@link BitVector#hashCode()}. Slots hold {@code identity + 1},
+		 * {@code 0} denoting an empty slot.
+		 */
+		private int[] index;
+
 		ComponentIdentityResolver() {
 			compositionBits = new Bag(BitVector.class);
-			compositionBits.add(new BitVector());
 			compositionMappers = new Bag<Bag<ComponentMapper>>();
+			compositionHashes = new IntBag();
+			index = new int[64];
+
+			BitVector empty = new BitVector();
+			compositionBits.add(empty);
 			compositionMappers.add(new Bag(ComponentMapper.class));
+			insert(NO_COMPONENTS, empty.hashCode());
 		}
 
 		/** Fetch unique identity for passed composition. */
 		int getIdentity(BitVector components) {
 			Object[] bitsets = compositionBits.getData();
-			int size = compositionBits.size();
-			for (int i = NO_COMPONENTS; size > i; i++) { // want to start from 1 so that 0 can mean null
-				if (components.equals(bitsets[i]))
-					return i;
-			}
+			int[] index = this.index;
+			int mask = index.length - 1;
 
-			return -1;
+			for (int slot = mix(components.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+				int identity = index[slot] - 1;
+				if (identity == -1)
+					return -1;
+
+				if (components.equals(bitsets[identity]))
+					return identity;
+			}
 		}
 
 		int allocateIdentity(BitVector componentBits, ComponentManager cm) {
@@ -267,10 +402,49 @@ public class ComponentManager extends BaseSystem {
 				mappers.add(cm.getMapper(tf.getTypeFor(i).getType()));
 			}
 
+			BitVector composition = new BitVector(componentBits);
 			compositionMappers.add(mappers);
-			compositionBits.add(new BitVector(componentBits));
+			compositionBits.add(composition);
+
+			int identity = compositionBits.size() - 1;
+			insert(identity, composition.hashCode());
+
+			return identity;
+		}
+
+		private void insert(int identity, int hash) {
+			compositionHashes.set(identity, hash);
+
+			// keeping load factor at or below 0.5
+			if (compositionHashes.size() * 2 > index.length)
+				rehash(index.length * 2);
+			else
+				place(index, identity, hash);
+		}
+
+		private void rehash(int capacity) {
+			int[] table = new int[capacity];
+			int[] hashes = compositionHashes.getData();
+			for (int i = 0, s = compositionHashes.size(); s > i; i++) {
+				place(table, i, hashes[i]);
+			}
+
+			index = table;
+		}
+
+		private static void place(int[] table, int identity, int hash) {
+			int mask = table.length - 1;
+			int slot = mix(hash) & mask;
+			while (table[slot] != 0)
+				slot = (slot + 1) & mask;
+
+			table[slot] = identity + 1;
+		}
 
-			return compositionBits.size() - 1;
+		/** Spreads poorly distributed hashes of sparse compositions. */
+		private static int mix(int hash) {
+			hash *= 0x9e3779b9;
+			return hash ^ (hash >>> 16);
 		}
 	}
 }
@@ -1,9 +1,11 @@
 package com.artemis.link;
 
+import com.artemis.utils.reflect.Field;
+
 final class MutatorUtil {
 	private MutatorUtil() {}
 
-	static <T> T getGeneratedMutator(LinkSite linkSite) {
+	static <T> T getGeneratedMutator(Field field) {
 		return null;
 	}
 
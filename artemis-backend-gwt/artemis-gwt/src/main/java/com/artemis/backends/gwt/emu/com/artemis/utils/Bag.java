@@ -334,6 +334,24 @@ public class Bag<E> implements ImmutableBag<E> {
 		}
 	}
 
+	/**
+	 * Shrinks the internal storage to {@code capacity}, discarding any
+	 * elements at or beyond it. Does nothing if the bag's capacity
+	 * doesn't exceed {@code capacity}.
+	 *
+	 * @param capacity
+	 *			new capacity of the bag
+	 */
+	public void shrink(int capacity) {
+		if (capacity >= data.length)
+			return;
+
+		E[] oldData = data;
+		data = (E[])new Object[capacity];
+		System.arraycopy(oldData, 0, data, 0, capacity);
+		size = Math.min(size, capacity);
+	}
+
 	/**
 	 * Removes all of the elements from this bag.
 	 * <p>
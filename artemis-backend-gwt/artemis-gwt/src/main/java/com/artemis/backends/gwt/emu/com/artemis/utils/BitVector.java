@@ -973,6 +973,13 @@ public class BitVector implements Cloneable {
 
 	public void ensureCapacity(int bits) {} // no need for it here
 
+	/** Discards any bits at or beyond <code>bits</code>. */
+	public void shrink(int bits) {
+		int length = length();
+		if (bits < length)
+			clear(bits, length);
+	}
+
 	/** @param index the index of the bit
 	 * @return whether the bit is set
 	 * @throws ArrayIndexOutOfBoundsException if index < 0 or index >= words.length</></>*/
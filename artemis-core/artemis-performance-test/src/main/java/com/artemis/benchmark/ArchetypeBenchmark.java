@@ -0,0 +1,81 @@
+package com.artemis.benchmark;
+
+import com.artemis.Archetype;
+import com.artemis.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Archetype} construction, and creating (then deleting) entities
+ * from archetypes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class ArchetypeBenchmark {
+	@Param({"1000", "100000"})
+	public int entityCount;
+
+	@Param({"1", "16"})
+	public int compositions;
+
+	private World world;
+	private Archetype[] archetypes;
+	private int[] ids;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World();
+		archetypes = BenchmarkWorlds.archetypes(world, compositions);
+		ids = new int[entityCount];
+	}
+
+	@Benchmark
+	public Archetype build() {
+		Archetype archetype = null;
+		for (int mask = 0; compositions > mask; mask++)
+			archetype = BenchmarkWorlds.archetypeBuilder(mask).build(world);
+
+		return archetype;
+	}
+
+	@Benchmark
+	public void create() {
+		for (int i = 0; entityCount > i; i++)
+			ids[i] = world.create(archetypes[i % compositions]);
+		world.process();
+
+		for (int id : ids)
+			world.delete(id);
+		world.process();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(ArchetypeBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
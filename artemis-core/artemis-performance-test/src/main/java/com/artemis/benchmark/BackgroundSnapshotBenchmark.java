@@ -0,0 +1,132 @@
+package com.artemis.benchmark;
+
+import com.artemis.Aspect;
+import com.artemis.ComponentMapper;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.benchmark.domain.Domain.Position;
+import com.artemis.io.BackgroundSnapshots;
+import com.artemis.io.KryoArtemisSerializer;
+import com.artemis.io.SaveFileFormat;
+import com.artemis.io.SnapshotReport;
+import com.artemis.managers.WorldSerializationManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time the world is blocked by a Kryo save: saving synchronously, compared
+ * to capturing a snapshot for {@link BackgroundSnapshots}. Background
+ * serialization completes outside of the measured time.
+ * <p>
+ * 1% of all entities are changed before each save.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class BackgroundSnapshotBenchmark {
+	@Param({"100000", "1000000"})
+	public int entityCount;
+
+	/** Only copy changed entities on capture. */
+	@Param({"false", "true"})
+	public boolean incremental;
+
+	private World world;
+	private WorldSerializationManager wsm;
+	private ComponentMapper<Position> positions;
+	private EntitySubscription allEntities;
+	private BackgroundSnapshots snapshots;
+
+	private int[] entities;
+	private int cursor;
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private Future<SnapshotReport> pending;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World(new WorldConfigurationBuilder()
+			.with(new WorldSerializationManager())
+			.build());
+
+		wsm = world.getSystem(WorldSerializationManager.class);
+		wsm.setSerializer(new KryoArtemisSerializer(world));
+		positions = world.getMapper(Position.class);
+		allEntities = world.getAspectSubscriptionManager().get(Aspect.all());
+		entities = BenchmarkWorlds.populate(world, entityCount, BenchmarkWorlds.MAX_COMPOSITIONS);
+
+		snapshots = new BackgroundSnapshots(world);
+		snapshots.setSerializer(new KryoArtemisSerializer(snapshots.getSnapshotWorld()));
+		snapshots.setIncremental(incremental);
+	}
+
+	@TearDown(Level.Trial)
+	public void dispose() {
+		snapshots.dispose();
+	}
+
+	@TearDown(Level.Invocation)
+	public void awaitSerialized() throws Exception {
+		if (pending != null) {
+			pending.get();
+			pending = null;
+		}
+	}
+
+	@Benchmark
+	public int blocking() {
+		change();
+		out.reset();
+		wsm.save(out, new SaveFileFormat(allEntities.getEntities()));
+		return out.size();
+	}
+
+	@Benchmark
+	public void capture() {
+		change();
+		out.reset();
+		pending = snapshots.save(out, new SaveFileFormat(allEntities.getEntities()));
+	}
+
+	private void change() {
+		for (int i = 0, s = entityCount / 100; s > i; i++) {
+			positions.modify(entities[cursor]).x++;
+			cursor = (cursor + 1) % entityCount;
+		}
+
+		world.process();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(BackgroundSnapshotBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
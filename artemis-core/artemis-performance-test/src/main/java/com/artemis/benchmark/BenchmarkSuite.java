@@ -0,0 +1,51 @@
+package com.artemis.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the core benchmarks, writing results as JSON for regression
+ * tracking.
+ * <p>
+ * Arguments, all optional: result file (defaults to
+ * {@code artemis-benchmarks.json}), followed by a regular expression
+ * selecting benchmarks (defaults to the suite below). The same is possible
+ * with the shaded jar: {@code java -jar target/benchmarks.jar -rf json -rff out.json}.
+ */
+public final class BenchmarkSuite {
+	private static final String[] SUITE = {
+		EntityChurnBenchmark.class.getSimpleName(),
+		EntityEditBenchmark.class.getSimpleName(),
+		ArchetypeBenchmark.class.getSimpleName(),
+		SubscriptionSyncBenchmark.class.getSimpleName(),
+		IteratingSystemBenchmark.class.getSimpleName(),
+		ComponentMapperBenchmark.class.getSimpleName(),
+		EntityLinkBenchmark.class.getSimpleName(),
+		SerializationBenchmark.class.getSimpleName()
+	};
+
+	private BenchmarkSuite() {}
+
+	public static void main(String[] args) throws RunnerException {
+		String result = (args.length > 0) ? args[0] : "artemis-benchmarks.json";
+
+		OptionsBuilder builder = new OptionsBuilder();
+		if (args.length > 1) {
+			builder.include(args[1]);
+		} else {
+			for (String benchmark : SUITE)
+				builder.include(benchmark);
+		}
+
+		Options opt = builder
+			.shouldDoGC(true)
+			.resultFormat(ResultFormatType.JSON)
+			.result(result)
+			.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,75 @@
+package com.artemis.benchmark;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.Component;
+import com.artemis.World;
+import com.artemis.benchmark.domain.Domain.Color;
+import com.artemis.benchmark.domain.Domain.Damage;
+import com.artemis.benchmark.domain.Domain.Health;
+import com.artemis.benchmark.domain.Domain.Position;
+import com.artemis.benchmark.domain.Domain.Size;
+import com.artemis.benchmark.domain.Domain.Velocity;
+
+/**
+ * Shared world setup for the benchmark suite.
+ * <p>
+ * Every entity has a {@link Position} and a {@link Velocity}; up to
+ * {@link #MAX_COMPOSITIONS} compositions are formed by adding any subset
+ * of {@link Health}, {@link Damage}, {@link Size} and {@link Color}.
+ */
+final class BenchmarkWorlds {
+	static final int MAX_COMPOSITIONS = 16;
+
+	@SuppressWarnings("unchecked")
+	private static final Class<? extends Component>[] OPTIONAL = new Class[] {
+		Health.class, Damage.class, Size.class, Color.class
+	};
+
+	private BenchmarkWorlds() {}
+
+	/**
+	 * @return one archetype per composition, all including position and velocity.
+	 */
+	static Archetype[] archetypes(World world, int compositions) {
+		if (compositions < 1 || compositions > MAX_COMPOSITIONS)
+			throw new IllegalArgumentException("compositions must be within 1.." + MAX_COMPOSITIONS);
+
+		Archetype[] archetypes = new Archetype[compositions];
+		for (int mask = 0; compositions > mask; mask++)
+			archetypes[mask] = archetypeBuilder(mask).build(world);
+
+		return archetypes;
+	}
+
+	static ArchetypeBuilder archetypeBuilder(int mask) {
+		ArchetypeBuilder builder = new ArchetypeBuilder()
+			.add(Position.class)
+			.add(Velocity.class);
+
+		for (int i = 0; OPTIONAL.length > i; i++) {
+			if ((mask & (1 << i)) != 0)
+				builder.add(OPTIONAL[i]);
+		}
+
+		return builder;
+	}
+
+	/**
+	 * Creates {@code entityCount} entities, cycling through the archetypes.
+	 *
+	 * @return ids of created entities.
+	 */
+	static int[] populate(World world, Archetype[] archetypes, int entityCount) {
+		int[] ids = new int[entityCount];
+		for (int i = 0; entityCount > i; i++)
+			ids[i] = world.create(archetypes[i % archetypes.length]);
+
+		world.process();
+		return ids;
+	}
+
+	static int[] populate(World world, int entityCount, int compositions) {
+		return populate(world, archetypes(world, compositions), entityCount);
+	}
+}
@@ -0,0 +1,109 @@
+package com.artemis.benchmark;
+
+import com.artemis.Archetype;
+import com.artemis.Aspect;
+import com.artemis.Component;
+import com.artemis.World;
+import com.artemis.utils.IntBag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spawning and despawning a wave of short-lived projectiles, alongside
+ * 10k long-lived entities.
+ * <p>
+ * {@code loop} creates and deletes one entity at a time, {@code bulk} goes
+ * through {@link World#create(Archetype, int, IntBag)} and
+ * {@link World#deleteAll(IntBag)}, and {@code bulk_aspect} deletes the wave
+ * with {@link World#deleteAll(Aspect.Builder)}. Each invocation processes
+ * the world twice, once after spawning and once after despawning.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class BulkSpawnBenchmark {
+	private static final int POPULATION = 10000;
+
+	@Param({"1000", "10000", "100000"})
+	public int count;
+
+	private World world;
+	private Archetype projectile;
+	private final IntBag wave = new IntBag();
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World();
+		BenchmarkWorlds.populate(world, POPULATION, BenchmarkWorlds.MAX_COMPOSITIONS);
+		projectile = BenchmarkWorlds.archetypeBuilder(0)
+			.add(Projectile.class)
+			.build(world);
+	}
+
+	@Benchmark
+	public void loop() {
+		IntBag wave = this.wave;
+		wave.setSize(0);
+		for (int i = 0; count > i; i++)
+			wave.add(world.create(projectile));
+		world.process();
+
+		for (int i = 0, s = wave.size(); s > i; i++)
+			world.delete(wave.get(i));
+		world.process();
+	}
+
+	@Benchmark
+	public void bulk() {
+		IntBag wave = this.wave;
+		wave.setSize(0);
+		world.create(projectile, count, wave);
+		world.process();
+
+		world.deleteAll(wave);
+		world.process();
+	}
+
+	@Benchmark
+	public void bulk_aspect() {
+		wave.setSize(0);
+		world.create(projectile, count, wave);
+		world.process();
+
+		world.deleteAll(Aspect.all(Projectile.class));
+		world.process();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(BulkSpawnBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+
+	public static class Projectile extends Component {
+		public float ttl;
+	}
+}
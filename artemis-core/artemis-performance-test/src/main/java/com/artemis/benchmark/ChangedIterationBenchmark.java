@@ -0,0 +1,121 @@
+package com.artemis.benchmark;
+
+import com.artemis.Aspect;
+import com.artemis.BaseEntitySystem;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.benchmark.domain.Domain.Position;
+import com.artemis.benchmark.domain.Domain.Velocity;
+import com.artemis.systems.ChangedIteratingSystem;
+import com.artemis.systems.IteratingSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Syncing positions of 100k entities of which {@code changeRatio} moved
+ * since last tick: {@link IteratingSystem} visiting all entities versus
+ * {@link ChangedIteratingSystem} visiting moved entities only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class ChangedIterationBenchmark {
+	private static final int ENTITY_COUNT = 100000;
+
+	@Param({"iterating", "changed"})
+	public String system;
+
+	@Param({"0.01", "0.1", "1"})
+	public double changeRatio;
+
+	private World world;
+	private ComponentMapper<Position> positions;
+	private int[] ids;
+	private int changesPerTick;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		BaseEntitySystem sync = "changed".equals(system)
+			? new ChangedSyncSystem()
+			: new SyncSystem();
+
+		world = new World(new WorldConfigurationBuilder()
+			.with(sync)
+			.build());
+
+		ids = BenchmarkWorlds.populate(world, ENTITY_COUNT, 1);
+		positions = world.getMapper(Position.class);
+		changesPerTick = (int) (ENTITY_COUNT * changeRatio);
+	}
+
+	@Benchmark
+	public void process() {
+		for (int i = 0; changesPerTick > i; i++) {
+			positions.modify(ids[cursor]).x += 1;
+			cursor = (cursor + 1) % ENTITY_COUNT;
+		}
+
+		world.process();
+	}
+
+	public static class SyncSystem extends IteratingSystem {
+		private ComponentMapper<Position> positions;
+		public float checksum;
+
+		public SyncSystem() {
+			super(Aspect.all(Position.class, Velocity.class));
+		}
+
+		@Override
+		protected void process(int entityId) {
+			Position p = positions.get(entityId);
+			checksum += p.x + p.y;
+		}
+	}
+
+	public static class ChangedSyncSystem extends ChangedIteratingSystem {
+		private ComponentMapper<Position> positions;
+		public float checksum;
+
+		public ChangedSyncSystem() {
+			super(Aspect.all(Position.class, Velocity.class), Position.class);
+		}
+
+		@Override
+		protected void process(int entityId) {
+			Position p = positions.get(entityId);
+			checksum += p.x + p.y;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(ChangedIterationBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
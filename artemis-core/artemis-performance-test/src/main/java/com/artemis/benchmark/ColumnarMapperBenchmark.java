@@ -0,0 +1,251 @@
+package com.artemis.benchmark;
+
+import com.artemis.ColumnComponentMapper;
+import com.artemis.ColumnComponentMapper.DoubleColumn;
+import com.artemis.ColumnComponentMapper.FloatColumn;
+import com.artemis.ColumnComponentMapper.IntColumn;
+import com.artemis.ColumnComponentMapper.LongColumn;
+import com.artemis.Component;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.annotations.Columnar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code Bag}-backed versus {@link Columnar} position/velocity storage.
+ * <p>
+ * Components are created in shuffled entity order, so that bag-backed
+ * instances are scattered relative to entity id - as they would be after
+ * entities have come and gone for a while. Each benchmark iterates all
+ * entities in id order; {@code flyweight} goes through
+ * {@link ComponentMapper#get(int)}, {@code columns} through the typed
+ * columns of {@link ColumnComponentMapper}. The {@code particle} rows
+ * do the same for a component mixing all four column types.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 2, timeUnit = TimeUnit.SECONDS)
+public class ColumnarMapperBenchmark {
+
+	@Param({"100000", "1000000"})
+	public int entityCount;
+
+	private ComponentMapper<BagPosition> bagPositions;
+	private ComponentMapper<BagVelocity> bagVelocities;
+	private ComponentMapper<ColumnPosition> columnPositions;
+	private ComponentMapper<ColumnVelocity> columnVelocities;
+
+	private ComponentMapper<BagParticle> bagParticles;
+	private ComponentMapper<ColumnParticle> columnParticles;
+
+	private FloatColumn x, y, vx, vy;
+	private FloatColumn heat;
+	private IntColumn flags;
+	private LongColumn born;
+	private DoubleColumn mass;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		World world = new World();
+		bagPositions = world.getMapper(BagPosition.class);
+		bagVelocities = world.getMapper(BagVelocity.class);
+		columnPositions = world.getMapper(ColumnPosition.class);
+		columnVelocities = world.getMapper(ColumnVelocity.class);
+		bagParticles = world.getMapper(BagParticle.class);
+		columnParticles = world.getMapper(ColumnParticle.class);
+
+		for (int i = 0; entityCount > i; i++)
+			world.create();
+
+		int[] order = new int[entityCount];
+		for (int i = 0; entityCount > i; i++)
+			order[i] = i;
+		shuffle(order, new Random(0x50a));
+
+		for (int id : order) {
+			bagPositions.create(id);
+			bagVelocities.create(id).x = 1f;
+			columnPositions.create(id);
+			columnVelocities.create(id).x = 1f;
+			bagParticles.create(id).mass = id;
+			columnParticles.create(id).mass = id;
+		}
+		world.process();
+
+		ColumnComponentMapper<ColumnPosition> positions = (ColumnComponentMapper<ColumnPosition>) columnPositions;
+		ColumnComponentMapper<ColumnVelocity> velocities = (ColumnComponentMapper<ColumnVelocity>) columnVelocities;
+		x = positions.floatColumn("x");
+		y = positions.floatColumn("y");
+		vx = velocities.floatColumn("x");
+		vy = velocities.floatColumn("y");
+
+		ColumnComponentMapper<ColumnParticle> particles = (ColumnComponentMapper<ColumnParticle>) columnParticles;
+		heat = particles.floatColumn("heat");
+		flags = particles.intColumn("flags");
+		born = particles.longColumn("born");
+		mass = particles.doubleColumn("mass");
+	}
+
+	@Benchmark
+	public float read_bag() {
+		float sum = 0;
+		for (int id = 0; entityCount > id; id++) {
+			BagPosition p = bagPositions.get(id);
+			sum += p.x + p.y;
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public float read_flyweight() {
+		float sum = 0;
+		for (int id = 0; entityCount > id; id++) {
+			ColumnPosition p = columnPositions.get(id);
+			sum += p.x + p.y;
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public float read_columns() {
+		float sum = 0;
+		for (int id = 0; entityCount > id; id++)
+			sum += x.get(id) + y.get(id);
+
+		return sum;
+	}
+
+	@Benchmark
+	public void write_bag() {
+		for (int id = 0; entityCount > id; id++) {
+			BagPosition p = bagPositions.get(id);
+			BagVelocity v = bagVelocities.get(id);
+			p.x += v.x;
+			p.y += v.y;
+		}
+	}
+
+	@Benchmark
+	public void write_flyweight() {
+		for (int id = 0; entityCount > id; id++) {
+			ColumnPosition p = columnPositions.get(id);
+			ColumnVelocity v = columnVelocities.get(id);
+			p.x += v.x;
+			p.y += v.y;
+		}
+	}
+
+	@Benchmark
+	public void write_columns() {
+		for (int id = 0; entityCount > id; id++) {
+			x.set(id, x.get(id) + vx.get(id));
+			y.set(id, y.get(id) + vy.get(id));
+		}
+	}
+
+	@Benchmark
+	public double read_particle_bag() {
+		double sum = 0;
+		for (int id = 0; entityCount > id; id++) {
+			BagParticle p = bagParticles.get(id);
+			sum += p.heat + p.flags + p.born + p.mass;
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public double read_particle_flyweight() {
+		double sum = 0;
+		for (int id = 0; entityCount > id; id++) {
+			ColumnParticle p = columnParticles.get(id);
+			sum += p.heat + p.flags + p.born + p.mass;
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public double read_particle_columns() {
+		double sum = 0;
+		for (int id = 0; entityCount > id; id++)
+			sum += heat.get(id) + flags.get(id) + born.get(id) + mass.get(id);
+
+		return sum;
+	}
+
+	private static void shuffle(int[] values, Random rng) {
+		for (int i = values.length - 1; i > 0; i--) {
+			int j = rng.nextInt(i + 1);
+			int tmp = values[i];
+			values[i] = values[j];
+			values[j] = tmp;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(ColumnarMapperBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+
+	public static class BagPosition extends Component {
+		public float x, y;
+	}
+
+	public static class BagVelocity extends Component {
+		public float x, y;
+	}
+
+	@Columnar
+	public static class ColumnPosition extends Component {
+		public float x, y;
+	}
+
+	@Columnar
+	public static class ColumnVelocity extends Component {
+		public float x, y;
+	}
+
+	public static class BagParticle extends Component {
+		public float heat;
+		public int flags;
+		public long born;
+		public double mass;
+	}
+
+	@Columnar
+	public static class ColumnParticle extends Component {
+		public float heat;
+		public int flags;
+		public long born;
+		public double mass;
+	}
+}
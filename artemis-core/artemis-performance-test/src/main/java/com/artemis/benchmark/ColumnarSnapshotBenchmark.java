@@ -0,0 +1,137 @@
+package com.artemis.benchmark;
+
+import com.artemis.Aspect;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.io.ColumnarArtemisSerializer;
+import com.artemis.io.KryoArtemisSerializer;
+import com.artemis.io.SaveFileFormat;
+import com.artemis.managers.WorldSerializationManager;
+import com.artemis.utils.IntBag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restoring a snapshot with {@link ColumnarArtemisSerializer}, from a heap
+ * buffer and from a memory mapped file, compared to {@link KryoArtemisSerializer}.
+ * <p>
+ * Each load is followed by deleting the loaded entities again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class ColumnarSnapshotBenchmark {
+	@Param({"100000", "1000000"})
+	public int entityCount;
+
+	@Param({"16"})
+	public int compositions;
+
+	private World world;
+	private WorldSerializationManager wsm;
+	private EntitySubscription allEntities;
+
+	private KryoArtemisSerializer kryo;
+	private ColumnarArtemisSerializer columnar;
+
+	private byte[] kryoSnapshot;
+	private byte[] columnarSnapshot;
+	private File columnarFile;
+
+	@Setup(Level.Trial)
+	public void prepare() throws IOException {
+		world = new World(new WorldConfigurationBuilder()
+			.with(new WorldSerializationManager())
+			.build());
+
+		wsm = world.getSystem(WorldSerializationManager.class);
+		kryo = new KryoArtemisSerializer(world);
+		columnar = new ColumnarArtemisSerializer(world);
+
+		allEntities = world.getAspectSubscriptionManager().get(Aspect.all());
+		BenchmarkWorlds.populate(world, entityCount, compositions);
+
+		kryoSnapshot = save(kryo);
+		columnarSnapshot = save(columnar);
+
+		columnarFile = File.createTempFile("artemis-snapshot", ".bin");
+		FileOutputStream fos = new FileOutputStream(columnarFile);
+		fos.write(columnarSnapshot);
+		fos.close();
+	}
+
+	@TearDown(Level.Trial)
+	public void cleanup() {
+		columnarFile.delete();
+	}
+
+	@Benchmark
+	public void kryo() {
+		wsm.setSerializer(kryo);
+		delete(wsm.load(new ByteArrayInputStream(kryoSnapshot), SaveFileFormat.class));
+	}
+
+	@Benchmark
+	public void columnar() {
+		wsm.setSerializer(columnar);
+		delete(wsm.load(new ByteArrayInputStream(columnarSnapshot), SaveFileFormat.class));
+	}
+
+	@Benchmark
+	public void columnarMapped() {
+		delete(columnar.load(columnarFile, SaveFileFormat.class));
+	}
+
+	private byte[] save(WorldSerializationManager.ArtemisSerializer<?> backend) {
+		wsm.setSerializer(backend);
+		ByteArrayOutputStream out = new ByteArrayOutputStream(entityCount * 32);
+		wsm.save(out, new SaveFileFormat(allEntities.getEntities()));
+		return out.toByteArray();
+	}
+
+	private void delete(SaveFileFormat load) {
+		world.process();
+
+		IntBag loaded = load.entities;
+		for (int i = 0, s = loaded.size(); s > i; i++)
+			world.delete(loaded.get(i));
+
+		world.process();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(ColumnarSnapshotBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,85 @@
+package com.artemis.benchmark;
+
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.benchmark.domain.Domain.Health;
+import com.artemis.benchmark.domain.Domain.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ComponentMapper#get(int)} and {@link ComponentMapper#has(int)}
+ * over all entities, in id order. With more than one composition, only
+ * some entities have {@link Health}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class ComponentMapperBenchmark {
+	@Param({"1000", "100000"})
+	public int entityCount;
+
+	@Param({"1", "16"})
+	public int compositions;
+
+	private int[] ids;
+	private ComponentMapper<Position> positions;
+	private ComponentMapper<Health> health;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		World world = new World();
+		ids = BenchmarkWorlds.populate(world, entityCount, compositions);
+		positions = world.getMapper(Position.class);
+		health = world.getMapper(Health.class);
+	}
+
+	@Benchmark
+	public float get() {
+		float sum = 0;
+		for (int id : ids)
+			sum += positions.get(id).x;
+
+		return sum;
+	}
+
+	@Benchmark
+	public int has() {
+		int count = 0;
+		for (int id : ids) {
+			if (health.has(id))
+				count++;
+		}
+
+		return count;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(ComponentMapperBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
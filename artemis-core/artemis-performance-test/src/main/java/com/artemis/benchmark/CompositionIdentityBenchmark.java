@@ -0,0 +1,145 @@
+package com.artemis.benchmark;
+
+import com.artemis.Aspect;
+import com.artemis.Component;
+import com.artemis.ComponentManager;
+import com.artemis.EntityEdit;
+import com.artemis.EntityTransmuter;
+import com.artemis.World;
+import com.artemis.utils.BitVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Composition identity lookup as the number of distinct compositions grows.
+ * <p>
+ * One entity per composition. {@code transmute} builds a new transmuter per
+ * invocation, forcing a composition lookup for each transmuted entity, as
+ * during spawn waves with many component combinations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 2, timeUnit = TimeUnit.SECONDS)
+public class CompositionIdentityBenchmark {
+	private static final int TRANSMUTES_PER_OP = 256;
+
+	@SuppressWarnings("unchecked")
+	private static final Class<? extends Component>[] TYPES = new Class[] {
+		T0.class, T1.class, T2.class, T3.class, T4.class, T5.class, T6.class,
+		T7.class, T8.class, T9.class, T10.class, T11.class, T12.class, T13.class
+	};
+
+	@Param({"10", "100", "1000", "10000"})
+	public int compositions;
+
+	private World world;
+	private ComponentManager cm;
+	private int[] entities;
+	private BitVector[] bits;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World();
+		cm = world.getComponentManager();
+
+		int[] masks = new int[compositions];
+		for (int i = 0; compositions > i; i++)
+			masks[i] = i + 1;
+		shuffle(masks, new Random(4711));
+
+		entities = new int[compositions];
+		bits = new BitVector[compositions];
+		for (int i = 0; compositions > i; i++) {
+			int id = world.create();
+			EntityEdit edit = world.edit(id);
+			bits[i] = new BitVector();
+			for (int type = 0; TYPES.length > type; type++) {
+				if ((masks[i] & (1 << type)) != 0) {
+					edit.create(TYPES[type]);
+					bits[i].set(cm.getTypeFactory().getIndexFor(TYPES[type]));
+				}
+			}
+
+			entities[i] = id;
+		}
+
+		world.process();
+	}
+
+	@Benchmark
+	public int lookup() {
+		int sum = 0;
+		for (int i = 0; TRANSMUTES_PER_OP > i; i++)
+			sum += cm.compositionIdentity(bits[next()]);
+
+		return sum;
+	}
+
+	@Benchmark
+	public void transmute() {
+		EntityTransmuter transmuter = new EntityTransmuter(world, Aspect.all(TYPES[0]));
+		for (int i = 0; TRANSMUTES_PER_OP > i; i++)
+			transmuter.transmute(entities[next()]);
+	}
+
+	private int next() {
+		int index = cursor;
+		cursor = (index + 1 == compositions) ? 0 : index + 1;
+		return index;
+	}
+
+	private static void shuffle(int[] values, Random rng) {
+		for (int i = values.length - 1; i > 0; i--) {
+			int j = rng.nextInt(i + 1);
+			int tmp = values[i];
+			values[i] = values[j];
+			values[j] = tmp;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(CompositionIdentityBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+
+	public static class T0 extends Component {}
+	public static class T1 extends Component {}
+	public static class T2 extends Component {}
+	public static class T3 extends Component {}
+	public static class T4 extends Component {}
+	public static class T5 extends Component {}
+	public static class T6 extends Component {}
+	public static class T7 extends Component {}
+	public static class T8 extends Component {}
+	public static class T9 extends Component {}
+	public static class T10 extends Component {}
+	public static class T11 extends Component {}
+	public static class T12 extends Component {}
+	public static class T13 extends Component {}
+}
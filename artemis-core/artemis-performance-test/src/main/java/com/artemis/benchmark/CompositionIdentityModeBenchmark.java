@@ -0,0 +1,118 @@
+package com.artemis.benchmark;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.ComponentManager;
+import com.artemis.EntityTransmuter;
+import com.artemis.EntityTransmuterFactory;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.benchmark.domain.Domain.Health;
+import com.artemis.benchmark.domain.Domain.Position;
+import com.artemis.benchmark.domain.Domain.Velocity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compact ({@code short}) versus wide ({@code int}) composition identities,
+ * at 1M entities.
+ * <p>
+ * {@code populate} creates a new world per invocation; run with the
+ * GC profiler to compare allocations. Per entity, the composition id
+ * store occupies 2 bytes in compact mode and 4 bytes in wide mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Threads(1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 2, timeUnit = TimeUnit.SECONDS)
+public class CompositionIdentityModeBenchmark {
+	private static final int ENTITY_COUNT = 1000000;
+
+	@Param({"compact", "wide"})
+	public String mode;
+
+	private World world;
+	private ComponentManager cm;
+	private EntityTransmuter addHealth;
+	private EntityTransmuter removeHealth;
+	private boolean healthy;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = populate();
+		cm = world.getComponentManager();
+		addHealth = new EntityTransmuterFactory(world).add(Health.class).build();
+		removeHealth = new EntityTransmuterFactory(world).remove(Health.class).build();
+	}
+
+	@Benchmark
+	public int identities() {
+		int sum = 0;
+		for (int i = 0; ENTITY_COUNT > i; i++)
+			sum += cm.getIdentity(i);
+
+		return sum;
+	}
+
+	@Benchmark
+	public void transmute() {
+		EntityTransmuter transmuter = healthy ? removeHealth : addHealth;
+		for (int i = 0; ENTITY_COUNT > i; i++)
+			transmuter.transmute(i);
+
+		healthy = !healthy;
+		world.process();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 5)
+	@Measurement(iterations = 20)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public World populate() {
+		World world = new World(new WorldConfigurationBuilder()
+			.wideCompositionIdentity("wide".equals(mode))
+			.build());
+
+		Archetype archetype = new ArchetypeBuilder()
+			.add(Position.class)
+			.add(Velocity.class)
+			.build(world);
+
+		for (int i = 0; ENTITY_COUNT > i; i++)
+			world.create(archetype);
+
+		world.process();
+		return world;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(CompositionIdentityModeBenchmark.class.getSimpleName())
+			.addProfiler(GCProfiler.class)
+			.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,128 @@
+package com.artemis.benchmark;
+
+import com.artemis.utils.BitVector;
+import com.artemis.utils.CompressedBitVector;
+import com.artemis.utils.IntBag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BitVector} versus {@link CompressedBitVector}, for bitsets spanning
+ * 2M indices with {@code density} of all bits set.
+ * <p>
+ * {@code iterate} decodes all set bits, {@code contains} probes random
+ * indices and {@code toggle} flips random bits. The estimated size of
+ * both bitsets is printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class CompressedBitVectorBenchmark {
+	private static final int CAPACITY = 2000000;
+	private static final int PROBES = 4096;
+
+	@Param({"bitvector", "compressed"})
+	public String bitset;
+
+	@Param({"0.0005", "0.05", "0.5"})
+	public double density;
+
+	private BitVector bits;
+	private CompressedBitVector compressed;
+	private final IntBag out = new IntBag();
+	private int[] probes;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		Random rng = new Random(0xb175);
+		bits = new BitVector(CAPACITY);
+		compressed = new CompressedBitVector();
+		for (int i = 0; CAPACITY > i; i++) {
+			if (density > rng.nextDouble()) {
+				bits.set(i);
+				compressed.set(i);
+			}
+		}
+
+		probes = new int[PROBES];
+		for (int i = 0; PROBES > i; i++)
+			probes[i] = rng.nextInt(CAPACITY);
+
+		System.out.println();
+		System.out.println("density " + density + ": bitvector " + (CAPACITY / 8 >> 10) + " KB, " +
+			"compressed " + (compressed.sizeInBytes() >> 10) + " KB");
+	}
+
+	@Benchmark
+	public int iterate() {
+		if ("compressed".equals(bitset))
+			compressed.toIntBag(out);
+		else
+			bits.toIntBag(out);
+
+		return out.size();
+	}
+
+	@Benchmark
+	public int contains() {
+		int[] probes = this.probes;
+		int found = 0;
+		if ("compressed".equals(bitset)) {
+			for (int i = 0; PROBES > i; i++) {
+				if (compressed.get(probes[i]))
+					found++;
+			}
+		} else {
+			for (int i = 0; PROBES > i; i++) {
+				if (bits.unsafeGet(probes[i]))
+					found++;
+			}
+		}
+
+		return found;
+	}
+
+	@Benchmark
+	public void toggle() {
+		int index = probes[cursor++ & (PROBES - 1)];
+		if ("compressed".equals(bitset)) {
+			if (compressed.get(index))
+				compressed.clear(index);
+			else
+				compressed.set(index);
+		} else {
+			bits.flip(index);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(CompressedBitVectorBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
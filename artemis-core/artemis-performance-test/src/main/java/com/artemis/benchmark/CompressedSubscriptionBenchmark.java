@@ -0,0 +1,164 @@
+package com.artemis.benchmark;
+
+import com.artemis.Aspect;
+import com.artemis.AspectSubscriptionManager;
+import com.artemis.Component;
+import com.artemis.EntityEdit;
+import com.artemis.EntitySubscription;
+import com.artemis.EntityTransmuter;
+import com.artemis.EntityTransmuterFactory;
+import com.artemis.World;
+import com.artemis.WorldConfiguration;
+import com.artemis.benchmark.SubscriptionSyncBenchmark.*;
+import com.artemis.utils.IntBag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regular versus compressed subscriptions: 300 subscriptions over 1M
+ * entities, each entity having each of twelve component types with
+ * probability {@code density}. Sparse subscriptions match a few thousand
+ * entities each, dense ones about half of all entities.
+ * <p>
+ * {@code sync} changes the composition of 10k entities per tick, then
+ * processes the world; {@code iterate} visits the entities of all
+ * subscriptions. The retained heap after setup is printed on tear down.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 2, timeUnit = TimeUnit.SECONDS)
+public class CompressedSubscriptionBenchmark {
+	private static final int ENTITY_COUNT = 1000000;
+	private static final int SUBSCRIPTIONS = 300;
+	private static final int CHANGES = 10000;
+
+	@SuppressWarnings("unchecked")
+	private static final Class<? extends Component>[] TYPES = new Class[] {
+		T0.class, T1.class, T2.class, T3.class, T4.class, T5.class,
+		T6.class, T7.class, T8.class, T9.class, T10.class, T11.class
+	};
+
+	@Param({"false", "true"})
+	public boolean compressed;
+
+	@Param({"0.002", "0.5"})
+	public double density;
+
+	private World world;
+	private EntitySubscription[] subscriptions;
+	private EntityTransmuter[] transmuters;
+	private int tick;
+	private int cursor;
+
+	private long retainedHeap;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World(new WorldConfiguration()
+			.setCompressedSubscriptions(compressed));
+		Random rng = new Random(0x5ab5);
+
+		AspectSubscriptionManager asm = world.getAspectSubscriptionManager();
+		subscriptions = new EntitySubscription[SUBSCRIPTIONS];
+		for (int i = 0; SUBSCRIPTIONS > i; i++)
+			subscriptions[i] = asm.get(aspect(rng));
+
+		for (int i = 0; ENTITY_COUNT > i; i++) {
+			EntityEdit edit = world.edit(world.create());
+			for (int j = 0; TYPES.length > j; j++) {
+				if (density > rng.nextDouble())
+					edit.create(TYPES[j]);
+			}
+		}
+
+		transmuters = new EntityTransmuter[TYPES.length * 2];
+		for (int i = 0; TYPES.length > i; i++) {
+			transmuters[i * 2] = new EntityTransmuterFactory(world).add(TYPES[i]).build();
+			transmuters[i * 2 + 1] = new EntityTransmuterFactory(world).remove(TYPES[i]).build();
+		}
+
+		world.process();
+		retainedHeap = usedHeap();
+	}
+
+	@TearDown(Level.Trial)
+	public void report() {
+		System.out.println();
+		System.out.println("compressed=" + compressed + ", density=" + density +
+			": retained heap " + (retainedHeap >> 20) + " MB");
+	}
+
+	@Benchmark
+	public void sync() {
+		EntityTransmuter transmuter = transmuters[tick++ % transmuters.length];
+		for (int i = 0; CHANGES > i; i++) {
+			transmuter.transmute(cursor);
+			cursor = (cursor + 1) % ENTITY_COUNT;
+		}
+
+		world.process();
+	}
+
+	@Benchmark
+	public long iterate() {
+		long sum = 0;
+		for (EntitySubscription subscription : subscriptions) {
+			IntBag entities = subscription.getEntities();
+			int[] ids = entities.getData();
+			for (int i = 0, s = entities.size(); s > i; i++)
+				sum += ids[i];
+		}
+
+		return sum;
+	}
+
+	/** Distinct aspects; one or two required types, optionally excluding a third. */
+	private static Aspect.Builder aspect(Random rng) {
+		Aspect.Builder aspect = Aspect.all(TYPES[rng.nextInt(TYPES.length)]);
+		if (rng.nextBoolean())
+			aspect.all(TYPES[rng.nextInt(TYPES.length)]);
+		if (rng.nextBoolean())
+			aspect.exclude(TYPES[rng.nextInt(TYPES.length)]);
+
+		return aspect;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; 3 > i; i++)
+			System.gc();
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(CompressedSubscriptionBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,104 @@
+package com.artemis.benchmark;
+
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.benchmark.domain.Domain.Position;
+import com.artemis.io.ColumnarArtemisSerializer;
+import com.artemis.io.DeltaSnapshots;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic snapshots where a small share of entities change between
+ * snapshots: a full snapshot each time, compared to a delta snapshot
+ * of only the changed entities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class DeltaSnapshotBenchmark {
+	@Param({"100000", "1000000"})
+	public int entityCount;
+
+	/** Changed entities per snapshot, in percent. */
+	@Param({"1", "10"})
+	public int changedPercent;
+
+	private World world;
+	private ComponentMapper<Position> positions;
+	private DeltaSnapshots snapshots;
+	private ByteArrayOutputStream out;
+
+	private int[] entities;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World(new WorldConfigurationBuilder().build());
+		positions = world.getMapper(Position.class);
+		entities = BenchmarkWorlds.populate(world, entityCount, BenchmarkWorlds.MAX_COMPOSITIONS);
+
+		snapshots = new DeltaSnapshots(world, new ColumnarArtemisSerializer(world));
+		snapshots.setMaxChainLength(Integer.MAX_VALUE);
+		snapshots.setRebaseRatio(1f);
+
+		out = new ByteArrayOutputStream(entityCount * 64);
+		snapshots.saveBase(out);
+	}
+
+	@Benchmark
+	public int full() {
+		change();
+		out.reset();
+		snapshots.saveBase(out);
+		return out.size();
+	}
+
+	@Benchmark
+	public int delta() {
+		change();
+		out.reset();
+		snapshots.saveDelta(out);
+		return out.size();
+	}
+
+	private void change() {
+		for (int i = 0, s = entityCount * changedPercent / 100; s > i; i++) {
+			positions.modify(entities[cursor]).x++;
+			cursor = (cursor + 1) % entityCount;
+		}
+
+		world.process();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(DeltaSnapshotBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,73 @@
+package com.artemis.benchmark;
+
+import com.artemis.Archetype;
+import com.artemis.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity create/delete churn: each invocation deletes a tenth of all
+ * entities and creates as many replacements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class EntityChurnBenchmark {
+	@Param({"1000", "100000"})
+	public int entityCount;
+
+	@Param({"1", "16"})
+	public int compositions;
+
+	private World world;
+	private Archetype[] archetypes;
+	private int[] ids;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World();
+		archetypes = BenchmarkWorlds.archetypes(world, compositions);
+		ids = BenchmarkWorlds.populate(world, archetypes, entityCount);
+	}
+
+	@Benchmark
+	public void churn() {
+		for (int i = 0, s = entityCount / 10; s > i; i++) {
+			world.delete(ids[cursor]);
+			ids[cursor] = world.create(archetypes[cursor % compositions]);
+			cursor = (cursor + 1) % entityCount;
+		}
+
+		world.process();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(EntityChurnBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,131 @@
+package com.artemis.benchmark;
+
+import com.artemis.EntityEdit;
+import com.artemis.EntityTransmuter;
+import com.artemis.EntityTransmuterFactory;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.benchmark.domain.Domain.Color;
+import com.artemis.benchmark.domain.Domain.Damage;
+import com.artemis.benchmark.domain.Domain.Health;
+import com.artemis.benchmark.domain.Domain.Position;
+import com.artemis.benchmark.domain.Domain.Size;
+import com.artemis.benchmark.domain.Domain.Velocity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding and removing a component on all entities, through
+ * {@link EntityEdit} and {@link EntityTransmuter} respectively.
+ * Each invocation toggles {@link Health} and processes the world.
+ * <p>
+ * {@code spawn} assembles as many new entities with six components each
+ * through {@link EntityEdit}, then deletes them again. Compare
+ * with and without {@link WorldConfigurationBuilder#coalescingEdits(boolean)
+ * coalescing edits}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class EntityEditBenchmark {
+	@Param({"1000", "100000"})
+	public int entityCount;
+
+	@Param({"1", "16"})
+	public int compositions;
+
+	@Param({"false", "true"})
+	public boolean coalescing;
+
+	private World world;
+	private int[] ids;
+	private int[] spawned;
+	private EntityTransmuter addHealth;
+	private EntityTransmuter removeHealth;
+	private boolean healthy;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World(new WorldConfigurationBuilder()
+			.coalescingEdits(coalescing)
+			.build());
+		ids = BenchmarkWorlds.populate(world, entityCount, compositions);
+		spawned = new int[entityCount];
+		addHealth = new EntityTransmuterFactory(world).add(Health.class).build();
+		removeHealth = new EntityTransmuterFactory(world).remove(Health.class).build();
+	}
+
+	@Benchmark
+	public void edit() {
+		for (int id : ids) {
+			if (healthy)
+				world.edit(id).remove(Health.class);
+			else
+				world.edit(id).create(Health.class);
+		}
+
+		healthy = !healthy;
+		world.process();
+	}
+
+	@Benchmark
+	public void transmute() {
+		EntityTransmuter transmuter = healthy ? removeHealth : addHealth;
+		for (int id : ids)
+			transmuter.transmute(id);
+
+		healthy = !healthy;
+		world.process();
+	}
+
+	@Benchmark
+	public void spawn() {
+		int[] spawned = this.spawned;
+		for (int i = 0; spawned.length > i; i++) {
+			int id = world.create();
+			EntityEdit edit = world.edit(id);
+			edit.create(Position.class);
+			edit.create(Velocity.class);
+			edit.create(Health.class);
+			edit.create(Damage.class);
+			edit.create(Size.class);
+			edit.create(Color.class);
+
+			spawned[i] = id;
+		}
+		world.process();
+
+		for (int id : spawned)
+			world.delete(id);
+		world.process();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(EntityEditBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
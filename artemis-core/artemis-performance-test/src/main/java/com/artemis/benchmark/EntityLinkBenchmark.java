@@ -0,0 +1,105 @@
+package com.artemis.benchmark;
+
+import com.artemis.Component;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.annotations.EntityId;
+import com.artemis.link.EntityLinkManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import java.util.Random;
+
+/**
+ * {@link EntityLinkManager} processing. Every entity links to another;
+ * each invocation retargets a tenth of all links and deletes and replaces
+ * a hundredth of all entities, then processes the world. Links are
+ * retargeted via {@link ComponentMapper#modify(int)}, as required when
+ * {@code eventDriven}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class EntityLinkBenchmark {
+	@Param({"1000", "100000"})
+	public int entityCount;
+
+	@Param({"false", "true"})
+	public boolean eventDriven;
+
+	private World world;
+	private ComponentMapper<Link> links;
+	private int[] ids;
+	private Random rng;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World(new WorldConfigurationBuilder()
+			.with(new EntityLinkManager(true, true, eventDriven))
+			.build());
+
+		links = world.getMapper(Link.class);
+		rng = new Random(0x1ee7);
+
+		ids = new int[entityCount];
+		for (int i = 0; entityCount > i; i++)
+			ids[i] = world.create();
+
+		for (int id : ids)
+			links.create(id).target = ids[rng.nextInt(entityCount)];
+
+		world.process();
+	}
+
+	@Benchmark
+	public void process() {
+		for (int i = 0, s = entityCount / 10; s > i; i++) {
+			Link link = links.modify(ids[rng.nextInt(entityCount)]);
+			link.target = ids[rng.nextInt(entityCount)];
+		}
+
+		for (int i = 0, s = entityCount / 100; s > i; i++) {
+			world.delete(ids[cursor]);
+			ids[cursor] = world.create();
+			links.create(ids[cursor]).target = ids[rng.nextInt(entityCount)];
+			cursor = (cursor + 1) % entityCount;
+		}
+
+		world.process();
+	}
+
+	public static class Link extends Component {
+		@EntityId public int target = -1;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(EntityLinkBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
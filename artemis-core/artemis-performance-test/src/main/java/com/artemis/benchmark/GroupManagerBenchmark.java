@@ -0,0 +1,116 @@
+package com.artemis.benchmark;
+
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.managers.GroupManager;
+import com.artemis.utils.IntBag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GroupManager} with 100k entities, each in 4 of 16 groups:
+ * membership checks by name and by id, two-group intersection, and
+ * removing an entity from all its groups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class GroupManagerBenchmark {
+	private static final int ENTITY_COUNT = 100000;
+	private static final int GROUP_COUNT = 16;
+	private static final int GROUPS_PER_ENTITY = 4;
+
+	private World world;
+	private GroupManager groups;
+	private String[] names;
+	private int[] ids;
+	private final IntBag out = new IntBag();
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		groups = new GroupManager();
+		world = new World(new WorldConfigurationBuilder()
+			.with(groups)
+			.build());
+
+		names = new String[GROUP_COUNT];
+		for (int i = 0; GROUP_COUNT > i; i++)
+			names[i] = "group" + i;
+
+		ids = new int[ENTITY_COUNT];
+		for (int i = 0; ENTITY_COUNT > i; i++) {
+			ids[i] = world.create();
+			for (int j = 0; GROUPS_PER_ENTITY > j; j++)
+				groups.add(ids[i], names[(i + j * 5) % GROUP_COUNT]);
+		}
+
+		world.process();
+	}
+
+	@Benchmark
+	public int is_in_group_by_name() {
+		int count = 0;
+		for (int i = 0; 1000 > i; i++) {
+			if (groups.isInGroup(next(), names[i % GROUP_COUNT]))
+				count++;
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int is_in_group_by_id() {
+		int count = 0;
+		for (int i = 0; 1000 > i; i++) {
+			if (groups.isInGroup(next(), i % GROUP_COUNT))
+				count++;
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int entities_in_two_groups() {
+		return groups.getEntityIdsInAll(out, 0, 5).size();
+	}
+
+	@Benchmark
+	public void remove_from_all_groups() {
+		int entity = next();
+		groups.removeFromAllGroups(entity);
+		for (int j = 0; GROUPS_PER_ENTITY > j; j++)
+			groups.add(entity, (entity + j * 5) % GROUP_COUNT);
+	}
+
+	private int next() {
+		cursor = (cursor + 7919) % ENTITY_COUNT;
+		return ids[cursor];
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(GroupManagerBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
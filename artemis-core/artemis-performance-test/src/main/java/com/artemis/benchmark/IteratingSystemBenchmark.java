@@ -0,0 +1,103 @@
+package com.artemis.benchmark;
+
+import com.artemis.Aspect;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.benchmark.domain.Domain.Damage;
+import com.artemis.benchmark.domain.Domain.Health;
+import com.artemis.benchmark.domain.Domain.Position;
+import com.artemis.benchmark.domain.Domain.Velocity;
+import com.artemis.systems.IteratingSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IteratingSystem} iteration: one system matching all entities and
+ * one matching the subset with both {@link Health} and {@link Damage}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class IteratingSystemBenchmark {
+	@Param({"1000", "100000"})
+	public int entityCount;
+
+	@Param({"1", "16"})
+	public int compositions;
+
+	private World world;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World(new WorldConfigurationBuilder()
+			.with(new MovementSystem(), new DamageSystem())
+			.build());
+
+		BenchmarkWorlds.populate(world, entityCount, compositions);
+	}
+
+	@Benchmark
+	public void process() {
+		world.process();
+	}
+
+	public static class MovementSystem extends IteratingSystem {
+		private ComponentMapper<Position> positions;
+		private ComponentMapper<Velocity> velocities;
+
+		public MovementSystem() {
+			super(Aspect.all(Position.class, Velocity.class));
+		}
+
+		@Override
+		protected void process(int entityId) {
+			Position p = positions.get(entityId);
+			Velocity v = velocities.get(entityId);
+			p.x += v.x;
+			p.y += v.y;
+		}
+	}
+
+	public static class DamageSystem extends IteratingSystem {
+		private ComponentMapper<Health> health;
+
+		public DamageSystem() {
+			super(Aspect.all(Health.class, Damage.class));
+		}
+
+		@Override
+		protected void process(int entityId) {
+			health.get(entityId);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(IteratingSystemBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,187 @@
+package com.artemis.benchmark;
+
+import com.artemis.Component;
+import com.artemis.ComponentMapper;
+import com.artemis.OffHeapComponentMapper;
+import com.artemis.World;
+import com.artemis.annotations.OffHeap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap-backed versus {@link OffHeap} components, at 1M entities with four
+ * components each.
+ * <p>
+ * {@code churn} removes and re-creates a tenth of all components per
+ * invocation, {@code iterate} integrates positions through the mappers'
+ * flyweights and {@code iterate_direct} through off-heap field offsets.
+ * Run with the GC profiler for allocation and collection counts; the
+ * retained heap after setup and the accumulated collector time per trial
+ * are printed on tear down.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 2, timeUnit = TimeUnit.SECONDS)
+public class OffHeapMapperBenchmark {
+	private static final int ENTITY_COUNT = 1000000;
+	private static final int CHURN = ENTITY_COUNT / 10;
+
+	@Param({"heap", "offheap"})
+	public String storage;
+
+	private World world;
+	private ComponentMapper<? extends Body> positions;
+	private ComponentMapper<? extends Body> velocities;
+	private ComponentMapper<? extends Body> accelerations;
+	private ComponentMapper<? extends Body> masses;
+	private int cursor;
+
+	private long retainedHeap;
+	private long gcMillisAtStart;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World();
+		positions = mapper(HeapPosition.class, OffHeapPosition.class);
+		velocities = mapper(HeapVelocity.class, OffHeapVelocity.class);
+		accelerations = mapper(HeapAcceleration.class, OffHeapAcceleration.class);
+		masses = mapper(HeapMass.class, OffHeapMass.class);
+
+		for (int i = 0; ENTITY_COUNT > i; i++) {
+			int id = world.create();
+			positions.create(id);
+			velocities.create(id).x = 1f;
+			accelerations.create(id);
+			masses.create(id);
+		}
+		world.process();
+
+		retainedHeap = usedHeap();
+		gcMillisAtStart = gcMillis();
+	}
+
+	@TearDown(Level.Trial)
+	public void report() {
+		System.out.println();
+		System.out.println(storage + ": retained heap " + (retainedHeap >> 20) + " MB, " +
+			"gc time during trial " + (gcMillis() - gcMillisAtStart) + " ms");
+	}
+
+	@Benchmark
+	public void churn() {
+		for (int i = 0; CHURN > i; i++) {
+			int id = cursor;
+			cursor = (cursor + 1) % ENTITY_COUNT;
+			positions.remove(id);
+			masses.remove(id);
+		}
+		world.process();
+
+		for (int i = 0, id = (cursor - CHURN + ENTITY_COUNT) % ENTITY_COUNT; CHURN > i; i++) {
+			positions.create(id).y = i;
+			masses.create(id);
+			id = (id + 1) % ENTITY_COUNT;
+		}
+		world.process();
+	}
+
+	/** As {@link #iterate()}, bypassing the flyweight for off-heap storage. */
+	@Benchmark
+	public void iterate_direct() {
+		if (!"offheap".equals(storage)) {
+			iterate();
+			return;
+		}
+
+		OffHeapComponentMapper<?> p = (OffHeapComponentMapper<?>) positions;
+		OffHeapComponentMapper<?> v = (OffHeapComponentMapper<?>) velocities;
+		int px = p.offset("x"), py = p.offset("y");
+		int vx = v.offset("x"), vy = v.offset("y");
+		for (int id = 0; ENTITY_COUNT > id; id++) {
+			p.setFloat(id, px, p.getFloat(id, px) + v.getFloat(id, vx));
+			p.setFloat(id, py, p.getFloat(id, py) + v.getFloat(id, vy));
+		}
+	}
+
+	@Benchmark
+	public void iterate() {
+		for (int id = 0; ENTITY_COUNT > id; id++) {
+			Body v = velocities.get(id);
+			float vx = v.x;
+			float vy = v.y;
+
+			Body p = positions.get(id);
+			p.x += vx;
+			p.y += vy;
+		}
+	}
+
+	private ComponentMapper<? extends Body> mapper(Class<? extends Body> heap, Class<? extends Body> offHeap) {
+		Class<? extends Body> type = "offheap".equals(storage) ? offHeap : heap;
+		return world.getMapper(type);
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; 3 > i; i++)
+			System.gc();
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			millis += Math.max(0, gc.getCollectionTime());
+
+		return millis;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(OffHeapMapperBenchmark.class.getSimpleName())
+			.addProfiler(GCProfiler.class)
+			.build();
+
+		new Runner(opt).run();
+	}
+
+	public static abstract class Body extends Component {
+		public float x, y;
+	}
+
+	public static class HeapPosition extends Body {}
+	public static class HeapVelocity extends Body {}
+	public static class HeapAcceleration extends Body {}
+	public static class HeapMass extends Body {}
+
+	@OffHeap public static class OffHeapPosition extends Body {}
+	@OffHeap public static class OffHeapVelocity extends Body {}
+	@OffHeap public static class OffHeapAcceleration extends Body {}
+	@OffHeap public static class OffHeapMass extends Body {}
+}
@@ -0,0 +1,193 @@
+package com.artemis.benchmark;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.Component;
+import com.artemis.ComponentMapper;
+import com.artemis.InvocationStrategy;
+import com.artemis.ParallelInvocationStrategy;
+import com.artemis.SystemInvocationStrategy;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.annotations.All;
+import com.artemis.annotations.Reads;
+import com.artemis.annotations.Writes;
+import com.artemis.systems.IteratingSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link InvocationStrategy} against {@link ParallelInvocationStrategy}.
+ * <p>
+ * Four independent chains of systems, each chain integrating its own
+ * pair of components; systems within a chain conflict, but chains do not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 2, timeUnit = TimeUnit.SECONDS)
+public class ParallelInvocationBenchmark {
+
+	@Param({"sequential", "parallel"})
+	public String strategy;
+
+	@Param({"1000", "100000"})
+	public int entityCount;
+
+	private World world;
+	private ForkJoinPool pool;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		SystemInvocationStrategy invocationStrategy;
+		if ("parallel".equals(strategy)) {
+			pool = new ForkJoinPool();
+			invocationStrategy = new ParallelInvocationStrategy(pool);
+		} else {
+			invocationStrategy = new InvocationStrategy();
+		}
+
+		world = new World(new WorldConfigurationBuilder()
+			.with(
+				new Accelerate0(), new Move0(), new Accelerate1(), new Move1(),
+				new Accelerate2(), new Move2(), new Accelerate3(), new Move3())
+			.register(invocationStrategy)
+			.build());
+
+		Archetype archetype = new ArchetypeBuilder()
+			.add(Pos0.class).add(Vel0.class)
+			.add(Pos1.class).add(Vel1.class)
+			.add(Pos2.class).add(Vel2.class)
+			.add(Pos3.class).add(Vel3.class)
+			.build(world);
+
+		for (int i = 0; entityCount > i; i++)
+			world.create(archetype);
+
+		world.setDelta(1 / 60f);
+		world.process();
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdown() {
+		if (pool != null)
+			pool.shutdown();
+	}
+
+	@Benchmark
+	public void process() {
+		world.process();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(ParallelInvocationBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+
+	public static class Vec extends Component {
+		public float x, y;
+	}
+
+	public static class Pos0 extends Vec {}
+	public static class Pos1 extends Vec {}
+	public static class Pos2 extends Vec {}
+	public static class Pos3 extends Vec {}
+	public static class Vel0 extends Vec {}
+	public static class Vel1 extends Vec {}
+	public static class Vel2 extends Vec {}
+	public static class Vel3 extends Vec {}
+
+	abstract static class Integrate extends IteratingSystem {
+		private ComponentMapper<? extends Vec> target;
+		private ComponentMapper<? extends Vec> source;
+		private final Class<? extends Vec> targetType;
+		private final Class<? extends Vec> sourceType;
+
+		Integrate(Class<? extends Vec> targetType, Class<? extends Vec> sourceType) {
+			this.targetType = targetType;
+			this.sourceType = sourceType;
+		}
+
+		@Override
+		protected void initialize() {
+			target = world.getMapper(targetType);
+			source = world.getMapper(sourceType);
+		}
+
+		@Override
+		protected void process(int entityId) {
+			Vec t = target.get(entityId);
+			Vec s = source.get(entityId);
+			float dt = world.delta;
+			for (int i = 0; 16 > i; i++) {
+				t.x += (float) Math.sin(s.y + i) * dt;
+				t.y += (float) Math.cos(s.x + i) * dt;
+			}
+		}
+	}
+
+	@All({Vel0.class, Pos0.class}) @Writes(Vel0.class) @Reads(Pos0.class)
+	public static class Accelerate0 extends Integrate {
+		public Accelerate0() { super(Vel0.class, Pos0.class); }
+	}
+
+	@All({Pos0.class, Vel0.class}) @Writes(Pos0.class) @Reads(Vel0.class)
+	public static class Move0 extends Integrate {
+		public Move0() { super(Pos0.class, Vel0.class); }
+	}
+
+	@All({Vel1.class, Pos1.class}) @Writes(Vel1.class) @Reads(Pos1.class)
+	public static class Accelerate1 extends Integrate {
+		public Accelerate1() { super(Vel1.class, Pos1.class); }
+	}
+
+	@All({Pos1.class, Vel1.class}) @Writes(Pos1.class) @Reads(Vel1.class)
+	public static class Move1 extends Integrate {
+		public Move1() { super(Pos1.class, Vel1.class); }
+	}
+
+	@All({Vel2.class, Pos2.class}) @Writes(Vel2.class) @Reads(Pos2.class)
+	public static class Accelerate2 extends Integrate {
+		public Accelerate2() { super(Vel2.class, Pos2.class); }
+	}
+
+	@All({Pos2.class, Vel2.class}) @Writes(Pos2.class) @Reads(Vel2.class)
+	public static class Move2 extends Integrate {
+		public Move2() { super(Pos2.class, Vel2.class); }
+	}
+
+	@All({Vel3.class, Pos3.class}) @Writes(Vel3.class) @Reads(Pos3.class)
+	public static class Accelerate3 extends Integrate {
+		public Accelerate3() { super(Vel3.class, Pos3.class); }
+	}
+
+	@All({Pos3.class, Vel3.class}) @Writes(Pos3.class) @Reads(Vel3.class)
+	public static class Move3 extends Integrate {
+		public Move3() { super(Pos3.class, Vel3.class); }
+	}
+}
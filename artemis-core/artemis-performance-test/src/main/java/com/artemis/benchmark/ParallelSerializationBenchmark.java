@@ -0,0 +1,119 @@
+package com.artemis.benchmark;
+
+import com.artemis.Aspect;
+import com.artemis.ComponentMapper;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.benchmark.domain.Domain.Position;
+import com.artemis.io.KryoArtemisSerializer;
+import com.artemis.io.SaveFileFormat;
+import com.artemis.managers.WorldSerializationManager;
+import com.artemis.utils.IntBag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kryo save and load, regular versus in partitions serialized concurrently
+ * on one thread per available processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class ParallelSerializationBenchmark {
+	@Param({"100000", "1000000", "5000000"})
+	public int entityCount;
+
+	/** {@code 1} for regular save and load. */
+	@Param({"1", "4", "16"})
+	public int partitions;
+
+	private World world;
+	private WorldSerializationManager wsm;
+	private EntitySubscription allEntities;
+	private ExecutorService executor;
+	private byte[] saved;
+
+	private ByteArrayOutputStream out;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World(new WorldConfigurationBuilder()
+			.with(new WorldSerializationManager())
+			.build());
+
+		executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		wsm = world.getSystem(WorldSerializationManager.class);
+		wsm.setSerializer(new KryoArtemisSerializer(world).setParallel(executor, partitions));
+
+		allEntities = world.getAspectSubscriptionManager().get(Aspect.all());
+		int[] entities = BenchmarkWorlds.populate(world, entityCount, BenchmarkWorlds.MAX_COMPOSITIONS);
+
+		// components with default values aren't written
+		ComponentMapper<Position> positions = world.getMapper(Position.class);
+		for (int i = 0; entityCount > i; i++)
+			positions.get(entities[i]).x = i;
+
+		out = new ByteArrayOutputStream(entityCount * 64);
+		save();
+		saved = out.toByteArray();
+	}
+
+	@TearDown(Level.Trial)
+	public void dispose() {
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public int save() {
+		out.reset();
+		wsm.save(out, new SaveFileFormat(allEntities.getEntities()));
+		return out.size();
+	}
+
+	@Benchmark
+	public void load() {
+		SaveFileFormat load = wsm.load(new ByteArrayInputStream(saved), SaveFileFormat.class);
+		world.process();
+
+		IntBag loaded = load.entities;
+		for (int i = 0, s = loaded.size(); s > i; i++)
+			world.delete(loaded.get(i));
+
+		world.process();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(ParallelSerializationBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,141 @@
+package com.artemis.benchmark;
+
+import com.artemis.Aspect;
+import com.artemis.BaseSystem;
+import com.artemis.Component;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.systems.DelayedIteratingSystem;
+import com.artemis.systems.ScheduledIteratingSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1M cooldown timers, of which about {@code expiriesPerTick} expire - and
+ * are renewed - per tick: {@link DelayedIteratingSystem} counting down
+ * every timer whenever the earliest one expires, versus
+ * {@link ScheduledIteratingSystem} only visiting expired timers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class ScheduledExpiryBenchmark {
+	private static final int TIMER_COUNT = 1000000;
+	private static final float DELTA = 1f / 60;
+
+	@Param({"delayed", "scheduled"})
+	public String system;
+
+	@Param({"5", "500"})
+	public int expiriesPerTick;
+
+	private World world;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		// renewed timers keep the expiry rate steady
+		float lifetime = TIMER_COUNT * DELTA / expiriesPerTick;
+
+		BaseSystem expiry = "scheduled".equals(system)
+			? new ScheduledCooldownSystem(lifetime)
+			: new DelayedCooldownSystem(lifetime);
+
+		world = new World(new WorldConfigurationBuilder()
+			.with(expiry)
+			.build());
+
+		Random rng = new Random(0xc001);
+		ComponentMapper<Cooldown> cooldowns = world.getMapper(Cooldown.class);
+		for (int i = 0; TIMER_COUNT > i; i++)
+			cooldowns.create(world.create()).remaining = rng.nextFloat() * lifetime;
+
+		world.delta = DELTA;
+		world.process();
+	}
+
+	@Benchmark
+	public void process() {
+		world.process();
+	}
+
+	public static class Cooldown extends Component {
+		public float remaining;
+	}
+
+	public static class DelayedCooldownSystem extends DelayedIteratingSystem {
+		private ComponentMapper<Cooldown> cooldowns;
+		private final float lifetime;
+
+		public DelayedCooldownSystem(float lifetime) {
+			super(Aspect.all(Cooldown.class));
+			this.lifetime = lifetime;
+		}
+
+		@Override
+		protected float getRemainingDelay(int entityId) {
+			return cooldowns.get(entityId).remaining;
+		}
+
+		@Override
+		protected void processDelta(int entityId, float accumulatedDelta) {
+			cooldowns.get(entityId).remaining -= accumulatedDelta;
+		}
+
+		@Override
+		protected void processExpired(int entityId) {
+			cooldowns.get(entityId).remaining = lifetime;
+			offerDelay(lifetime);
+		}
+	}
+
+	public static class ScheduledCooldownSystem extends ScheduledIteratingSystem {
+		private ComponentMapper<Cooldown> cooldowns;
+		private final float lifetime;
+
+		public ScheduledCooldownSystem(float lifetime) {
+			super(Aspect.all(Cooldown.class));
+			this.lifetime = lifetime;
+		}
+
+		@Override
+		protected float getRemainingDelay(int entityId) {
+			return cooldowns.get(entityId).remaining;
+		}
+
+		@Override
+		protected void processExpired(int entityId) {
+			schedule(entityId, lifetime);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(ScheduledExpiryBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,110 @@
+package com.artemis.benchmark;
+
+import com.artemis.Aspect;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.io.JsonArtemisSerializer;
+import com.artemis.io.KryoArtemisSerializer;
+import com.artemis.io.SaveFileFormat;
+import com.artemis.managers.WorldSerializationManager;
+import com.artemis.utils.IntBag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Saving and loading all entities with {@link WorldSerializationManager},
+ * for each serialization backend.
+ * <p>
+ * {@code load} reads a save taken during setup into the same world, then
+ * deletes the loaded entities again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class SerializationBenchmark {
+	@Param({"1000", "10000"})
+	public int entityCount;
+
+	@Param({"1", "16"})
+	public int compositions;
+
+	@Param({"json", "kryo"})
+	public String backend;
+
+	private World world;
+	private WorldSerializationManager wsm;
+	private EntitySubscription allEntities;
+	private ByteArrayOutputStream out;
+	private byte[] saved;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World(new WorldConfigurationBuilder()
+			.with(new WorldSerializationManager())
+			.build());
+
+		wsm = world.getSystem(WorldSerializationManager.class);
+		wsm.setSerializer("kryo".equals(backend)
+			? new KryoArtemisSerializer(world)
+			: new JsonArtemisSerializer(world));
+
+		allEntities = world.getAspectSubscriptionManager().get(Aspect.all());
+		BenchmarkWorlds.populate(world, entityCount, compositions);
+
+		out = new ByteArrayOutputStream(entityCount * 64);
+		save();
+		saved = out.toByteArray();
+	}
+
+	@Benchmark
+	public int save() {
+		out.reset();
+		wsm.save(out, new SaveFileFormat(allEntities.getEntities()));
+		return out.size();
+	}
+
+	@Benchmark
+	public void load() {
+		SaveFileFormat load = wsm.load(new ByteArrayInputStream(saved), SaveFileFormat.class);
+		world.process();
+
+		IntBag loaded = load.entities;
+		for (int i = 0, s = loaded.size(); s > i; i++)
+			world.delete(loaded.get(i));
+
+		world.process();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(SerializationBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,136 @@
+package com.artemis.benchmark;
+
+import com.artemis.Aspect;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.io.KryoArtemisSerializer;
+import com.artemis.io.SaveFileFormat;
+import com.artemis.managers.WorldSerializationManager;
+import com.artemis.utils.IntBag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kryo save and load, regular versus streaming in chunks.
+ * <p>
+ * {@code save} writes to a stream discarding all output, so that only
+ * memory allocated by the serializer is measured; run with
+ * {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class StreamingSerializationBenchmark {
+	@Param({"10000", "100000"})
+	public int entityCount;
+
+	@Param({"16"})
+	public int compositions;
+
+	/** {@code 0} for regular save and load. */
+	@Param({"0", "1024"})
+	public int chunkSize;
+
+	private World world;
+	private WorldSerializationManager wsm;
+	private EntitySubscription allEntities;
+	private byte[] saved;
+
+	private final CountingOutputStream sink = new CountingOutputStream();
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World(new WorldConfigurationBuilder()
+			.with(new WorldSerializationManager())
+			.build());
+
+		wsm = world.getSystem(WorldSerializationManager.class);
+		wsm.setSerializer(new KryoArtemisSerializer(world));
+
+		allEntities = world.getAspectSubscriptionManager().get(Aspect.all());
+		BenchmarkWorlds.populate(world, entityCount, compositions);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(entityCount * 64);
+		save(out);
+		saved = out.toByteArray();
+	}
+
+	@Benchmark
+	public long save() {
+		sink.count = 0;
+		save(sink);
+		return sink.count;
+	}
+
+	@Benchmark
+	public void load() {
+		ByteArrayInputStream in = new ByteArrayInputStream(saved);
+		SaveFileFormat load = (chunkSize > 0)
+			? wsm.loadStreaming(in, SaveFileFormat.class)
+			: wsm.load(in, SaveFileFormat.class);
+
+		world.process();
+
+		IntBag loaded = load.entities;
+		for (int i = 0, s = loaded.size(); s > i; i++)
+			world.delete(loaded.get(i));
+
+		world.process();
+	}
+
+	private void save(OutputStream out) {
+		SaveFileFormat save = new SaveFileFormat(allEntities.getEntities());
+		if (chunkSize > 0) {
+			wsm.saveStreaming(out, save, chunkSize);
+		} else {
+			wsm.save(out, save);
+		}
+	}
+
+	private static final class CountingOutputStream extends OutputStream {
+		long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(StreamingSerializationBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,132 @@
+package com.artemis.benchmark;
+
+import com.artemis.Aspect;
+import com.artemis.AspectSubscriptionManager;
+import com.artemis.Component;
+import com.artemis.EntityEdit;
+import com.artemis.EntityTransmuter;
+import com.artemis.EntityTransmuterFactory;
+import com.artemis.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of synchronizing entity subscriptions: each tick changes the
+ * composition of {@code changes} entities, then processes the world.
+ * Subscriptions use random aspects over twelve component types.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 2, timeUnit = TimeUnit.SECONDS)
+public class SubscriptionSyncBenchmark {
+	private static final int ENTITY_COUNT = 100000;
+
+	@SuppressWarnings("unchecked")
+	private static final Class<? extends Component>[] TYPES = new Class[] {
+		T0.class, T1.class, T2.class, T3.class, T4.class, T5.class,
+		T6.class, T7.class, T8.class, T9.class, T10.class, T11.class
+	};
+
+	@Param({"200"})
+	public int subscriptions;
+
+	@Param({"50000"})
+	public int changes;
+
+	private World world;
+	private EntityTransmuter[] transmuters;
+	private int tick;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		world = new World();
+		Random rng = new Random(0xcafe);
+
+		AspectSubscriptionManager asm = world.getAspectSubscriptionManager();
+		for (int i = 0; subscriptions > i; i++)
+			asm.get(randomAspect(rng));
+
+		for (int i = 0; ENTITY_COUNT > i; i++) {
+			EntityEdit edit = world.edit(world.create());
+			for (int j = 0; TYPES.length > j; j++) {
+				if (rng.nextBoolean())
+					edit.create(TYPES[j]);
+			}
+		}
+
+		transmuters = new EntityTransmuter[TYPES.length * 2];
+		for (int i = 0; TYPES.length > i; i++) {
+			transmuters[i * 2] = new EntityTransmuterFactory(world).add(TYPES[i]).build();
+			transmuters[i * 2 + 1] = new EntityTransmuterFactory(world).remove(TYPES[i]).build();
+		}
+
+		world.process();
+	}
+
+	@Benchmark
+	public void sync() {
+		EntityTransmuter transmuter = transmuters[tick++ % transmuters.length];
+		for (int i = 0; changes > i; i++) {
+			transmuter.transmute(cursor);
+			cursor = (cursor + 1) % ENTITY_COUNT;
+		}
+
+		world.process();
+	}
+
+	private static Aspect.Builder randomAspect(Random rng) {
+		Aspect.Builder aspect = Aspect.all(TYPES[rng.nextInt(TYPES.length)]);
+		if (rng.nextBoolean())
+			aspect.all(TYPES[rng.nextInt(TYPES.length)]);
+		if (rng.nextBoolean())
+			aspect.one(TYPES[rng.nextInt(TYPES.length)], TYPES[rng.nextInt(TYPES.length)]);
+		if (rng.nextBoolean())
+			aspect.exclude(TYPES[rng.nextInt(TYPES.length)]);
+
+		return aspect;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(SubscriptionSyncBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+
+	public static class T0 extends Component {}
+	public static class T1 extends Component {}
+	public static class T2 extends Component {}
+	public static class T3 extends Component {}
+	public static class T4 extends Component {}
+	public static class T5 extends Component {}
+	public static class T6 extends Component {}
+	public static class T7 extends Component {}
+	public static class T8 extends Component {}
+	public static class T9 extends Component {}
+	public static class T10 extends Component {}
+	public static class T11 extends Component {}
+}
@@ -0,0 +1,124 @@
+package com.artemis.benchmark;
+
+import com.artemis.Aspect;
+import com.artemis.BaseSystem;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.benchmark.domain.Domain.Position;
+import com.artemis.benchmark.domain.Domain.Velocity;
+import com.artemis.systems.IntervalIteratingSystem;
+import com.artemis.systems.TimeSlicedIteratingSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-planning 100k agents every 0.5 seconds at 60 ticks per second:
+ * {@link IntervalIteratingSystem} processing all agents every 30th tick,
+ * versus {@link TimeSlicedIteratingSystem} processing a thirtieth of the
+ * agents every tick.
+ * <p>
+ * Sampled per tick; compare the upper percentiles rather than the mean,
+ * which is about the same for both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@Threads(1)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class TimeSlicedBenchmark {
+	private static final int ENTITY_COUNT = 100000;
+	private static final float DELTA = 1f / 60;
+	private static final float INTERVAL = 0.5f;
+	private static final int SLICES = 30;
+
+	@Param({"interval", "sliced"})
+	public String system;
+
+	private World world;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		BaseSystem planner = "sliced".equals(system)
+			? new SlicedPlanner()
+			: new IntervalPlanner();
+
+		world = new World(new WorldConfigurationBuilder()
+			.with(planner)
+			.build());
+
+		BenchmarkWorlds.populate(world, ENTITY_COUNT, 1);
+		world.delta = DELTA;
+	}
+
+	@Benchmark
+	public void process() {
+		world.process();
+	}
+
+	/** Stand-in for planning work; a handful of dependent float operations. */
+	static void plan(Position p, Velocity v) {
+		float x = p.x, y = p.y;
+		for (int i = 0; 8 > i; i++) {
+			x = x * 0.99f + v.x;
+			y = y * 0.99f + v.y;
+		}
+		v.x = (x - p.x) * 0.001f;
+		v.y = (y - p.y) * 0.001f;
+	}
+
+	public static class IntervalPlanner extends IntervalIteratingSystem {
+		private ComponentMapper<Position> positions;
+		private ComponentMapper<Velocity> velocities;
+
+		public IntervalPlanner() {
+			super(Aspect.all(Position.class, Velocity.class), INTERVAL);
+		}
+
+		@Override
+		protected void process(int entityId) {
+			plan(positions.get(entityId), velocities.get(entityId));
+		}
+	}
+
+	public static class SlicedPlanner extends TimeSlicedIteratingSystem {
+		private ComponentMapper<Position> positions;
+		private ComponentMapper<Velocity> velocities;
+
+		public SlicedPlanner() {
+			super(Aspect.all(Position.class, Velocity.class), SLICES);
+		}
+
+		@Override
+		protected void process(int entityId) {
+			plan(positions.get(entityId), velocities.get(entityId));
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+			.include(TimeSlicedBenchmark.class.getSimpleName())
+			.build();
+
+		new Runner(opt).run();
+	}
+}
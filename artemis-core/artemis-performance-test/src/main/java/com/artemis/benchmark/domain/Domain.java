@@ -5,7 +5,6 @@ import com.artemis.AspectSubscriptionManager;
 import com.artemis.Component;
 import com.artemis.ComponentMapper;
 import com.artemis.EntitySystem;
-import com.artemis.annotations.Mapper;
 import com.artemis.annotations.Wire;
 import com.artemis.managers.TagManager;
 
@@ -17,11 +16,11 @@ import com.artemis.managers.TagManager;
  */
 public class Domain{
     public static class Position extends Component {
-
+        public float x, y;
     }
 
     public static class Velocity extends Component{
-
+        public float x, y;
     }
 
 
@@ -80,9 +79,7 @@ public class Domain{
     }
 
     public static class DamageSystem extends EntitySystem{
-        @Mapper
         protected ComponentMapper<Health> pm;
-        @Mapper
         protected ComponentMapper<Damage> vm;
 
         public DamageSystem() {
@@ -2,6 +2,7 @@ package com.artemis;
 
 import static com.artemis.Aspect.all;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,10 +19,17 @@ import com.artemis.utils.IntBag;
  * Any {@link com.artemis.EntitySubscription.SubscriptionListener listeners}
  * are informed when entities are added or removed.</p>
  *
+ * <p>Since compositions are interned, each distinct transition from one composition
+ * to another affects the same set of subscriptions. These sets are cached, bounded
+ * by {@link #TRANSITION_CACHE_SIZE}, so that changed entities are only dispatched
+ * to subscriptions gaining or losing them.</p>
+ *
  * @see EntitySubscription
  */
 @SkipWire
 public class AspectSubscriptionManager extends BaseSystem {
+	/** Number of cached composition transitions, must be a power of two. */
+	static final int TRANSITION_CACHE_SIZE = 4096;
 
 	private final Map<Aspect.Builder, EntitySubscription> subscriptionMap;
 	private final Bag<EntitySubscription> subscriptions = new Bag(EntitySubscription.class);
@@ -29,8 +37,30 @@ public class AspectSubscriptionManager extends BaseSystem {
 	private final IntBag changed = new IntBag();
 	private final IntBag deleted = new IntBag();
 
+	/** Composition id per entity as last seen by subscriptions, offset by one; 0 if absent. */
+	private final IntBag syncedIdentities = new IntBag();
+
+	/** Direct-mapped cache of transitions, keyed on old and new composition id. */
+	private final long[] transitionKeys = new long[TRANSITION_CACHE_SIZE];
+	private final int[][] transitions = new int[TRANSITION_CACHE_SIZE][];
+	private final IntBag transitionBuilder = new IntBag();
+
+	/** Subscriptions with pending inserted or removed entities. */
+	private final BitVector dirty = new BitVector();
+
+	/** See {@link #trackChanges(BitVector)}. */
+	private final Bag<BitVector> changeTrackers = new Bag<BitVector>(BitVector.class);
+
+	/**
+	 * New subscriptions are synchronized against current compositions, which
+	 * may not have been seen by existing subscriptions yet; when set, the next
+	 * update checks changed entities against all subscriptions.
+	 */
+	private boolean resynchronize = true;
+
 	protected AspectSubscriptionManager() {
 		subscriptionMap = new HashMap<Aspect.Builder, EntitySubscription>();
+		Arrays.fill(transitionKeys, -1L);
 	}
 
 	@Override
@@ -66,13 +96,25 @@ public class AspectSubscriptionManager extends BaseSystem {
 
 	private EntitySubscription createSubscription(Aspect.Builder builder) {
 		EntitySubscription entitySubscription = new EntitySubscription(world, builder);
+		if (world.isCompressedSubscriptions() && !entitySubscription.isAll())
+			entitySubscription.setCompressed(true);
+
 		subscriptionMap.put(builder, entitySubscription);
 		subscriptions.add(entitySubscription);
 
 		world.getComponentManager().synchronize(entitySubscription);
+		invalidateTransitions();
+
 		return entitySubscription;
 	}
 
+	private void invalidateTransitions() {
+		Arrays.fill(transitionKeys, -1L);
+		Arrays.fill(transitions, null);
+		dirty.ensureCapacity(subscriptions.size());
+		resynchronize = true;
+	}
+
 	/**
 	 * Informs all listeners of added, changedBits and deletedBits changes.
 	 * 
@@ -88,16 +130,145 @@ public class AspectSubscriptionManager extends BaseSystem {
 	 */
 	void process(BitVector changedBits, BitVector deletedBits) {
 		toEntityIntBags(changedBits, deletedBits);
+		ensureSyncedCapacity();
+
+		if (resynchronize) {
+			resynchronize = false;
+			processAllSubscriptions();
+		} else {
+			processTransitions();
+		}
+	}
 
+	private void processAllSubscriptions() {
 		// note: processAll != process
 		subscriptions.get(0).processAll(changed, deleted);
 
 		for (int i = 1, s = subscriptions.size(); s > i; i++) {
 			subscriptions.get(i).process(changed, deleted);
 		}
+
+		int[] synced = syncedIdentities.getData();
+		int[] ids = deleted.getData();
+		for (int i = 0, s = deleted.size(); s > i; i++) {
+			synced[ids[i]] = 0;
+		}
+
+		ids = changed.getData();
+		for (int i = 0, s = changed.size(); s > i; i += 2) {
+			synced[ids[i]] = ids[i + 1] + 1;
+		}
+	}
+
+	private void processTransitions() {
+		Object[] subs = subscriptions.getData();
+		int[] synced = syncedIdentities.getData();
+
+		if (!deleted.isEmpty()) {
+			// reports all deleted entities, see EntitySubscription#processAll
+			((EntitySubscription) subs[0]).deletedAll(deleted);
+			dirty.unsafeSet(0);
+		}
+
+		int[] ids = deleted.getData();
+		for (int i = 0, s = deleted.size(); s > i; i++) {
+			int id = ids[i];
+			int previous = synced[id] - 1;
+			synced[id] = 0;
+
+			if (previous != -1)
+				dispatch(subs, id, transition(previous, -1));
+		}
+
+		ids = changed.getData();
+		for (int i = 0, s = changed.size(); s > i; i += 2) {
+			int id = ids[i];
+			int cid = ids[i + 1];
+			int previous = synced[id] - 1;
+			if (previous == cid)
+				continue;
+
+			synced[id] = cid + 1;
+			dispatch(subs, id, transition(previous, cid));
+		}
+
+		for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+			((EntitySubscription) subs[i]).informEntityChanges();
+		}
+
+		dirty.clear();
+	}
+
+	private void dispatch(Object[] subs, int entityId, int[] transition) {
+		for (int i = 0; transition.length > i; i++) {
+			int entry = transition[i];
+			int index = entry >>> 1;
+
+			EntitySubscription subscription = (EntitySubscription) subs[index];
+			if ((entry & 1) != 0) {
+				subscription.gained(entityId);
+			} else {
+				subscription.lost(entityId);
+			}
+
+			dirty.unsafeSet(index);
+		}
+	}
+
+	/**
+	 * Subscriptions affected by entities changing composition.
+	 *
+	 * @param previous composition id, or {@code -1} for new entities.
+	 * @param cid composition id, or {@code -1} for deleted entities.
+	 * @return subscription indices shifted left by one; lowest bit set if gaining entity.
+	 */
+	private int[] transition(int previous, int cid) {
+		long key = ((long) (previous + 1) << 32) | (cid + 1);
+		int hash = (int) (key ^ (key >>> 32)) * 0x9e3779b9;
+		int slot = (hash ^ (hash >>> 16)) & (TRANSITION_CACHE_SIZE - 1);
+
+		if (transitionKeys[slot] != key) {
+			transitions[slot] = resolveTransition(previous, cid);
+			transitionKeys[slot] = key;
+		}
+
+		return transitions[slot];
+	}
+
+	private int[] resolveTransition(int previous, int cid) {
+		IntBag affected = transitionBuilder;
+		affected.setSize(0);
+
+		for (int i = 0, s = subscriptions.size(); s > i; i++) {
+			EntitySubscription subscription = subscriptions.get(i);
+			boolean before = previous != -1 && subscription.isInterested(previous);
+			boolean after = cid != -1 && subscription.isInterested(cid);
+			if (before != after)
+				affected.add((i << 1) | (after ? 1 : 0));
+		}
+
+		int[] transition = new int[affected.size()];
+		System.arraycopy(affected.getData(), 0, transition, 0, transition.length);
+		return transition;
+	}
+
+	private void ensureSyncedCapacity() {
+		int highestId = -1;
+		if (!changed.isEmpty())
+			highestId = changed.get(changed.size() - 2);
+		if (!deleted.isEmpty())
+			highestId = Math.max(highestId, deleted.get(deleted.size() - 1));
+
+		int capacity = syncedIdentities.getCapacity();
+		if (highestId >= capacity)
+			syncedIdentities.ensureCapacity(Math.max(highestId, 2 * capacity));
 	}
 
 	private void toEntityIntBags(BitVector changed, BitVector deleted) {
+		BitVector[] trackers = changeTrackers.getData();
+		for (int i = 0, s = changeTrackers.size(); s > i; i++)
+			trackers[i].or(changed);
+
 		changed.toIntBagIdCid(world.getComponentManager(), this.changed);
 		deleted.toIntBag(this.deleted);
 
@@ -105,6 +276,70 @@ public class AspectSubscriptionManager extends BaseSystem {
 		deleted.clear();
 	}
 
+	/**
+	 * Starts flagging entities in {@code changed} whenever they are created,
+	 * or their composition changes. Deleted entities are not flagged; listen
+	 * to {@link EntitySubscription.SubscriptionListener#removed(IntBag)} on
+	 * the {@link Aspect#all()} subscription for those.
+	 * <p>
+	 * The bitset is updated once per {@link World#process()} sub-step, before
+	 * any subscriptions are informed. It is never cleared by the manager;
+	 * consumers reset it once they have processed the changes.
+	 *
+	 * @param changed receives ids of created or changed entities.
+	 * @see ComponentMapper#trackChanges(BitVector)
+	 */
+	public void trackChanges(BitVector changed) {
+		changeTrackers.add(changed);
+	}
+
+	/**
+	 * @param changed bitset previously passed to {@link #trackChanges(BitVector)}.
+	 */
+	public void untrackChanges(BitVector changed) {
+		// identity, as BitVector#equals compares bits
+		for (int i = 0, s = changeTrackers.size(); s > i; i++) {
+			if (changeTrackers.get(i) == changed) {
+				changeTrackers.remove(i);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Updates subscriptions with entities moved by {@link World#compact()};
+	 * no listeners are informed. Active entity bitsets are expected to
+	 * have been remapped already.
+	 *
+	 * @param from former ids of moved entities.
+	 * @param to new ids, matched by index.
+	 */
+	void remap(IntBag from, IntBag to) {
+		int[] src = from.getData();
+		int[] dst = to.getData();
+
+		int highestId = src[from.size() - 1];
+		syncedIdentities.ensureCapacity(highestId);
+		int[] synced = syncedIdentities.getData();
+		IntBag newIds = new IntBag(highestId + 1);
+		for (int i = 0, s = from.size(); s > i; i++) {
+			synced[dst[i]] = synced[src[i]];
+			synced[src[i]] = 0;
+			newIds.set(src[i], dst[i] + 1);
+		}
+
+		for (int i = 0, s = subscriptions.size(); s > i; i++) {
+			subscriptions.get(i).remap(newIds);
+		}
+	}
+
+	/**
+	 * Trims entity stores to entity ids below {@code capacity}.
+	 */
+	void shrink(int capacity) {
+		syncedIdentities.shrink(capacity);
+	}
+
 	void processComponentIdentity(int id, BitVector componentBits) {
 		for (int i = 0, s = subscriptions.size(); s > i; i++) {
 			subscriptions.get(i).processComponentIdentity(id, componentBits);
@@ -1,6 +1,7 @@
 package com.artemis;
 
 import com.artemis.annotations.SkipWire;
+import com.artemis.utils.ArtemisProfiler;
 
 /**
  * Most basic system.
@@ -20,6 +21,10 @@ public abstract class BaseSystem {
 	@SkipWire
 	protected World world;
 
+	/** Installed by {@link MetricsInvocationStrategy}, unless profiled via weaving. */
+	@SkipWire
+	ArtemisProfiler profiler;
+
 	public BaseSystem() {}
 
 	/**
@@ -42,9 +47,18 @@ public abstract class BaseSystem {
 	 */
 	public final void process() {
 		if(checkProcessing()) {
-			begin();
-			processSystem();
-			end();
+			ArtemisProfiler profiler = this.profiler;
+			if (profiler != null)
+				profiler.start();
+
+			try {
+				begin();
+				processSystem();
+				end();
+			} finally {
+				if (profiler != null)
+					profiler.stop();
+			}
 		}
 	}
 
@@ -23,6 +23,9 @@ final class BatchChangeProcessor {
 	private final Bag<EntityEdit> pool = new Bag<EntityEdit>();
 	private final WildBag<EntityEdit> edited = new WildBag(EntityEdit.class);
 
+	/** Edit holding staged changes when coalescing, see {@link #staging(EntityEdit)}. */
+	private EntityEdit pendingEdit;
+
 	BatchChangeProcessor(World world) {
 		this.world = world;
 		asm = world.getAspectSubscriptionManager();
@@ -38,6 +41,9 @@ final class BatchChangeProcessor {
 	}
 
 	void delete(int entityId) {
+		// components are cleaned by composition
+		commitEdit(entityId);
+
 		deleted.unsafeSet(entityId);
 		pendingPurge.unsafeSet(entityId);
 
@@ -45,6 +51,26 @@ final class BatchChangeProcessor {
 		changed.unsafeClear(entityId);
 	}
 
+	void delete(IntBag entityIds) {
+		commitEdits();
+
+		int[] ids = entityIds.getData();
+		for (int i = 0, s = entityIds.size(); s > i; i++) {
+			int id = ids[i];
+			deleted.unsafeSet(id);
+			pendingPurge.unsafeSet(id);
+			changed.unsafeClear(id);
+		}
+	}
+
+	void delete(BitVector entityIds) {
+		commitEdits();
+
+		deleted.or(entityIds);
+		pendingPurge.or(entityIds);
+		changed.andNot(entityIds);
+	}
+
 	/**
 	 * Get entity editor.
 	 * @return a fast albeit verbose editor to perform batch changes to entities.
@@ -55,14 +81,41 @@ final class BatchChangeProcessor {
 		if (size != 0 && edited.get(size - 1).getEntityId() == entityId)
 			return edited.get(size - 1);
 
+		commitEdits();
+
 		EntityEdit edit = entityEdit();
 		edited.add(edit);
 
 		edit.entityId = entityId;
-
 		return edit;
 	}
 
+	/**
+	 * Registers {@code edit} as holding staged changes, committing those
+	 * of any other edit first. Edits may be staged again after having been
+	 * committed, e.g. when held on to or reused for the same entity.
+	 */
+	void staging(EntityEdit edit) {
+		if (pendingEdit != edit) {
+			commitEdits();
+			pendingEdit = edit;
+		}
+	}
+
+	/** Commits staged changes of a coalescing edit. */
+	void commitEdits() {
+		if (pendingEdit != null) {
+			pendingEdit.commit();
+			pendingEdit = null;
+		}
+	}
+
+	/** Commits staged changes of a coalescing edit targeting {@code entityId}. */
+	void commitEdit(int entityId) {
+		if (pendingEdit != null && pendingEdit.entityId == entityId)
+			commitEdits();
+	}
+
 	private EntityEdit entityEdit() {
 		if (pool.isEmpty()) {
 			return new EntityEdit(world);
@@ -72,9 +125,13 @@ final class BatchChangeProcessor {
 	}
 
 	void update() {
+		commitEdits();
 		while(!changed.isEmpty() || !deleted.isEmpty()) {
 			asm.process(changed, deleted);
 			purgeComponents();
+
+			// listeners may have edited entities
+			commitEdits();
 		}
 
 		clean();
@@ -0,0 +1,464 @@
+package com.artemis;
+
+import com.artemis.annotations.Columnar;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
+/**
+ * Component mapper for {@link Columnar} component types, storing each
+ * primitive field in its own array, indexed by entity id.
+ * <p>
+ * {@link #get(int)} returns a write-back flyweight, see
+ * {@link FlyweightComponentMapper}. Hot loops can bypass the flyweight by
+ * reading and writing the typed columns directly, see
+ * {@link #floatColumn(String)} and friends.
+ *
+ * @param <A> Component type to map.
+ * @see Columnar
+ */
+public class ColumnComponentMapper<A extends Component> extends FlyweightComponentMapper<A> {
+	private final Column[] columns;
+
+	/** Columns grouped by type, sparing the flyweight a virtual call per field. */
+	private final FloatColumn[] floatColumns;
+	private final IntColumn[] intColumns;
+	private final LongColumn[] longColumns;
+	private final DoubleColumn[] doubleColumns;
+
+	public ColumnComponentMapper(Class<A> type, World world) {
+		super(type, world);
+		if (this.type.isPooled)
+			throw new InvalidComponentException(type, "Pooled components can't be columnar.");
+
+		A template = ComponentManager.newInstance(type);
+		Field[] fields = flatFields(type);
+		columns = new Column[fields.length];
+		for (int i = 0; fields.length > i; i++)
+			columns[i] = createColumn(type, fields[i], template);
+
+		floatColumns = columnsOf(FloatColumn.class);
+		intColumns = columnsOf(IntColumn.class);
+		longColumns = columnsOf(LongColumn.class);
+		doubleColumns = columnsOf(DoubleColumn.class);
+	}
+
+	@Override
+	void load(int entityId, A target) {
+		for (FloatColumn column : floatColumns)
+			column.load(entityId, target);
+		for (IntColumn column : intColumns)
+			column.load(entityId, target);
+		for (LongColumn column : longColumns)
+			column.load(entityId, target);
+		for (DoubleColumn column : doubleColumns)
+			column.load(entityId, target);
+	}
+
+	@Override
+	void store(A source, int entityId) {
+		for (FloatColumn column : floatColumns)
+			column.store(source, entityId);
+		for (IntColumn column : intColumns)
+			column.store(source, entityId);
+		for (LongColumn column : longColumns)
+			column.store(source, entityId);
+		for (DoubleColumn column : doubleColumns)
+			column.store(source, entityId);
+	}
+
+	@Override
+	void initialize(int entityId) {
+		for (Column column : columns)
+			column.reset(entityId);
+	}
+
+	@Override
+	void free(int entityId) {}
+
+	@Override
+	void ensureCapacity(int index) {
+		for (Column column : columns)
+			column.ensureCapacity(index);
+	}
+
+	@Override
+	void relocate(int from, int to) {
+		for (Column column : columns)
+			column.move(from, to);
+	}
+
+	@Override
+	void shrink(int capacity) {
+		super.shrink(capacity);
+		for (Column column : columns)
+			column.shrink(capacity);
+	}
+
+	@Override
+	int bytesPerEntity() {
+		int bytes = 0;
+		for (Column column : columns)
+			bytes += column.bytesPerValue();
+
+		return bytes;
+	}
+
+	/** @return column of {@code float} field, shared by all entities. */
+	public FloatColumn floatColumn(String field) {
+		return column(field, FloatColumn.class);
+	}
+
+	/** @return column of {@code int} field, shared by all entities. */
+	public IntColumn intColumn(String field) {
+		return column(field, IntColumn.class);
+	}
+
+	/** @return column of {@code long} field, shared by all entities. */
+	public LongColumn longColumn(String field) {
+		return column(field, LongColumn.class);
+	}
+
+	/** @return column of {@code double} field, shared by all entities. */
+	public DoubleColumn doubleColumn(String field) {
+		return column(field, DoubleColumn.class);
+	}
+
+	private <C extends Column> C column(String field, Class<C> columnType) {
+		for (Column column : columns) {
+			if (column.name.equals(field)) {
+				if (!columnType.isInstance(column))
+					throw new IllegalArgumentException(field + " is not a " + columnType.getSimpleName());
+
+				return columnType.cast(column);
+			}
+		}
+
+		throw new IllegalArgumentException("No column named " + field + " in " + type.getType().getSimpleName());
+	}
+
+	private <C extends Column> C[] columnsOf(Class<C> columnType) {
+		int count = 0;
+		for (Column column : columns) {
+			if (columnType.isInstance(column))
+				count++;
+		}
+
+		@SuppressWarnings("unchecked")
+		C[] typed = (C[]) Array.newInstance(columnType, count);
+		for (int i = 0, j = 0; columns.length > i; i++) {
+			if (columnType.isInstance(columns[i]))
+				typed[j++] = columnType.cast(columns[i]);
+		}
+
+		return typed;
+	}
+
+	private Column createColumn(Class<A> type, Field field, A template) {
+		Class<?> fieldType = field.getType();
+		try {
+			if (fieldType == float.class)
+				return new FloatColumn(this, field, field.getFloat(template));
+			else if (fieldType == int.class)
+				return new IntColumn(this, field, field.getInt(template));
+			else if (fieldType == long.class)
+				return new LongColumn(this, field, field.getLong(template));
+			else
+				return new DoubleColumn(this, field, field.getDouble(template));
+		} catch (IllegalAccessException e) {
+			throw new InvalidComponentException(type, "Unable to read field " + field.getName() + ".", e);
+		}
+	}
+
+	/**
+	 * Values of a single component field, indexed by entity id.
+	 * <p>
+	 * Reading or writing the values of an entity currently loaded into the
+	 * flyweight first writes the flyweight back, invalidating it.
+	 */
+	public static abstract class Column {
+		/** Name of the mapped field. */
+		public final String name;
+		final Field field;
+		final ColumnComponentMapper<?> mapper;
+
+		Column(ColumnComponentMapper<?> mapper, Field field) {
+			this.mapper = mapper;
+			this.field = field;
+			this.name = field.getName();
+		}
+
+		abstract void load(int entityId, Object target);
+		abstract void store(Object source, int entityId);
+		abstract void reset(int entityId);
+		abstract void ensureCapacity(int index);
+		abstract void move(int from, int to);
+		abstract void shrink(int capacity);
+		abstract int bytesPerValue();
+
+		static RuntimeException reflectionFailure(Field field, IllegalAccessException e) {
+			return new RuntimeException("Unable to access " + field.getName(), e);
+		}
+	}
+
+	public static final class FloatColumn extends Column {
+		private final float defaultValue;
+		private float[] data = new float[0];
+
+		FloatColumn(ColumnComponentMapper<?> mapper, Field field, float defaultValue) {
+			super(mapper, field);
+			this.defaultValue = defaultValue;
+		}
+
+		public float get(int entityId) {
+			mapper.flushIfLoaded(entityId);
+			return data[entityId];
+		}
+
+		public void set(int entityId, float value) {
+			mapper.flushIfLoaded(entityId);
+			data[entityId] = value;
+		}
+
+		@Override
+		void load(int entityId, Object target) {
+			try {
+				field.setFloat(target, data[entityId]);
+			} catch (IllegalAccessException e) {
+				throw reflectionFailure(field, e);
+			}
+		}
+
+		@Override
+		void store(Object source, int entityId) {
+			try {
+				data[entityId] = field.getFloat(source);
+			} catch (IllegalAccessException e) {
+				throw reflectionFailure(field, e);
+			}
+		}
+
+		@Override
+		void reset(int entityId) {
+			data[entityId] = defaultValue;
+		}
+
+		@Override
+		void ensureCapacity(int index) {
+			if (index >= data.length)
+				data = Arrays.copyOf(data, index + 1);
+		}
+
+		@Override
+		void move(int from, int to) {
+			data[to] = data[from];
+		}
+
+		@Override
+		void shrink(int capacity) {
+			if (capacity < data.length)
+				data = Arrays.copyOf(data, capacity);
+		}
+
+		@Override
+		int bytesPerValue() {
+			return 4;
+		}
+	}
+
+	public static final class IntColumn extends Column {
+		private final int defaultValue;
+		private int[] data = new int[0];
+
+		IntColumn(ColumnComponentMapper<?> mapper, Field field, int defaultValue) {
+			super(mapper, field);
+			this.defaultValue = defaultValue;
+		}
+
+		public int get(int entityId) {
+			mapper.flushIfLoaded(entityId);
+			return data[entityId];
+		}
+
+		public void set(int entityId, int value) {
+			mapper.flushIfLoaded(entityId);
+			data[entityId] = value;
+		}
+
+		@Override
+		void load(int entityId, Object target) {
+			try {
+				field.setInt(target, data[entityId]);
+			} catch (IllegalAccessException e) {
+				throw reflectionFailure(field, e);
+			}
+		}
+
+		@Override
+		void store(Object source, int entityId) {
+			try {
+				data[entityId] = field.getInt(source);
+			} catch (IllegalAccessException e) {
+				throw reflectionFailure(field, e);
+			}
+		}
+
+		@Override
+		void reset(int entityId) {
+			data[entityId] = defaultValue;
+		}
+
+		@Override
+		void ensureCapacity(int index) {
+			if (index >= data.length)
+				data = Arrays.copyOf(data, index + 1);
+		}
+
+		@Override
+		void move(int from, int to) {
+			data[to] = data[from];
+		}
+
+		@Override
+		void shrink(int capacity) {
+			if (capacity < data.length)
+				data = Arrays.copyOf(data, capacity);
+		}
+
+		@Override
+		int bytesPerValue() {
+			return 4;
+		}
+	}
+
+	public static final class LongColumn extends Column {
+		private final long defaultValue;
+		private long[] data = new long[0];
+
+		LongColumn(ColumnComponentMapper<?> mapper, Field field, long defaultValue) {
+			super(mapper, field);
+			this.defaultValue = defaultValue;
+		}
+
+		public long get(int entityId) {
+			mapper.flushIfLoaded(entityId);
+			return data[entityId];
+		}
+
+		public void set(int entityId, long value) {
+			mapper.flushIfLoaded(entityId);
+			data[entityId] = value;
+		}
+
+		@Override
+		void load(int entityId, Object target) {
+			try {
+				field.setLong(target, data[entityId]);
+			} catch (IllegalAccessException e) {
+				throw reflectionFailure(field, e);
+			}
+		}
+
+		@Override
+		void store(Object source, int entityId) {
+			try {
+				data[entityId] = field.getLong(source);
+			} catch (IllegalAccessException e) {
+				throw reflectionFailure(field, e);
+			}
+		}
+
+		@Override
+		void reset(int entityId) {
+			data[entityId] = defaultValue;
+		}
+
+		@Override
+		void ensureCapacity(int index) {
+			if (index >= data.length)
+				data = Arrays.copyOf(data, index + 1);
+		}
+
+		@Override
+		void move(int from, int to) {
+			data[to] = data[from];
+		}
+
+		@Override
+		void shrink(int capacity) {
+			if (capacity < data.length)
+				data = Arrays.copyOf(data, capacity);
+		}
+
+		@Override
+		int bytesPerValue() {
+			return 8;
+		}
+	}
+
+	public static final class DoubleColumn extends Column {
+		private final double defaultValue;
+		private double[] data = new double[0];
+
+		DoubleColumn(ColumnComponentMapper<?> mapper, Field field, double defaultValue) {
+			super(mapper, field);
+			this.defaultValue = defaultValue;
+		}
+
+		public double get(int entityId) {
+			mapper.flushIfLoaded(entityId);
+			return data[entityId];
+		}
+
+		public void set(int entityId, double value) {
+			mapper.flushIfLoaded(entityId);
+			data[entityId] = value;
+		}
+
+		@Override
+		void load(int entityId, Object target) {
+			try {
+				field.setDouble(target, data[entityId]);
+			} catch (IllegalAccessException e) {
+				throw reflectionFailure(field, e);
+			}
+		}
+
+		@Override
+		void store(Object source, int entityId) {
+			try {
+				data[entityId] = field.getDouble(source);
+			} catch (IllegalAccessException e) {
+				throw reflectionFailure(field, e);
+			}
+		}
+
+		@Override
+		void reset(int entityId) {
+			data[entityId] = defaultValue;
+		}
+
+		@Override
+		void ensureCapacity(int index) {
+			if (index >= data.length)
+				data = Arrays.copyOf(data, index + 1);
+		}
+
+		@Override
+		void move(int from, int to) {
+			data[to] = data[from];
+		}
+
+		@Override
+		void shrink(int capacity) {
+			if (capacity < data.length)
+				data = Arrays.copyOf(data, capacity);
+		}
+
+		@Override
+		int bytesPerValue() {
+			return 8;
+		}
+	}
+}
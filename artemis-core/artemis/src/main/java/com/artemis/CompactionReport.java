@@ -0,0 +1,61 @@
+package com.artemis;
+
+/**
+ * Outcome of {@link World#compact()}.
+ * <p>
+ * Reclaimed memory is an estimate, assuming compressed references: it
+ * accounts for trimmed entity stores, component mappers and bitsets, as
+ * well as discarded {@link Entity} instances - but not for storage which
+ * isn't indexed by entity id, such as off-heap slabs or manager state.
+ */
+public final class CompactionReport {
+	/** Estimated shallow size of an {@link Entity} instance, in bytes. */
+	static final int ENTITY_INSTANCE_BYTES = 24;
+
+	private final int entityCount;
+	private final int movedCount;
+	private final int capacityBefore;
+	private final int capacityAfter;
+	private final long reclaimedBytes;
+
+	CompactionReport(int entityCount, int movedCount, int capacityBefore, int capacityAfter, long reclaimedBytes) {
+		this.entityCount = entityCount;
+		this.movedCount = movedCount;
+		this.capacityBefore = capacityBefore;
+		this.capacityAfter = capacityAfter;
+		this.reclaimedBytes = reclaimedBytes;
+	}
+
+	/** @return number of active entities, now occupying ids {@code [0, entityCount)}. */
+	public int getEntityCount() {
+		return entityCount;
+	}
+
+	/** @return number of entities assigned new ids. */
+	public int getMovedCount() {
+		return movedCount;
+	}
+
+	/** @return capacity of entity stores prior to compaction. */
+	public int getCapacityBefore() {
+		return capacityBefore;
+	}
+
+	/** @return capacity of entity stores after compaction. */
+	public int getCapacityAfter() {
+		return capacityAfter;
+	}
+
+	/** @return estimated number of bytes made available for garbage collection. */
+	public long getReclaimedBytes() {
+		return reclaimedBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "CompactionReport[entities=" + entityCount
+			+ ", moved=" + movedCount
+			+ ", capacity=" + capacityBefore + "->" + capacityAfter
+			+ ", reclaimed~" + reclaimedBytes + " bytes]";
+	}
+}
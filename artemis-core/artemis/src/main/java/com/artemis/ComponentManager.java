@@ -2,6 +2,8 @@ package com.artemis;
 
 import com.artemis.utils.BitVector;
 
+import com.artemis.annotations.Columnar;
+import com.artemis.annotations.OffHeap;
 import com.artemis.annotations.SkipWire;
 import com.artemis.utils.Bag;
 import com.artemis.utils.ImmutableBag;
@@ -10,6 +12,8 @@ import com.artemis.utils.ShortBag;
 import com.artemis.utils.reflect.ClassReflection;
 import com.artemis.utils.reflect.ReflectionException;
 
+import static com.artemis.utils.reflect.ClassReflection.isAnnotationPresent;
+
 
 /**
  * Handles the association between entities and their components.
@@ -29,20 +33,52 @@ public class ComponentManager extends BaseSystem {
 	private Bag<ComponentMapper> mappers = new Bag(ComponentMapper.class);
 
 	private final ComponentIdentityResolver identityResolver = new ComponentIdentityResolver();
-	final ShortBag entityToIdentity;
+
+	/** Composition id per entity, {@code null} if {@link #wideIdentities}. */
+	private final ShortBag entityToIdentity;
+	/** Composition id per entity, {@code null} unless {@link #wideIdentities}. */
+	private final IntBag entityToWideIdentity;
+	private final boolean wideIdentities;
+
 	protected final ComponentTypeFactory typeFactory;
 
 	/**
 	 * Creates a new instance of {@link ComponentManager}.
 	 */
 	protected ComponentManager(int entityContainerSize) {
-		entityToIdentity = new ShortBag(entityContainerSize);
+		this(entityContainerSize, false);
+	}
+
+	/**
+	 * Creates a new instance of {@link ComponentManager}.
+	 *
+	 * @param entityContainerSize initial capacity of entity stores.
+	 * @param wideIdentities {@code true} to track composition ids as {@code int}.
+	 * @see WorldConfiguration#setWideCompositionIdentity(boolean)
+	 */
+	protected ComponentManager(int entityContainerSize, boolean wideIdentities) {
+		this.wideIdentities = wideIdentities;
+		if (wideIdentities) {
+			entityToIdentity = null;
+			entityToWideIdentity = new IntBag(entityContainerSize);
+		} else {
+			entityToIdentity = new ShortBag(entityContainerSize);
+			entityToWideIdentity = null;
+		}
+
 		typeFactory = new ComponentTypeFactory(this, entityContainerSize);
 	}
 
 	@Override
 	protected void processSystem() {}
 
+	@Override
+	protected void dispose() {
+		for (ComponentMapper mapper : mappers) {
+			mapper.dispose();
+		}
+	}
+
 	/**
 	 * Create a component of given type by class.
 	 * @param owner entity id
@@ -60,11 +96,30 @@ public class ComponentManager extends BaseSystem {
 
 	void registerComponentType(ComponentType ct, int capacity) {
 		int index = ct.getIndex();
-		ComponentMapper mapper = new ComponentMapper(ct.getType(), world);
-		mapper.components.ensureCapacity(capacity);
+		ComponentMapper<?> mapper = createMapper(ct.getType());
+		mapper.ensureCapacity(capacity);
 		mappers.set(index, mapper);
 	}
 
+	private <T extends Component> ComponentMapper<T> createMapper(Class<T> type) {
+		boolean offHeap = isAnnotationPresent(type, OffHeap.class);
+		boolean columnar = isAnnotationPresent(type, Columnar.class);
+		if (offHeap && columnar)
+			throw new InvalidComponentException(type, "Can't be both @OffHeap and @Columnar.");
+
+		if (offHeap)
+			return new OffHeapComponentMapper<T>(type, world);
+		else if (columnar)
+			return new ColumnComponentMapper<T>(type, world);
+		else
+			return new ComponentMapper<T>(type, world);
+	}
+
+	/** @return {@code true} if components of the type are accessed through a flyweight. */
+	boolean isFlyweight(int typeIndex) {
+		return mappers.get(typeIndex) instanceof FlyweightComponentMapper;
+	}
+
 	@SuppressWarnings("unchecked")
 	static <T extends Component> T newInstance(Class<T> componentClass) {
 		try {
@@ -148,15 +203,72 @@ public class ComponentManager extends BaseSystem {
 		return fillBag;
 	}
 
+	/**
+	 * Like {@link #getComponentsFor(int, Bag)}, but without side effects:
+	 * values of flyweight types are copied into instances kept in
+	 * {@code copies}, indexed by component type, instead of loading the
+	 * shared flyweight. Threads reading concurrently must each pass their
+	 * own {@code copies}, and the world must not change meanwhile.
+	 * <p>
+	 * Pending flyweight changes are only seen once flushed, see
+	 * {@link #flushFlyweights()}.
+	 *
+	 * @param entityId
+	 *			the entity to get components from
+	 * @param fillBag
+	 *			a bag to be filled with components
+	 * @param copies
+	 *			instances receiving flyweight values, created on demand
+	 * @return the {@code fillBag}, filled with the entities components
+	 */
+	public Bag<Component> copyComponentsFor(int entityId, Bag<Component> fillBag, Bag<Component> copies) {
+		Bag<ComponentMapper> mappers = componentMappers(entityId);
+
+		for (int i = 0, s = mappers.size(); s > i; i++) {
+			ComponentMapper<?> mapper = mappers.get(i);
+			if (mapper instanceof FlyweightComponentMapper) {
+				fillBag.add(copy((FlyweightComponentMapper<?>) mapper, entityId, copies));
+			} else {
+				fillBag.add(mapper.get(entityId));
+			}
+		}
+
+		return fillBag;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <A extends Component> A copy(FlyweightComponentMapper<A> mapper, int entityId, Bag<Component> copies) {
+		int index = mapper.type.getIndex();
+		A copy = (A) copies.safeGet(index);
+		if (copy == null) {
+			copy = (A) newInstance(mapper.type.getType());
+			copies.set(index, copy);
+		}
+
+		return mapper.copy(entityId, copy);
+	}
+
+	/**
+	 * Writes pending changes to all flyweights back to their storage,
+	 * see {@link FlyweightComponentMapper#flush()}.
+	 */
+	public void flushFlyweights() {
+		for (int i = 0, s = mappers.size(); s > i; i++) {
+			ComponentMapper<?> mapper = mappers.get(i);
+			if (mapper instanceof FlyweightComponentMapper)
+				((FlyweightComponentMapper<?>) mapper).flush();
+		}
+	}
+
 	/** Get component composition of entity. */
 	BitVector componentBits(int entityId) {
-		int identityIndex = entityToIdentity.get(entityId);
+		int identityIndex = getIdentity(entityId);
 		return identityResolver.compositionBits.get(identityIndex);
 	}
 
 	/** Get component composition of entity. */
 	private Bag<ComponentMapper> componentMappers(int entityId) {
-		int identityIndex = entityToIdentity.get(entityId);
+		int identityIndex = getIdentity(entityId);
 		return identityResolver.compositionMappers.get(identityIndex);
 	}
 
@@ -169,6 +281,11 @@ public class ComponentManager extends BaseSystem {
 	public int compositionIdentity(BitVector componentBits) {
 		int identity = identityResolver.getIdentity(componentBits);
 		if (identity == -1) {
+			if (!wideIdentities && identityResolver.compositionBits.size() > Short.MAX_VALUE) {
+				throw new RuntimeException("Exceeded " + Short.MAX_VALUE + " unique component compositions; " +
+					"see WorldConfiguration#setWideCompositionIdentity");
+			}
+
 			identity = identityResolver.allocateIdentity(componentBits, this);
 			world.getAspectSubscriptionManager()
 				.processComponentIdentity(identity, componentBits);
@@ -187,7 +304,9 @@ public class ComponentManager extends BaseSystem {
 	 * @return composition identity.
 	 */
 	public int getIdentity(int entityId) {
-		return entityToIdentity.get(entityId);
+		return wideIdentities
+			? entityToWideIdentity.unsafeGet(entityId)
+			: entityToIdentity.get(entityId);
 	}
 
 	/**
@@ -217,7 +336,39 @@ public class ComponentManager extends BaseSystem {
 	 * @param compositionId composition id
 	 */
 	void setIdentity(int entityId, int compositionId) {
-		entityToIdentity.unsafeSet(entityId, (short) compositionId);
+		if (wideIdentities)
+			entityToWideIdentity.unsafeSet(entityId, compositionId);
+		else
+			entityToIdentity.unsafeSet(entityId, (short) compositionId);
+	}
+
+	/** Assigns {@code compositionId} to {@code entityIds[from..to)}. */
+	void setIdentity(int[] entityIds, int from, int to, int compositionId) {
+		if (wideIdentities) {
+			IntBag identities = entityToWideIdentity;
+			for (int i = from; to > i; i++)
+				identities.unsafeSet(entityIds[i], compositionId);
+		} else {
+			ShortBag identities = entityToIdentity;
+			short identity = (short) compositionId;
+			for (int i = from; to > i; i++)
+				identities.unsafeSet(entityIds[i], identity);
+		}
+	}
+
+	/**
+	 * @return {@code true} if composition ids are tracked as {@code int},
+	 *         lifting the limit of {@link Short#MAX_VALUE} compositions.
+	 */
+	public boolean isWideCompositionIdentity() {
+		return wideIdentities;
+	}
+
+	/**
+	 * @return number of distinct compositions, including the empty composition.
+	 */
+	public int getCompositionCount() {
+		return identityResolver.compositionBits.size();
 	}
 
 	/**
@@ -229,10 +380,62 @@ public class ComponentManager extends BaseSystem {
 
 	public void ensureCapacity(int newSize) {
 		typeFactory.initialMapperCapacity = newSize;
-		entityToIdentity.ensureCapacity(newSize);
+		if (wideIdentities)
+			entityToWideIdentity.ensureCapacity(newSize);
+		else
+			entityToIdentity.ensureCapacity(newSize);
+		for (ComponentMapper mapper : mappers) {
+			mapper.ensureCapacity(newSize);
+		}
+	}
+
+	/**
+	 * Moves components and composition of entities to new ids, as part
+	 * of {@link World#compact()}.
+	 *
+	 * @param from ids of entities to move.
+	 * @param to new ids, without components; matched by index.
+	 */
+	void move(IntBag from, IntBag to) {
+		int[] src = from.getData();
+		int[] dst = to.getData();
+		for (int i = 0, s = from.size(); s > i; i++) {
+			int entityId = src[i];
+			Bag<ComponentMapper> mappers = componentMappers(entityId);
+			for (int j = 0, size = mappers.size(); size > j; j++) {
+				mappers.get(j).move(entityId, dst[i]);
+			}
+
+			setIdentity(dst[i], getIdentity(entityId));
+			setIdentity(entityId, NO_COMPONENTS);
+		}
+	}
+
+	/**
+	 * Trims entity stores to entity ids below {@code capacity}.
+	 */
+	void shrink(int capacity) {
+		typeFactory.initialMapperCapacity = capacity;
+		if (wideIdentities)
+			entityToWideIdentity.shrink(capacity);
+		else
+			entityToIdentity.shrink(capacity);
+		for (ComponentMapper mapper : mappers) {
+			mapper.shrink(capacity);
+		}
+	}
+
+	/**
+	 * @return estimated bytes of storage per entity id, across
+	 *         composition ids and all component mappers.
+	 */
+	int bytesPerEntity() {
+		int bytes = wideIdentities ? 4 : 2;
 		for (ComponentMapper mapper : mappers) {
-			mapper.components.ensureCapacity(newSize);
+			bytes += mapper.bytesPerEntity();
 		}
+
+		return bytes;
 	}
 
 	/** Tracks all unique component compositions. */
@@ -240,23 +443,42 @@ public class ComponentManager extends BaseSystem {
 		final Bag<BitVector> compositionBits;
 		final Bag<Bag<ComponentMapper>> compositionMappers;
 
+		/** Hash of each composition, indexed by identity. */
+		private final IntBag compositionHashes;
+
+		/**
+		 * Open-addressing (linear probing) index of compositions, keyed on
+		 * {@link BitVector#hashCode()}. Slots hold {@code identity + 1},
+		 * {@code 0} denoting an empty slot.
+		 */
+		private int[] index;
+
 		ComponentIdentityResolver() {
 			compositionBits = new Bag(BitVector.class);
-			compositionBits.add(new BitVector());
 			compositionMappers = new Bag<Bag<ComponentMapper>>();
+			compositionHashes = new IntBag();
+			index = new int[64];
+
+			BitVector empty = new BitVector();
+			compositionBits.add(empty);
 			compositionMappers.add(new Bag(ComponentMapper.class));
+			insert(NO_COMPONENTS, empty.hashCode());
 		}
 
 		/** Fetch unique identity for passed composition. */
 		int getIdentity(BitVector components) {
 			BitVector[] bitsets = compositionBits.getData();
-			int size = compositionBits.size();
-			for (int i = NO_COMPONENTS; size > i; i++) { // want to start from 1 so that 0 can mean null
-				if (components.equals(bitsets[i]))
-					return i;
-			}
+			int[] index = this.index;
+			int mask = index.length - 1;
 
-			return -1;
+			for (int slot = mix(components.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+				int identity = index[slot] - 1;
+				if (identity == -1)
+					return -1;
+
+				if (components.equals(bitsets[identity]))
+					return identity;
+			}
 		}
 
 		int allocateIdentity(BitVector componentBits, ComponentManager cm) {
@@ -268,10 +490,49 @@ public class ComponentManager extends BaseSystem {
 				mappers.add(cm.getMapper(tf.getTypeFor(i).getType()));
 			}
 
+			BitVector composition = new BitVector(componentBits);
 			compositionMappers.add(mappers);
-			compositionBits.add(new BitVector(componentBits));
+			compositionBits.add(composition);
+
+			int identity = compositionBits.size() - 1;
+			insert(identity, composition.hashCode());
+
+			return identity;
+		}
+
+		private void insert(int identity, int hash) {
+			compositionHashes.set(identity, hash);
+
+			// keeping load factor at or below 0.5
+			if (compositionHashes.size() * 2 > index.length)
+				rehash(index.length * 2);
+			else
+				place(index, identity, hash);
+		}
+
+		private void rehash(int capacity) {
+			int[] table = new int[capacity];
+			int[] hashes = compositionHashes.getData();
+			for (int i = 0, s = compositionHashes.size(); s > i; i++) {
+				place(table, i, hashes[i]);
+			}
+
+			index = table;
+		}
+
+		private static void place(int[] table, int identity, int hash) {
+			int mask = table.length - 1;
+			int slot = mix(hash) & mask;
+			while (table[slot] != 0)
+				slot = (slot + 1) & mask;
+
+			table[slot] = identity + 1;
+		}
 
-			return compositionBits.size() - 1;
+		/** Spreads poorly distributed hashes of sparse compositions. */
+		private static int mix(int hash) {
+			hash *= 0x9e3779b9;
+			return hash ^ (hash >>> 16);
 		}
 	}
 }
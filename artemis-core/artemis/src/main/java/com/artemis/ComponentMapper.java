@@ -2,6 +2,7 @@ package com.artemis;
 
 import com.artemis.annotations.DelayedComponentRemoval;
 import com.artemis.utils.Bag;
+import com.artemis.utils.BitVector;
 
 import static com.artemis.utils.reflect.ClassReflection.isAnnotationPresent;
 
@@ -21,11 +22,13 @@ public class ComponentMapper<A extends Component> extends BaseComponentMapper<A>
      */
     final Bag<A> components;
 
-    private final EntityTransmuter createTransmuter;
-    private final EntityTransmuter removeTransmuter;
+    final EntityTransmuter createTransmuter;
+    final EntityTransmuter removeTransmuter;
     private final ComponentPool pool;
     private final ComponentRemover<A> purgatory;
 
+    /** Per watching system, entities with created or changed components. */
+    private final Bag<BitVector> changeTrackers = new Bag<>(BitVector.class);
 
     @SuppressWarnings("unchecked")
     public ComponentMapper(Class<A> type, World world) {
@@ -127,6 +130,7 @@ public class ComponentMapper<A extends Component> extends BaseComponentMapper<A>
             createTransmuter.transmuteNoOperation(entityId);
             component = createNew();
             components.unsafeSet(entityId, component);
+            markChanged(entityId);
         }
 
         return component;
@@ -138,11 +142,119 @@ public class ComponentMapper<A extends Component> extends BaseComponentMapper<A>
         if (component == null || purgatory.unmark(entityId)) {
             component = createNew();
             components.unsafeSet(entityId, component);
+            markChanged(entityId);
         }
 
         return component;
     }
 
+    /**
+     * Retrieves the component for writing, flagging it as changed - see
+     * {@link #markChanged(int)}.
+     *
+     * @param entityId the entity that should possess the component
+     * @return the instance of the component.
+     */
+    public A modify(int entityId) {
+        markChanged(entityId);
+        return get(entityId);
+    }
+
+    /**
+     * Flags the component of this entity as changed, for systems watching
+     * this component type, such as {@link com.artemis.systems.ChangedIteratingSystem}.
+     * <p>
+     * Created and replaced components are flagged automatically; writes to
+     * existing components must be flagged explicitly, or performed on the
+     * component returned by {@link #modify(int)}. Does nothing unless some
+     * system watches this component type.
+     * <p>
+     * Not thread-safe.
+     *
+     * @param entityId the entity whose component changed
+     */
+    public void markChanged(int entityId) {
+        BitVector[] trackers = changeTrackers.getData();
+        for (int i = 0, s = changeTrackers.size(); s > i; i++)
+            trackers[i].set(entityId);
+    }
+
+    /**
+     * Starts flagging entities in {@code changed} whenever their component
+     * is created or marked as changed. The bitset is never cleared by the
+     * mapper; consumers reset it once they have processed the changes.
+     *
+     * @param changed receives ids of entities with changed components.
+     */
+    public void trackChanges(BitVector changed) {
+        changeTrackers.add(changed);
+    }
+
+    /**
+     * @param changed bitset previously passed to {@link #trackChanges(BitVector)}.
+     */
+    public void untrackChanges(BitVector changed) {
+        // identity, as BitVector#equals compares bits
+        for (int i = 0, s = changeTrackers.size(); s > i; i++) {
+            if (changeTrackers.get(i) == changed) {
+                changeTrackers.remove(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if any system watches this component type.
+     */
+    public boolean isTrackingChanges() {
+        return !changeTrackers.isEmpty();
+    }
+
+    /**
+     * Replaces the component of an existing entity, as per {@link EntityEdit#add(Component)}.
+     */
+    void put(int entityId, A component) {
+        components.unsafeSet(entityId, component);
+        markChanged(entityId);
+    }
+
+    /**
+     * Grows storage to accommodate entity ids up to {@code index}.
+     */
+    void ensureCapacity(int index) {
+        components.ensureCapacity(index);
+    }
+
+    /**
+     * Moves the component of entity {@code from} to entity {@code to},
+     * as part of {@link World#compact()}. Entity {@code to} must be
+     * without component.
+     */
+    void move(int from, int to) {
+        components.unsafeSet(to, components.get(from));
+        components.unsafeSet(from, null);
+    }
+
+    /**
+     * Trims storage to entity ids below {@code capacity}.
+     */
+    void shrink(int capacity) {
+        components.shrink(capacity);
+    }
+
+    /**
+     * @return estimated bytes of storage per entity id, excluding
+     *         the component instances themselves.
+     */
+    int bytesPerEntity() {
+        return 4;
+    }
+
+    /**
+     * Releases storage held outside of the heap, once the world is disposed.
+     */
+    void dispose() {}
+
     private A createNew() {
         return (A) ((pool != null)
                 ? pool.obtain()
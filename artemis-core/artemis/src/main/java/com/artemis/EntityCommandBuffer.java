@@ -0,0 +1,214 @@
+package com.artemis;
+
+import com.artemis.utils.Bag;
+import com.artemis.utils.IntBag;
+
+import java.util.Arrays;
+
+/**
+ * Records structural changes - entity creation and deletion, adding and
+ * removing components and transmutations - for later playback.
+ * <p>
+ * Recording never touches world state, making it safe to record from
+ * any thread, as long as each buffer is confined to a single thread at
+ * a time. Commands are played back in bulk on the world's thread, either
+ * explicitly through {@link #playback(World)} - typically at the end of
+ * a system - or by handing the buffer to {@link World#submit(EntityCommandBuffer)},
+ * which plays it back at the start of the next {@link World#process()}.
+ * <p>
+ * Entities created by the buffer are referenced by negative placeholder ids
+ * until played back. During playback, all entities are created first, in
+ * recording order; remaining commands are then applied sorted by entity id,
+ * preserving recording order per entity. Commands targeting entities which
+ * are deleted or inactive at the time of playback are discarded.
+ *
+ * @see World#submit(EntityCommandBuffer)
+ */
+public class EntityCommandBuffer {
+	private static final int DELETE = 0;
+	private static final int CREATE_COMPONENT = 1;
+	private static final int ADD_COMPONENT = 2;
+	private static final int REMOVE_COMPONENT = 3;
+	private static final int TRANSMUTE = 4;
+
+	/** Pairs of operation and entity id. */
+	private final IntBag operations = new IntBag();
+	private final Bag<Object> arguments = new Bag<Object>();
+
+	/** Archetypes of entities created by this buffer, null for empty entities. */
+	private final Bag<Archetype> created = new Bag<Archetype>(Archetype.class);
+
+	private final IntBag resolved = new IntBag();
+	private long[] order = new long[0];
+
+	/**
+	 * Create a new, empty, entity upon playback.
+	 *
+	 * @return placeholder id, only valid for this buffer.
+	 */
+	public int create() {
+		return create(null);
+	}
+
+	/**
+	 * Create a new entity of the given archetype upon playback.
+	 *
+	 * @param archetype archetype of new entity, or {@code null} for an empty entity.
+	 * @return placeholder id, only valid for this buffer.
+	 */
+	public int create(Archetype archetype) {
+		created.add(archetype);
+		return -created.size();
+	}
+
+	/**
+	 * Delete entity upon playback; any commands recorded after for the
+	 * same entity are discarded.
+	 *
+	 * @param entityId entity or placeholder id.
+	 */
+	public void delete(int entityId) {
+		record(DELETE, entityId, null);
+	}
+
+	/**
+	 * Create component of the given type upon playback.
+	 *
+	 * @param entityId entity or placeholder id.
+	 * @param type component type to create.
+	 * @see EntityEdit#create(Class)
+	 */
+	public void create(int entityId, Class<? extends Component> type) {
+		record(CREATE_COMPONENT, entityId, type);
+	}
+
+	/**
+	 * Add component instance upon playback. Does not support pooled components.
+	 *
+	 * @param entityId entity or placeholder id.
+	 * @param component component to add.
+	 * @see EntityEdit#add(Component)
+	 */
+	public void add(int entityId, Component component) {
+		record(ADD_COMPONENT, entityId, component);
+	}
+
+	/**
+	 * Remove component of the given type upon playback.
+	 *
+	 * @param entityId entity or placeholder id.
+	 * @param type component type to remove.
+	 * @see EntityEdit#remove(Class)
+	 */
+	public void remove(int entityId, Class<? extends Component> type) {
+		record(REMOVE_COMPONENT, entityId, type);
+	}
+
+	/**
+	 * Transmute entity upon playback.
+	 *
+	 * @param entityId entity or placeholder id.
+	 * @param transmuter transmuter to apply.
+	 * @see EntityTransmuter#transmute(int)
+	 */
+	public void transmute(int entityId, EntityTransmuter transmuter) {
+		record(TRANSMUTE, entityId, transmuter);
+	}
+
+	/**
+	 * @return {@code true} if no commands have been recorded since last playback.
+	 */
+	public boolean isEmpty() {
+		return operations.isEmpty() && created.isEmpty();
+	}
+
+	/**
+	 * @return Number of recorded commands, including entity creation.
+	 */
+	public int size() {
+		return (operations.size() >> 1) + created.size();
+	}
+
+	/** Discards all recorded commands. */
+	public void clear() {
+		operations.setSize(0);
+		arguments.clear();
+		created.clear();
+	}
+
+	/**
+	 * Applies all recorded commands to the world, then clears this buffer.
+	 * Must only be invoked from the world's thread; entity subscriptions
+	 * are updated at the next synchronization point, as with regular edits.
+	 *
+	 * @param world world to apply commands to.
+	 */
+	public void playback(World world) {
+		resolved.setSize(0);
+		for (int i = 0, s = created.size(); s > i; i++) {
+			Archetype archetype = created.get(i);
+			resolved.add(archetype != null ? world.create(archetype) : world.create());
+		}
+
+		int count = operations.size() >> 1;
+		if (order.length < count)
+			order = new long[Math.max(count, order.length * 2)];
+
+		int[] data = operations.getData();
+		for (int i = 0; count > i; i++) {
+			long entityId = resolve(data[i * 2 + 1]);
+			order[i] = (entityId << 32) | i;
+		}
+		Arrays.sort(order, 0, count);
+
+		EntityManager em = world.getEntityManager();
+		BatchChangeProcessor batchProcessor = world.batchProcessor;
+		for (int i = 0; count > i; i++) {
+			int entityId = (int) (order[i] >>> 32);
+			int index = (int) order[i];
+
+			if (!em.isActive(entityId) || batchProcessor.isDeleted(entityId))
+				continue;
+
+			apply(world, data[index * 2], entityId, arguments.get(index));
+		}
+
+		clear();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void apply(World world, int operation, int entityId, Object argument) {
+		switch (operation) {
+			case DELETE:
+				world.delete(entityId);
+				break;
+			case CREATE_COMPONENT:
+				world.edit(entityId).create((Class<? extends Component>) argument);
+				break;
+			case ADD_COMPONENT:
+				world.edit(entityId).add((Component) argument);
+				break;
+			case REMOVE_COMPONENT:
+				world.edit(entityId).remove((Class<? extends Component>) argument);
+				break;
+			case TRANSMUTE:
+				((EntityTransmuter) argument).transmute(entityId);
+				break;
+			default:
+				throw new RuntimeException("Unknown operation: " + operation);
+		}
+	}
+
+	private int resolve(int entityId) {
+		return (entityId < 0) ? resolved.get(-entityId - 1) : entityId;
+	}
+
+	private void record(int operation, int entityId, Object argument) {
+		if (entityId < 0 && -entityId > created.size())
+			throw new IllegalArgumentException("Unknown placeholder id: " + entityId);
+
+		operations.add(operation);
+		operations.add(entityId);
+		arguments.add(argument);
+	}
+}
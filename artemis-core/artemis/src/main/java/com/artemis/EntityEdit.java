@@ -1,5 +1,6 @@
 package com.artemis;
 
+import com.artemis.utils.BitVector;
 
 /**
  * Entity mutator.
@@ -18,14 +19,26 @@ package com.artemis;
  * - {@link com.artemis.utils.EntityBuilder} Convenient entity creation. Not useful when pooling.
  * - {@link com.artemis.EntityTransmuterFactory} Fastest but rigid way of changing entity component compositions.
  * - {@link com.artemis.Archetype} Fastest, low level, no parameterized components.
+ * <p/>
+ * With {@link WorldConfiguration#setCoalescingEdits(boolean) coalescing edits}, component
+ * additions and removals are accumulated and the resulting composition is resolved once,
+ * when the edit is committed.
  */
 public final class EntityEdit {
 
 	int entityId;
 	private ComponentManager cm;
+	private final BatchChangeProcessor batchProcessor;
+
+	/** When {@code true}, composition changes are staged in {@link #composition}. */
+	private final boolean coalescing;
+	private final BitVector composition = new BitVector();
+	private boolean staged;
 
 	EntityEdit(World world) {
 		cm = world.getComponentManager();
+		batchProcessor = world.batchProcessor;
+		coalescing = world.isCoalescingEdits();
 	}
 
 	/**
@@ -37,7 +50,12 @@ public final class EntityEdit {
 	 * @return Newly instanced component.
 	 */
 	public <T extends Component> T create(Class<T> componentKlazz) {
-		return cm.getMapper(componentKlazz).create(entityId);
+		ComponentMapper<T> mapper = cm.getMapper(componentKlazz);
+		if (!coalescing)
+			return mapper.create(entityId);
+
+		stage(mapper.type, true);
+		return mapper.internalCreate(entityId);
 	}
 
 	/**
@@ -69,14 +87,23 @@ public final class EntityEdit {
 				"Use EntityEdit#create(Class<Component>) for adding non-basic component types");
 		}
 
-		ComponentMapper mapper = cm.getMapper(type.getType());
-
-		mapper.create(entityId);
-		mapper.components.getData()[entityId] =  component;
+		if (coalescing)
+			stage(type, true);
 
+		put(cm.getMapper(type.getType()), component);
 		return this;
 	}
 
+	@SuppressWarnings("unchecked")
+	private <T extends Component> void put(ComponentMapper<T> mapper, Component component) {
+		if (coalescing) {
+			mapper.internalCreate(entityId);
+		} else {
+			mapper.create(entityId);
+		}
+		mapper.put(entityId, (T) component);
+	}
+
 	/**
 	 * Get target entity of entity edits.
 	 *
@@ -114,7 +141,14 @@ public final class EntityEdit {
 	 * @return this EntityEdit for chaining
 	 */
 	public EntityEdit remove(ComponentType type) {
-		cm.getMapper(type.getType()).remove(entityId);
+		ComponentMapper mapper = cm.getMapper(type.getType());
+		if (coalescing) {
+			stage(type, false);
+			mapper.internalRemove(entityId);
+		} else {
+			mapper.remove(entityId);
+		}
+
 		return this;
 	}
 
@@ -128,6 +162,33 @@ public final class EntityEdit {
 		return remove(cm.typeFactory.getTypeFor(type));
 	}
 
+	/**
+	 * Resolves and applies the composition accumulated by a coalescing
+	 * edit. Does nothing if there are no staged changes.
+	 */
+	void commit() {
+		if (!staged)
+			return;
+
+		staged = false;
+		if (batchProcessor.isDeleted(entityId))
+			return;
+
+		cm.setIdentity(entityId, cm.compositionIdentity(composition));
+		batchProcessor.changed.unsafeSet(entityId);
+	}
+
+	private void stage(ComponentType type, boolean add) {
+		if (!staged) {
+			batchProcessor.staging(this);
+			composition.clear();
+			composition.or(cm.componentBits(entityId));
+			staged = true;
+		}
+
+		composition.set(type.getIndex(), add);
+	}
+
 	@Override
 	public String toString() {
 		return "EntityEdit[" + entityId + "]";
@@ -23,11 +23,18 @@ public class EntityManager extends BaseSystem {
 	private final IntDeque limbo = new IntDeque();
 	private int nextId;
 	private Bag<BitVector> entityBitVectors = new Bag<BitVector>(BitVector.class);
+	private final Bag<RemapListener> remapListeners = new Bag<RemapListener>();
+	/** Entity stores are never trimmed below this capacity. */
+	private final int initialContainerSize;
+	/** Totals since world creation, for metrics. */
+	private long createdCount;
+	private long deletedCount;
 
 	/**
 	 * Creates a new EntityManager Instance.
 	 */
 	protected EntityManager(int initialContainerSize) {
+		this.initialContainerSize = initialContainerSize;
 		entities = new Bag<Entity>(initialContainerSize);
 		registerEntityStore(recycled);
 	}
@@ -53,6 +60,40 @@ public class EntityManager extends BaseSystem {
 		return obtain().id;
 	}
 
+	/**
+	 * Create {@code count} new entities, reusing recycled ids first. Entity
+	 * stores are grown at most once.
+	 *
+	 * @param count number of entities to create.
+	 * @param out receives the new entity ids; recycled ids, then a
+	 *            contiguous range of fresh ids.
+	 * @return number of recycled ids added to {@code out}.
+	 */
+	int create(int count, IntBag out) {
+		out.ensureCapacity(out.size() + count);
+
+		int recycledCount = Math.min(count, limbo.size());
+		for (int i = 0; recycledCount > i; i++) {
+			int id = limbo.popFirst();
+			recycled.unsafeClear(id);
+			out.add(id);
+		}
+
+		createdCount += count;
+
+		int first = nextId;
+		nextId += count - recycledCount;
+		if (nextId > entities.getCapacity())
+			growEntityStores(nextId);
+
+		for (int id = first; nextId > id; id++) {
+			entities.set(id, new Entity(world, id));
+			out.add(id);
+		}
+
+		return recycledCount;
+	}
+
 	void clean(IntBag pendingDeletion) {
 		int[] ids = pendingDeletion.getData();
 		for(int i = 0, s = pendingDeletion.size(); s > i; i++) {
@@ -82,11 +123,49 @@ public class EntityManager extends BaseSystem {
 		return !recycled.unsafeGet(entityId);
 	}
 
+	/**
+	 * @return number of entities created since world creation.
+	 */
+	public long getCreatedCount() {
+		return createdCount;
+	}
+
+	/**
+	 * @return number of entities deleted since world creation.
+	 */
+	public long getDeletedCount() {
+		return deletedCount;
+	}
+
 	public void registerEntityStore(BitVector bv) {
 		bv.ensureCapacity(entities.getCapacity());
 		entityBitVectors.add(bv);
 	}
 
+	/**
+	 * Stops growing and remapping the bitset along with entity capacity.
+	 *
+	 * @param bv previously registered bitset.
+	 */
+	public void unregisterEntityStore(BitVector bv) {
+		for (int i = 0, s = entityBitVectors.size(); s > i; i++) {
+			if (entityBitVectors.get(i) == bv) {
+				entityBitVectors.remove(i);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Registers listener to be informed whenever entity ids are remapped
+	 * by {@link World#compact()}.
+	 *
+	 * @param listener listener to register.
+	 */
+	public void register(RemapListener listener) {
+		remapListeners.add(listener);
+	}
+
 	/**
 	 * Resolves entity id to the unique entity instance. <em>This method may
 	 * return an entity even if it isn't active in the world, </em> use
@@ -129,6 +208,82 @@ public class EntityManager extends BaseSystem {
 		return true;
 	}
 
+	/**
+	 * Moves all active entities with ids at or above the active entity
+	 * count into the holes left by deleted entities, then trims all entity
+	 * stores to the remaining id range. Must not be invoked while systems
+	 * are processing or with pending entity changes, see {@link World#compact()}.
+	 *
+	 * @return summary of compaction.
+	 */
+	CompactionReport compact() {
+		int entityCount = nextId - limbo.size();
+		int capacityBefore = entities.getCapacity();
+		int idsBefore = nextId;
+
+		// live ids beyond entityCount, paired with holes below it
+		IntBag from = new IntBag();
+		IntBag to = new IntBag();
+		for (int id = entityCount; nextId > id; id++) {
+			if (!recycled.unsafeGet(id))
+				from.add(id);
+		}
+		for (int id = recycled.nextSetBit(0); id >= 0 && entityCount > id; id = recycled.nextSetBit(id + 1)) {
+			to.add(id);
+		}
+
+		if (!from.isEmpty()) {
+			world.getComponentManager().move(from, to);
+			moveEntityStores(from, to);
+			world.getAspectSubscriptionManager().remap(from, to);
+
+			for (int i = 0, s = remapListeners.size(); s > i; i++) {
+				remapListeners.get(i).remapped(from, to);
+			}
+		}
+
+		limbo.clear();
+		recycled.clear();
+		while (entities.size() > entityCount) {
+			entities.removeLast();
+		}
+		nextId = entityCount;
+
+		int capacity = Math.max(entityCount, initialContainerSize);
+		int bitsPerEntity = 8 * (4 + world.getComponentManager().bytesPerEntity()) + entityBitVectors.size();
+		if (capacity < capacityBefore) {
+			entities.shrink(capacity);
+			world.getComponentManager().shrink(capacity);
+			world.getAspectSubscriptionManager().shrink(capacity);
+			for (int i = 0, s = entityBitVectors.size(); s > i; i++) {
+				entityBitVectors.get(i).shrink(capacity);
+			}
+		} else {
+			capacity = capacityBefore;
+		}
+
+		long reclaimed = (long) (capacityBefore - capacity) * bitsPerEntity / 8
+			+ (long) (idsBefore - entityCount) * CompactionReport.ENTITY_INSTANCE_BYTES;
+
+		return new CompactionReport(entityCount, from.size(), capacityBefore, capacity, reclaimed);
+	}
+
+	private void moveEntityStores(IntBag from, IntBag to) {
+		int[] src = from.getData();
+		int[] dst = to.getData();
+		for (int i = 0, s = entityBitVectors.size(); s > i; i++) {
+			BitVector bits = entityBitVectors.get(i);
+			for (int j = 0, size = from.size(); size > j; j++) {
+				if (bits.unsafeGet(src[j]))
+					bits.unsafeSet(dst[j]);
+				else
+					bits.unsafeClear(dst[j]);
+
+				bits.unsafeClear(src[j]);
+			}
+		}
+	}
+
 	/**
 	 * Instantiates an Entity without registering it into the world.
 	 * @param id The ID to be set on the Entity
@@ -136,7 +291,7 @@ public class EntityManager extends BaseSystem {
 	private Entity createEntity(int id) {
 		Entity e = new Entity(world, id);
 		if (e.id >= entities.getCapacity()) {
-			growEntityStores();
+			growEntityStores(e.id + 1);
 		}
 
 		// can't use unsafe set, as we need to track highest id
@@ -147,8 +302,8 @@ public class EntityManager extends BaseSystem {
 		return e;
 	}
 
-	private void growEntityStores() {
-		int newSize = 2 * entities.getCapacity();
+	private void growEntityStores(int minCapacity) {
+		int newSize = Math.max(2 * entities.getCapacity(), minCapacity);
 		entities.ensureCapacity(newSize);
 		ComponentManager cm = world.getComponentManager();
 		cm.ensureCapacity(newSize);
@@ -159,6 +314,7 @@ public class EntityManager extends BaseSystem {
 	}
 
 	private Entity obtain() {
+		createdCount++;
 		if (limbo.isEmpty()) {
 			return createEntity(nextId++);
 		} else {
@@ -169,7 +325,26 @@ public class EntityManager extends BaseSystem {
 	}
 
 	private void free(int entityId) {
+		deletedCount++;
 		limbo.add(entityId);
 		recycled.unsafeSet(entityId);
 	}
+
+	/**
+	 * Informed when {@link World#compact()} moves entities to new ids.
+	 *
+	 * @see #register(RemapListener)
+	 */
+	public interface RemapListener {
+		/**
+		 * Invoked once components, entity subscriptions and entity references
+		 * held by components have been remapped, but before former ids are
+		 * released: {@link World#getEntity(int)} still resolves both former
+		 * and new ids. Moved entities keep their relative order.
+		 *
+		 * @param from former ids of moved entities, in ascending order.
+		 * @param to new ids, matched by index.
+		 */
+		void remapped(IntBag from, IntBag to);
+	}
 }
@@ -3,8 +3,11 @@ package com.artemis;
 import com.artemis.annotations.DelayedComponentRemoval;
 import com.artemis.utils.Bag;
 import com.artemis.utils.BitVector;
+import com.artemis.utils.CompressedBitVector;
 import com.artemis.utils.IntBag;
 
+import java.util.Arrays;
+
 /**
  * Maintains the list of entities matched by an aspect. Entity subscriptions
  * are automatically updated during {@link com.artemis.World#process()}.
@@ -20,27 +23,28 @@ import com.artemis.utils.IntBag;
 public class EntitySubscription {
     final SubscriptionExtra extra;
 
+    private final EntityManager em;
     private final IntBag entities;
-    private final BitVector activeEntityIds;
-
-    private final BitVector insertedIds;
-    private final BitVector removedIds;
+    private SubscriptionBits bits;
 
     final BitVector aspectCache = new BitVector();
 
+    private Maintenance maintenance = Maintenance.REBUILD;
+
+    /** {@link Maintenance#UNORDERED}: position in {@link #entities} plus one, per entity. */
+    private IntBag entityIndices;
+    /** {@link Maintenance#INSERTION_ORDER}: entities present in {@link #entities}. */
+    private BitVector listedIds;
+    /** {@link Maintenance#SORTED}: scratch space for merging. */
+    private IntBag merged;
+
     EntitySubscription(World world, Aspect.Builder builder) {
         extra = new SubscriptionExtra(builder.build(world), builder);
 
-        activeEntityIds = new BitVector();
         entities = new IntBag();
 
-        insertedIds = new BitVector();
-        removedIds = new BitVector();
-
-        EntityManager em = world.getEntityManager();
-        em.registerEntityStore(activeEntityIds);
-        em.registerEntityStore(insertedIds);
-        em.registerEntityStore(removedIds);
+        em = world.getEntityManager();
+        bits = new SubscriptionBits.Dense(em, new BitVector());
     }
 
     /**
@@ -52,22 +56,119 @@ public class EntitySubscription {
      * @return View of all active entities.
      */
     public IntBag getEntities() {
-        if (entities.isEmpty() && !activeEntityIds.isEmpty())
+        if (maintenance == Maintenance.REBUILD && entities.isEmpty() && !bits.isEmpty())
             rebuildCompressedActives();
 
         return entities;
     }
 
+    /**
+     * Counts matched entities without rebuilding {@link #getEntities()}.
+     *
+     * @return number of matched entities.
+     */
+    public int getEntityCount() {
+        if (maintenance != Maintenance.REBUILD || !entities.isEmpty())
+            return entities.size();
+
+        return bits.cardinality();
+    }
+
+    /**
+     * @return strategy keeping {@link #getEntities()} up to date.
+     */
+    public Maintenance getMaintenance() {
+        return maintenance;
+    }
+
+    /**
+     * Sets how {@link #getEntities()} is kept up to date. Subscriptions
+     * are shared between all systems with the same aspect; the order
+     * of entities changes for all of them.
+     *
+     * @param maintenance strategy keeping entities up to date.
+     */
+    public void setMaintenance(Maintenance maintenance) {
+        if (maintenance == null)
+            throw new NullPointerException("maintenance must not be null");
+
+        this.maintenance = maintenance;
+        entityIndices = null;
+        listedIds = null;
+        merged = null;
+
+        rebuildCompressedActives();
+        switch (maintenance) {
+            case UNORDERED:
+                entityIndices = new IntBag(bits.length());
+                int[] ids = entities.getData();
+                for (int i = 0, s = entities.size(); s > i; i++)
+                    entityIndices.set(ids[i], i + 1);
+                break;
+            case INSERTION_ORDER:
+                listedIds = new BitVector(bits.activeEntityIds());
+                break;
+            case SORTED:
+                merged = new IntBag(entities.size());
+                break;
+        }
+    }
+
     /**
      * Returns the bitset tracking all matched entities.
      *
      * <p><b>Warning: </b> Never toggle bits in the bitset, as
      * this <i>may</i> lead to erroneously added or removed entities.</p>
      *
+     * <p>Compressed subscriptions materialize the bitset upon first access
+     * following any change; prefer {@link #getEntities()}.</p>
+     *
      * @return View of all active entities.
      */
     public BitVector getActiveEntityIds() {
-        return activeEntityIds;
+        return bits.activeEntityIds();
+    }
+
+    /**
+     * @return {@code true} if matched entities are tracked by compressed bitsets.
+     * @see #setCompressed(boolean)
+     */
+    public boolean isCompressed() {
+        return bits instanceof SubscriptionBits.Compressed;
+    }
+
+    /**
+     * <p>Tracks matched entities with {@link CompressedBitVector compressed bitsets},
+     * taking memory proportional to the number of matched entities rather than
+     * to the capacity of the world. Suits subscriptions matching few entities,
+     * or entities clustered by id, in worlds with many entities; membership
+     * checks and updates are somewhat slower than with regular bitsets.</p>
+     *
+     * <p>The subscription matching all entities can't be compressed.</p>
+     *
+     * @param compressed {@code true} to compress, {@code false} for regular bitsets.
+     * @see WorldConfiguration#setCompressedSubscriptions(boolean)
+     */
+    public void setCompressed(boolean compressed) {
+        if (compressed == isCompressed())
+            return;
+
+        if (compressed && isAll())
+            throw new IllegalArgumentException("Subscription matching all entities can't be compressed.");
+
+        if (bits.hasChanges())
+            throw new IllegalStateException("Can't change storage with pending changes.");
+
+        BitVector active = new BitVector(bits.activeEntityIds());
+        bits.dispose(em);
+        bits = compressed
+            ? new SubscriptionBits.Compressed(active)
+            : new SubscriptionBits.Dense(em, active);
+    }
+
+    /** @return {@code true} if subscription matches all entities. */
+    boolean isAll() {
+        return Aspect.all().equals(extra.aspectReflection);
     }
 
     /**
@@ -94,12 +195,12 @@ public class EntitySubscription {
     }
 
     void rebuildCompressedActives() {
-        activeEntityIds.toIntBag(entities);
+        bits.toIntBag(entities);
     }
 
     final void check(int id, int cid) {
         boolean interested = aspectCache.unsafeGet(cid);
-        boolean contains = activeEntityIds.unsafeGet(id);
+        boolean contains = bits.contains(id);
 
         if (interested && !contains) {
             insert(id);
@@ -108,14 +209,31 @@ public class EntitySubscription {
         }
     }
 
+    /**
+     * @return {@code true} if entities of composition {@code cid} are matched.
+     */
+    final boolean isInterested(int cid) {
+        return aspectCache.unsafeGet(cid);
+    }
+
+    /** Entity transitioned into a composition matched by this subscription. */
+    final void gained(int entityId) {
+        if (!bits.contains(entityId))
+            insert(entityId);
+    }
+
+    /** Entity transitioned out of compositions matched by this subscription. */
+    final void lost(int entityId) {
+        if (bits.contains(entityId))
+            remove(entityId);
+    }
+
     private void remove(int entityId) {
-        activeEntityIds.unsafeClear(entityId);
-        removedIds.unsafeSet(entityId);
+        bits.remove(entityId);
     }
 
     private void insert(int entityId) {
-        activeEntityIds.unsafeSet(entityId);
-        insertedIds.unsafeSet(entityId);
+        bits.insert(entityId);
     }
 
     void process(IntBag changed, IntBag deleted) {
@@ -133,19 +251,169 @@ public class EntitySubscription {
     }
 
     void informEntityChanges() {
-        if (insertedIds.isEmpty() && removedIds.isEmpty())
+        if (!bits.hasChanges())
             return;
 
-        transferBitsToInts(extra.inserted, extra.removed);
-        extra.informEntityChanges();
-        entities.setSize(0);
+        bits.transferChanges(extra.inserted, extra.removed);
+        extra.informListeners();
+        updateEntities(extra.inserted, extra.removed);
+        extra.clear();
     }
 
-    private void transferBitsToInts(IntBag inserted, IntBag removed) {
-        insertedIds.toIntBag(inserted);
-        removedIds.toIntBag(removed);
-        insertedIds.clear();
-        removedIds.clear();
+    /**
+     * Patches {@link #entities} with changes since last update. Entities
+     * may be both inserted and removed, as long as they end up in the
+     * state reflected by {@link #getActiveEntityIds()}.
+     */
+    private void updateEntities(IntBag inserted, IntBag removed) {
+        switch (maintenance) {
+            case REBUILD:
+                entities.setSize(0);
+                break;
+            case UNORDERED:
+                updateUnordered(inserted, removed);
+                break;
+            case INSERTION_ORDER:
+                updateInsertionOrder(inserted, removed);
+                break;
+            case SORTED:
+                updateSorted(inserted, removed);
+                break;
+        }
+    }
+
+    private void updateUnordered(IntBag inserted, IntBag removed) {
+        IntBag indices = entityIndices;
+
+        int[] ids = removed.getData();
+        for (int i = 0, s = removed.size(); s > i; i++) {
+            int id = ids[i];
+            if (indices.size() > id && indices.get(id) != 0 && !bits.contains(id)) {
+                // last entity takes the place of the removed entity
+                int index = indices.get(id) - 1;
+                entities.removeIndex(index);
+                if (entities.size() > index)
+                    indices.unsafeSet(entities.get(index), index + 1);
+
+                indices.unsafeSet(id, 0);
+            }
+        }
+
+        ids = inserted.getData();
+        for (int i = 0, s = inserted.size(); s > i; i++) {
+            int id = ids[i];
+            boolean listed = indices.size() > id && indices.get(id) != 0;
+            if (!listed && bits.contains(id)) {
+                entities.add(id);
+                indices.set(id, entities.size());
+            }
+        }
+    }
+
+    private void updateInsertionOrder(IntBag inserted, IntBag removed) {
+        if (!removed.isEmpty()) {
+            int[] ids = removed.getData();
+            for (int i = 0, s = removed.size(); s > i; i++) {
+                int id = ids[i];
+                if (!bits.contains(id))
+                    listedIds.unsafeClear(id);
+            }
+
+            // preserves order of remaining entities
+            int[] data = entities.getData();
+            int size = 0;
+            for (int i = 0, s = entities.size(); s > i; i++) {
+                int id = data[i];
+                if (listedIds.unsafeGet(id))
+                    data[size++] = id;
+            }
+            entities.setSize(size);
+        }
+
+        int[] ids = inserted.getData();
+        for (int i = 0, s = inserted.size(); s > i; i++) {
+            int id = ids[i];
+            if (!listedIds.unsafeGet(id) && bits.contains(id)) {
+                listedIds.unsafeSet(id);
+                entities.add(id);
+            }
+        }
+    }
+
+    private void updateSorted(IntBag inserted, IntBag removed) {
+        int[] ids = inserted.getData();
+        int insertedCount = inserted.size();
+
+        // fast path: entities appended in ascending order, no removals
+        if (removed.isEmpty() && (entities.isEmpty() || ids[0] > entities.get(entities.size() - 1))) {
+            for (int i = 0; insertedCount > i; i++) {
+                if (bits.contains(ids[i]))
+                    entities.add(ids[i]);
+            }
+            return;
+        }
+
+        // inserted and entities are both sorted, merge into scratch bag
+        IntBag out = merged;
+        out.setSize(0);
+        out.ensureCapacity(entities.size() + insertedCount);
+
+        int[] data = entities.getData();
+        int size = entities.size();
+        int i = 0, j = 0;
+        while (size > i || insertedCount > j) {
+            int id;
+            if (insertedCount == j || (size > i && ids[j] >= data[i])) {
+                id = data[i++];
+                if (insertedCount > j && ids[j] == id)
+                    j++;
+            } else {
+                id = ids[j++];
+            }
+
+            if (bits.contains(id))
+                out.add(id);
+        }
+
+        entities.ensureCapacity(out.size());
+        System.arraycopy(out.getData(), 0, entities.getData(), 0, out.size());
+        entities.setSize(out.size());
+    }
+
+    /**
+     * Rewrites entity ids after {@link World#compact()}, preserving the
+     * ordering guarantees of the current {@link Maintenance}.
+     *
+     * @param newIds new id plus one, indexed by former id; {@code 0} if unchanged.
+     */
+    void remap(IntBag newIds) {
+        bits.remap(newIds);
+        if (maintenance == Maintenance.REBUILD) {
+            entities.setSize(0);
+            return;
+        }
+
+        int[] data = entities.getData();
+        int highest = newIds.size();
+        for (int i = 0, s = entities.size(); s > i; i++) {
+            int id = data[i];
+            if (highest > id && newIds.get(id) != 0)
+                data[i] = newIds.get(id) - 1;
+        }
+
+        switch (maintenance) {
+            case UNORDERED:
+                entityIndices = new IntBag(bits.length());
+                for (int i = 0, s = entities.size(); s > i; i++)
+                    entityIndices.set(data[i], i + 1);
+                break;
+            case INSERTION_ORDER:
+                listedIds = new BitVector(bits.activeEntityIds());
+                break;
+            case SORTED:
+                Arrays.sort(data, 0, entities.size());
+                break;
+        }
     }
 
     private void changed(IntBag entitiesWithCompositions) {
@@ -153,7 +421,7 @@ public class EntitySubscription {
         for (int i = 0, s = entitiesWithCompositions.size(); s > i; i += 2) {
             int id = ids[i];
             boolean interested = aspectCache.unsafeGet(ids[i + 1]);
-            boolean contains = activeEntityIds.unsafeGet(id);
+            boolean contains = bits.contains(id);
 
             if (interested && !contains) {
                 insert(id);
@@ -167,17 +435,15 @@ public class EntitySubscription {
         int[] ids = entities.getData();
         for (int i = 0, s = entities.size(); s > i; i++) {
             int id = ids[i];
-            if (activeEntityIds.unsafeGet(id))
+            if (bits.contains(id))
                 remove(id);
         }
     }
 
-    private void deletedAll(IntBag entities) {
+    void deletedAll(IntBag entities) {
         int[] ids = entities.getData();
         for (int i = 0, s = entities.size(); s > i; i++) {
-            int id = ids[i];
-            activeEntityIds.unsafeClear(id);
-            removedIds.unsafeSet(id);
+            bits.remove(ids[i]);
         }
     }
 
@@ -258,12 +524,15 @@ public class EntitySubscription {
 
         void informEntityChanges() {
             informListeners();
+            clear();
+        }
 
+        void clear() {
             removed.setSize(0);
             inserted.setSize(0);
         }
 
-        private void informListeners() {
+        void informListeners() {
             for (int i = 0, s = listeners.size(); s > i; i++) {
                 SubscriptionListener listener = listeners.get(i);
                 if (removed.size() > 0)
@@ -274,4 +543,35 @@ public class EntitySubscription {
             }
         }
     }
+
+    /**
+     * Strategies for keeping {@link #getEntities()} up to date.
+     *
+     * @see #setMaintenance(Maintenance)
+     */
+    public enum Maintenance {
+        /**
+         * Rebuilds all entities from {@link #getActiveEntityIds()} upon
+         * first access after any change. Entities are sorted by id.
+         */
+        REBUILD,
+        /**
+         * Appends inserted entities, removed entities are replaced by
+         * the last entity. Cost proportional to number of changes; order
+         * of entities is unspecified.
+         */
+        UNORDERED,
+        /**
+         * Appends inserted entities, removals compact remaining entities.
+         * Entities are kept in order of insertion; removals cost a pass
+         * over all entities.
+         */
+        INSERTION_ORDER,
+        /**
+         * Merges changes into entities, keeping them sorted by id.
+         * Inserting entities with higher ids than all current entities
+         * only appends them.
+         */
+        SORTED
+    }
 }
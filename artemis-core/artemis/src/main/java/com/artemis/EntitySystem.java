@@ -58,6 +58,13 @@ public abstract class EntitySystem extends BaseEntitySystem
 			methodFlags |= FLAG_INSERTED;
 		if(implementsObserver(this, "removed"))
 			methodFlags |= FLAG_REMOVED;
+
+		world.getEntityManager().register(new EntityManager.RemapListener() {
+			@Override
+			public void remapped(IntBag from, IntBag to) {
+				shouldSyncEntities = true;
+			}
+		});
 	}
 
 	@Override
@@ -1,7 +1,6 @@
 package com.artemis;
 
 import com.artemis.utils.Bag;
-import com.artemis.utils.ShortBag;
 
 import com.artemis.utils.BitVector;
 
@@ -24,7 +23,7 @@ public final class EntityTransmuter {
 	private final BatchChangeProcessor batchProcessor;
 	private final Bag<TransmuteOperation> operations;
 
-	private final ShortBag entityToIdentity;
+	private final ComponentManager cm;
 
 	public EntityTransmuter(World world, Aspect.Builder aspect) {
 		this(world, world.getAspectSubscriptionManager().get(aspect).getAspect());
@@ -36,7 +35,7 @@ public final class EntityTransmuter {
 
 	EntityTransmuter(World world, BitVector additions, BitVector removals) {
 		em = world.getEntityManager();
-		entityToIdentity = world.getComponentManager().entityToIdentity;
+		cm = world.getComponentManager();
 		batchProcessor = world.batchProcessor;
 		operations = new Bag<TransmuteOperation>(TransmuteOperation.class);
 
@@ -57,20 +56,22 @@ public final class EntityTransmuter {
 
 		TransmuteOperation operation = getOperation(entityId);
 		operation.perform(entityId);
-		entityToIdentity.unsafeSet(entityId, operation.compositionId);
+		cm.setIdentity(entityId, operation.compositionId);
 	}
 
 	void transmuteNoOperation(int entityId) {
 		if (!isValid(entityId)) return;
 
 		TransmuteOperation operation = getOperation(entityId);
-		entityToIdentity.unsafeSet(entityId, operation.compositionId);
+		cm.setIdentity(entityId, operation.compositionId);
 	}
 
 	private boolean isValid(int entityId) {
 		if (!em.isActive(entityId))
 			throw new RuntimeException("Issued transmute on deleted " + entityId);
 
+		batchProcessor.commitEdit(entityId);
+
 		if (batchProcessor.isDeleted(entityId))
 			return false;
 
@@ -91,7 +92,7 @@ public final class EntityTransmuter {
 	}
 
 	TransmuteOperation getOperation(int entityId) {
-		return operation(entityId, entityToIdentity.get(entityId));
+		return operation(entityId, cm.getIdentity(entityId));
 	}
 
 	private TransmuteOperation operation(int entityId, int compositionId) {
@@ -160,13 +161,13 @@ public final class EntityTransmuter {
 		private final ComponentMapper[] additions;
 		private final ComponentMapper[] removals;
 
-		public final short compositionId;
+		public final int compositionId;
 
 		public TransmuteOperation(int compositionId,
 		                          ComponentMapper[] additions,
 		                          ComponentMapper[] removals) {
 
-			this.compositionId = (short) compositionId;
+			this.compositionId = compositionId;
 			this.additions = additions;
 			this.removals = removals;
 		}
@@ -175,7 +176,7 @@ public final class EntityTransmuter {
 		                          Bag<ComponentMapper> additions,
 		                          Bag<ComponentMapper> removals) {
 
-			this.compositionId = (short) compositionId;
+			this.compositionId = compositionId;
 			this.additions = new ComponentMapper[additions.size()];
 			this.removals = new ComponentMapper[removals.size()];
 
@@ -198,6 +199,19 @@ public final class EntityTransmuter {
 			}
 		}
 
+		/** Performs the operation on {@code entityIds[from..to)}, one component type at a time. */
+		void perform(int[] entityIds, int from, int to) {
+			for (ComponentMapper mapper : additions) {
+				for (int i = from; to > i; i++)
+					mapper.internalCreate(entityIds[i]);
+			}
+
+			for (ComponentMapper mapper : removals) {
+				for (int i = from; to > i; i++)
+					mapper.internalRemove(entityIds[i]);
+			}
+		}
+
 		Bag<Class<? extends Component>> getAdditions(Bag<Class<? extends Component>> out) {
 			for (int i = 0, s = additions.length; s > i; i++) {
 				out.add(additions[i].getType().getType());
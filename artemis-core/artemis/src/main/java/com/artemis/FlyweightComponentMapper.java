@@ -0,0 +1,302 @@
+package com.artemis;
+
+import com.artemis.annotations.DelayedComponentRemoval;
+import com.artemis.utils.Bag;
+import com.artemis.utils.BitVector;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import static com.artemis.utils.reflect.ClassReflection.isAnnotationPresent;
+
+/**
+ * Base for mappers keeping component state outside of component instances,
+ * such as {@link ColumnComponentMapper} and {@link OffHeapComponentMapper}.
+ * <p>
+ * {@link #get(int)} returns a single flyweight instance per mapper, loaded
+ * with the values of the requested entity. Changes made to the flyweight
+ * are written back when the mapper moves on to another entity, on
+ * {@link #flush()}, or when the entity's values are accessed directly
+ * through the mapper. Consequently, the instance returned by {@code get}
+ * is only valid until the next call to {@code get} on the same mapper -
+ * don't hold on to it, and don't share it across threads.
+ * <p>
+ * Mapped components must be flat: every instance field must be a
+ * non-final {@code float}, {@code int}, {@code long} or {@code double}.
+ * Flyweight types don't populate {@link ComponentManager#getComponentsByType(ComponentType)}.
+ *
+ * @param <A> Component type to map.
+ */
+public abstract class FlyweightComponentMapper<A extends Component> extends ComponentMapper<A> {
+	/** Instance handed out by {@link #get(int)}. */
+	final A flyweight;
+
+	/** Entity currently loaded into {@link #flyweight}, {@code -1} if none. */
+	private int flyweightId = -1;
+
+	/** Entities with a component of this type, including pending delayed removals. */
+	private final BitVector present = new BitVector();
+	private final FlyweightRemover purgatory;
+
+	FlyweightComponentMapper(Class<A> type, World world) {
+		super(type, world);
+		flyweight = ComponentManager.newInstance(type);
+
+		BatchChangeProcessor batchProcessor =
+			(world.isAlwaysDelayComponentRemoval() || isAnnotationPresent(type, DelayedComponentRemoval.class))
+				? world.batchProcessor
+				: null;
+		purgatory = new FlyweightRemover(components, batchProcessor);
+	}
+
+	/** Copies the values of the entity into {@code target}. */
+	abstract void load(int entityId, A target);
+
+	/** Copies the field values of {@code source} to the entity. */
+	abstract void store(A source, int entityId);
+
+	/** Claims storage for the entity and initializes it with default values. */
+	abstract void initialize(int entityId);
+
+	/** Invoked once the component has been removed from the entity. */
+	abstract void free(int entityId);
+
+	/** Transfers the storage of entity {@code from} to entity {@code to}. */
+	abstract void relocate(int from, int to);
+
+	/**
+	 * Loads the entity's values into the flyweight.
+	 *
+	 * @param entityId the entity that should possess the component
+	 * @return the shared flyweight, or {@code null} if the entity lacks the component.
+	 */
+	@Override
+	public A get(int entityId) {
+		if (!present.get(entityId))
+			return null;
+
+		if (flyweightId != entityId) {
+			flush();
+			load(entityId, flyweight);
+			flyweightId = entityId;
+		}
+
+		return flyweight;
+	}
+
+	/**
+	 * Copies the entity's stored values into {@code target}, leaving the
+	 * flyweight untouched. Unlike {@link #get(int)}, safe to call from
+	 * several threads while the world isn't modified. Pending changes to
+	 * the flyweight are only seen once {@link #flush() flushed}.
+	 *
+	 * @param entityId the entity that should possess the component
+	 * @param target receives the entity's values
+	 * @return {@code target}, or {@code null} if the entity lacks the component.
+	 */
+	public A copy(int entityId, A target) {
+		if (!present.get(entityId))
+			return null;
+
+		load(entityId, target);
+		return target;
+	}
+
+	@Override
+	public boolean has(int entityId) {
+		return present.get(entityId) && !purgatory.has(entityId);
+	}
+
+	@Override
+	public void remove(int entityId) {
+		if (present.get(entityId)) {
+			removeTransmuter.transmuteNoOperation(entityId);
+			purgatory.mark(entityId);
+		}
+	}
+
+	@Override
+	protected void internalRemove(int entityId) {
+		if (present.get(entityId))
+			purgatory.mark(entityId);
+	}
+
+	/**
+	 * Create component for this entity, with the field values of a newly
+	 * instantiated component. Avoids creation if component exists.
+	 *
+	 * @param entityId the entity that should possess the component
+	 * @return the shared flyweight, loaded with the entity's values.
+	 */
+	@Override
+	public A create(int entityId) {
+		if (!present.get(entityId) || purgatory.unmark(entityId)) {
+			// running transmuter first, as it performs som validation
+			createTransmuter.transmuteNoOperation(entityId);
+			allocate(entityId);
+			markChanged(entityId);
+		}
+
+		return get(entityId);
+	}
+
+	@Override
+	public A internalCreate(int entityId) {
+		if (!present.get(entityId) || purgatory.unmark(entityId)) {
+			allocate(entityId);
+			markChanged(entityId);
+		}
+
+		return get(entityId);
+	}
+
+	/** Copies the field values of {@code component}; the instance itself is not retained. */
+	@Override
+	void put(int entityId, A component) {
+		if (flyweightId == entityId)
+			flyweightId = -1;
+
+		store(component, entityId);
+		markChanged(entityId);
+	}
+
+	/**
+	 * Writes pending changes to the flyweight back to storage. Only
+	 * required before reading storage without going through this mapper.
+	 */
+	public void flush() {
+		int entityId = flyweightId;
+		if (entityId != -1) {
+			flyweightId = -1;
+			store(flyweight, entityId);
+		}
+	}
+
+	@Override
+	void move(int from, int to) {
+		if (!present.get(from))
+			return;
+
+		flushIfLoaded(from);
+		if (flyweightId == to)
+			flyweightId = -1;
+
+		relocate(from, to);
+		present.clear(from);
+		present.set(to);
+	}
+
+	@Override
+	void shrink(int capacity) {
+		flush();
+		super.shrink(capacity);
+		present.shrink(capacity);
+	}
+
+	/** Writes back the flyweight, if it holds the values of {@code entityId}. */
+	final void flushIfLoaded(int entityId) {
+		if (flyweightId == entityId)
+			flush();
+	}
+
+	private void allocate(int entityId) {
+		if (present.get(entityId)) // re-created while pending delayed removal
+			release(entityId);
+
+		if (flyweightId == entityId)
+			flyweightId = -1;
+
+		initialize(entityId);
+		present.set(entityId);
+	}
+
+	private void release(int entityId) {
+		if (flyweightId == entityId)
+			flyweightId = -1;
+
+		present.clear(entityId);
+		free(entityId);
+	}
+
+	/**
+	 * @return Instance fields of a flat component, made accessible.
+	 * @throws InvalidComponentException if any field isn't a non-final float, int, long or double.
+	 */
+	static Field[] flatFields(Class<? extends Component> type) {
+		Bag<Field> fields = new Bag<Field>(Field.class);
+		for (Class<?> c = type; c != Component.class && c != PooledComponent.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers))
+					continue;
+
+				Class<?> fieldType = field.getType();
+				if (fieldType != float.class && fieldType != int.class
+					&& fieldType != long.class && fieldType != double.class) {
+
+					throw new InvalidComponentException(type, "Field " + field.getName() +
+						" must be float, int, long or double; was " + fieldType.getSimpleName() + ".");
+				}
+
+				if (Modifier.isFinal(modifiers))
+					throw new InvalidComponentException(type, "Field " + field.getName() + " can't be final.");
+
+				field.setAccessible(true);
+				fields.add(field);
+			}
+		}
+
+		Field[] result = new Field[fields.size()];
+		for (int i = 0; result.length > i; i++)
+			result[i] = fields.get(i);
+
+		return result;
+	}
+
+	/** Delayed or immediate removal, depending on whether a batch processor is passed. */
+	private final class FlyweightRemover extends ComponentRemover<A> {
+		final BitVector idBits = new BitVector();
+		final BatchChangeProcessor batchProcessor;
+
+		FlyweightRemover(Bag<A> components, BatchChangeProcessor batchProcessor) {
+			super(components, null);
+			this.batchProcessor = batchProcessor;
+		}
+
+		@Override
+		void mark(int entityId) {
+			if (batchProcessor == null) {
+				release(entityId);
+				return;
+			}
+
+			if (idBits.isEmpty()) // see cm#clean
+				batchProcessor.purgatories.add(this);
+
+			idBits.set(entityId);
+		}
+
+		@Override
+		boolean unmark(int entityId) {
+			if (idBits.get(entityId)) {
+				idBits.clear(entityId);
+				return true;
+			} else {
+				return false;
+			}
+		}
+
+		@Override
+		void purge() {
+			for (int id = idBits.nextSetBit(0); id >= 0; id = idBits.nextSetBit(id + 1))
+				release(id);
+
+			idBits.clear();
+		}
+
+		@Override
+		boolean has(int entityId) {
+			return idBits.get(entityId);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.artemis;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Backs {@link OffHeapComponentMapper off-heap components} with memory-mapped
+ * files, one per mapper, letting the operating system page out cold
+ * component data.
+ * <p>
+ * Each slab gets a uniquely named file, prefixed by the component class,
+ * so several worlds can share one directory. Growing a slab extends its
+ * file and maps it anew, unmapping the previous mapping. Files are deleted
+ * once the owning world is {@link World#dispose() disposed}, or else when
+ * the JVM exits; slot contents are only meaningful to the running world.
+ */
+public class MappedSlabAllocator implements SlabAllocator {
+	private final File directory;
+	private final Map<ByteBuffer, File> files = new IdentityHashMap<ByteBuffer, File>();
+
+	/**
+	 * @param directory existing directory to hold the slab files.
+	 */
+	public MappedSlabAllocator(File directory) {
+		this.directory = directory;
+	}
+
+	@Override
+	public ByteBuffer allocate(Class<? extends Component> type, int bytes) {
+		File file;
+		try {
+			file = File.createTempFile(type.getName() + "-", ".slab", directory);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to create slab in " + directory, e);
+		}
+		file.deleteOnExit();
+
+		ByteBuffer slab = map(file, bytes);
+		synchronized (files) {
+			files.put(slab, file);
+		}
+		return slab;
+	}
+
+	@Override
+	public ByteBuffer grow(ByteBuffer slab, int bytes) {
+		File file;
+		synchronized (files) {
+			file = files.remove(slab);
+		}
+		if (file == null)
+			throw new IllegalArgumentException("Slab not allocated by " + this);
+
+		ByteBuffer grown = map(file, bytes);
+		unmap(slab);
+		synchronized (files) {
+			files.put(grown, file);
+		}
+		return grown;
+	}
+
+	@Override
+	public void release(ByteBuffer slab) {
+		File file;
+		synchronized (files) {
+			file = files.remove(slab);
+		}
+		if (file == null)
+			return;
+
+		unmap(slab);
+		file.delete();
+	}
+
+	private static ByteBuffer map(File file, int bytes) {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			if (raf.length() < bytes)
+				raf.setLength(bytes);
+
+			return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to map " + file, e);
+		}
+	}
+
+	/**
+	 * Unmaps the buffer right away, instead of once it's garbage collected.
+	 * Relies on JDK internals; falls back to the garbage collector where
+	 * they're unavailable.
+	 */
+	private static void unmap(ByteBuffer buffer) {
+		try {
+			Class<?> unsafeType = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = unsafeType.getMethod("invokeCleaner", ByteBuffer.class);
+			Field theUnsafe = unsafeType.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), buffer);
+		} catch (NoSuchMethodException e) { // java 8 and earlier
+			try {
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			} catch (Exception ignored) {}
+		} catch (Exception ignored) {}
+	}
+}
@@ -0,0 +1,91 @@
+package com.artemis;
+
+import com.artemis.metrics.MetricsProfiler;
+import com.artemis.metrics.WorldMetrics;
+import com.artemis.utils.Bag;
+
+/**
+ * Wraps another invocation strategy, collecting {@link WorldMetrics}.
+ * <p>
+ * Installs a {@link MetricsProfiler} on every system not already profiled
+ * via {@link com.artemis.annotations.Profile} weaving, times each
+ * subscription synchronization and samples per tick counters. Systems are
+ * otherwise invoked by the wrapped strategy, which may process systems
+ * concurrently: each system's metrics are only written by the thread
+ * processing it.
+ *
+ * @see WorldMetrics
+ */
+public class MetricsInvocationStrategy extends SystemInvocationStrategy {
+	private final WorldMetrics metrics;
+	private final SystemInvocationStrategy delegate;
+
+	/**
+	 * Processes systems in order, as per {@link InvocationStrategy}.
+	 *
+	 * @param metrics registry receiving metrics.
+	 */
+	public MetricsInvocationStrategy(WorldMetrics metrics) {
+		this(metrics, new InvocationStrategy());
+	}
+
+	/**
+	 * @param metrics registry receiving metrics.
+	 * @param delegate strategy invoking the systems.
+	 */
+	public MetricsInvocationStrategy(WorldMetrics metrics, SystemInvocationStrategy delegate) {
+		if (metrics == null || delegate == null)
+			throw new NullPointerException();
+
+		this.metrics = metrics;
+		this.delegate = delegate;
+	}
+
+	@Override
+	protected void setSystems(Bag<BaseSystem> systems) {
+		super.setSystems(systems);
+		delegate.setWorld(world);
+		delegate.setSystems(systems);
+	}
+
+	@Override
+	protected void initialize() {
+		delegate.initialize();
+
+		metrics.attach(world);
+		world.metrics = metrics;
+
+		BaseSystem[] systemsData = systems.getData();
+		for (int i = 0, s = systems.size(); s > i; i++)
+			systemsData[i].profiler = metrics.profilerFor(systemsData[i]);
+	}
+
+	@Override
+	protected void process() {
+		delegate.process();
+	}
+
+	@Override
+	public boolean isEnabled(BaseSystem system) {
+		return delegate.isEnabled(system);
+	}
+
+	@Override
+	public void setEnabled(BaseSystem system, boolean value) {
+		delegate.setEnabled(system, value);
+	}
+
+	/**
+	 * @return registry receiving metrics.
+	 */
+	public WorldMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return strategy invoking the systems.
+	 */
+	public SystemInvocationStrategy getDelegate() {
+		return delegate;
+	}
+}
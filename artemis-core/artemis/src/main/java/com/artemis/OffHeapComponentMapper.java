@@ -0,0 +1,326 @@
+package com.artemis;
+
+import com.artemis.annotations.OffHeap;
+import com.artemis.utils.IntBag;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Component mapper for {@link OffHeap} component types, storing components
+ * as fixed-layout records in a {@link ByteBuffer} slab.
+ * <p>
+ * Entities map to slots in the slab. Slots of removed components are
+ * recycled by later creations, standing in for {@link ComponentPool}:
+ * {@link PooledComponent pooled} types are {@link PooledComponent#reset() reset}
+ * on release, while other types are initialized with the field values of
+ * a newly instantiated component on every creation.
+ * <p>
+ * {@link #get(int)} returns a write-back flyweight, see
+ * {@link FlyweightComponentMapper}. Hot loops can bypass the flyweight
+ * using {@link #offset(String)} together with {@link #getFloat(int, int)}
+ * and friends.
+ *
+ * @param <A> Component type to map.
+ * @see OffHeap
+ * @see SlabAllocator
+ */
+public class OffHeapComponentMapper<A extends Component> extends FlyweightComponentMapper<A> {
+	private static final int INITIAL_SLOTS = 64;
+
+	private static final byte FLOAT = 0;
+	private static final byte INT = 1;
+	private static final byte LONG = 2;
+	private static final byte DOUBLE = 3;
+
+	private final SlabAllocator allocator;
+	private final Field[] fields;
+	/** Primitive type of each field, resolved once so record access can switch on it. */
+	private final byte[] kinds;
+	private final int[] offsets;
+	private final int stride;
+
+	/** Record of a newly instantiated component. */
+	private final byte[] defaults;
+
+	private ByteBuffer slab;
+	private final IntBag entityToSlot = new IntBag();
+	private final IntBag freeSlots = new IntBag();
+	private int slotsUsed;
+
+	public OffHeapComponentMapper(Class<A> type, World world) {
+		super(type, world);
+
+		SlabAllocator registered = world.getRegistered(SlabAllocator.class);
+		allocator = (registered != null) ? registered : new DirectSlabAllocator();
+
+		fields = flatFields(type);
+		kinds = kinds(fields);
+		offsets = new int[fields.length];
+		stride = layout(fields, offsets);
+
+		ByteBuffer record = ByteBuffer.allocate(stride).order(ByteOrder.nativeOrder());
+		write(ComponentManager.newInstance(type), record, 0);
+		defaults = record.array();
+
+		ByteBuffer buffer = allocator.allocate(type, INITIAL_SLOTS * stride);
+		buffer.clear();
+		slab = buffer.order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * @param field name of component field.
+	 * @return byte offset of field within each record.
+	 */
+	public int offset(String field) {
+		for (int i = 0; fields.length > i; i++) {
+			if (fields[i].getName().equals(field))
+				return offsets[i];
+		}
+
+		throw new IllegalArgumentException("No field named " + field + " in " + type.getType().getSimpleName());
+	}
+
+	/** @return size of each record, in bytes. */
+	public int getStride() {
+		return stride;
+	}
+
+	/** @return bytes reserved by the slab. */
+	public long getReservedBytes() {
+		return slab.capacity();
+	}
+
+	public float getFloat(int entityId, int offset) {
+		flushIfLoaded(entityId);
+		return slab.getFloat(position(entityId) + offset);
+	}
+
+	public void setFloat(int entityId, int offset, float value) {
+		flushIfLoaded(entityId);
+		slab.putFloat(position(entityId) + offset, value);
+	}
+
+	public int getInt(int entityId, int offset) {
+		flushIfLoaded(entityId);
+		return slab.getInt(position(entityId) + offset);
+	}
+
+	public void setInt(int entityId, int offset, int value) {
+		flushIfLoaded(entityId);
+		slab.putInt(position(entityId) + offset, value);
+	}
+
+	public long getLong(int entityId, int offset) {
+		flushIfLoaded(entityId);
+		return slab.getLong(position(entityId) + offset);
+	}
+
+	public void setLong(int entityId, int offset, long value) {
+		flushIfLoaded(entityId);
+		slab.putLong(position(entityId) + offset, value);
+	}
+
+	public double getDouble(int entityId, int offset) {
+		flushIfLoaded(entityId);
+		return slab.getDouble(position(entityId) + offset);
+	}
+
+	public void setDouble(int entityId, int offset, double value) {
+		flushIfLoaded(entityId);
+		slab.putDouble(position(entityId) + offset, value);
+	}
+
+	@Override
+	void load(int entityId, A target) {
+		ByteBuffer slab = this.slab;
+		int position = position(entityId);
+		try {
+			for (int i = 0; fields.length > i; i++) {
+				Field field = fields[i];
+				int index = position + offsets[i];
+				switch (kinds[i]) {
+					case FLOAT:
+						field.setFloat(target, slab.getFloat(index));
+						break;
+					case INT:
+						field.setInt(target, slab.getInt(index));
+						break;
+					case LONG:
+						field.setLong(target, slab.getLong(index));
+						break;
+					default:
+						field.setDouble(target, slab.getDouble(index));
+				}
+			}
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	void store(A source, int entityId) {
+		write(source, slab, position(entityId));
+	}
+
+	@Override
+	void initialize(int entityId) {
+		int slot;
+		if (freeSlots.isEmpty()) {
+			slot = slotsUsed++;
+			if (slotsUsed * stride > slab.capacity())
+				grow();
+
+			writeDefaults(slot);
+		} else {
+			slot = freeSlots.removeIndex(freeSlots.size() - 1);
+			if (!this.type.isPooled)
+				writeDefaults(slot);
+		}
+
+		entityToSlot.set(entityId, slot);
+	}
+
+	@Override
+	void free(int entityId) {
+		if (this.type.isPooled) {
+			flush();
+			load(entityId, flyweight);
+			((PooledComponent) flyweight).reset();
+			store(flyweight, entityId);
+		}
+
+		freeSlots.add(entityToSlot.get(entityId));
+	}
+
+	@Override
+	void ensureCapacity(int index) {
+		entityToSlot.ensureCapacity(index);
+	}
+
+	@Override
+	void relocate(int from, int to) {
+		entityToSlot.set(to, entityToSlot.get(from));
+	}
+
+	/** Trims slot lookup; the slab itself keeps its capacity. */
+	@Override
+	void shrink(int capacity) {
+		super.shrink(capacity);
+		entityToSlot.shrink(capacity);
+	}
+
+	/** Hands the slab back to the allocator; the mapper is unusable afterwards. */
+	@Override
+	void dispose() {
+		allocator.release(slab);
+		slab = null;
+	}
+
+	private int position(int entityId) {
+		return entityToSlot.unsafeGet(entityId) * stride;
+	}
+
+	private void writeDefaults(int slot) {
+		ByteBuffer slab = this.slab;
+		int position = slot * stride;
+		for (int i = 0; stride > i; i++)
+			slab.put(position + i, defaults[i]);
+	}
+
+	private void write(A source, ByteBuffer target, int position) {
+		try {
+			for (int i = 0; fields.length > i; i++) {
+				Field field = fields[i];
+				int index = position + offsets[i];
+				switch (kinds[i]) {
+					case FLOAT:
+						target.putFloat(index, field.getFloat(source));
+						break;
+					case INT:
+						target.putInt(index, field.getInt(source));
+						break;
+					case LONG:
+						target.putLong(index, field.getLong(source));
+						break;
+					default:
+						target.putDouble(index, field.getDouble(source));
+				}
+			}
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** Grows the slab in place where the allocator supports it, see {@link SlabAllocator#grow}. */
+	private void grow() {
+		slab = allocator.grow(slab, slab.capacity() * 2).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Places 8-byte fields ahead of 4-byte fields, keeping all fields
+	 * naturally aligned within a record.
+	 *
+	 * @return size of a record, in bytes.
+	 */
+	private static int layout(Field[] fields, int[] offsets) {
+		int offset = 0;
+		for (int size = 8; size >= 4; size -= 4) {
+			for (int i = 0; fields.length > i; i++) {
+				if (sizeOf(fields[i].getType()) == size) {
+					offsets[i] = offset;
+					offset += size;
+				}
+			}
+		}
+
+		int alignment = 4;
+		for (Field field : fields) {
+			if (sizeOf(field.getType()) == 8)
+				alignment = 8;
+		}
+		return Math.max(alignment, (offset + alignment - 1) / alignment * alignment);
+	}
+
+	private static int sizeOf(Class<?> type) {
+		return (type == long.class || type == double.class) ? 8 : 4;
+	}
+
+	private static byte[] kinds(Field[] fields) {
+		byte[] kinds = new byte[fields.length];
+		for (int i = 0; fields.length > i; i++) {
+			Class<?> type = fields[i].getType();
+			if (type == float.class)
+				kinds[i] = FLOAT;
+			else if (type == int.class)
+				kinds[i] = INT;
+			else if (type == long.class)
+				kinds[i] = LONG;
+			else
+				kinds[i] = DOUBLE;
+		}
+
+		return kinds;
+	}
+
+	/** Default allocator, backing slabs with direct buffers. */
+	static final class DirectSlabAllocator implements SlabAllocator {
+		@Override
+		public ByteBuffer allocate(Class<? extends Component> type, int bytes) {
+			return ByteBuffer.allocateDirect(bytes);
+		}
+
+		@Override
+		public ByteBuffer grow(ByteBuffer slab, int bytes) {
+			ByteBuffer grown = ByteBuffer.allocateDirect(bytes);
+			slab.clear();
+			grown.put(slab);
+			grown.clear();
+			return grown;
+		}
+
+		@Override
+		public void release(ByteBuffer slab) {}
+	}
+}
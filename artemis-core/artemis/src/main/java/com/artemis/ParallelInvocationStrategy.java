@@ -0,0 +1,236 @@
+package com.artemis;
+
+import com.artemis.annotations.Reads;
+import com.artemis.annotations.Writes;
+import com.artemis.utils.Bag;
+import com.artemis.utils.BitVector;
+import com.artemis.utils.ImmutableBag;
+import com.artemis.utils.reflect.ClassReflection;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Invokes non-conflicting systems concurrently on a {@link ForkJoinPool}.
+ * <p>
+ * Systems are grouped into stages, based on the component types each
+ * system reads and writes. Systems opt-in to concurrent processing by
+ * declaring {@link Reads} and/or {@link Writes}; component types in the
+ * system's aspect are implicitly read. Two systems conflict if either
+ * writes a component type the other reads or writes. A system is placed
+ * in the first stage following all earlier systems it conflicts with,
+ * so that the outcome is identical to {@link InvocationStrategy}.
+ * <p>
+ * Systems without declarations - including all managers - are processed
+ * on their own, in order, acting as barriers: no system is moved across
+ * them.
+ * <p>
+ * Reading {@link com.artemis.annotations.Columnar} or
+ * {@link com.artemis.annotations.OffHeap} components goes through a flyweight
+ * shared by all systems; these types are treated as written, even if only
+ * declared as read.
+ * <p>
+ * Entity states are synchronized ({@link #updateEntityStates()}) between
+ * stages only. This is why systems declaring their reads or writes must
+ * not create or delete entities, nor change entity compositions.
+ *
+ * @see Reads
+ * @see Writes
+ */
+public class ParallelInvocationStrategy extends SystemInvocationStrategy {
+	private final ForkJoinPool pool;
+	private final Bag<Stage> stages = new Bag<Stage>();
+
+	/** Processes systems on a new pool, parallelism equal to the number of processors. */
+	public ParallelInvocationStrategy() {
+		this(new ForkJoinPool());
+	}
+
+	/** @param parallelism number of worker threads processing systems. */
+	public ParallelInvocationStrategy(int parallelism) {
+		this(new ForkJoinPool(parallelism));
+	}
+
+	/** @param pool pool responsible for processing concurrent systems. */
+	public ParallelInvocationStrategy(ForkJoinPool pool) {
+		if (pool == null) throw new NullPointerException();
+		this.pool = pool;
+	}
+
+	@Override
+	protected void initialize() {
+		stages.clear();
+
+		BitVector[] reads = new BitVector[systems.size()];
+		BitVector[] writes = new BitVector[systems.size()];
+		int[] levels = new int[systems.size()];
+
+		int barrier = -1;
+		int highestLevel = -1;
+		for (int i = 0, s = systems.size(); s > i; i++) {
+			BaseSystem system = systems.get(i);
+			if (!resolveAccess(system, i, reads, writes)) {
+				levels[i] = ++highestLevel;
+				barrier = i;
+				continue;
+			}
+
+			int level = (barrier != -1) ? levels[barrier] + 1 : 0;
+			for (int j = barrier + 1; i > j; j++) {
+				if (conflicts(reads[i], writes[i], reads[j], writes[j]))
+					level = Math.max(level, levels[j] + 1);
+			}
+
+			levels[i] = level;
+			highestLevel = Math.max(highestLevel, level);
+		}
+
+		for (int level = 0; highestLevel >= level; level++)
+			stages.add(new Stage());
+
+		for (int i = 0, s = systems.size(); s > i; i++)
+			stages.get(levels[i]).add(systems.get(i), i);
+	}
+
+	/**
+	 * Processes all stages in order, synchronizing entity states
+	 * before each stage and after the last stage.
+	 */
+	@Override
+	protected void process() {
+		Object[] stagesData = stages.getData();
+		for (int i = 0, s = stages.size(); s > i; i++) {
+			updateEntityStates();
+			((Stage) stagesData[i]).process();
+		}
+
+		updateEntityStates();
+	}
+
+	/**
+	 * @return Systems grouped by stage; systems within a stage may be processed concurrently.
+	 */
+	public ImmutableBag<ImmutableBag<BaseSystem>> getStages() {
+		Bag<ImmutableBag<BaseSystem>> out = new Bag<ImmutableBag<BaseSystem>>(stages.size());
+		for (int i = 0, s = stages.size(); s > i; i++) {
+			Bag<BaseSystem> stage = new Bag<BaseSystem>(BaseSystem.class);
+			Bag<SystemTask> tasks = stages.get(i).tasks;
+			for (int j = 0, ts = tasks.size(); ts > j; j++)
+				stage.add(tasks.get(j).system);
+
+			out.add(stage);
+		}
+
+		return out;
+	}
+
+	/**
+	 * @return {@code false} if system lacks both {@link Reads} and {@link Writes}.
+	 */
+	private boolean resolveAccess(BaseSystem system, int index, BitVector[] reads, BitVector[] writes) {
+		Class<? extends BaseSystem> type = system.getClass();
+		Reads readAnnotation = ClassReflection.getAnnotation(type, Reads.class);
+		Writes writeAnnotation = ClassReflection.getAnnotation(type, Writes.class);
+		if (readAnnotation == null && writeAnnotation == null)
+			return false;
+
+		BitVector read = new BitVector();
+		BitVector write = new BitVector();
+		if (readAnnotation != null)
+			toBits(readAnnotation.value(), read);
+		if (writeAnnotation != null)
+			toBits(writeAnnotation.value(), write);
+
+		if (system instanceof BaseEntitySystem) {
+			Aspect aspect = ((BaseEntitySystem) system).getSubscription().getAspect();
+			read.or(aspect.allSet);
+			read.or(aspect.oneSet);
+		}
+
+		// flyweight mappers share a single instance between readers
+		ComponentManager cm = world.getComponentManager();
+		for (int i = read.nextSetBit(0); i >= 0; i = read.nextSetBit(i + 1)) {
+			if (cm.isFlyweight(i))
+				write.set(i);
+		}
+
+		read.or(write);
+		reads[index] = read;
+		writes[index] = write;
+		return true;
+	}
+
+	private void toBits(Class<? extends Component>[] types, BitVector out) {
+		ComponentTypeFactory tf = world.getComponentManager().getTypeFactory();
+		for (Class<? extends Component> type : types)
+			out.set(tf.getIndexFor(type));
+	}
+
+	private static boolean conflicts(BitVector readsA, BitVector writesA,
+	                                 BitVector readsB, BitVector writesB) {
+		return writesA.intersects(readsB) || writesB.intersects(readsA);
+	}
+
+	/** Systems which may be processed concurrently. */
+	private final class Stage extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Bag<SystemTask> tasks = new Bag<SystemTask>(SystemTask.class);
+		private SystemTask[] concurrent = new SystemTask[0];
+
+		void add(BaseSystem system, int index) {
+			tasks.add(new SystemTask(system, index));
+			concurrent = new SystemTask[tasks.size()];
+			for (int i = 0; concurrent.length > i; i++)
+				concurrent[i] = tasks.get(i);
+		}
+
+		void process() {
+			if (tasks.size() == 1) {
+				tasks.get(0).processSystem();
+				return;
+			}
+
+			// IntBag of subscriptions are rebuilt on demand; doing
+			// it here avoids concurrent rebuilds by worker threads.
+			for (int i = 0, s = tasks.size(); s > i; i++) {
+				BaseSystem system = tasks.get(i).system;
+				if (system instanceof BaseEntitySystem)
+					((BaseEntitySystem) system).subscription.getEntities();
+			}
+
+			reinitialize();
+			pool.invoke(this);
+		}
+
+		@Override
+		protected void compute() {
+			for (int i = 0; concurrent.length > i; i++)
+				concurrent[i].reinitialize();
+
+			invokeAll(concurrent);
+		}
+	}
+
+	private final class SystemTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final BaseSystem system;
+		private final int index;
+
+		SystemTask(BaseSystem system, int index) {
+			this.system = system;
+			this.index = index;
+		}
+
+		void processSystem() {
+			if (!disabled.get(index))
+				system.process();
+		}
+
+		@Override
+		protected void compute() {
+			processSystem();
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package com.artemis;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides backing memory for {@link OffHeapComponentMapper off-heap components}.
+ * <p>
+ * Register with {@link WorldConfiguration#register(String, Object)}, using
+ * {@code SlabAllocator.class.getName()} as name. Without a registered
+ * allocator, slabs are allocated as direct buffers.
+ *
+ * @see MappedSlabAllocator
+ */
+public interface SlabAllocator {
+	/**
+	 * Allocates a new slab. Invoked once per mapper.
+	 *
+	 * @param type component type stored in the slab.
+	 * @param bytes minimum capacity.
+	 * @return buffer with at least {@code bytes} capacity.
+	 */
+	ByteBuffer allocate(Class<? extends Component> type, int bytes);
+
+	/**
+	 * Grows a slab previously returned by this allocator. The slab
+	 * passed in is no longer used by the caller once this method returns.
+	 *
+	 * @param slab slab to grow.
+	 * @param bytes minimum capacity.
+	 * @return buffer with at least {@code bytes} capacity, starting
+	 *         with the contents of {@code slab}.
+	 */
+	ByteBuffer grow(ByteBuffer slab, int bytes);
+
+	/**
+	 * Releases a slab once its world is {@link World#dispose() disposed}.
+	 *
+	 * @param slab slab previously returned by this allocator.
+	 */
+	void release(ByteBuffer slab);
+}
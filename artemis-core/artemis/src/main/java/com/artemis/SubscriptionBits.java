@@ -0,0 +1,236 @@
+package com.artemis;
+
+import com.artemis.utils.BitVector;
+import com.artemis.utils.CompressedBitVector;
+import com.artemis.utils.IntBag;
+
+/**
+ * Matched entities of an {@link EntitySubscription}, along with entities
+ * inserted and removed since the subscription last informed its listeners.
+ *
+ * @see EntitySubscription#setCompressed(boolean)
+ */
+abstract class SubscriptionBits {
+
+	/** @return {@code true} if entity is matched. */
+	abstract boolean contains(int entityId);
+
+	/** Marks entity as matched and inserted. */
+	abstract void insert(int entityId);
+
+	/** Marks entity as no longer matched and removed. */
+	abstract void remove(int entityId);
+
+	/** @return {@code true} if any entities were inserted or removed. */
+	abstract boolean hasChanges();
+
+	/** Decodes, then resets, inserted and removed entities. */
+	abstract void transferChanges(IntBag inserted, IntBag removed);
+
+	/** Decodes matched entities, in ascending order. */
+	abstract void toIntBag(IntBag out);
+
+	/** @return {@code true} if no entities are matched. */
+	abstract boolean isEmpty();
+
+	/** @return highest matched entity id plus one. */
+	abstract int length();
+
+	/** @return number of matched entities. */
+	abstract int cardinality();
+
+	/** @return matched entities, see {@link EntitySubscription#getActiveEntityIds()}. */
+	abstract BitVector activeEntityIds();
+
+	/**
+	 * Rewrites matched entity ids after {@link World#compact()}.
+	 *
+	 * @param newIds new id plus one, indexed by former id; {@code 0} if unchanged.
+	 */
+	abstract void remap(IntBag newIds);
+
+	/** Releases any resources held with the entity manager. */
+	abstract void dispose(EntityManager em);
+
+	/** Full-width bitsets, registered as entity stores. */
+	static final class Dense extends SubscriptionBits {
+		private final BitVector active;
+		private final BitVector inserted = new BitVector();
+		private final BitVector removed = new BitVector();
+
+		Dense(EntityManager em, BitVector active) {
+			this.active = active;
+			em.registerEntityStore(active);
+			em.registerEntityStore(inserted);
+			em.registerEntityStore(removed);
+		}
+
+		@Override
+		boolean contains(int entityId) {
+			return active.unsafeGet(entityId);
+		}
+
+		@Override
+		void insert(int entityId) {
+			active.unsafeSet(entityId);
+			inserted.unsafeSet(entityId);
+		}
+
+		@Override
+		void remove(int entityId) {
+			active.unsafeClear(entityId);
+			removed.unsafeSet(entityId);
+		}
+
+		@Override
+		boolean hasChanges() {
+			return !inserted.isEmpty() || !removed.isEmpty();
+		}
+
+		@Override
+		void transferChanges(IntBag inserted, IntBag removed) {
+			this.inserted.toIntBag(inserted);
+			this.removed.toIntBag(removed);
+			this.inserted.clear();
+			this.removed.clear();
+		}
+
+		@Override
+		void toIntBag(IntBag out) {
+			active.toIntBag(out);
+		}
+
+		@Override
+		boolean isEmpty() {
+			return active.isEmpty();
+		}
+
+		@Override
+		int length() {
+			return active.length();
+		}
+
+		@Override
+		int cardinality() {
+			return active.cardinality();
+		}
+
+		@Override
+		BitVector activeEntityIds() {
+			return active;
+		}
+
+		@Override
+		void remap(IntBag newIds) {
+			// moved by entity manager, as all entity stores
+		}
+
+		@Override
+		void dispose(EntityManager em) {
+			em.unregisterEntityStore(active);
+			em.unregisterEntityStore(inserted);
+			em.unregisterEntityStore(removed);
+		}
+	}
+
+	/**
+	 * Compressed bitsets, sized by number of entities rather than by
+	 * entity capacity. {@link #activeEntityIds()} is materialized on demand.
+	 */
+	static final class Compressed extends SubscriptionBits {
+		private final CompressedBitVector active = new CompressedBitVector();
+		private final CompressedBitVector inserted = new CompressedBitVector();
+		private final CompressedBitVector removed = new CompressedBitVector();
+
+		private BitVector view;
+		private boolean viewStale = true;
+
+		Compressed(BitVector active) {
+			for (int id = active.nextSetBit(0); id >= 0; id = active.nextSetBit(id + 1))
+				this.active.set(id);
+		}
+
+		@Override
+		boolean contains(int entityId) {
+			return active.get(entityId);
+		}
+
+		@Override
+		void insert(int entityId) {
+			active.set(entityId);
+			inserted.set(entityId);
+			viewStale = true;
+		}
+
+		@Override
+		void remove(int entityId) {
+			active.clear(entityId);
+			removed.set(entityId);
+			viewStale = true;
+		}
+
+		@Override
+		boolean hasChanges() {
+			return !inserted.isEmpty() || !removed.isEmpty();
+		}
+
+		@Override
+		void transferChanges(IntBag inserted, IntBag removed) {
+			this.inserted.toIntBag(inserted);
+			this.removed.toIntBag(removed);
+			this.inserted.clear();
+			this.removed.clear();
+		}
+
+		@Override
+		void toIntBag(IntBag out) {
+			active.toIntBag(out);
+		}
+
+		@Override
+		boolean isEmpty() {
+			return active.isEmpty();
+		}
+
+		@Override
+		int length() {
+			return active.length();
+		}
+
+		@Override
+		int cardinality() {
+			return active.cardinality();
+		}
+
+		@Override
+		BitVector activeEntityIds() {
+			if (view == null)
+				view = new BitVector();
+
+			if (viewStale) {
+				active.toBitVector(view);
+				viewStale = false;
+			}
+
+			return view;
+		}
+
+		@Override
+		void remap(IntBag newIds) {
+			IntBag ids = active.toIntBag(new IntBag());
+			active.clear();
+
+			int[] data = ids.getData();
+			for (int i = 0, s = ids.size(); s > i; i++) {
+				int id = data[i];
+				int newId = (newIds.size() > id) ? newIds.get(id) - 1 : -1;
+				active.set(newId != -1 ? newId : id);
+			}
+
+			viewStale = true;
+		}
+
+		@Override
+		void dispose(EntityManager em) {}
+	}
+}
@@ -1,5 +1,6 @@
 package com.artemis;
 
+import com.artemis.metrics.WorldMetrics;
 import com.artemis.utils.Bag;
 import com.artemis.utils.ImmutableBag;
 
@@ -41,7 +42,14 @@ public abstract class SystemInvocationStrategy {
 
 	/** Call to inform all systems and subscription of world state changes. */
 	protected final void updateEntityStates() {
-		world.batchProcessor.update();
+		WorldMetrics metrics = world.metrics;
+		if (metrics != null) {
+			long start = System.nanoTime();
+			world.batchProcessor.update();
+			metrics.recordSync(System.nanoTime() - start);
+		} else {
+			world.batchProcessor.update();
+		}
 	}
 
 	/**
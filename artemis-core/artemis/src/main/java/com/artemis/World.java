@@ -2,7 +2,10 @@ package com.artemis;
 
 import com.artemis.injection.CachedInjector;
 import com.artemis.injection.Injector;
+import com.artemis.link.LinkRemapper;
+import com.artemis.metrics.WorldMetrics;
 import com.artemis.utils.Bag;
+import com.artemis.utils.BitVector;
 import com.artemis.utils.ImmutableBag;
 import com.artemis.utils.IntBag;
 
@@ -41,12 +44,21 @@ public class World {
 	/** Contains strategy for invoking systems upon process. */
 	SystemInvocationStrategy invocationStrategy;
 
+	/** Attached by {@link MetricsInvocationStrategy}; {@code null} unless collecting metrics. */
+	WorldMetrics metrics;
+
 	final WorldSegment partition;
 
 	/** The time passed since the last update. */
 	public float delta;
 
 	final boolean alwaysDelayComponentRemoval;
+	final boolean coalescingEdits;
+	final boolean compressedSubscriptions;
+
+	/** Command buffers pending playback, submitted from any thread. */
+	private final Bag<EntityCommandBuffer> submitted = new Bag<EntityCommandBuffer>(EntityCommandBuffer.class);
+	private final Bag<EntityCommandBuffer> pendingPlayback = new Bag<EntityCommandBuffer>(EntityCommandBuffer.class);
 
 	/**
 	 * Creates a world without custom systems.
@@ -80,11 +92,16 @@ public class World {
 		final AspectSubscriptionManager lasm =
 			(AspectSubscriptionManager) systemsBag.get(ASPECT_SUBSCRIPTION_MANAGER_IDX);
 
-		cm = lcm == null ? new ComponentManager(configuration.expectedEntityCount()) : lcm;
+		cm = lcm == null
+			? new ComponentManager(configuration.expectedEntityCount(), configuration.isWideCompositionIdentity())
+			: lcm;
 		em = lem == null ? new EntityManager(configuration.expectedEntityCount()) : lem;
 		asm = lasm == null ? new AspectSubscriptionManager() : lasm;
-		batchProcessor = new BatchChangeProcessor(this);
 		alwaysDelayComponentRemoval = configuration.isAlwaysDelayComponentRemoval();
+		coalescingEdits = configuration.isCoalescingEdits();
+		compressedSubscriptions = configuration.isCompressedSubscriptions();
+		batchProcessor = new BatchChangeProcessor(this);
+		em.register(new LinkRemapper(this));
 
 		configuration.initialize(this, partition.injector, asm);
 	}
@@ -256,6 +273,31 @@ public class World {
 		batchProcessor.delete(entityId);
 	}
 
+	/**
+	 * Delete all entities from the world.
+	 *
+	 * @param entityIds
+	 * 		the entities to delete
+	 * @see #delete(int)
+	 */
+	public void deleteAll(IntBag entityIds) {
+		batchProcessor.delete(entityIds);
+	}
+
+	/**
+	 * Delete all entities matched by the subscription of the aspect.
+	 * Existing subscriptions reflect the most recent {@link #process()};
+	 * entities created or changed since aren't considered. Otherwise, the
+	 * subscription is created first, matching all current compositions.
+	 *
+	 * @param aspect
+	 * 		the aspect entities to delete must match
+	 * @see #delete(int)
+	 */
+	public void deleteAll(Aspect.Builder aspect) {
+		batchProcessor.delete(asm.get(aspect).getActiveEntityIds());
+	}
+
 	/**
 	 * Create and return a new or reused entity instance. Entity is
 	 * automatically added to the world.
@@ -333,6 +375,37 @@ public class World {
 		return entityId;
 	}
 
+	/**
+	 * Create {@code count} entities from an archetype. Entity ids are
+	 * allocated in bulk and component mappers are grown at most once,
+	 * making this considerably cheaper than repeatedly invoking
+	 * {@link #create(Archetype)}.
+	 *
+	 * @param archetype blueprint of the new entities.
+	 * @param count number of entities to create.
+	 * @param out receives the ids of the new entities.
+	 * @return {@code out}, for chaining.
+	 */
+	public IntBag create(Archetype archetype, int count, IntBag out) {
+		int offset = out.size();
+		int recycled = em.create(count, out);
+
+		int[] ids = out.getData();
+		int end = offset + count;
+		archetype.transmuter.perform(ids, offset, end);
+		cm.setIdentity(ids, offset, end, archetype.compositionId);
+
+		BitVector changed = batchProcessor.changed;
+		for (int i = offset, s = offset + recycled; s > i; i++)
+			changed.unsafeSet(ids[i]);
+
+		// fresh ids are contiguous
+		if (count > recycled)
+			changed.set(ids[offset + recycled], ids[end - 1] + 1);
+
+		return out;
+	}
+
 	/**
 	 * Get entity with the specified id.
 	 *
@@ -382,8 +455,46 @@ public class World {
 	 * @see InvocationStrategy to control and extend how systems are invoked.
 	 */
 	public void process() {
+		WorldMetrics metrics = this.metrics;
+		if (metrics != null)
+			metrics.beginTick();
+
+		playbackSubmitted();
 		invocationStrategy.process();
+		purgeDeleted();
+
+		if (metrics != null)
+			metrics.endTick();
+	}
+
+	/**
+	 * <p>Reassigns ids of active entities, closing the holes left by deleted
+	 * entities so that all entities occupy ids {@code [0, entityCount)}, then
+	 * trims entity stores, component mappers and subscription bitsets to
+	 * the new id range - though never below
+	 * {@link WorldConfiguration#expectedEntityCount()}. Useful after large
+	 * waves of entities have been deleted.</p>
+	 *
+	 * <p>Pending changes are applied first. Entity references held by
+	 * components are remapped; references to deleted entities are cleared.
+	 * Entity subscriptions are updated without informing any listeners,
+	 * while {@link EntityManager.RemapListener remap listeners} are informed
+	 * of all moved entities. Entity ids and {@link Entity} instances of
+	 * moved entities held elsewhere are no longer valid.</p>
+	 *
+	 * <p>Must not be invoked while systems are processing.</p>
+	 *
+	 * @return number of moved entities and estimate of reclaimed memory.
+	 */
+	public CompactionReport compact() {
+		playbackSubmitted();
+		batchProcessor.update();
+		purgeDeleted();
 
+		return em.compact();
+	}
+
+	private void purgeDeleted() {
 		IntBag pendingPurge = batchProcessor.getPendingPurge();
 		if (!pendingPurge.isEmpty()) {
 			cm.clean(pendingPurge);
@@ -393,6 +504,37 @@ public class World {
 		}
 	}
 
+	/**
+	 * Schedules command buffer for playback at the start of the next
+	 * {@link #process()}. Safe to invoke from any thread; the buffer
+	 * must not be modified until it has been played back.
+	 *
+	 * @param commands
+	 * 		recorded commands
+	 * @see EntityCommandBuffer
+	 */
+	public void submit(EntityCommandBuffer commands) {
+		synchronized (submitted) {
+			submitted.add(commands);
+		}
+	}
+
+	private void playbackSubmitted() {
+		synchronized (submitted) {
+			if (submitted.isEmpty())
+				return;
+
+			pendingPlayback.addAll(submitted);
+			submitted.clear();
+		}
+
+		// played back outside of lock, not blocking submitting threads
+		for (int i = 0, s = pendingPlayback.size(); s > i; i++)
+			pendingPlayback.get(i).playback(this);
+
+		pendingPlayback.clear();
+	}
+
 	/**
 	 * Retrieves a ComponentMapper instance for fast retrieval of components
 	 * from entities.
@@ -448,4 +590,22 @@ public class World {
     public boolean isAlwaysDelayComponentRemoval() {
         return alwaysDelayComponentRemoval;
     }
+
+	/**
+	 * When true, {@link EntityEdit} resolves the entity's composition once per edit.
+	 *
+	 * @see WorldConfiguration#setCoalescingEdits(boolean)
+	 */
+	public boolean isCoalescingEdits() {
+		return coalescingEdits;
+	}
+
+	/**
+	 * When true, new entity subscriptions track entities with compressed bitsets.
+	 *
+	 * @see WorldConfiguration#setCompressedSubscriptions(boolean)
+	 */
+	public boolean isCompressedSubscriptions() {
+		return compressedSubscriptions;
+	}
 }
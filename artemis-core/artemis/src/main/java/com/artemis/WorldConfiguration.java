@@ -37,6 +37,9 @@ public final class WorldConfiguration {
 	protected SystemInvocationStrategy invocationStrategy;
 
 	private boolean alwaysDelayComponentRemoval = false;
+	private boolean wideCompositionIdentity = false;
+	private boolean coalescingEdits = false;
+	private boolean compressedSubscriptions = false;
 	private Set<Class<? extends BaseSystem>> registered = new HashSet<Class<? extends BaseSystem>>();
 
 	public WorldConfiguration() {
@@ -222,4 +225,74 @@ public final class WorldConfiguration {
 	public void setAlwaysDelayComponentRemoval(boolean value) {
 		this.alwaysDelayComponentRemoval = value;
 	}
+
+	/**
+	 * @return {@code true} if composition ids are tracked as {@code int}.
+	 */
+	public boolean isWideCompositionIdentity() {
+		return wideCompositionIdentity;
+	}
+
+	/**
+	 * Track entity composition ids as {@code int} instead of {@code short}.
+	 *
+	 * By default, composition ids are stored compactly, limiting the world to
+	 * {@link Short#MAX_VALUE} unique component compositions. Worlds exceeding
+	 * the limit throw once it is reached.
+	 *
+	 * Doubles the memory used for tracking composition ids per entity.
+	 *
+	 * @param value When {@code true}, lifts the limit on unique compositions.
+	 * @return This instance for chaining.
+	 */
+	public WorldConfiguration setWideCompositionIdentity(boolean value) {
+		this.wideCompositionIdentity = value;
+		return this;
+	}
+
+	/**
+	 * @return {@code true} if {@link EntityEdit} resolves compositions once per edit.
+	 */
+	public boolean isCoalescingEdits() {
+		return coalescingEdits;
+	}
+
+	/**
+	 * Resolve the composition of edited entities once per {@link EntityEdit},
+	 * instead of once per added or removed component.
+	 *
+	 * Edits are committed when editing another entity, before the entity is
+	 * transmuted or deleted, and when entity states are synchronized - whichever
+	 * comes first. Until then, the entity's composition id and subscriptions
+	 * don't reflect the edit; component mappers do.
+	 *
+	 * @param value When {@code true}, entity edits are coalesced.
+	 * @return This instance for chaining.
+	 */
+	public WorldConfiguration setCoalescingEdits(boolean value) {
+		this.coalescingEdits = value;
+		return this;
+	}
+
+	/**
+	 * @return {@code true} if entity subscriptions are compressed by default.
+	 */
+	public boolean isCompressedSubscriptions() {
+		return compressedSubscriptions;
+	}
+
+	/**
+	 * Track entities of new subscriptions with compressed bitsets, taking
+	 * memory proportional to matched entities rather than to entity capacity.
+	 * The subscription matching all entities is never compressed.
+	 *
+	 * Individual subscriptions can be toggled via {@link EntitySubscription#setCompressed(boolean)}.
+	 *
+	 * @param value When {@code true}, subscriptions are compressed by default.
+	 * @return This instance for chaining.
+	 */
+	public WorldConfiguration setCompressedSubscriptions(boolean value) {
+		this.compressedSubscriptions = value;
+		return this;
+	}
 }
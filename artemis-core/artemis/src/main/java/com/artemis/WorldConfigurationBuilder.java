@@ -24,6 +24,9 @@ public class WorldConfigurationBuilder {
     private Bag<ConfigurationElement<? extends FieldResolver>> fieldResolvers;
     private Bag<ConfigurationElement<? extends ArtemisPlugin>> plugins;
     private boolean alwaysDelayComponentRemoval = false;
+    private boolean wideCompositionIdentity = false;
+    private boolean coalescingEdits = false;
+    private boolean compressedSubscriptions = false;
 
     private ArtemisPlugin activePlugin;
     private final InjectionCache cache;
@@ -46,6 +49,9 @@ public class WorldConfigurationBuilder {
         registerFieldResolvers(config);
         registerInvocationStrategies(config);
         config.setAlwaysDelayComponentRemoval(alwaysDelayComponentRemoval);
+        config.setWideCompositionIdentity(wideCompositionIdentity);
+        config.setCoalescingEdits(coalescingEdits);
+        config.setCompressedSubscriptions(compressedSubscriptions);
         reset();
         return config;
     }
@@ -108,6 +114,9 @@ public class WorldConfigurationBuilder {
         fieldResolvers = new Bag<>();
         plugins = new Bag<>();
         alwaysDelayComponentRemoval = false;
+        wideCompositionIdentity = false;
+        coalescingEdits = false;
+        compressedSubscriptions = false;
     }
 
     /**
@@ -128,6 +137,48 @@ public class WorldConfigurationBuilder {
         return this;
     }
 
+    /**
+     * Track entity composition ids as {@code int} instead of {@code short}.
+     * <p>
+     * Lifts the limit of {@link Short#MAX_VALUE} unique component compositions,
+     * at the cost of doubling the memory used for tracking composition ids.
+     *
+     * @param value When {@code true}, composition ids are tracked as {@code int}.
+     */
+    public WorldConfigurationBuilder wideCompositionIdentity(boolean value) {
+        this.wideCompositionIdentity = value;
+        return this;
+    }
+
+    /**
+     * Resolve the composition of edited entities once per {@link EntityEdit},
+     * instead of once per added or removed component.
+     * <p>
+     * Avoids interning the intermediate compositions an entity passes through
+     * while being assembled.
+     *
+     * @param value When {@code true}, entity edits are coalesced.
+     * @see WorldConfiguration#setCoalescingEdits(boolean)
+     */
+    public WorldConfigurationBuilder coalescingEdits(boolean value) {
+        this.coalescingEdits = value;
+        return this;
+    }
+
+    /**
+     * Track entities of subscriptions with compressed bitsets.
+     * <p>
+     * Saves memory in worlds with many entities and many subscriptions
+     * matching comparatively few of them.
+     *
+     * @param value When {@code true}, subscriptions are compressed by default.
+     * @see WorldConfiguration#setCompressedSubscriptions(boolean)
+     */
+    public WorldConfigurationBuilder compressedSubscriptions(boolean value) {
+        this.compressedSubscriptions = value;
+        return this;
+    }
+
     /**
      * Add field resolver.
      *
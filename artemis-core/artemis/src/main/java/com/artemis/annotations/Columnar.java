@@ -0,0 +1,24 @@
+package com.artemis.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Stores the primitive fields of this component type as parallel arrays,
+ * one column per field, indexed by entity id.
+ * <p>
+ * Annotated components must be flat: every instance field must be a
+ * {@code float}, {@code int}, {@code long} or {@code double}. Pooled
+ * components are not supported.
+ * <p>
+ * {@link com.artemis.ComponentMapper#get(int)} returns a shared flyweight,
+ * see {@link com.artemis.ColumnComponentMapper} for its lifecycle and for
+ * direct column access. Not honoured under GWT.
+ *
+ * @see com.artemis.ColumnComponentMapper
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Columnar {}
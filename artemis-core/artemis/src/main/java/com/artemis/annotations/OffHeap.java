@@ -0,0 +1,25 @@
+package com.artemis.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Stores instances of this component type in an off-heap slab, keeping
+ * them out of reach of the garbage collector.
+ * <p>
+ * Annotated components must be flat: every instance field must be a
+ * {@code float}, {@code int}, {@code long} or {@code double}. Pooled
+ * components are {@link com.artemis.PooledComponent#reset() reset} when
+ * their slot is released, and start out in that state when the slot is
+ * reused.
+ * <p>
+ * Slabs are direct buffers unless a {@link com.artemis.SlabAllocator}
+ * is registered with the world. Not honoured under GWT.
+ *
+ * @see com.artemis.OffHeapComponentMapper
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface OffHeap {}
@@ -0,0 +1,36 @@
+package com.artemis.annotations;
+
+import com.artemis.Component;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Declares the component types a system reads while processing.</p>
+ *
+ * <p>Used by {@link com.artemis.ParallelInvocationStrategy} to determine which systems
+ * can be processed concurrently. Component types of the system's aspect
+ * ({@link All}, {@link One}) are implicitly considered read.</p>
+ *
+ * <p>Declaring reads or writes is a promise that the system does not
+ * create or delete entities, nor change any entity's composition during
+ * {@link com.artemis.BaseSystem#process()}. Systems without any declaration
+ * are always processed on their own.</p>
+ *
+ * @see Writes
+ * @see com.artemis.ParallelInvocationStrategy
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Documented
+@UnstableApi
+public @interface Reads {
+
+	/**
+	 * @return component types read by the system.
+	 */
+	Class<? extends Component>[] value() default {};
+}
@@ -0,0 +1,35 @@
+package com.artemis.annotations;
+
+import com.artemis.Component;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Declares the component types a system mutates while processing.</p>
+ *
+ * <p>Used by {@link com.artemis.ParallelInvocationStrategy}: a system writing a component
+ * type is never processed at the same time as another system reading or
+ * writing the same type. Writing implies reading.</p>
+ *
+ * <p>Mutating a component means changing its fields; adding or removing
+ * components is a composition change, which is not allowed for systems
+ * declaring their reads or writes.</p>
+ *
+ * @see Reads
+ * @see com.artemis.ParallelInvocationStrategy
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Documented
+@UnstableApi
+public @interface Writes {
+
+	/**
+	 * @return component types mutated by the system.
+	 */
+	Class<? extends Component>[] value() default {};
+}
@@ -3,6 +3,7 @@ package com.artemis.link;
 import com.artemis.*;
 import com.artemis.annotations.SkipWire;
 import com.artemis.utils.Bag;
+import com.artemis.utils.IntBag;
 import com.artemis.utils.reflect.ClassReflection;
 import com.artemis.utils.reflect.Field;
 import com.artemis.utils.reflect.ReflectionException;
@@ -16,6 +17,13 @@ import static com.artemis.Aspect.all;
  * <p>This system is optional and must be manually registered with
  * the world instance.</p>
  *
+ * <p>By default, every linking field is re-read each tick to detect
+ * changed or dead targets. When constructed as event driven, fields are
+ * only re-read for entities whose component was written via
+ * {@link ComponentMapper#modify(int)}, {@code create} or {@code put},
+ * and for entities linking to removed entities - found via a reverse
+ * index of targets to sources, see {@link #getSources(int, IntBag)}.</p>
+ *
  * @see com.artemis.annotations.EntityId
  *
  */
@@ -27,6 +35,7 @@ public class EntityLinkManager extends BaseEntitySystem {
 
 	private final boolean requireListener;
 	private final boolean fireEventsOnRegistration;
+	private final boolean eventDriven;
 
 	/**
 	 * @param processSitesEvenIfNoListener
@@ -35,9 +44,26 @@ public class EntityLinkManager extends BaseEntitySystem {
 	 *  If true,
 	 */
 	public EntityLinkManager(boolean processSitesEvenIfNoListener, boolean fireEventsOnRegistration) {
+		this(processSitesEvenIfNoListener, fireEventsOnRegistration, false);
+	}
+
+	/**
+	 * @param processSitesEvenIfNoListener
+	 *  If true, only act on fields with an attached {@link LinkListener}.
+	 * @param fireEventsOnRegistration
+	 *  If true,
+	 * @param eventDriven
+	 *  If true, only re-read fields of components written via the
+	 *  {@link ComponentMapper}, and of components linking to removed
+	 *  entities. Fields assigned directly go unnoticed.
+	 */
+	public EntityLinkManager(boolean processSitesEvenIfNoListener,
+	                         boolean fireEventsOnRegistration,
+	                         boolean eventDriven) {
 		super(all());
 		this.requireListener = !processSitesEvenIfNoListener;
 		this.fireEventsOnRegistration = fireEventsOnRegistration;
+		this.eventDriven = eventDriven;
 	}
 
 	/**
@@ -52,6 +78,15 @@ public class EntityLinkManager extends BaseEntitySystem {
 	protected void initialize() {
 		LinkCreateListener listener = new LinkCreateListener(this);
 		world.getComponentManager().getTypeFactory().register(listener);
+
+		world.getEntityManager().register(new EntityManager.RemapListener() {
+			@Override
+			public void remapped(IntBag from, IntBag to) {
+				for (LinkSite ls : linkSites) {
+					ls.remapped();
+				}
+			}
+		});
 	}
 
 
@@ -70,6 +105,47 @@ public class EntityLinkManager extends BaseEntitySystem {
 		}
 	}
 
+	@Override
+	public void removed(IntBag entities) {
+		if (!eventDriven)
+			return;
+
+		for (int i = 0, s = linkSites.size(); s > i; i++) {
+			linkSites.get(i).targetsRemoved(entities);
+		}
+	}
+
+	/**
+	 * <p>Collects entities linking to target via fields referencing a
+	 * single entity - {@link Entity} or <code>@EntityId int</code>. Bag
+	 * and IntBag fields are not indexed. An entity linking to target via
+	 * several fields is collected once per field.</p>
+	 *
+	 * <p>Reflects links as of the last time each field was read, i.e.
+	 * when last processed or upon insertion.</p>
+	 *
+	 * @param targetId linked entity
+	 * @param out receives linking entities; not reset before use
+	 * @return same as out
+	 */
+	public IntBag getSources(int targetId, IntBag out) {
+		for (int i = 0, s = linkSites.size(); s > i; i++) {
+			LinkSite site = linkSites.get(i);
+			if (site instanceof UniLinkSite)
+				((UniLinkSite) site).sources(targetId, out);
+		}
+
+		return out;
+	}
+
+	/**
+	 * @return true if only fields written via the {@link ComponentMapper}
+	 *         are re-read.
+	 */
+	public boolean isEventDriven() {
+		return eventDriven;
+	}
+
 	/**
 	 * <p>Injects and associates the listener with the component. This method
 	 * is only recommended if only a single field references entities, or if all entity
@@ -140,6 +216,9 @@ public class EntityLinkManager extends BaseEntitySystem {
 				return;
 
 			for (int i = 0, s = links.size(); s > i; i++) {
+				if (elm.eventDriven)
+					links.get(i).trackChanges();
+
 				elm.linkSites.add(links.get(i));
 			}
 		}
@@ -1,5 +1,6 @@
 package com.artemis.link;
 
+import com.artemis.Component;
 import com.artemis.ComponentType;
 import com.artemis.Entity;
 import com.artemis.World;
@@ -16,8 +17,8 @@ import static com.artemis.utils.reflect.ReflectionUtil.isGenericType;
 
 class LinkFactory {
 	private static final int NULL_REFERENCE = 0;
-	private static final int SINGLE_REFERENCE = 1;
-	private static final int MULTI_REFERENCE = 2;
+	static final int SINGLE_REFERENCE = 1;
+	static final int MULTI_REFERENCE = 2;
 
 	private final Bag<LinkSite> links = new Bag<LinkSite>();
 	private final World world;
@@ -30,7 +31,7 @@ class LinkFactory {
 	}
 
 	static int getReferenceTypeId(Field f) {
-		Class type = f.getType();
+		Class<?> type = f.getType();
 		if (Entity.class == type)
 			return SINGLE_REFERENCE;
 		if (isGenericType(f, Bag.class, Entity.class))
@@ -56,15 +57,11 @@ class LinkFactory {
 			if (referenceTypeId != NULL_REFERENCE && (SKIP != getPolicy(f))) {
 				if (SINGLE_REFERENCE == referenceTypeId) {
 					UniLinkSite ls = new UniLinkSite(world, ct, f);
-					if (!configureMutator(ls))
-						reflexiveMutators.withMutator(ls);
-
+					ls.fieldMutator = uniMutator(f);
 					links.add(ls);
 				} else if (MULTI_REFERENCE == referenceTypeId) {
 					MultiLinkSite ls = new MultiLinkSite(world, ct, f);
-					if (!configureMutator(ls))
-						reflexiveMutators.withMutator(ls);
-
+					ls.fieldMutator = multiMutator(f);
 					links.add(ls);
 				}
 			}
@@ -83,26 +80,30 @@ class LinkFactory {
 		return null;
 	}
 
-	private boolean configureMutator(UniLinkSite linkSite) {
-		UniFieldMutator mutator = MutatorUtil.getGeneratedMutator(linkSite);
-		if (mutator != null) {
-			mutator.setWorld(world);
-			linkSite.fieldMutator = mutator;
-			return true;
-		} else {
-			return false;
-		}
+	/**
+	 * @return generated mutator for field, or a reflection-based
+	 *         mutator if the component wasn't woven.
+	 */
+	UniFieldMutator uniMutator(Field f) {
+		UniFieldMutator mutator = MutatorUtil.getGeneratedMutator(f);
+		if (mutator == null)
+			return reflexiveMutators.uniMutator(f);
+
+		mutator.setWorld(world);
+		return mutator;
 	}
 
-	private boolean configureMutator(MultiLinkSite linkSite) {
-		MultiFieldMutator mutator = MutatorUtil.getGeneratedMutator(linkSite);
-		if (mutator != null) {
-			mutator.setWorld(world);
-			linkSite.fieldMutator = mutator;
-			return true;
-		} else {
-			return false;
-		}
+	/**
+	 * @return generated mutator for field, or a reflection-based
+	 *         mutator if the component wasn't woven.
+	 */
+	MultiFieldMutator<?, Component> multiMutator(Field f) {
+		MultiFieldMutator<?, Component> mutator = MutatorUtil.getGeneratedMutator(f);
+		if (mutator == null)
+			return reflexiveMutators.multiMutator(f);
+
+		mutator.setWorld(world);
+		return mutator;
 	}
 
 	static class ReflexiveMutators {
@@ -125,36 +126,26 @@ class LinkFactory {
 			entityBagField.setWorld(world);
 		}
 
-		UniLinkSite withMutator(UniLinkSite linkSite) {
-			if (linkSite.fieldMutator != null)
-				return linkSite;
-
-			Class type = linkSite.field.getType();
+		UniFieldMutator uniMutator(Field field) {
+			Class<?> type = field.getType();
 			if (Entity.class == type) {
-				linkSite.fieldMutator = entityField;
+				return entityField;
 			} else if (int.class == type) {
-				linkSite.fieldMutator = intField;
+				return intField;
 			} else {
-				throw new RuntimeException("unexpected '" + type + "', on " + linkSite.type);
+				throw new RuntimeException("unexpected '" + type + "', on " + field.getDeclaringClass());
 			}
-
-			return linkSite;
 		}
 
-		MultiLinkSite withMutator(MultiLinkSite linkSite) {
-			if (linkSite.fieldMutator != null)
-				return linkSite;
-
-			Class type = linkSite.field.getType();
+		MultiFieldMutator<?, Component> multiMutator(Field field) {
+			Class<?> type = field.getType();
 			if (IntBag.class == type) {
-				linkSite.fieldMutator = intBagField;
+				return intBagField;
 			} else if (Bag.class == type) {
-				linkSite.fieldMutator = entityBagField;
+				return entityBagField;
 			} else {
-				throw new RuntimeException("unexpected '" + type + "', on " + linkSite.type);
+				throw new RuntimeException("unexpected '" + type + "', on " + field.getDeclaringClass());
 			}
-
-			return linkSite;
 		}
 	}
 }
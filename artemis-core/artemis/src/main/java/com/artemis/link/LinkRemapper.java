@@ -0,0 +1,186 @@
+package com.artemis.link;
+
+import com.artemis.*;
+import com.artemis.utils.Bag;
+import com.artemis.utils.BitVector;
+import com.artemis.utils.IntBag;
+import com.artemis.utils.reflect.ClassReflection;
+import com.artemis.utils.reflect.Field;
+
+import static com.artemis.Aspect.all;
+
+/**
+ * <p>Rewrites entity references held by components when entity ids are
+ * remapped by {@link World#compact()}. Covers the same fields as
+ * {@link EntityLinkManager}, including fields with
+ * {@link com.artemis.annotations.LinkPolicy.Policy#SKIP SKIP} policy, and
+ * is active whether or not the link manager is registered.</p>
+ *
+ * <p>References to moved entities are updated; references to entities
+ * which were already dead are cleared - <code>-1</code> or <code>null</code>
+ * for single references, removed from multi references - as their ids
+ * may since have been handed to moved entities.</p>
+ *
+ * <p>Registered by every world, ahead of any other
+ * {@link EntityManager.RemapListener}. Component types are only inspected
+ * upon the first remap.</p>
+ */
+public final class LinkRemapper implements EntityManager.RemapListener, ComponentTypeFactory.ComponentTypeListener {
+	private final World world;
+	private LinkFactory linkFactory;
+
+	/** Component types in need of inspection. */
+	private final Bag<ComponentType> pending = new Bag<ComponentType>();
+	private final Bag<Link> links = new Bag<Link>();
+
+	/** New id plus one, indexed by former id of moved entities. */
+	private final IntBag moved = new IntBag();
+	/** Former ids of moved entities, as well as ids of formerly dead entities now occupied. */
+	private final BitVector remapped = new BitVector();
+
+	public LinkRemapper(World world) {
+		this.world = world;
+	}
+
+	@Override
+	public void initialize(Bag<ComponentType> registered) {
+		pending.addAll(registered);
+	}
+
+	@Override
+	public void onCreated(ComponentType type) {
+		pending.add(type);
+	}
+
+	@Override
+	public void remapped(IntBag from, IntBag to) {
+		if (linkFactory == null) {
+			linkFactory = new LinkFactory(world);
+			world.getComponentManager().getTypeFactory().register(this);
+		}
+
+		inspectPendingTypes();
+		if (links.isEmpty())
+			return;
+
+		int[] src = from.getData();
+		int[] dst = to.getData();
+		for (int i = 0, s = from.size(); s > i; i++) {
+			moved.set(src[i], dst[i] + 1);
+			remapped.set(src[i]);
+			remapped.set(dst[i]);
+		}
+
+		BitVector alive = world.getAspectSubscriptionManager().get(all()).getActiveEntityIds();
+		for (int i = 0, s = links.size(); s > i; i++)
+			links.get(i).remap(alive);
+
+		for (int i = 0, s = from.size(); s > i; i++)
+			moved.set(src[i], 0);
+		remapped.clear();
+	}
+
+	/**
+	 * @param alive entities alive after compaction.
+	 * @return new id of entity, or <code>-1</code> if it was dead prior to compaction.
+	 */
+	private int remap(int entityId, BitVector alive) {
+		if (entityId < 0)
+			return -1;
+
+		if (!remapped.get(entityId))
+			return alive.get(entityId) ? entityId : -1;
+
+		// former id of moved entity, or id of dead entity
+		return (moved.size() > entityId) ? moved.get(entityId) - 1 : -1;
+	}
+
+	private void inspectPendingTypes() {
+		for (int i = 0, s = pending.size(); s > i; i++) {
+			ComponentType type = pending.get(i);
+			Field[] fields = ClassReflection.getDeclaredFields(type.getType());
+			for (Field field : fields) {
+				int referenceTypeId = LinkFactory.getReferenceTypeId(field);
+				if (referenceTypeId == LinkFactory.SINGLE_REFERENCE) {
+					links.add(new UniLink(type, field, linkFactory.uniMutator(field)));
+				} else if (referenceTypeId == LinkFactory.MULTI_REFERENCE) {
+					links.add(new MultiLink(type, field, linkFactory.multiMutator(field)));
+				}
+			}
+		}
+
+		pending.clear();
+	}
+
+	private abstract class Link {
+		final ComponentMapper<? extends Component> mapper;
+		final Field field;
+
+		Link(ComponentType type, Field field) {
+			this.mapper = world.getMapper(type.getType());
+			this.field = field;
+		}
+
+		void remap(BitVector alive) {
+			for (int id = alive.nextSetBit(0); id >= 0; id = alive.nextSetBit(id + 1)) {
+				Component component = mapper.get(id);
+				if (component != null)
+					remap(component, alive);
+			}
+		}
+
+		abstract void remap(Component component, BitVector alive);
+	}
+
+	private final class UniLink extends Link {
+		private final UniFieldMutator mutator;
+
+		UniLink(ComponentType type, Field field, UniFieldMutator mutator) {
+			super(type, field);
+			this.mutator = mutator;
+		}
+
+		@Override
+		void remap(Component component, BitVector alive) {
+			int target = mutator.read(component, field);
+			int remappedTarget = LinkRemapper.this.remap(target, alive);
+			if (target != remappedTarget)
+				mutator.write(remappedTarget, component, field);
+		}
+	}
+
+	private final class MultiLink extends Link {
+		private final MultiFieldMutator<?, Component> mutator;
+
+		MultiLink(ComponentType type, Field field, MultiFieldMutator<?, Component> mutator) {
+			super(type, field);
+			this.mutator = mutator;
+		}
+
+		@Override
+		void remap(Component component, BitVector alive) {
+			Object collection = mutator.read(component, field);
+			if (collection instanceof IntBag) {
+				IntBag ids = (IntBag) collection;
+				for (int i = 0; ids.size() > i; i++) {
+					int target = LinkRemapper.this.remap(ids.get(i), alive);
+					if (target == -1)
+						ids.removeIndex(i--);
+					else
+						ids.set(i, target);
+				}
+			} else {
+				@SuppressWarnings("unchecked")
+				Bag<Entity> entities = (Bag<Entity>) collection;
+				for (int i = 0; entities.size() > i; i++) {
+					Entity e = entities.get(i);
+					int target = (e != null) ? LinkRemapper.this.remap(e.getId(), alive) : -1;
+					if (target == -1)
+						entities.remove(i--);
+					else if (target != e.getId())
+						entities.set(i, world.getEntity(target));
+				}
+			}
+		}
+	}
+}
@@ -19,6 +19,9 @@ abstract class LinkSite implements EntitySubscription.SubscriptionListener {
 	protected final BitVector activeEntityIds;
 	protected LinkListener listener;
 
+	/** Sources written via the mapper since last processed; null unless tracking changes. */
+	protected BitVector changed;
+
 	protected LinkSite(World world,
 	                   ComponentType type,
 	                   Field field,
@@ -76,7 +79,30 @@ abstract class LinkSite implements EntitySubscription.SubscriptionListener {
 
 	protected abstract void check(int id);
 
+	/** Resynchronizes internal state with remapped entity ids, without notifying listeners. */
+	protected void remapped() {}
+
+	/**
+	 * Only re-reads sources written via {@link ComponentMapper#modify(int)},
+	 * {@code create} or {@code put}, and sources whose targets were removed.
+	 */
+	void trackChanges() {
+		changed = new BitVector();
+		mapper.trackChanges(changed);
+	}
+
+	/** Invoked with entities removed from the world, before the next {@link #process()}. */
+	protected void targetsRemoved(IntBag entities) {}
+
+	/** Processes {@link #changed} sources and sources of removed targets. */
+	protected abstract void processChanged();
+
 	protected void process() {
+		if (changed != null) {
+			processChanged();
+			return;
+		}
+
 		if (CHECK_SOURCE_AND_TARGETS != policy)
 			return;
 
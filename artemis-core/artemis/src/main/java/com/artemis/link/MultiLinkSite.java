@@ -3,11 +3,17 @@ package com.artemis.link;
 import com.artemis.ComponentType;
 import com.artemis.World;
 import com.artemis.annotations.LinkPolicy;
+import com.artemis.utils.IntBag;
 import com.artemis.utils.reflect.Field;
 
+import static com.artemis.annotations.LinkPolicy.Policy.CHECK_SOURCE_AND_TARGETS;
+
 class MultiLinkSite extends LinkSite {
 	MultiFieldMutator fieldMutator;
 
+	/** Entities were removed since last processed. */
+	private boolean targetsRemoved;
+
 	protected MultiLinkSite(World world,
 	                        ComponentType type,
 	                        Field field) {
@@ -21,6 +27,30 @@ class MultiLinkSite extends LinkSite {
 		fieldMutator.validate(id, collection, listener);
 	}
 
+	@Override
+	protected void processChanged() {
+		// additions to collections never notify listeners;
+		// only removed targets require validation
+		changed.clear();
+		if (!targetsRemoved)
+			return;
+
+		targetsRemoved = false;
+		if (CHECK_SOURCE_AND_TARGETS != policy)
+			return;
+
+		IntBag entities = subscription.getEntities();
+		int[] ids = entities.getData();
+		for (int i = 0, s = entities.size(); s > i; i++) {
+			check(ids[i]);
+		}
+	}
+
+	@Override
+	protected void targetsRemoved(IntBag entities) {
+		targetsRemoved |= !entities.isEmpty();
+	}
+
 	@Override
 	protected void insert(int id) {
 		if (listener != null)
@@ -1,14 +1,15 @@
 package com.artemis.link;
 
 import com.artemis.utils.reflect.ClassReflection;
+import com.artemis.utils.reflect.Field;
 import com.artemis.utils.reflect.ReflectionException;
 
 final class MutatorUtil {
 	private MutatorUtil() {}
 
-	static <T> T getGeneratedMutator(LinkSite linkSite) {
-		Class[] possibleMutators = linkSite.field.getDeclaringClass().getDeclaredClasses();
-		String mutatorName = "Mutator_" + linkSite.field.getName();
+	static <T> T getGeneratedMutator(Field field) {
+		Class[] possibleMutators = field.getDeclaringClass().getDeclaredClasses();
+		String mutatorName = "Mutator_" + field.getName();
 		for (int i = 0, s = possibleMutators.length; s > i; i++) {
 			if (mutatorName.equals(possibleMutators[i].getSimpleName())) {
 				try {
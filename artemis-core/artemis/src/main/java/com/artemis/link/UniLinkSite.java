@@ -3,14 +3,27 @@ package com.artemis.link;
 import com.artemis.ComponentType;
 import com.artemis.World;
 import com.artemis.annotations.LinkPolicy;
+import com.artemis.utils.BitVector;
 import com.artemis.utils.IntBag;
 import com.artemis.utils.reflect.Field;
 
+import static com.artemis.annotations.LinkPolicy.Policy.CHECK_SOURCE_AND_TARGETS;
+
 class UniLinkSite extends LinkSite {
 	UniFieldMutator fieldMutator;
 
 	private final IntBag sourceToTarget = new IntBag();
 
+	// reverse index: intrusive doubly linked list of sources per target,
+	// entries are entity id + 1, 0 terminates
+	private final IntBag firstSource = new IntBag();
+	private final IntBag nextSource = new IntBag();
+	private final IntBag prevSource = new IntBag();
+	private final BitVector indexed = new BitVector();
+
+	/** Sources to check, as their target was removed. */
+	private final BitVector pending = new BitVector();
+
 	protected UniLinkSite(World world,
 	                      ComponentType type,
 	                      Field field) {
@@ -34,7 +47,72 @@ class UniLinkSite extends LinkSite {
 				fireLinkListener(id, target);
 			}
 
-			sourceToTarget.set(id, target);
+			link(id, target);
+		}
+	}
+
+	@Override
+	protected void processChanged() {
+		pending.or(changed);
+		changed.clear();
+
+		BitVector sources = subscription.getActiveEntityIds();
+		for (int id = pending.nextSetBit(0); id >= 0; id = pending.nextSetBit(id + 1)) {
+			if (!sources.get(id))
+				continue;
+
+			if (CHECK_SOURCE_AND_TARGETS == policy) {
+				check(id);
+			} else {
+				link(id, fieldMutator.read(mapper.get(id), field));
+			}
+		}
+		pending.clear();
+	}
+
+	@Override
+	protected void targetsRemoved(IntBag entities) {
+		if (changed == null || CHECK_SOURCE_AND_TARGETS != policy)
+			return;
+
+		int[] ids = entities.getData();
+		for (int i = 0, s = entities.size(); s > i; i++) {
+			int target = ids[i];
+			if (firstSource.size() <= target)
+				continue;
+
+			for (int source = firstSource.get(target); source != 0; source = nextSource.get(source - 1)) {
+				pending.set(source - 1);
+			}
+		}
+	}
+
+	/**
+	 * @param target entity id.
+	 * @param out receives sources linking to target.
+	 */
+	void sources(int target, IntBag out) {
+		if (target < 0 || firstSource.size() <= target)
+			return;
+
+		for (int source = firstSource.get(target); source != 0; source = nextSource.get(source - 1)) {
+			out.add(source - 1);
+		}
+	}
+
+	@Override
+	protected void remapped() {
+		sourceToTarget.setSize(0);
+		firstSource.clear();
+		nextSource.clear();
+		prevSource.clear();
+		indexed.clear();
+		pending.clear();
+
+		IntBag ids = subscription.getEntities();
+		for (int i = 0, s = ids.size(); s > i; i++) {
+			int id = ids.get(i);
+			link(id, fieldMutator.read(mapper.get(id), field));
 		}
 	}
 
@@ -52,7 +130,7 @@ class UniLinkSite extends LinkSite {
 	@Override
 	protected void insert(int id) {
 		int target = fieldMutator.read(mapper.get(id), field);
-		sourceToTarget.set(id, target);
+		link(id, target);
 		if (target != -1 && listener != null)
 			listener.onLinkEstablished(id, target);
 	}
@@ -64,9 +142,46 @@ class UniLinkSite extends LinkSite {
 			: -1;
 
 		if (target != -1)
-			sourceToTarget.set(id, -1);
+			link(id, -1);
+
+		pending.clear(id);
 
 		if (listener != null)
 			listener.onLinkKilled(id, target);
 	}
+
+	/** Points source at target, updating the reverse index. */
+	private void link(int source, int target) {
+		if (indexed.get(source)) {
+			unlink(source, sourceToTarget.get(source));
+		}
+
+		sourceToTarget.set(source, target);
+		if (target == -1)
+			return;
+
+		int head = firstSource.size() > target ? firstSource.get(target) : 0;
+		nextSource.set(source, head);
+		prevSource.set(source, 0);
+		if (head != 0)
+			prevSource.set(head - 1, source + 1);
+
+		firstSource.set(target, source + 1);
+		indexed.set(source);
+	}
+
+	private void unlink(int source, int target) {
+		int prev = prevSource.get(source);
+		int next = nextSource.get(source);
+		if (prev != 0) {
+			nextSource.set(prev - 1, next);
+		} else {
+			firstSource.set(target, next);
+		}
+
+		if (next != 0)
+			prevSource.set(next - 1, prev);
+
+		indexed.clear(source);
+	}
 }
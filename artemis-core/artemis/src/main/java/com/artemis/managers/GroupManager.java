@@ -7,8 +7,10 @@ import java.util.Map;
 
 import com.artemis.BaseSystem;
 import com.artemis.Entity;
+import com.artemis.EntityManager;
 import com.artemis.EntitySubscription;
 import com.artemis.utils.Bag;
+import com.artemis.utils.BitVector;
 import com.artemis.utils.ImmutableBag;
 import com.artemis.utils.ImmutableIntBag;
 import com.artemis.utils.IntBag;
@@ -22,6 +24,13 @@ import com.artemis.utils.IntBag;
  * <p>
  * A entity can be assigned to more than one group.
  * </p>
+ * <p>
+ * Group names are interned to small int ids, see {@link #getGroupId(String)}.
+ * Membership is tracked as one {@link BitVector} per group plus a group
+ * mask per entity; the int id based methods avoid hashing group names,
+ * and {@link #getEntityIdsInAll(IntBag, int...)} and
+ * {@link #getEntityIdsInAny(IntBag, int...)} combine groups word by word.
+ * </p>
  *
  * @author Arni Arent
  */
@@ -29,22 +38,33 @@ public class GroupManager extends BaseSystem {
     private static final ImmutableBag<String> EMPTY_BAG = new Bag<String>();
 
     /**
-     * All entities and groups mapped with group names as key.
+     * Groups mapped by name.
      */
-    private final Map<String, Bag<Entity>> entitiesByGroup;
-    private final Map<String, IntBag> identitiesByGroup;
+    private final Map<String, Group> groupsByName;
     /**
-     * All entities and groups mapped with entities as key.
+     * Groups indexed by group id.
      */
-    private final Map<Entity, Bag<String>> groupsByEntity;
+    private final Bag<Group> groups;
+    /**
+     * Group ids of each entity, indexed by entity id.
+     */
+    private final Bag<BitVector> groupsByEntity;
+    /**
+     * Group names of each entity, indexed by entity id; kept in sync with
+     * {@link #groupsByEntity}.
+     */
+    private final Bag<Bag<String>> namesByEntity;
+
+    private final BitVector scratch = new BitVector();
 
     /**
      * Creates a new GroupManager instance.
      */
     public GroupManager() {
-        entitiesByGroup = new HashMap<>();
-        identitiesByGroup = new HashMap<>();
-        groupsByEntity = new HashMap<>();
+        groupsByName = new HashMap<>();
+        groups = new Bag<>(Group.class);
+        groupsByEntity = new Bag<>(BitVector.class);
+        namesByEntity = new Bag<>();
     }
 
     @Override
@@ -64,6 +84,95 @@ public class GroupManager extends BaseSystem {
                         deleted(entities);
                     }
                 });
+
+
+        world.getEntityManager().register(new EntityManager.RemapListener() {
+            @Override
+            public void remapped(IntBag from, IntBag to) {
+                GroupManager.this.remapped(from, to);
+            }
+        });
+    }
+
+    void remapped(IntBag from, IntBag to) {
+        int[] src = from.getData();
+        int[] dst = to.getData();
+        for (int i = 0, s = from.size(); s > i; i++) {
+            BitVector mask = mask(src[i]);
+            if (mask == null || mask.isEmpty())
+                continue;
+
+            for (int id = mask.nextSetBit(0); id >= 0; id = mask.nextSetBit(id + 1)) {
+                Group group = groups.get(id);
+                group.members.clear(src[i]);
+                group.members.set(dst[i]);
+                group.dirty();
+            }
+
+            // swap masks; the source slot is cleared for reuse
+            BitVector moved = groupsByEntity.safeGet(dst[i]);
+            groupsByEntity.set(dst[i], mask);
+            groupsByEntity.set(src[i], moved);
+            if (moved != null)
+                moved.clear();
+
+            Bag<String> movedNames = namesByEntity.safeGet(dst[i]);
+            namesByEntity.set(dst[i], namesByEntity.safeGet(src[i]));
+            namesByEntity.set(src[i], movedNames);
+            if (movedNames != null)
+                movedNames.clear();
+        }
+    }
+
+    /**
+     * Returns the id of a group, interning the name on first use. Ids are
+     * assigned in sequence starting from zero and stay valid for the
+     * lifetime of the manager.
+     *
+     * @param group name of the group
+     * @return id of the group
+     */
+    public int getGroupId(String group) {
+        return group(group).id;
+    }
+
+    /**
+     * @param groupId id of the group
+     * @return name of the group
+     * @throws ArrayIndexOutOfBoundsException if no such group exists
+     */
+    public String getGroupName(int groupId) {
+        return groups.get(groupId).name;
+    }
+
+    /**
+     * @return number of interned groups.
+     */
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    /**
+     * Set the group of the entity.
+     *
+     * @param entityId entity to add into the group
+     * @param groupId  id of group to add the entity into
+     */
+    public void add(int entityId, int groupId) {
+        Group group = groups.get(groupId);
+        if (group.members.get(entityId))
+            return;
+
+        group.members.set(entityId);
+        group.dirty();
+
+        BitVector mask = groupsByEntity.safeGet(entityId);
+        if (mask == null) {
+            mask = new BitVector();
+            groupsByEntity.set(entityId, mask);
+        }
+        mask.set(groupId);
+        updateNames(entityId, mask);
     }
 
     /**
@@ -73,34 +182,11 @@ public class GroupManager extends BaseSystem {
      * @param e     entity to add into the group
      */
     public void add(Entity e, String group) {
-        Bag<Entity> entities = entitiesByGroup.get(group);
-        if (entities == null) {
-            entities = new Bag<>();
-            entitiesByGroup.put(group, entities);
-        }
-        IntBag identities = identitiesByGroup.get(group);
-        if (identities == null) {
-            identities = new IntBag();
-            identitiesByGroup.put(group, identities);
-        }
-        if (!entities.contains(e)) {
-            entities.add(e);
-            identities.add(e.getId());
-        }
-
-        Bag<String> groups = groupsByEntity.get(e);
-        if (groups == null) {
-            groups = new Bag<>();
-            groupsByEntity.put(e, groups);
-        }
-        if (!groups.contains(group)) {
-            groups.add(group);
-        }
+        add(e.getId(), group(group).id);
     }
 
     public void add(final int entityId, String group) {
-        final Entity e = world.getEntity(entityId);
-        add(e, group);
+        add(entityId, group(group).id);
     }
 
     /**
@@ -117,8 +203,8 @@ public class GroupManager extends BaseSystem {
     }
 
     public void add(final int entityId, String g1, String g2) {
-        final Entity e = world.getEntity(entityId);
-        add(e, g1, g2);
+        add(entityId, g1);
+        add(entityId, g2);
     }
 
     /**
@@ -137,8 +223,9 @@ public class GroupManager extends BaseSystem {
     }
 
     public void add(final int entityId, String g1, String g2, String g3) {
-        final Entity e = world.getEntity(entityId);
-        add(e, g1, g2, g3);
+        add(entityId, g1);
+        add(entityId, g2);
+        add(entityId, g3);
     }
 
     /**
@@ -155,8 +242,27 @@ public class GroupManager extends BaseSystem {
     }
 
     public void add(final int entityId, String... groups) {
-        final Entity e = world.getEntity(entityId);
-        add(e, groups);
+        for (String group : groups) {
+            add(entityId, group);
+        }
+    }
+
+    /**
+     * Remove the entity from the specified group.
+     *
+     * @param entityId entity to remove from group
+     * @param groupId  id of group to remove the entity from
+     */
+    public void remove(int entityId, int groupId) {
+        Group group = groups.get(groupId);
+        if (!group.members.get(entityId))
+            return;
+
+        group.members.clear(entityId);
+        group.dirty();
+        BitVector mask = groupsByEntity.get(entityId);
+        mask.clear(groupId);
+        updateNames(entityId, mask);
     }
 
     /**
@@ -166,25 +272,13 @@ public class GroupManager extends BaseSystem {
      * @param group group to remove the entity from
      */
     public void remove(Entity e, String group) {
-        final Bag<Entity> entities = entitiesByGroup.get(group);
-        if (entities != null) {
-            entities.remove(e);
-        }
-        final IntBag identities = identitiesByGroup.get(group);
-        if (identities != null) {
-            identities.removeValue(e.getId());
-        }
-
-        Bag<String> groups = groupsByEntity.get(e);
-        if (groups != null) {
-            groups.remove(group);
-            if (groups.size() == 0)
-                groupsByEntity.remove(e);
-        }
+        remove(e.getId(), group);
     }
 
     public void remove(final int entityId, String group) {
-        remove(world.getEntity(entityId), group);
+        Group g = groupsByName.get(group);
+        if (g != null)
+            remove(entityId, g.id);
     }
 
     /**
@@ -201,7 +295,8 @@ public class GroupManager extends BaseSystem {
     }
 
     public void remove(final int entityId, String g1, String g2) {
-        remove(world.getEntity(entityId), g1, g2);
+        remove(entityId, g1);
+        remove(entityId, g2);
     }
 
     /**
@@ -220,7 +315,9 @@ public class GroupManager extends BaseSystem {
     }
 
     public void remove(final int entityId, String g1, String g2, String g3) {
-        remove(world.getEntity(entityId), g1, g2, g3);
+        remove(entityId, g1);
+        remove(entityId, g2);
+        remove(entityId, g3);
     }
 
     /**
@@ -237,7 +334,9 @@ public class GroupManager extends BaseSystem {
     }
 
     public void remove(final int entityId, String... groups) {
-        remove(world.getEntity(entityId), groups);
+        for (String group : groups) {
+            remove(entityId, group);
+        }
     }
 
     /**
@@ -246,66 +345,128 @@ public class GroupManager extends BaseSystem {
      * @param e the entity to remove
      */
     public void removeFromAllGroups(Entity e) {
-        Bag<String> groups = groupsByEntity.get(e);
-        if (groups == null)
-            return;
-        for (int i = 0, s = groups.size(); s > i; i++) {
-            Bag<Entity> entities = entitiesByGroup.get(groups.get(i));
-            if (entities != null) {
-                entities.remove(e);
-            }
-            IntBag identities = identitiesByGroup.get(groups.get(i));
-            if (identities != null) {
-                identities.removeValue(e.getId());
-            }
-        }
-        groupsByEntity.remove(e);
+        removeFromAllGroups(e.getId());
     }
 
     public void removeFromAllGroups(final int entityId) {
-        final Entity e = world.getEntity(entityId);
-        removeFromAllGroups(e);
+        BitVector mask = mask(entityId);
+        if (mask == null)
+            return;
+
+        for (int id = mask.nextSetBit(0); id >= 0; id = mask.nextSetBit(id + 1)) {
+            Group group = groups.get(id);
+            group.members.clear(entityId);
+            group.dirty();
+        }
+        mask.clear();
+        updateNames(entityId, mask);
     }
 
     /**
-     * Get all entities that belong to the provided group.
+     * Get all entities that belong to the provided group. The returned
+     * bag reflects the group at the time of the call, ordered by entity id.
      *
      * @param group name of the group
      * @return read-only bag of entities belonging to the group
      */
     public ImmutableBag<Entity> getEntities(String group) {
-        Bag<Entity> entities = entitiesByGroup.get(group);
-        if (entities == null) {
-            entities = new Bag<>();
-            entitiesByGroup.put(group, entities);
+        Group g = group(group);
+        if (g.entitiesDirty) {
+            IntBag ids = g.ids();
+            g.entities.clear();
+            int[] data = ids.getData();
+            for (int i = 0, s = ids.size(); s > i; i++) {
+                g.entities.add(world.getEntity(data[i]));
+            }
+            g.entitiesDirty = false;
         }
-        return entities;
+        return g.entities;
     }
 
+    /**
+     * Get the ids of all entities that belong to the provided group. The
+     * returned bag reflects the group at the time of the call, ordered
+     * by entity id.
+     *
+     * @param group name of the group
+     * @return read-only bag of entity ids belonging to the group
+     */
     public ImmutableIntBag getEntityIds(final String group) {
-        IntBag identities = identitiesByGroup.get(group);
-        if (identities == null) {
-            identities = new IntBag();
-            identitiesByGroup.put(group, identities);
+        return group(group).ids();
+    }
+
+    /**
+     * @param groupId id of the group
+     * @return read-only bag of entity ids belonging to the group, ordered
+     *         by entity id
+     */
+    public ImmutableIntBag getEntityIds(int groupId) {
+        return groups.get(groupId).ids();
+    }
+
+    /**
+     * Members of a group, as a bitset indexed by entity id. Do not modify.
+     *
+     * @param groupId id of the group
+     * @return entities belonging to the group
+     */
+    public BitVector getMembers(int groupId) {
+        return groups.get(groupId).members;
+    }
+
+    /**
+     * Collects entities belonging to every one of the groups.
+     *
+     * @param out      receives entity ids, ordered by id; reset before use
+     * @param groupIds ids of the groups
+     * @return same as out
+     */
+    public IntBag getEntityIdsInAll(IntBag out, int... groupIds) {
+        scratch.clear();
+        if (groupIds.length > 0) {
+            scratch.or(groups.get(groupIds[0]).members);
+            for (int i = 1; groupIds.length > i; i++) {
+                scratch.and(groups.get(groupIds[i]).members);
+            }
         }
-        return identities;
+        return scratch.toIntBag(out);
+    }
+
+    /**
+     * Collects entities belonging to at least one of the groups.
+     *
+     * @param out      receives entity ids, ordered by id; reset before use
+     * @param groupIds ids of the groups
+     * @return same as out
+     */
+    public IntBag getEntityIdsInAny(IntBag out, int... groupIds) {
+        scratch.clear();
+        for (int groupId : groupIds) {
+            scratch.or(groups.get(groupId).members);
+        }
+        return scratch.toIntBag(out);
     }
 
     /**
      * Get all groups the entity belongs to. An empty Bag is returned if the
-     * entity doesn't belong to any groups.
+     * entity doesn't belong to any groups. Groups are ordered by group id.
+     * The bag is maintained by the manager as the entity's groups change;
+     * reading it doesn't modify the manager, so entities may be queried
+     * from several threads as long as groups aren't changed meanwhile.
      *
      * @param e the entity
      * @return the groups the entity belongs to.
      */
     public ImmutableBag<String> getGroups(Entity e) {
-        Bag<String> groups = groupsByEntity.get(e);
-        return groups != null ? groups : EMPTY_BAG;
+        return getGroups(e.getId());
     }
 
     public ImmutableBag<String> getGroups(final int entityId) {
-        final Entity e = world.getEntity(entityId);
-        return getGroups(e);
+        BitVector mask = mask(entityId);
+        if (mask == null || mask.isEmpty())
+            return EMPTY_BAG;
+
+        return namesByEntity.get(entityId);
     }
 
     /**
@@ -315,12 +476,12 @@ public class GroupManager extends BaseSystem {
      * @return true. if it is in any group, false if none
      */
     public boolean isInAnyGroup(Entity e) {
-        return getGroups(e).size() > 0;
+        return isInAnyGroup(e.getId());
     }
 
     public boolean isInAnyGroup(final int entityId) {
-        final Entity e = world.getEntity(entityId);
-        return isInAnyGroup(e);
+        BitVector mask = mask(entityId);
+        return mask != null && !mask.isEmpty();
     }
 
     /**
@@ -331,30 +492,94 @@ public class GroupManager extends BaseSystem {
      * @return true if the entity is in the supplied group, false if not
      */
     public boolean isInGroup(Entity e, String group) {
-        if (group != null) {
-            Bag<String> bag = groupsByEntity.get(e);
-            if (bag != null) {
-                Object[] groups = bag.getData();
-                for (int i = 0, s = bag.size(); s > i; i++) {
-                    String g = (String) groups[i];
-                    if (group.equals(g)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return isInGroup(e.getId(), group);
     }
 
     public boolean isInGroup(final int entityId, String group) {
-        final Entity e = world.getEntity(entityId);
-        return isInGroup(e, group);
+        if (group == null)
+            return false;
+
+        Group g = groupsByName.get(group);
+        return g != null && g.members.get(entityId);
+    }
+
+    /**
+     * Check if the entity is in the supplied group.
+     *
+     * @param entityId the entity to check for
+     * @param groupId  id of the group to check in
+     * @return true if the entity is in the supplied group, false if not
+     */
+    public boolean isInGroup(int entityId, int groupId) {
+        return groups.get(groupId).members.get(entityId);
     }
 
     void deleted(IntBag entities) {
         int[] ids = entities.getData();
         for (int i = 0, s = entities.size(); s > i; i++) {
-            removeFromAllGroups(world.getEntity(ids[i]));
+            removeFromAllGroups(ids[i]);
+        }
+    }
+
+    private Group group(String name) {
+        Group group = groupsByName.get(name);
+        if (group == null) {
+            group = new Group(groups.size(), name);
+            groups.add(group);
+            groupsByName.put(name, group);
+        }
+        return group;
+    }
+
+    private void updateNames(int entityId, BitVector mask) {
+        Bag<String> names = namesByEntity.safeGet(entityId);
+        if (names == null) {
+            if (mask.isEmpty())
+                return;
+
+            names = new Bag<>(String.class, mask.cardinality());
+            namesByEntity.set(entityId, names);
+        }
+
+        names.clear();
+        for (int id = mask.nextSetBit(0); id >= 0; id = mask.nextSetBit(id + 1)) {
+            names.add(groups.get(id).name);
+        }
+    }
+
+    private BitVector mask(int entityId) {
+        return groupsByEntity.isIndexWithinBounds(entityId)
+            ? groupsByEntity.get(entityId)
+            : null;
+    }
+
+    private static final class Group {
+        final int id;
+        final String name;
+        final BitVector members = new BitVector();
+
+        /** Decoded members, rebuilt on demand. */
+        final IntBag ids = new IntBag();
+        final Bag<Entity> entities = new Bag<>(Entity.class);
+        boolean idsDirty;
+        boolean entitiesDirty;
+
+        Group(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        void dirty() {
+            idsDirty = true;
+            entitiesDirty = true;
+        }
+
+        IntBag ids() {
+            if (idsDirty) {
+                members.toIntBag(ids);
+                idsDirty = false;
+            }
+            return ids;
         }
     }
 }
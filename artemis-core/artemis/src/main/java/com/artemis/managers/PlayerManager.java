@@ -4,9 +4,11 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.artemis.Entity;
+import com.artemis.EntityManager;
 import com.artemis.Manager;
 import com.artemis.utils.Bag;
 import com.artemis.utils.ImmutableBag;
+import com.artemis.utils.IntBag;
 
 
 /**
@@ -33,6 +35,36 @@ public class PlayerManager extends Manager {
 	}
 
 
+	@Override
+	protected void initialize() {
+		world.getEntityManager().register(new EntityManager.RemapListener() {
+			@Override
+			public void remapped(IntBag from, IntBag to) {
+				PlayerManager.this.remapped(from, to);
+			}
+		});
+	}
+
+	void remapped(IntBag from, IntBag to) {
+		int[] src = from.getData();
+		int[] dst = to.getData();
+		for (int i = 0, s = from.size(); s > i; i++) {
+			Entity e = world.getEntity(src[i]);
+			String player = playerByEntity.remove(e);
+			if (player == null)
+				continue;
+
+			Entity moved = world.getEntity(dst[i]);
+			playerByEntity.put(moved, player);
+
+			Bag<Entity> entities = entitiesByPlayer.get(player);
+			for (int j = 0, size = entities.size(); size > j; j++) {
+				if (e == entities.get(j))
+					entities.set(j, moved);
+			}
+		}
+	}
+
 	/**
 	 * Associate the entity with the specified player.
 	 * <p>
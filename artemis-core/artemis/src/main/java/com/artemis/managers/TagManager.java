@@ -54,6 +54,29 @@ public class TagManager extends BaseSystem {
 						deleted(entities);
 					}
 				});
+
+		world.getEntityManager().register(new EntityManager.RemapListener() {
+			@Override
+			public void remapped(IntBag from, IntBag to) {
+				TagManager.this.remapped(from, to);
+			}
+		});
+	}
+
+	void remapped(IntBag from, IntBag to) {
+		int[] src = from.getData();
+		int[] dst = to.getData();
+		for (int i = 0, s = from.size(); s > i; i++) {
+			if (registered.get(src[i])) {
+				String tag = tagsByEntity.remove(world.getEntity(src[i]));
+				Entity e = world.getEntity(dst[i]);
+				tagsByEntity.put(e, tag);
+				entitiesByTag.put(tag, e);
+
+				registered.clear(src[i]);
+				registered.set(dst[i]);
+			}
+		}
 	}
 
 	void deleted(IntBag entities) {
@@ -5,8 +5,10 @@ import java.util.Map;
 import java.util.UUID;
 
 import com.artemis.Entity;
+import com.artemis.EntityManager;
 import com.artemis.Manager;
 import com.artemis.utils.Bag;
+import com.artemis.utils.IntBag;
 
 public class UuidEntityManager extends Manager {
 	private final Map<UUID, Entity> uuidToEntity;
@@ -17,6 +19,30 @@ public class UuidEntityManager extends Manager {
 		this.entityToUuid = new Bag<UUID>();
 	}
 
+	@Override
+	protected void initialize() {
+		world.getEntityManager().register(new EntityManager.RemapListener() {
+			@Override
+			public void remapped(IntBag from, IntBag to) {
+				UuidEntityManager.this.remapped(from, to);
+			}
+		});
+	}
+
+	void remapped(IntBag from, IntBag to) {
+		int[] src = from.getData();
+		int[] dst = to.getData();
+		for (int i = 0, s = from.size(); s > i; i++) {
+			UUID uuid = entityToUuid.safeGet(src[i]);
+			if (uuid == null)
+				continue;
+
+			entityToUuid.set(src[i], null);
+			entityToUuid.set(dst[i], uuid);
+			uuidToEntity.put(uuid, world.getEntity(dst[i]));
+		}
+	}
+
 	@Override
 	public void deleted(Entity e) {
 		UUID uuid = entityToUuid.safeGet(e.getId());
@@ -0,0 +1,62 @@
+package com.artemis.metrics;
+
+import com.artemis.BaseEntitySystem;
+import com.artemis.BaseSystem;
+import com.artemis.MetricsInvocationStrategy;
+import com.artemis.SystemInvocationStrategy;
+import com.artemis.World;
+import com.artemis.utils.ArtemisProfiler;
+
+/**
+ * Records wall time and subscribed entities of a system into
+ * {@link WorldMetrics}.
+ * <p>
+ * Installed on every system by {@link MetricsInvocationStrategy}. Can
+ * alternatively be woven into systems with
+ * {@code @Profile(using = MetricsProfiler.class)}, taking precedence over
+ * the profiler installed by the strategy. Woven profilers record nothing
+ * unless the world is configured with a {@link MetricsInvocationStrategy}.
+ */
+public class MetricsProfiler implements ArtemisProfiler {
+	private SystemMetrics metrics;
+	private BaseEntitySystem entitySystem;
+	private long start;
+
+	/** Invoked by woven systems. */
+	public MetricsProfiler() {}
+
+	MetricsProfiler(SystemMetrics metrics) {
+		bind(metrics);
+	}
+
+	@Override
+	public void initialize(BaseSystem owner, World world) {
+		SystemInvocationStrategy strategy = world.getInvocationStrategy();
+		if (strategy instanceof MetricsInvocationStrategy) {
+			WorldMetrics worldMetrics = ((MetricsInvocationStrategy) strategy).getMetrics();
+			SystemMetrics metrics = worldMetrics.system(owner);
+			metrics.woven = true;
+			bind(metrics);
+		}
+	}
+
+	@Override
+	public void start() {
+		start = System.nanoTime();
+	}
+
+	@Override
+	public void stop() {
+		if (metrics == null)
+			return;
+
+		int entities = (entitySystem != null) ? entitySystem.getSubscription().getEntityCount() : 0;
+		metrics.record(System.nanoTime() - start, entities);
+	}
+
+	private void bind(SystemMetrics metrics) {
+		this.metrics = metrics;
+		if (metrics.system instanceof BaseEntitySystem)
+			entitySystem = (BaseEntitySystem) metrics.system;
+	}
+}
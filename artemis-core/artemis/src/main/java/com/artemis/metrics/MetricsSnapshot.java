@@ -0,0 +1,237 @@
+package com.artemis.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of {@link WorldMetrics}, taken by {@link WorldMetrics#snapshot()}.
+ * <p>
+ * All times are in nanoseconds. Also exposed as an open type via
+ * {@link WorldMetricsMXBean#getSnapshot()}.
+ */
+public final class MetricsSnapshot {
+	private final long ticks;
+	private final TimeStats tickTime;
+	private final TimeStats syncTime;
+	private final CounterStats entitiesCreated;
+	private final CounterStats entitiesDeleted;
+	private final CounterStats compositionsAllocated;
+	private final List<SystemStats> systems;
+
+	MetricsSnapshot(long ticks,
+	                TimeStats tickTime,
+	                TimeStats syncTime,
+	                CounterStats entitiesCreated,
+	                CounterStats entitiesDeleted,
+	                CounterStats compositionsAllocated,
+	                List<SystemStats> systems) {
+
+		this.ticks = ticks;
+		this.tickTime = tickTime;
+		this.syncTime = syncTime;
+		this.entitiesCreated = entitiesCreated;
+		this.entitiesDeleted = entitiesDeleted;
+		this.compositionsAllocated = compositionsAllocated;
+		this.systems = Collections.unmodifiableList(new ArrayList<SystemStats>(systems));
+	}
+
+	/** @return number of completed ticks. */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/** @return time spent in {@link com.artemis.World#process()}, per tick. */
+	public TimeStats getTickTime() {
+		return tickTime;
+	}
+
+	/** @return time spent synchronizing subscriptions, per synchronization. */
+	public TimeStats getSyncTime() {
+		return syncTime;
+	}
+
+	/** @return entities created per tick. */
+	public CounterStats getEntitiesCreated() {
+		return entitiesCreated;
+	}
+
+	/** @return entities deleted per tick. */
+	public CounterStats getEntitiesDeleted() {
+		return entitiesDeleted;
+	}
+
+	/** @return new compositions allocated per tick. */
+	public CounterStats getCompositionsAllocated() {
+		return compositionsAllocated;
+	}
+
+	/** @return metrics of each profiled system, in system order. */
+	public List<SystemStats> getSystems() {
+		return systems;
+	}
+
+	/**
+	 * @param name simple class name of system.
+	 * @return metrics of system, or {@code null} if not profiled.
+	 */
+	public SystemStats getSystem(String name) {
+		for (SystemStats system : systems) {
+			if (system.getName().equals(name))
+				return system;
+		}
+
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("MetricsSnapshot[ticks=").append(ticks).append("]\n");
+		sb.append("  tick        ").append(tickTime).append('\n');
+		sb.append("  sync        ").append(syncTime).append('\n');
+		sb.append("  created     ").append(entitiesCreated).append('\n');
+		sb.append("  deleted     ").append(entitiesDeleted).append('\n');
+		sb.append("  composition ").append(compositionsAllocated).append('\n');
+		for (SystemStats system : systems)
+			sb.append("  ").append(system).append('\n');
+
+		return sb.toString();
+	}
+
+	/** Distribution of durations, in nanoseconds. */
+	public static final class TimeStats {
+		private final long count;
+		private final long totalNanos;
+		private final long meanNanos;
+		private final long p50Nanos;
+		private final long p90Nanos;
+		private final long p99Nanos;
+		private final long maxNanos;
+
+		TimeStats(TimeHistogram histogram) {
+			count = histogram.getCount();
+			totalNanos = histogram.getTotalNanos();
+			meanNanos = histogram.getMeanNanos();
+			p50Nanos = histogram.percentile(50);
+			p90Nanos = histogram.percentile(90);
+			p99Nanos = histogram.percentile(99);
+			maxNanos = histogram.getMaxNanos();
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		public long getMeanNanos() {
+			return meanNanos;
+		}
+
+		public long getP50Nanos() {
+			return p50Nanos;
+		}
+
+		public long getP90Nanos() {
+			return p90Nanos;
+		}
+
+		public long getP99Nanos() {
+			return p99Nanos;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "n=" + count
+				+ " mean=" + micros(meanNanos)
+				+ " p50=" + micros(p50Nanos)
+				+ " p90=" + micros(p90Nanos)
+				+ " p99=" + micros(p99Nanos)
+				+ " max=" + micros(maxNanos);
+		}
+
+		private static String micros(long nanos) {
+			return (nanos / 1000) + "." + ((nanos / 100) % 10) + "us";
+		}
+	}
+
+	/** Per tick quantity. */
+	public static final class CounterStats {
+		private final long total;
+		private final long lastTick;
+		private final long maxTick;
+
+		CounterStats(long total, long lastTick, long maxTick) {
+			this.total = total;
+			this.lastTick = lastTick;
+			this.maxTick = maxTick;
+		}
+
+		/** @return sum over all ticks. */
+		public long getTotal() {
+			return total;
+		}
+
+		/** @return amount during the most recent tick. */
+		public long getLastTick() {
+			return lastTick;
+		}
+
+		/** @return highest amount during a single tick. */
+		public long getMaxTick() {
+			return maxTick;
+		}
+
+		@Override
+		public String toString() {
+			return "total=" + total + " last=" + lastTick + " max=" + maxTick;
+		}
+	}
+
+	/** Metrics of a single system. */
+	public static final class SystemStats {
+		private final String name;
+		private final TimeStats time;
+		private final long entitiesProcessed;
+		private final int lastEntitiesProcessed;
+
+		SystemStats(String name, TimeStats time, long entitiesProcessed, int lastEntitiesProcessed) {
+			this.name = name;
+			this.time = time;
+			this.entitiesProcessed = entitiesProcessed;
+			this.lastEntitiesProcessed = lastEntitiesProcessed;
+		}
+
+		/** @return simple class name of system. */
+		public String getName() {
+			return name;
+		}
+
+		/** @return time spent per invocation, excluding ticks the system didn't process. */
+		public TimeStats getTime() {
+			return time;
+		}
+
+		/** @return subscribed entities, summed over all invocations. */
+		public long getEntitiesProcessed() {
+			return entitiesProcessed;
+		}
+
+		/** @return subscribed entities during the most recent invocation. */
+		public int getLastEntitiesProcessed() {
+			return lastEntitiesProcessed;
+		}
+
+		@Override
+		public String toString() {
+			return name + " " + time + " entities=" + lastEntitiesProcessed;
+		}
+	}
+}
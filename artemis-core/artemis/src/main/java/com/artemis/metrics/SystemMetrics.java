@@ -0,0 +1,40 @@
+package com.artemis.metrics;
+
+import com.artemis.BaseSystem;
+
+/**
+ * Metrics of a single system, recorded by its {@link MetricsProfiler}.
+ */
+final class SystemMetrics {
+	final BaseSystem system;
+	final String name;
+	final TimeHistogram time = new TimeHistogram();
+
+	long entitiesProcessed;
+	int lastEntitiesProcessed;
+
+	/** Profiled via {@link com.artemis.annotations.Profile} weaving. */
+	boolean woven;
+
+	SystemMetrics(BaseSystem system) {
+		this.system = system;
+		this.name = system.getClass().getSimpleName();
+	}
+
+	void record(long nanos, int entities) {
+		time.record(nanos);
+		entitiesProcessed += entities;
+		lastEntitiesProcessed = entities;
+	}
+
+	void reset() {
+		time.reset();
+		entitiesProcessed = 0;
+		lastEntitiesProcessed = 0;
+	}
+
+	MetricsSnapshot.SystemStats snapshot() {
+		return new MetricsSnapshot.SystemStats(name,
+			new MetricsSnapshot.TimeStats(time), entitiesProcessed, lastEntitiesProcessed);
+	}
+}
@@ -0,0 +1,104 @@
+package com.artemis.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations in nanoseconds, with fixed memory and constant
+ * time recording.
+ * <p>
+ * Buckets are log-linear: each power of two is split into
+ * {@value #SUB_BUCKETS} equally sized buckets, bounding the relative error
+ * of reported percentiles to 12.5%. Durations below {@value #SUB_BUCKETS}
+ * nanoseconds are exact.
+ * <p>
+ * Not thread-safe.
+ */
+public final class TimeHistogram {
+	static final int SUB_BUCKETS = 8;
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private final long[] buckets = new long[64 * SUB_BUCKETS];
+	private long count;
+	private long totalNanos;
+	private long maxNanos;
+
+	/**
+	 * @param nanos duration to record; negative durations count as zero.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+
+		buckets[bucket(nanos)]++;
+		count++;
+		totalNanos += nanos;
+		if (nanos > maxNanos)
+			maxNanos = nanos;
+	}
+
+	/** @return number of recorded durations. */
+	public long getCount() {
+		return count;
+	}
+
+	/** @return sum of all recorded durations. */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/** @return longest recorded duration. */
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	/** @return mean duration, or zero if nothing was recorded. */
+	public long getMeanNanos() {
+		return (count > 0) ? totalNanos / count : 0;
+	}
+
+	/**
+	 * @param percentile within {@code [0, 100]}.
+	 * @return upper bound of the bucket holding the percentile, never
+	 *         exceeding the longest recorded duration; zero if empty.
+	 */
+	public long percentile(double percentile) {
+		if (count == 0)
+			return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		for (int i = 0; buckets.length > i; i++) {
+			seen += buckets[i];
+			if (seen >= rank)
+				return Math.min(upperBound(i), maxNanos);
+		}
+
+		return maxNanos;
+	}
+
+	/** Discards all recorded durations. */
+	public void reset() {
+		Arrays.fill(buckets, 0);
+		count = 0;
+		totalNanos = 0;
+		maxNanos = 0;
+	}
+
+	static int bucket(long nanos) {
+		if (nanos < SUB_BUCKETS)
+			return (int) nanos;
+
+		int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+		int mantissa = (int) (nanos >>> shift) & (SUB_BUCKETS - 1);
+		return ((shift + 1) << SUB_BUCKET_BITS) | mantissa;
+	}
+
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+
+		int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+		long lower = (long) ((bucket & (SUB_BUCKETS - 1)) | SUB_BUCKETS) << shift;
+		return lower + (1L << shift) - 1;
+	}
+}
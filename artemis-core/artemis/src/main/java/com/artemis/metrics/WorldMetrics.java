@@ -0,0 +1,197 @@
+package com.artemis.metrics;
+
+import com.artemis.BaseSystem;
+import com.artemis.ComponentManager;
+import com.artemis.EntityManager;
+import com.artemis.MetricsInvocationStrategy;
+import com.artemis.World;
+import com.artemis.utils.ArtemisProfiler;
+import com.artemis.utils.Bag;
+import com.artemis.utils.ImmutableBag;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registry of per-system and per-tick metrics for a single world.
+ * <p>
+ * Records, per system, wall time histograms and subscribed entities;
+ * per tick, time spent processing the world, entities created and deleted
+ * and compositions allocated; and the cost of each subscription
+ * synchronization. Populated by {@link MetricsInvocationStrategy}:
+ * <pre>
+ * WorldMetrics metrics = new WorldMetrics();
+ * World world = new World(new WorldConfigurationBuilder()
+ *     .with(...)
+ *     .register(new MetricsInvocationStrategy(metrics))
+ *     .build());
+ * </pre>
+ * <p>
+ * Recording happens on the threads processing the world; take
+ * {@link #snapshot() snapshots} between ticks, or accept that snapshots
+ * taken concurrently - e.g. via {@link WorldMetricsMXBean} - may be
+ * slightly inconsistent.
+ *
+ * @see MetricsProfiler
+ */
+public class WorldMetrics {
+	private EntityManager em;
+	private ComponentManager cm;
+
+	/** In system order, once attached. */
+	private final Bag<SystemMetrics> systems = new Bag<SystemMetrics>(SystemMetrics.class);
+
+	private final TimeHistogram tickTime = new TimeHistogram();
+	private final TimeHistogram syncTime = new TimeHistogram();
+	private final Counter created = new Counter();
+	private final Counter deleted = new Counter();
+	private final Counter compositions = new Counter();
+
+	private long ticks;
+	private long tickStart;
+
+	/**
+	 * Starts collecting metrics for world. Invoked by
+	 * {@link MetricsInvocationStrategy} once all systems are initialized.
+	 *
+	 * @param world world to collect metrics for.
+	 */
+	public void attach(World world) {
+		em = world.getEntityManager();
+		cm = world.getComponentManager();
+
+		// woven profilers register during system initialization
+		Bag<SystemMetrics> registered = new Bag<SystemMetrics>(SystemMetrics.class);
+		registered.addAll(systems);
+		systems.clear();
+
+		ImmutableBag<BaseSystem> worldSystems = world.getSystems();
+		for (int i = 0, s = worldSystems.size(); s > i; i++) {
+			BaseSystem system = worldSystems.get(i);
+			SystemMetrics metrics = find(registered, system);
+			systems.add(metrics != null ? metrics : new SystemMetrics(system));
+		}
+
+		resetCounters();
+	}
+
+	/**
+	 * @param system system to profile.
+	 * @return profiler recording into this registry, or {@code null} if
+	 *         the system is already profiled via weaving.
+	 */
+	public ArtemisProfiler profilerFor(BaseSystem system) {
+		SystemMetrics metrics = system(system);
+		return metrics.woven ? null : new MetricsProfiler(metrics);
+	}
+
+	/** Marks the start of a tick. Invoked by {@link World#process()}. */
+	public void beginTick() {
+		tickStart = System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of a tick, sampling per tick counters. Invoked by
+	 * {@link World#process()} once deleted entities are purged.
+	 */
+	public void endTick() {
+		tickTime.record(System.nanoTime() - tickStart);
+		ticks++;
+
+		created.sample(em.getCreatedCount());
+		deleted.sample(em.getDeletedCount());
+		compositions.sample(cm.getCompositionCount());
+	}
+
+	/**
+	 * @param nanos duration of a single subscription synchronization.
+	 */
+	public void recordSync(long nanos) {
+		syncTime.record(nanos);
+	}
+
+	/** @return number of completed ticks. */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/** @return copy of all metrics collected so far. */
+	public MetricsSnapshot snapshot() {
+		List<MetricsSnapshot.SystemStats> systemStats = new ArrayList<MetricsSnapshot.SystemStats>();
+		for (int i = 0, s = systems.size(); s > i; i++)
+			systemStats.add(systems.get(i).snapshot());
+
+		return new MetricsSnapshot(ticks,
+			new MetricsSnapshot.TimeStats(tickTime),
+			new MetricsSnapshot.TimeStats(syncTime),
+			created.snapshot(),
+			deleted.snapshot(),
+			compositions.snapshot(),
+			systemStats);
+	}
+
+	/** Discards all metrics collected so far. */
+	public void reset() {
+		for (int i = 0, s = systems.size(); s > i; i++)
+			systems.get(i).reset();
+
+		tickTime.reset();
+		syncTime.reset();
+		ticks = 0;
+		resetCounters();
+	}
+
+	SystemMetrics system(BaseSystem system) {
+		SystemMetrics metrics = find(systems, system);
+		if (metrics == null) {
+			metrics = new SystemMetrics(system);
+			systems.add(metrics);
+		}
+
+		return metrics;
+	}
+
+	private void resetCounters() {
+		if (em == null)
+			return;
+
+		created.reset(em.getCreatedCount());
+		deleted.reset(em.getDeletedCount());
+		compositions.reset(cm.getCompositionCount());
+	}
+
+	private static SystemMetrics find(Bag<SystemMetrics> systems, BaseSystem system) {
+		for (int i = 0, s = systems.size(); s > i; i++) {
+			if (systems.get(i).system == system)
+				return systems.get(i);
+		}
+
+		return null;
+	}
+
+	/** Per tick deltas of an ever-increasing total. */
+	private static final class Counter {
+		private long baseline;
+		private long total;
+		private long last;
+		private long max;
+
+		void sample(long current) {
+			last = current - baseline;
+			baseline = current;
+			total += last;
+			max = Math.max(max, last);
+		}
+
+		void reset(long current) {
+			baseline = current;
+			total = 0;
+			last = 0;
+			max = 0;
+		}
+
+		MetricsSnapshot.CounterStats snapshot() {
+			return new MetricsSnapshot.CounterStats(total, last, max);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.artemis.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Exposes {@link WorldMetrics} through the platform MBean server.
+ */
+public final class WorldMetricsJmx implements WorldMetricsMXBean {
+	private final WorldMetrics metrics;
+
+	private WorldMetricsJmx(WorldMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Registers metrics with the platform MBean server.
+	 *
+	 * @param metrics metrics to expose.
+	 * @param name name of world, as in {@code com.artemis:type=WorldMetrics,name=<name>}.
+	 * @return object name of the registered MBean.
+	 * @throws IllegalStateException if registration fails, e.g. due to the name already being taken.
+	 */
+	public static ObjectName register(WorldMetrics metrics, String name) {
+		try {
+			ObjectName objectName = objectName(name);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(new WorldMetricsJmx(metrics), objectName);
+			return objectName;
+		} catch (JMException e) {
+			throw new IllegalStateException("Unable to register metrics of " + name, e);
+		}
+	}
+
+	/**
+	 * @param objectName as returned by {@link #register(WorldMetrics, String)}.
+	 */
+	public static void unregister(ObjectName objectName) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (JMException e) {
+			throw new IllegalStateException("Unable to unregister " + objectName, e);
+		}
+	}
+
+	static ObjectName objectName(String name) throws JMException {
+		return new ObjectName("com.artemis:type=WorldMetrics,name=" + ObjectName.quote(name));
+	}
+
+	@Override
+	public long getTicks() {
+		return metrics.getTicks();
+	}
+
+	@Override
+	public MetricsSnapshot getSnapshot() {
+		return metrics.snapshot();
+	}
+
+	@Override
+	public void reset() {
+		metrics.reset();
+	}
+}
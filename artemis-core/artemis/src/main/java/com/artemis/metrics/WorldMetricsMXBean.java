@@ -0,0 +1,16 @@
+package com.artemis.metrics;
+
+/**
+ * JMX view of {@link WorldMetrics}, registered via
+ * {@link WorldMetricsJmx#register(WorldMetrics, String)}.
+ */
+public interface WorldMetricsMXBean {
+	/** @return number of completed ticks. */
+	long getTicks();
+
+	/** @return copy of all metrics, exposed as composite data. */
+	MetricsSnapshot getSnapshot();
+
+	/** Discards all metrics collected so far. */
+	void reset();
+}
@@ -0,0 +1,10 @@
+/**
+ * Per-system and per-tick metrics.
+ * <p>
+ * Collected by {@link com.artemis.MetricsInvocationStrategy} into a
+ * {@link com.artemis.metrics.WorldMetrics} registry, optionally timing
+ * systems via {@link com.artemis.annotations.Profile} weaving with
+ * {@link com.artemis.metrics.MetricsProfiler}.
+ * </p>
+ */
+package com.artemis.metrics;
@@ -0,0 +1,126 @@
+package com.artemis.systems;
+
+import com.artemis.*;
+import com.artemis.utils.Bag;
+import com.artemis.utils.BitVector;
+import com.artemis.utils.IntBag;
+
+/**
+ * Iterates over {@link EntitySubscription} member entities whose watched
+ * components changed since this system last processed, in ascending
+ * entity id order.
+ * <p>
+ * A component counts as changed when it is created or replaced, or
+ * when flagged via {@link ComponentMapper#markChanged(int)} - or by
+ * retrieving it through {@link ComponentMapper#modify(int)}. Plain
+ * {@link ComponentMapper#get(int)} does not flag components; neither do
+ * writes via column or off-heap accessors.
+ * <p>
+ * Changes accumulate while the system is disabled or waiting for its
+ * interval. Changes flagged during {@link #process(int)}, including those
+ * made by this system, are reported on the next run.
+ * <p>
+ * Watches the component types given to the constructor, or else all
+ * component types required by the aspect.
+ *
+ * @see IteratingSystem for iterating all entities.
+ */
+public abstract class ChangedIteratingSystem extends BaseEntitySystem {
+	private final Bag<Class<? extends Component>> watchedTypes = new Bag<Class<? extends Component>>();
+
+	/** One bitset per watched component type, flagged by its mapper. */
+	private BitVector[] changes;
+	private ComponentMapper<?>[] mappers;
+
+	private final BitVector changed = new BitVector();
+	private final IntBag changedIds = new IntBag();
+
+	/**
+	 * Creates a new ChangedIteratingSystem.
+	 *
+	 * @param aspect
+	 *			the aspect to match entities
+	 * @param watched
+	 *			component types to watch; defaults to all types required by aspect
+	 */
+	@SafeVarargs
+	public ChangedIteratingSystem(Aspect.Builder aspect, Class<? extends Component>... watched) {
+		super(aspect);
+		for (Class<? extends Component> type : watched)
+			watchedTypes.add(type);
+	}
+
+	public ChangedIteratingSystem() {
+		this(null);
+	}
+
+	/**
+	 * Process a entity with changed components.
+	 *
+	 * @param entityId
+	 *			the entity to process
+	 */
+	protected abstract void process(int entityId);
+
+	@Override
+	protected void setWorld(World world) {
+		super.setWorld(world);
+
+		mappers = resolveMappers(world);
+		if (mappers.length == 0) {
+			throw new IllegalArgumentException(getClass().getSimpleName()
+				+ " watches no component types; aspect requires none");
+		}
+
+		EntityManager em = world.getEntityManager();
+		changes = new BitVector[mappers.length];
+		for (int i = 0; mappers.length > i; i++) {
+			changes[i] = new BitVector();
+			em.registerEntityStore(changes[i]);
+			mappers[i].trackChanges(changes[i]);
+		}
+	}
+
+	/** @inheritDoc */
+	@Override
+	protected final void processSystem() {
+		for (BitVector c : changes) {
+			changed.or(c);
+			c.clear();
+		}
+
+		// changed entities may since have left the subscription
+		changed.and(subscription.getActiveEntityIds());
+		changed.toIntBag(changedIds);
+		changed.clear();
+
+		int[] ids = changedIds.getData();
+		for (int i = 0, s = changedIds.size(); s > i; i++) {
+			process(ids[i]);
+		}
+	}
+
+	@Override
+	protected void dispose() {
+		for (int i = 0; mappers.length > i; i++)
+			mappers[i].untrackChanges(changes[i]);
+	}
+
+	private ComponentMapper<?>[] resolveMappers(World world) {
+		if (!watchedTypes.isEmpty()) {
+			ComponentMapper<?>[] resolved = new ComponentMapper<?>[watchedTypes.size()];
+			for (int i = 0; resolved.length > i; i++)
+				resolved[i] = world.getMapper(watchedTypes.get(i));
+
+			return resolved;
+		}
+
+		BitVector required = subscription.getAspect().getAllSet();
+		ComponentTypeFactory tf = world.getComponentManager().getTypeFactory();
+		ComponentMapper<?>[] resolved = new ComponentMapper<?>[required.cardinality()];
+		for (int i = 0, index = required.nextSetBit(0); index >= 0; index = required.nextSetBit(index + 1))
+			resolved[i++] = world.getMapper(tf.getTypeFor(index).getType());
+
+		return resolved;
+	}
+}
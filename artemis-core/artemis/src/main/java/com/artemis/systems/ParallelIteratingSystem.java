@@ -0,0 +1,240 @@
+package com.artemis.systems;
+
+import com.artemis.*;
+import com.artemis.utils.Bag;
+import com.artemis.utils.BitVector;
+import com.artemis.utils.IntBag;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Iterates over {@link EntitySubscription} member entities by entity
+ * identity, splitting the entities into chunks processed concurrently
+ * on a work-stealing {@link ForkJoinPool}.
+ * <p>
+ * Each chunk covers a contiguous range of the subscription's entities.
+ * Unless the subscription's {@link EntitySubscription.Maintenance} is
+ * {@code UNORDERED} or {@code INSERTION_ORDER}, entities are sorted by
+ * id - keeping each worker's component accesses close together.
+ * <p>
+ * Composition changes must not be performed directly from within
+ * {@link #process(int)}: {@link World#edit(int)}, {@link World#delete(int)},
+ * {@link ComponentMapper#create(int)} and {@link ComponentMapper#remove(int)}
+ * are not thread-safe. Use {@link #create(int, Class)}, {@link #add(int, Component)},
+ * {@link #remove(int, Class)}, {@link #transmute(int, EntityTransmuter)} and
+ * {@link #delete(int)} instead; these are recorded into an
+ * {@link EntityCommandBuffer} per chunk, played back in chunk order once
+ * all chunks have been processed, making the outcome independent of scheduling.
+ * <p>
+ * {@link com.artemis.annotations.Columnar} and {@link com.artemis.annotations.OffHeap}
+ * components are read through a single flyweight per mapper, which can't be
+ * shared across threads. Systems with such types in their aspect are rejected;
+ * don't access other flyweight types from {@link #process(int)} either.
+ *
+ * @see IteratingSystem for the single-threaded counterpart.
+ */
+public abstract class ParallelIteratingSystem extends BaseEntitySystem {
+	/** Default number of entities processed per chunk. */
+	public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+	private static ForkJoinPool sharedPool;
+
+	private final ForkJoinPool pool;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	private final Bag<EntityCommandBuffer> commands = new Bag<EntityCommandBuffer>(EntityCommandBuffer.class);
+	private final ThreadLocal<EntityCommandBuffer> active = new ThreadLocal<EntityCommandBuffer>();
+
+	/**
+	 * Creates a new ParallelIteratingSystem, processing on a pool
+	 * shared by all parallel iterating systems.
+	 *
+	 * @param aspect
+	 *			the aspect to match entities
+	 */
+	public ParallelIteratingSystem(Aspect.Builder aspect) {
+		this(aspect, sharedPool());
+	}
+
+	/**
+	 * @param aspect
+	 *			the aspect to match entities
+	 * @param pool
+	 *			pool processing the chunks
+	 */
+	public ParallelIteratingSystem(Aspect.Builder aspect, ForkJoinPool pool) {
+		super(aspect);
+		this.pool = pool;
+	}
+
+	public ParallelIteratingSystem() {
+		this(null, sharedPool());
+	}
+
+	@Override
+	protected void setWorld(World world) {
+		super.setWorld(world);
+
+		Aspect aspect = subscription.getAspect();
+		rejectFlyweights(aspect.getAllSet());
+		rejectFlyweights(aspect.getOneSet());
+	}
+
+	private void rejectFlyweights(BitVector types) {
+		ComponentTypeFactory tf = world.getComponentManager().getTypeFactory();
+		for (int i = types.nextSetBit(0); i >= 0; i = types.nextSetBit(i + 1)) {
+			Class<? extends Component> type = tf.getTypeFor(i).getType();
+			if (world.getMapper(type) instanceof FlyweightComponentMapper)
+				throw new InvalidComponentException(type, "Flyweight components can't be processed concurrently.");
+		}
+	}
+
+	/**
+	 * Process an entity this system is interested in. Invoked
+	 * concurrently from multiple threads.
+	 *
+	 * @param entityId
+	 *			the entity to process
+	 */
+	protected abstract void process(int entityId);
+
+	/**
+	 * @param chunkSize maximum number of entities processed by a single task.
+	 */
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+
+		this.chunkSize = chunkSize;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/** @inheritDoc */
+	@Override
+	protected final void processSystem() {
+		IntBag actives = subscription.getEntities();
+		int size = actives.size();
+		if (size == 0)
+			return;
+
+		int chunks = (size + chunkSize - 1) / chunkSize;
+		ensureCommands(chunks);
+
+		if (chunks == 1) {
+			new ChunkTask(actives.getData(), size, 0, 1).compute();
+		} else {
+			pool.invoke(new ChunkTask(actives.getData(), size, 0, chunks));
+		}
+
+		for (int i = 0; chunks > i; i++)
+			commands.get(i).playback(world);
+	}
+
+	/**
+	 * Deferred {@link ComponentMapper#create(int)}, applied after all chunks
+	 * have been processed.
+	 */
+	protected final void create(int entityId, Class<? extends Component> type) {
+		commands().create(entityId, type);
+	}
+
+	/**
+	 * Deferred {@link EntityEdit#add(Component)}, applied after all chunks
+	 * have been processed. Does not support pooled components.
+	 */
+	protected final void add(int entityId, Component component) {
+		commands().add(entityId, component);
+	}
+
+	/**
+	 * Deferred {@link ComponentMapper#remove(int)}, applied after all chunks
+	 * have been processed.
+	 */
+	protected final void remove(int entityId, Class<? extends Component> type) {
+		commands().remove(entityId, type);
+	}
+
+	/**
+	 * Deferred {@link EntityTransmuter#transmute(int)}, applied after all chunks
+	 * have been processed.
+	 */
+	protected final void transmute(int entityId, EntityTransmuter transmuter) {
+		commands().transmute(entityId, transmuter);
+	}
+
+	/**
+	 * Deferred {@link World#delete(int)}, applied after all chunks
+	 * have been processed.
+	 */
+	protected final void delete(int entityId) {
+		commands().delete(entityId);
+	}
+
+	/**
+	 * Command buffer of the chunk currently processed by the calling thread,
+	 * also allowing creation of new entities.
+	 *
+	 * @return buffer played back once all chunks have been processed.
+	 */
+	protected final EntityCommandBuffer commands() {
+		EntityCommandBuffer current = active.get();
+		if (current != null)
+			return current;
+
+		throw new IllegalStateException("Deferred commands are only available from within process(int)");
+	}
+
+	private void ensureCommands(int chunks) {
+		for (int i = commands.size(); chunks > i; i++)
+			commands.add(new EntityCommandBuffer());
+	}
+
+	private static synchronized ForkJoinPool sharedPool() {
+		if (sharedPool == null)
+			sharedPool = new ForkJoinPool();
+
+		return sharedPool;
+	}
+
+	/** Splits chunks in halves until a single chunk remains. */
+	private final class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] ids;
+		private final int size;
+		private final int fromChunk;
+		private final int toChunk;
+
+		ChunkTask(int[] ids, int size, int fromChunk, int toChunk) {
+			this.ids = ids;
+			this.size = size;
+			this.fromChunk = fromChunk;
+			this.toChunk = toChunk;
+		}
+
+		@Override
+		protected void compute() {
+			if (toChunk - fromChunk > 1) {
+				int mid = (fromChunk + toChunk) >>> 1;
+				invokeAll(new ChunkTask(ids, size, fromChunk, mid),
+				          new ChunkTask(ids, size, mid, toChunk));
+			} else {
+				processChunk(fromChunk);
+			}
+		}
+
+		private void processChunk(int chunk) {
+			active.set(commands.get(chunk));
+			try {
+				for (int i = chunk * chunkSize, s = Math.min(size, i + chunkSize); s > i; i++)
+					process(ids[i]);
+			} finally {
+				active.remove();
+			}
+		}
+	}
+}
@@ -0,0 +1,289 @@
+package com.artemis.systems;
+
+import com.artemis.*;
+import com.artemis.utils.IntBag;
+
+import java.util.Arrays;
+
+/**
+ * Processes entities once their individually scheduled deadline passes.
+ * <p>
+ * Like {@link DelayedIteratingSystem}, but deadlines are kept in an
+ * indexed min-heap keyed by entity id: each run only visits the entities
+ * which expired, rather than counting down the delay of every subscribed
+ * entity. Scheduling, rescheduling and cancelling are {@code O(log n)}.
+ * Suited for large numbers of long-lived timers, such as buffs and
+ * cooldowns, of which only a few expire at any given time.
+ * <p>
+ * Newly matched entities are scheduled according to
+ * {@link #getRemainingDelay(int)}; entities leaving the subscription are
+ * cancelled. Timers are not rescheduled after expiring: call
+ * {@link #schedule(int, float)} from within {@link #processExpired(int)}
+ * to renew them. Expired entities are processed in deadline order, each at
+ * most once per run - even if rescheduled with a delay of zero.
+ * <p>
+ * Subclasses overriding {@link #inserted(int)} or {@link #removed(int)}
+ * must invoke the super method.
+ *
+ * @see DelayedIteratingSystem
+ */
+public abstract class ScheduledIteratingSystem extends BaseEntitySystem {
+	/** Elapsed time, accumulated from {@link #getTimeDelta()}. */
+	private double now;
+
+	/** Binary min-heap of entity ids, ordered by {@link #deadlines}. */
+	private int[] heap = new int[64];
+	/** Deadline of each heap entry, by heap position. */
+	private double[] deadlines = new double[64];
+	private int size;
+
+	/** Heap position plus one, indexed by entity id; {@code 0} if unscheduled. */
+	private int[] positions = new int[64];
+
+	private final IntBag expired = new IntBag();
+
+	/**
+	 * Creates a new ScheduledIteratingSystem.
+	 *
+	 * @param aspect
+	 *			the aspect to match against entities
+	 */
+	public ScheduledIteratingSystem(Aspect.Builder aspect) {
+		super(aspect);
+	}
+
+	public ScheduledIteratingSystem() {
+	}
+
+	@Override
+	protected void setWorld(World world) {
+		super.setWorld(world);
+
+		world.getEntityManager().register(new EntityManager.RemapListener() {
+			@Override
+			public void remapped(IntBag from, IntBag to) {
+				ScheduledIteratingSystem.this.remapped(from, to);
+			}
+		});
+	}
+
+	/**
+	 * Return the initial delay of a newly matched entity. Entities with
+	 * zero or negative delay expire upon the next run.
+	 *
+	 * @param entityId
+	 *			entity
+	 *
+	 * @return delay
+	 */
+	protected abstract float getRemainingDelay(int entityId);
+
+	/**
+	 * Process an entity whose deadline has passed. The entity is no longer
+	 * scheduled; schedule it again to renew its timer.
+	 *
+	 * @param entityId
+	 *			the expired entity
+	 */
+	protected abstract void processExpired(int entityId);
+
+	/**
+	 * Overridable method to provide custom time delta.
+	 */
+	protected float getTimeDelta() {
+		return world.getDelta();
+	}
+
+	@Override
+	protected final boolean checkProcessing() {
+		now += getTimeDelta();
+		return size > 0 && deadlines[0] <= now;
+	}
+
+	@Override
+	protected final void processSystem() {
+		// collect first, so that renewed timers wait for the next run
+		expired.setSize(0);
+		while (size > 0 && deadlines[0] <= now)
+			expired.add(poll());
+
+		int[] ids = expired.getData();
+		for (int i = 0, s = expired.size(); s > i; i++)
+			processExpired(ids[i]);
+	}
+
+	@Override
+	protected void inserted(int entityId) {
+		schedule(entityId, getRemainingDelay(entityId));
+	}
+
+	@Override
+	protected void removed(int entityId) {
+		cancel(entityId);
+	}
+
+	/**
+	 * Schedules entity to expire after {@code delay}, replacing any
+	 * previous deadline.
+	 *
+	 * @param entityId
+	 *			entity to schedule
+	 * @param delay
+	 *			time until entity expires, relative to now
+	 */
+	public void schedule(int entityId, float delay) {
+		double deadline = now + delay;
+		int position = position(entityId);
+		if (position == -1) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size * 2);
+				deadlines = Arrays.copyOf(deadlines, size * 2);
+			}
+
+			place(entityId, deadline, size++);
+			siftUp(size - 1);
+		} else if (deadline < deadlines[position]) {
+			deadlines[position] = deadline;
+			siftUp(position);
+		} else {
+			deadlines[position] = deadline;
+			siftDown(position);
+		}
+	}
+
+	/**
+	 * Cancels the timer of entity. Does nothing if entity isn't scheduled.
+	 *
+	 * @param entityId
+	 *			entity to unschedule
+	 */
+	public void cancel(int entityId) {
+		int position = position(entityId);
+		if (position == -1)
+			return;
+
+		positions[entityId] = 0;
+		int last = --size;
+		if (position == last)
+			return;
+
+		place(heap[last], deadlines[last], position);
+		if (position > 0 && deadlines[position] < deadlines[parent(position)])
+			siftUp(position);
+		else
+			siftDown(position);
+	}
+
+	/**
+	 * @param entityId
+	 *			entity to check
+	 * @return {@code true} if entity has a pending deadline.
+	 */
+	public boolean isScheduled(int entityId) {
+		return position(entityId) != -1;
+	}
+
+	/**
+	 * @param entityId
+	 *			scheduled entity
+	 * @return time until entity expires, or zero (0) if it isn't scheduled.
+	 */
+	public float getTimeUntilExpiry(int entityId) {
+		int position = position(entityId);
+		return (position != -1) ? (float) (deadlines[position] - now) : 0;
+	}
+
+	/**
+	 * @return time until the earliest deadline, or zero (0) if no entity
+	 *         is scheduled.
+	 */
+	public float getRemainingTimeUntilProcessing() {
+		return (size > 0) ? (float) (deadlines[0] - now) : 0;
+	}
+
+	/**
+	 * @return number of scheduled entities.
+	 */
+	public int getScheduledCount() {
+		return size;
+	}
+
+	private int poll() {
+		int entityId = heap[0];
+		positions[entityId] = 0;
+
+		int last = --size;
+		if (last > 0) {
+			place(heap[last], deadlines[last], 0);
+			siftDown(0);
+		}
+
+		return entityId;
+	}
+
+	private void siftUp(int position) {
+		int entityId = heap[position];
+		double deadline = deadlines[position];
+		while (position > 0) {
+			int parent = parent(position);
+			if (deadlines[parent] <= deadline)
+				break;
+
+			place(heap[parent], deadlines[parent], position);
+			position = parent;
+		}
+
+		place(entityId, deadline, position);
+	}
+
+	private void siftDown(int position) {
+		int entityId = heap[position];
+		double deadline = deadlines[position];
+		int half = size >>> 1;
+		while (half > position) {
+			int child = 2 * position + 1;
+			int right = child + 1;
+			if (size > right && deadlines[child] > deadlines[right])
+				child = right;
+
+			if (deadline <= deadlines[child])
+				break;
+
+			place(heap[child], deadlines[child], position);
+			position = child;
+		}
+
+		place(entityId, deadline, position);
+	}
+
+	private void place(int entityId, double deadline, int position) {
+		heap[position] = entityId;
+		deadlines[position] = deadline;
+		if (entityId >= positions.length)
+			positions = Arrays.copyOf(positions, Math.max(positions.length * 2, entityId + 1));
+
+		positions[entityId] = position + 1;
+	}
+
+	/** @return heap position of entity, or {@code -1} if unscheduled. */
+	private int position(int entityId) {
+		return (positions.length > entityId) ? positions[entityId] - 1 : -1;
+	}
+
+	private static int parent(int position) {
+		return (position - 1) >>> 1;
+	}
+
+	/** Follows entities moved by {@link World#compact()}. */
+	private void remapped(IntBag from, IntBag to) {
+		int[] src = from.getData();
+		int[] dst = to.getData();
+		for (int i = 0, s = from.size(); s > i; i++) {
+			int position = position(src[i]);
+			if (position != -1) {
+				positions[src[i]] = 0;
+				place(dst[i], deadlines[position], position);
+			}
+		}
+	}
+}
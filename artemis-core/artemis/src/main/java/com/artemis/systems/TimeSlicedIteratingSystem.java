@@ -0,0 +1,146 @@
+package com.artemis.systems;
+
+import com.artemis.*;
+import com.artemis.utils.BitVector;
+
+/**
+ * Iterates over {@link EntitySubscription} member entities, spreading each
+ * pass over the subscription across several ticks.
+ * <p>
+ * Every tick processes a slice of about {@code 1/slices} of the
+ * subscribed entities, so each entity is processed once every
+ * {@code slices} ticks - avoiding the periodic spikes of an
+ * {@link IntervalIteratingSystem} processing all entities at once.
+ * Optionally, a {@link #setBudgetNanos(long) time budget} ends the slice
+ * early; the pass then continues on the next tick.
+ * <p>
+ * Entities are visited in ascending id order, resuming from the last
+ * processed id: entities joining the subscription ahead of the cursor are
+ * processed during the current pass, others at the next. Entities leaving
+ * the subscription are no longer visited. A {@link World#compact()}
+ * mid-pass may cause some entities to be skipped or visited twice during
+ * that pass.
+ *
+ * @see IntervalIteratingSystem
+ */
+public abstract class TimeSlicedIteratingSystem extends BaseEntitySystem {
+	/** Number of entities processed between reading the clock. */
+	private static final int CLOCK_CHECK_INTERVAL = 16;
+
+	private final int slices;
+	private long budgetNanos;
+
+	/** Entity id to resume from. */
+	private int cursor;
+
+	private int processedCount;
+	private int completedPasses;
+
+	/**
+	 * Creates a new TimeSlicedIteratingSystem.
+	 *
+	 * @param aspect
+	 *			the aspect to match entities
+	 * @param slices
+	 *			number of ticks to spread each pass over
+	 */
+	public TimeSlicedIteratingSystem(Aspect.Builder aspect, int slices) {
+		super(aspect);
+		if (slices < 1)
+			throw new IllegalArgumentException("slices must be at least 1: " + slices);
+
+		this.slices = slices;
+	}
+
+	/**
+	 * @param slices
+	 *			number of ticks to spread each pass over
+	 */
+	public TimeSlicedIteratingSystem(int slices) {
+		this(null, slices);
+	}
+
+	/**
+	 * Process a entity this system is interested in.
+	 *
+	 * @param entityId
+	 *			the entity to process
+	 */
+	protected abstract void process(int entityId);
+
+	/**
+	 * Limits the time spent processing entities per tick. The clock is
+	 * checked every few entities, so the budget may be slightly exceeded.
+	 *
+	 * @param budgetNanos
+	 *			nanoseconds per tick, or {@code 0} for no limit
+	 */
+	public void setBudgetNanos(long budgetNanos) {
+		this.budgetNanos = budgetNanos;
+	}
+
+	/**
+	 * @return nanoseconds per tick, or {@code 0} if unlimited.
+	 */
+	public long getBudgetNanos() {
+		return budgetNanos;
+	}
+
+	/**
+	 * @return number of ticks each pass is spread over.
+	 */
+	public int getSlices() {
+		return slices;
+	}
+
+	/**
+	 * @return number of entities processed during the last tick.
+	 */
+	public int getProcessedCount() {
+		return processedCount;
+	}
+
+	/**
+	 * @return number of passes completed over all subscribed entities.
+	 */
+	public int getCompletedPasses() {
+		return completedPasses;
+	}
+
+	/** @inheritDoc */
+	@Override
+	protected final void processSystem() {
+		int entityCount = subscription.getEntityCount();
+		if (entityCount == 0) {
+			processedCount = 0;
+			return;
+		}
+
+		int quota = (entityCount + slices - 1) / slices;
+		long deadline = (budgetNanos > 0) ? System.nanoTime() + budgetNanos : 0;
+
+		BitVector active = subscription.getActiveEntityIds();
+		int processed = 0;
+		int id = active.nextSetBit(cursor);
+		while (id != -1 && quota > processed) {
+			process(id);
+			processed++;
+			id = active.nextSetBit(id + 1);
+
+			if (deadline != 0
+				&& (processed % CLOCK_CHECK_INTERVAL) == 0
+				&& System.nanoTime() - deadline >= 0) {
+				break;
+			}
+		}
+
+		if (id == -1) {
+			cursor = 0;
+			completedPasses++;
+		} else {
+			cursor = id;
+		}
+
+		processedCount = processed;
+	}
+}
@@ -82,6 +82,31 @@ public class BitVector {
 		}
 	}
 
+	/** Sets all bits from <code>fromIndex</code> (inclusive) to <code>toIndex</code> (exclusive),
+	 * a word at a time.
+	 * @param fromIndex index of the first bit to set
+	 * @param toIndex index after the last bit to set
+	 * @throws ArrayIndexOutOfBoundsException if fromIndex < 0 */
+	public void set(int fromIndex, int toIndex) {
+		if (fromIndex >= toIndex) return;
+
+		int first = fromIndex >>> 6;
+		int last = (toIndex - 1) >>> 6;
+		checkCapacity(last);
+
+		long firstMask = -1L << fromIndex;
+		long lastMask = -1L >>> -toIndex;
+		if (first == last) {
+			words[first] |= firstMask & lastMask;
+			return;
+		}
+
+		words[first] |= firstMask;
+		for (int i = first + 1; last > i; i++)
+			words[i] = -1L;
+		words[last] |= lastMask;
+	}
+
 	/** @param index the index of the bit
 	 * @return whether the bit is set
 	 * @throws ArrayIndexOutOfBoundsException if index < 0 or index >= words.length</></>*/
@@ -131,6 +156,22 @@ public class BitVector {
 		}
 	}
 
+	/**
+	 * Shrinks the backing array (<code>long[]</code>) to hold the requested bits,
+	 * discarding any bits beyond it. Does nothing if the backing array is already
+	 * within the requested size.
+	 *
+	 * @param bits number of bits to accommodate
+	 */
+	public void shrink(int bits) {
+		int len = (bits >>> 6) + 1;
+		if (len >= words.length)
+			return;
+
+		words = Arrays.copyOf(words, len);
+		words[len - 1] &= (1L << bits) - 1;
+	}
+
 	/** @param index the index of the bit to clear
 	 * @throws ArrayIndexOutOfBoundsException if index < 0 */
 	public void clear(int index) {
@@ -0,0 +1,369 @@
+package com.artemis.utils;
+
+import java.util.Arrays;
+
+/**
+ * <p>Compressed bitset for sparse or clustered indices, modeled after
+ * roaring bitmaps. Memory is proportional to the number of set bits,
+ * rather than to the highest index.</p>
+ *
+ * <p>Indices are partitioned into chunks of 65536, keyed on their upper
+ * 16 bits. Each non-empty chunk is stored either as a sorted array of the
+ * lower 16 bits - up to {@link #ARRAY_MAX} values - or as a 65536 bit
+ * bitmap. Bitmaps are only converted back into arrays once they drop to
+ * half of {@link #ARRAY_MAX}, so that chunks hovering around the limit
+ * don't convert on every change. Empty chunks take no space.</p>
+ *
+ * <p>Negative indices are not supported.</p>
+ *
+ * @see BitVector
+ */
+public class CompressedBitVector {
+	/** Maximum number of values held by an array chunk. */
+	public static final int ARRAY_MAX = 4096;
+
+	private static final int BITMAP_WORDS = 1 << 10;
+
+	/** Upper 16 bits of each chunk, in ascending order. */
+	private int[] keys = new int[4];
+	/** Per chunk, either {@code char[]} of sorted values or {@code long[]} bitmap. */
+	private Object[] chunks = new Object[4];
+	/** Number of set bits per chunk. */
+	private int[] cardinalities = new int[4];
+	/** Number of chunks. */
+	private int size;
+
+	public CompressedBitVector() {}
+
+	/** @return whether the bit is set. */
+	public boolean get(int index) {
+		int chunk = chunkIndex(index >>> 16);
+		if (chunk < 0)
+			return false;
+
+		Object values = chunks[chunk];
+		char low = (char) index;
+		if (values instanceof long[])
+			return (((long[]) values)[low >>> 6] & (1L << low)) != 0L;
+		else
+			return Arrays.binarySearch((char[]) values, 0, cardinalities[chunk], low) >= 0;
+	}
+
+	/** @param index the index of the bit to set. */
+	public void set(int index) {
+		int key = index >>> 16;
+		int chunk = chunkIndex(key);
+		if (chunk < 0) {
+			chunk = -chunk - 1;
+			insertChunk(chunk, key);
+		}
+
+		Object values = chunks[chunk];
+		char low = (char) index;
+		if (values instanceof long[]) {
+			long[] bitmap = (long[]) values;
+			long bit = 1L << low;
+			if ((bitmap[low >>> 6] & bit) == 0L) {
+				bitmap[low >>> 6] |= bit;
+				cardinalities[chunk]++;
+			}
+			return;
+		}
+
+		char[] array = (char[]) values;
+		int cardinality = cardinalities[chunk];
+		int position = Arrays.binarySearch(array, 0, cardinality, low);
+		if (position >= 0)
+			return;
+
+		if (cardinality == ARRAY_MAX) {
+			long[] bitmap = toBitmap(array, cardinality);
+			bitmap[low >>> 6] |= 1L << low;
+			chunks[chunk] = bitmap;
+			cardinalities[chunk]++;
+			return;
+		}
+
+		if (cardinality == array.length) {
+			array = Arrays.copyOf(array, Math.min(ARRAY_MAX, 2 * cardinality));
+			chunks[chunk] = array;
+		}
+
+		position = -position - 1;
+		System.arraycopy(array, position, array, position + 1, cardinality - position);
+		array[position] = low;
+		cardinalities[chunk]++;
+	}
+
+	/** @param index the index of the bit to clear. */
+	public void clear(int index) {
+		int chunk = chunkIndex(index >>> 16);
+		if (chunk < 0)
+			return;
+
+		Object values = chunks[chunk];
+		char low = (char) index;
+		if (values instanceof long[]) {
+			long[] bitmap = (long[]) values;
+			long bit = 1L << low;
+			if ((bitmap[low >>> 6] & bit) == 0L)
+				return;
+
+			bitmap[low >>> 6] &= ~bit;
+			int cardinality = --cardinalities[chunk];
+			if (cardinality == 0)
+				removeChunk(chunk);
+			else if (cardinality <= ARRAY_MAX / 2)
+				chunks[chunk] = toArray(bitmap, cardinality);
+			return;
+		}
+
+		char[] array = (char[]) values;
+		int cardinality = cardinalities[chunk];
+		int position = Arrays.binarySearch(array, 0, cardinality, low);
+		if (position < 0)
+			return;
+
+		System.arraycopy(array, position + 1, array, position, cardinality - position - 1);
+		if (--cardinalities[chunk] == 0)
+			removeChunk(chunk);
+	}
+
+	/** Clears all bits, releasing all chunks. */
+	public void clear() {
+		Arrays.fill(chunks, 0, size, null);
+		size = 0;
+	}
+
+	/** @return true if no bits are set. */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** @return number of set bits. */
+	public int cardinality() {
+		int count = 0;
+		for (int i = 0; size > i; i++)
+			count += cardinalities[i];
+
+		return count;
+	}
+
+	/** @return index of the highest set bit plus one, or 0 if no bits are set. */
+	public int length() {
+		if (size == 0)
+			return 0;
+
+		int chunk = size - 1;
+		Object values = chunks[chunk];
+		int highest;
+		if (values instanceof long[]) {
+			long[] bitmap = (long[]) values;
+			int word = BITMAP_WORDS - 1;
+			while (bitmap[word] == 0L)
+				word--;
+
+			highest = (word << 6) + 63 - Long.numberOfLeadingZeros(bitmap[word]);
+		} else {
+			highest = ((char[]) values)[cardinalities[chunk] - 1];
+		}
+
+		return (keys[chunk] << 16 | highest) + 1;
+	}
+
+	/**
+	 * @param fromIndex index to start searching from, inclusive.
+	 * @return index of the next set bit, or -1 if there is none.
+	 */
+	public int nextSetBit(int fromIndex) {
+		int chunk = chunkIndex(fromIndex >>> 16);
+		int low = fromIndex & 0xffff;
+		if (chunk < 0) {
+			chunk = -chunk - 1;
+			low = 0;
+		}
+
+		for (; size > chunk; chunk++, low = 0) {
+			int next = nextSetBit(chunk, low);
+			if (next != -1)
+				return keys[chunk] << 16 | next;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Decodes the set bits as integers, in ascending order. The destination
+	 * {@link IntBag} is reset before the bits are transposed.
+	 *
+	 * @param out decoded ints end up here
+	 * @return Same as out
+	 */
+	public IntBag toIntBag(IntBag out) {
+		out.setSize(0);
+		if (size == 0)
+			return out;
+
+		out.ensureCapacity(cardinality());
+		int[] data = out.getData();
+		int index = 0;
+		for (int chunk = 0; size > chunk; chunk++) {
+			int base = keys[chunk] << 16;
+			Object values = chunks[chunk];
+			if (values instanceof long[]) {
+				long[] bitmap = (long[]) values;
+				for (int word = 0; BITMAP_WORDS > word; word++) {
+					long bits = bitmap[word];
+					while (bits != 0L) {
+						data[index++] = base | (word << 6) + Long.numberOfTrailingZeros(bits);
+						bits &= bits - 1;
+					}
+				}
+			} else {
+				char[] array = (char[]) values;
+				for (int i = 0, s = cardinalities[chunk]; s > i; i++)
+					data[index++] = base | array[i];
+			}
+		}
+
+		out.setSize(index);
+		return out;
+	}
+
+	/**
+	 * Sets the corresponding bits of {@code out}, after clearing it.
+	 *
+	 * @param out bitset receiving set bits.
+	 * @return Same as out
+	 */
+	public BitVector toBitVector(BitVector out) {
+		out.clear();
+		if (size == 0)
+			return out;
+
+		out.ensureCapacity(length());
+		for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1))
+			out.unsafeSet(i);
+
+		return out;
+	}
+
+	/**
+	 * Estimates memory retained by this bitset, assuming compressed
+	 * references and 16 byte array headers.
+	 *
+	 * @return estimated size, in bytes.
+	 */
+	public long sizeInBytes() {
+		long bytes = 32 + 3 * 16 + keys.length * (4L + 4L + 4L);
+		for (int i = 0; size > i; i++) {
+			Object values = chunks[i];
+			if (values instanceof long[])
+				bytes += 16 + 8L * BITMAP_WORDS;
+			else
+				bytes += 16 + 2L * ((char[]) values).length;
+		}
+
+		return bytes;
+	}
+
+	private int nextSetBit(int chunk, int low) {
+		Object values = chunks[chunk];
+		if (values instanceof long[]) {
+			long[] bitmap = (long[]) values;
+			int word = low >>> 6;
+			long bits = bitmap[word] & (-1L << low);
+			while (true) {
+				if (bits != 0L)
+					return (word << 6) + Long.numberOfTrailingZeros(bits);
+
+				if (++word == BITMAP_WORDS)
+					return -1;
+
+				bits = bitmap[word];
+			}
+		}
+
+		char[] array = (char[]) values;
+		int cardinality = cardinalities[chunk];
+		int position = Arrays.binarySearch(array, 0, cardinality, (char) low);
+		if (position < 0)
+			position = -position - 1;
+
+		return (cardinality > position) ? array[position] : -1;
+	}
+
+	/** @return index of chunk, or {@code -(insertion point) - 1} if absent. */
+	private int chunkIndex(int key) {
+		// most bitsets only span a handful of chunks
+		int last = size - 1;
+		if (last >= 0 && keys[last] == key)
+			return last;
+
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+
+	private void insertChunk(int chunk, int key) {
+		if (size == keys.length) {
+			int capacity = 2 * size;
+			keys = Arrays.copyOf(keys, capacity);
+			chunks = Arrays.copyOf(chunks, capacity);
+			cardinalities = Arrays.copyOf(cardinalities, capacity);
+		}
+
+		int moved = size - chunk;
+		System.arraycopy(keys, chunk, keys, chunk + 1, moved);
+		System.arraycopy(chunks, chunk, chunks, chunk + 1, moved);
+		System.arraycopy(cardinalities, chunk, cardinalities, chunk + 1, moved);
+
+		keys[chunk] = key;
+		chunks[chunk] = new char[4];
+		cardinalities[chunk] = 0;
+		size++;
+	}
+
+	private void removeChunk(int chunk) {
+		int moved = size - chunk - 1;
+		System.arraycopy(keys, chunk + 1, keys, chunk, moved);
+		System.arraycopy(chunks, chunk + 1, chunks, chunk, moved);
+		System.arraycopy(cardinalities, chunk + 1, cardinalities, chunk, moved);
+
+		chunks[--size] = null;
+	}
+
+	private static long[] toBitmap(char[] array, int cardinality) {
+		long[] bitmap = new long[BITMAP_WORDS];
+		for (int i = 0; cardinality > i; i++) {
+			char low = array[i];
+			bitmap[low >>> 6] |= 1L << low;
+		}
+
+		return bitmap;
+	}
+
+	private static char[] toArray(long[] bitmap, int cardinality) {
+		char[] array = new char[cardinality];
+		int index = 0;
+		for (int word = 0; BITMAP_WORDS > word; word++) {
+			long bits = bitmap[word];
+			while (bits != 0L) {
+				array[index++] = (char) ((word << 6) + Long.numberOfTrailingZeros(bits));
+				bits &= bits - 1;
+			}
+		}
+
+		return array;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("CompressedBitVector[");
+		for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+			if (sb.length() > 20)
+				sb.append(", ");
+			sb.append(i);
+		}
+
+		return sb.append(']').toString();
+	}
+}
@@ -154,6 +154,32 @@ public class IntBag implements ImmutableIntBag {
 		return data[index];
 	}
 
+	/**
+	 * Returns the element at the specified position in Bag, without
+	 * checking it against the size of the bag.
+	 *
+	 * @param index
+	 *			index of the element to return; must be within capacity
+	 *
+	 * @return the element at the specified position in bag
+	 */
+	public int unsafeGet(int index) {
+		return data[index];
+	}
+
+	/**
+	 * Set element at specified index, without growing the bag or
+	 * updating its size.
+	 *
+	 * @param index
+	 *			position of element; must be within capacity
+	 * @param value
+	 *			the element
+	 */
+	public void unsafeSet(int index, int value) {
+		data[index] = value;
+	}
+
 	/**
 	 * Returns the number of elements in this bag.
 	 * 
@@ -263,6 +289,22 @@ public class IntBag implements ImmutableIntBag {
 		}
 	}
 
+	/**
+	 * Shrinks the internal storage to {@code capacity}, discarding any
+	 * elements at or beyond it. Does nothing if the bag's capacity
+	 * doesn't exceed {@code capacity}.
+	 *
+	 * @param capacity
+	 *			new capacity of the bag
+	 */
+	public void shrink(int capacity) {
+		if (capacity >= data.length)
+			return;
+
+		data = Arrays.copyOf(data, capacity);
+		size = Math.min(size, capacity);
+	}
+
 	/**
 	 * Removes all of the elements from this bag.
 	 * <p>
@@ -243,6 +243,22 @@ public class ShortBag {
 		}
 	}
 
+	/**
+	 * Shrinks the internal storage to {@code capacity}, discarding any
+	 * elements at or beyond it. Does nothing if the bag's capacity
+	 * doesn't exceed {@code capacity}.
+	 *
+	 * @param capacity
+	 *			new capacity of the bag
+	 */
+	public void shrink(int capacity) {
+		if (capacity >= data.length)
+			return;
+
+		data = Arrays.copyOf(data, capacity);
+		size = Math.min(size, capacity);
+	}
+
 	/**
 	 * Removes all of the elements from this bag.
 	 * <p>
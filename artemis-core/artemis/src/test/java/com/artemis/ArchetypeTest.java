@@ -1,10 +1,12 @@
 package com.artemis;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 import com.artemis.component.ReusedComponent;
 import com.artemis.utils.Bag;
+import com.artemis.utils.IntBag;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -95,6 +97,33 @@ public class ArchetypeTest {
 		Assert.assertEquals(2, world.create(archPooled));
 	}
 
+	@Test
+	public void create_in_bulk() {
+		IntBag ids = world.create(arch2, 3, new IntBag());
+		world.process();
+
+		for (int i = 0; 3 > i; i++)
+			world.delete(ids.get(i));
+		world.process();
+
+		// recycled ids first, then fresh ids - beyond initial capacity
+		ids = world.create(arch3, 2000, new IntBag());
+		assertEquals(2000, ids.size());
+		world.process();
+
+		ComponentMapper<ComponentX> xMapper = world.getMapper(ComponentX.class);
+		ComponentMapper<ComponentY> yMapper = world.getMapper(ComponentY.class);
+		for (int i = 0; 2000 > i; i++) {
+			int id = ids.get(i);
+			assertEquals(arch3.compositionId, world.compositionId(id));
+			assertNotNull(xMapper.get(id));
+			assertFalse(yMapper.has(id));
+		}
+
+		assertEquals(2000, es2.getSubscription().getEntities().size());
+		assertEquals(2000, world.create());
+	}
+
 	@Test
 	public void testEntityCreationMod() {
 		World world = new World();
@@ -3,12 +3,18 @@ package com.artemis;
 import com.artemis.component.ComponentX;
 import com.artemis.component.ComponentY;
 import com.artemis.systems.IteratingSystem;
+import com.artemis.utils.BitVector;
 import com.artemis.utils.IntBag;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Random;
+
 import static com.artemis.Aspect.all;
+import static com.artemis.Aspect.exclude;
+import static com.artemis.Aspect.one;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class AspectSubscriptionManagerTest {
 	
@@ -122,6 +128,95 @@ public class AspectSubscriptionManagerTest {
 			w.getEntity(es.replacedEntityId).getCompositionId());
 	}
 
+	@Test
+	public void subscriptions_match_compositions_after_random_changes() {
+		AspectSubscriptionManager asm = world.getAspectSubscriptionManager();
+		asm.get(all(ComponentX.class));
+		asm.get(one(ComponentX.class, ComponentY.class));
+		asm.get(exclude(ComponentX.class));
+
+		ComponentMapper<ComponentX> mapperX = world.getMapper(ComponentX.class);
+		ComponentMapper<ComponentY> mapperY = world.getMapper(ComponentY.class);
+		IntBag alive = new IntBag();
+		Random rng = new Random(1337);
+
+		for (int tick = 0; 200 > tick; tick++) {
+			for (int i = 0; 50 > i; i++) {
+				int op = rng.nextInt(6);
+				if (op == 0 || alive.isEmpty()) {
+					int id = world.create();
+					world.edit(id).create(Marker.class);
+					alive.add(id);
+					continue;
+				}
+
+				int index = rng.nextInt(alive.size());
+				int id = alive.get(index);
+				switch (op) {
+					case 1: mapperX.create(id); break;
+					case 2: mapperX.remove(id); break;
+					case 3: mapperY.create(id); break;
+					case 4: mapperY.remove(id); break;
+					case 5:
+						world.delete(id);
+						alive.remove(index);
+						break;
+				}
+			}
+
+			if (tick == 100)
+				asm.get(all(ComponentY.class).exclude(ComponentX.class));
+
+			world.process();
+
+			for (EntitySubscription subscription : asm.getSubscriptions()) {
+				int expected = 0;
+				for (int i = 0; alive.size() > i; i++) {
+					int id = alive.get(i);
+					boolean matched = subscription.getAspect().isInterested(world.getEntity(id));
+					assertEquals(matched, subscription.getActiveEntityIds().get(id));
+					if (matched) expected++;
+				}
+
+				assertEquals(expected, subscription.getEntities().size());
+			}
+		}
+	}
+
+	@Test
+	public void tracked_changes_flag_created_and_changed_entities() {
+		AspectSubscriptionManager asm = world.getAspectSubscriptionManager();
+		BitVector changed = new BitVector();
+		asm.trackChanges(changed);
+
+		int a = world.create();
+		int b = world.create();
+		world.edit(b).create(ComponentX.class);
+		world.process();
+
+		assertTrue(changed.get(a));
+		assertTrue(changed.get(b));
+
+		changed.clear();
+		world.process();
+		assertTrue(changed.isEmpty());
+
+		world.edit(a).create(ComponentY.class);
+		world.edit(b).remove(ComponentX.class);
+		world.process();
+		assertEquals(2, changed.cardinality());
+
+		changed.clear();
+		world.delete(a);
+		world.process();
+		assertTrue(changed.isEmpty());
+
+		asm.untrackChanges(changed);
+		world.edit(b).create(ComponentY.class);
+		world.process();
+		assertTrue(changed.isEmpty());
+	}
+
 	public static class CreateInremoveSystem extends IteratingSystem {
 		private ComponentMapper<ComponentX> componentXMapper;
 
@@ -149,6 +244,8 @@ public class AspectSubscriptionManagerTest {
 		}
 	}
 
+	public static class Marker extends Component {}
+
 	private static class SubListener implements EntitySubscription.SubscriptionListener {
 
 		private int totalInserted;
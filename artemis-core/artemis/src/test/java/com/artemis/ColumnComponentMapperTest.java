@@ -0,0 +1,207 @@
+package com.artemis;
+
+import com.artemis.annotations.Columnar;
+import com.artemis.annotations.DelayedComponentRemoval;
+import com.artemis.utils.Bag;
+import com.artemis.utils.IntBag;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ColumnComponentMapperTest {
+
+	@Test
+	public void columnar_types_get_column_mappers() {
+		World world = new World();
+		assertTrue(world.getMapper(Pos.class) instanceof ColumnComponentMapper);
+		assertFalse(world.getMapper(Marker.class) instanceof ColumnComponentMapper);
+	}
+
+	@Test
+	public void flyweight_writes_are_stored_in_columns() {
+		World world = new World();
+		ColumnComponentMapper<Pos> mapper = (ColumnComponentMapper<Pos>) world.getMapper(Pos.class);
+
+		int[] ids = new int[64];
+		for (int i = 0; ids.length > i; i++) {
+			ids[i] = world.create();
+			Pos pos = mapper.create(ids[i]);
+			assertEquals(1f, pos.x, 0f);
+			pos.x = i;
+			pos.id = i * 2;
+			pos.ticks = i * 3L;
+			pos.weight = i * 4.0;
+		}
+
+		ColumnComponentMapper.FloatColumn xs = mapper.floatColumn("x");
+		ColumnComponentMapper.IntColumn idColumn = mapper.intColumn("id");
+		for (int i = ids.length - 1; i >= 0; i--) {
+			assertEquals(i, xs.get(ids[i]), 0f);
+			assertEquals(i * 2, idColumn.get(ids[i]));
+			assertEquals(i * 3L, mapper.longColumn("ticks").get(ids[i]));
+			assertEquals(i * 4.0, mapper.doubleColumn("weight").get(ids[i]), 0);
+
+			Pos pos = mapper.get(ids[i]);
+			assertEquals(i, pos.x, 0f);
+			assertEquals(i * 2, pos.id);
+		}
+
+		xs.set(ids[5], 100f);
+		assertEquals(100f, mapper.get(ids[5]).x, 0f);
+	}
+
+	@Test
+	public void column_access_writes_back_loaded_flyweight() {
+		World world = new World();
+		ColumnComponentMapper<Pos> mapper = (ColumnComponentMapper<Pos>) world.getMapper(Pos.class);
+		ColumnComponentMapper.FloatColumn xs = mapper.floatColumn("x");
+
+		int e = world.create();
+		mapper.create(e).x = 7f;
+		assertEquals(7f, xs.get(e), 0f);
+
+		mapper.get(e).x = 8f;
+		xs.set(e, 9f);
+		assertEquals(9f, mapper.get(e).x, 0f);
+	}
+
+	@Test
+	public void copied_components_leave_flyweight_untouched() {
+		World world = new World();
+		ColumnComponentMapper<Pos> mapper = (ColumnComponentMapper<Pos>) world.getMapper(Pos.class);
+
+		int a = world.create();
+		int b = world.create();
+		mapper.create(a).x = 1f;
+		mapper.create(b).x = 2f;
+
+		Pos flyweight = mapper.get(a);
+		flyweight.x = 3f;
+
+		Bag<Component> copies = new Bag<Component>();
+		Bag<Component> components = new Bag<Component>();
+		world.getComponentManager().copyComponentsFor(b, components, copies);
+		assertNotSame(flyweight, components.get(0));
+		assertEquals(2f, ((Pos) components.get(0)).x, 0f);
+		assertEquals(3f, flyweight.x, 0f);
+
+		// pending flyweight changes aren't seen until flushed
+		assertEquals(1f, mapper.copy(a, new Pos()).x, 0f);
+		world.getComponentManager().flushFlyweights();
+		assertEquals(3f, mapper.copy(a, new Pos()).x, 0f);
+	}
+
+	@Test
+	public void removal_and_recreation() {
+		World world = new World();
+		ComponentMapper<Pos> mapper = world.getMapper(Pos.class);
+
+		int e = world.create();
+		mapper.create(e).x = 5f;
+		world.process();
+
+		mapper.remove(e);
+		assertFalse(mapper.has(e));
+		assertNull(mapper.get(e));
+		world.process();
+
+		Pos pos = mapper.create(e);
+		assertEquals(1f, pos.x, 0f);
+		assertTrue(mapper.has(e));
+	}
+
+	@Test
+	public void delayed_removal_keeps_values_until_listeners_are_notified() {
+		final World world = new World();
+		final ComponentMapper<DelayedPos> mapper = world.getMapper(DelayedPos.class);
+		final float[] seen = {0};
+
+		world.getAspectSubscriptionManager()
+			.get(Aspect.all(DelayedPos.class))
+			.addSubscriptionListener(new EntitySubscription.SubscriptionListener() {
+				@Override
+				public void inserted(IntBag entities) {}
+
+				@Override
+				public void removed(IntBag entities) {
+					seen[0] = mapper.get(entities.get(0)).x;
+				}
+			});
+
+		int e = world.create();
+		mapper.create(e).x = 3f;
+		world.process();
+
+		mapper.remove(e);
+		assertFalse(mapper.has(e));
+		assertNotNull(mapper.get(e));
+		world.process();
+
+		assertEquals(3f, seen[0], 0f);
+		assertNull(mapper.get(e));
+	}
+
+	@Test
+	public void added_components_are_copied() {
+		World world = new World();
+		ComponentMapper<Pos> mapper = world.getMapper(Pos.class);
+
+		Pos source = new Pos();
+		source.x = 12f;
+		source.id = 4;
+
+		int e = world.create();
+		world.edit(e).add(source);
+		source.x = 0f;
+
+		assertEquals(12f, mapper.get(e).x, 0f);
+		assertEquals(4, mapper.get(e).id);
+	}
+
+	@Test
+	public void deleted_entities_lose_columnar_components() {
+		World world = new World();
+		ComponentMapper<Pos> mapper = world.getMapper(Pos.class);
+
+		int e = world.create();
+		mapper.create(e);
+		world.process();
+
+		world.delete(e);
+		world.process();
+		assertFalse(mapper.has(e));
+		assertNull(mapper.get(e));
+	}
+
+	@Test(expected = InvalidComponentException.class)
+	public void reference_fields_are_rejected() {
+		new World().getMapper(NotFlat.class);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void mismatched_column_type_throws() {
+		World world = new World();
+		((ColumnComponentMapper<Pos>) world.getMapper(Pos.class)).intColumn("x");
+	}
+
+	@Columnar
+	public static class Pos extends Component {
+		public float x = 1f;
+		public int id;
+		public long ticks;
+		public double weight;
+	}
+
+	@Columnar
+	@DelayedComponentRemoval
+	public static class DelayedPos extends Component {
+		public float x;
+	}
+
+	@Columnar
+	public static class NotFlat extends Component {
+		public String name;
+	}
+
+	public static class Marker extends Component {}
+}
@@ -0,0 +1,184 @@
+package com.artemis;
+
+import com.artemis.annotations.EntityId;
+import com.artemis.managers.TagManager;
+import com.artemis.utils.IntBag;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.artemis.Aspect.all;
+import static org.junit.Assert.*;
+
+public class CompactionTest {
+
+	@Test
+	public void live_entities_fill_holes_in_order() {
+		World world = new World();
+		ComponentMapper<Value> mapper = world.getMapper(Value.class);
+		for (int i = 0; 100 > i; i++)
+			mapper.create(world.create()).value = i;
+		world.process();
+
+		for (int i = 0; 100 > i; i += 2)
+			world.delete(i);
+
+		CompactionReport report = world.compact();
+		assertEquals(50, report.getEntityCount());
+		assertEquals(25, report.getMovedCount());
+
+		// entities 51, 53, ..., 99 moved into holes 0, 2, ..., 48
+		for (int id = 0; 50 > id; id++) {
+			int expected = (id % 2 == 0) ? 51 + id : id;
+			assertEquals(expected, mapper.get(id).value);
+		}
+		for (int id = 50; 100 > id; id++)
+			assertFalse(mapper.has(id));
+
+		assertEquals(50, world.create());
+	}
+
+	@Test
+	public void entity_references_are_remapped() {
+		World world = new World();
+		ComponentMapper<Holder> mapper = world.getMapper(Holder.class);
+		for (int i = 0; 10 > i; i++)
+			world.create();
+
+		int holder = world.create();
+		Holder h = mapper.create(holder);
+		h.target = 9;
+		h.dead = 1;
+		h.targets.add(8);
+		h.targets.add(2);
+		h.targets.add(3);
+		world.process();
+
+		world.delete(1);
+		world.delete(2);
+		world.delete(3);
+		world.compact();
+
+		// 8 -> 1, 9 -> 2, holder 10 -> 3
+		h = mapper.get(3);
+		assertNotNull(h);
+		assertEquals(2, h.target);
+		assertEquals(-1, h.dead);
+		assertEquals(1, h.targets.size());
+		assertEquals(1, h.targets.get(0));
+	}
+
+	@Test
+	public void subscriptions_follow_moved_entities() {
+		assertSubscriptionsFollowMovedEntities(false);
+	}
+
+	@Test
+	public void compressed_subscriptions_follow_moved_entities() {
+		assertSubscriptionsFollowMovedEntities(true);
+	}
+
+	private static void assertSubscriptionsFollowMovedEntities(boolean compressed) {
+		for (EntitySubscription.Maintenance maintenance : EntitySubscription.Maintenance.values()) {
+			World world = new World();
+			EntitySubscription subscription = world.getAspectSubscriptionManager().get(all(Value.class));
+			subscription.setMaintenance(maintenance);
+			subscription.setCompressed(compressed);
+
+			ComponentMapper<Value> mapper = world.getMapper(Value.class);
+			for (int i = 0; 20 > i; i++) {
+				int id = world.create();
+				if (id % 3 != 0)
+					mapper.create(id);
+			}
+			world.process();
+
+			for (int id = 0; 10 > id; id++)
+				world.delete(id);
+			world.compact();
+
+			IntBag entities = subscription.getEntities();
+			int[] ids = Arrays.copyOf(entities.getData(), entities.size());
+			if (maintenance == EntitySubscription.Maintenance.SORTED)
+				assertEquals(maintenance.name(), Arrays.toString(sorted(ids)), Arrays.toString(ids));
+
+			Arrays.sort(ids);
+			assertEquals(maintenance.name(), 7, ids.length);
+			assertEquals(maintenance.name(), Arrays.toString(expectedIds(mapper, 10)), Arrays.toString(ids));
+			assertEquals(maintenance.name(), ids.length, subscription.getActiveEntityIds().cardinality());
+
+			// subscription still tracks removals
+			mapper.remove(ids[0]);
+			world.process();
+			assertEquals(maintenance.name(), ids.length - 1, subscription.getEntities().size());
+		}
+	}
+
+	@Test
+	public void tags_follow_moved_entities() {
+		World world = new World(new WorldConfiguration().setSystem(TagManager.class));
+		TagManager tags = world.getSystem(TagManager.class);
+		for (int i = 0; 10 > i; i++)
+			world.create();
+
+		tags.register("boss", 9);
+		world.process();
+
+		world.delete(0);
+		world.compact();
+
+		assertEquals(0, tags.getEntityId("boss"));
+		assertEquals("boss", tags.getTag(0));
+		assertNull(tags.getTag(9));
+	}
+
+	@Test
+	public void entity_stores_are_trimmed() {
+		World world = new World();
+		ComponentMapper<Value> mapper = world.getMapper(Value.class);
+		for (int i = 0; 10000 > i; i++)
+			mapper.create(world.create());
+		world.process();
+
+		for (int id = 10; 10000 > id; id++)
+			world.delete(id);
+
+		CompactionReport report = world.compact();
+		assertEquals(10, report.getEntityCount());
+		assertEquals(0, report.getMovedCount());
+		assertTrue(report.getCapacityBefore() >= 10000);
+		assertEquals(128, report.getCapacityAfter());
+		assertTrue(report.getReclaimedBytes() > 0);
+
+		// stores grow again as needed
+		for (int i = 0; 1000 > i; i++)
+			mapper.create(world.create()).value = i;
+		world.process();
+		assertEquals(999, mapper.get(1009).value);
+	}
+
+	private static int[] sorted(int[] ids) {
+		int[] copy = ids.clone();
+		Arrays.sort(copy);
+		return copy;
+	}
+
+	private static int[] expectedIds(ComponentMapper<Value> mapper, int entityCount) {
+		IntBag ids = new IntBag();
+		for (int id = 0; entityCount > id; id++) {
+			if (mapper.has(id))
+				ids.add(id);
+		}
+		return Arrays.copyOf(ids.getData(), ids.size());
+	}
+
+	public static class Value extends Component {
+		public int value;
+	}
+
+	public static class Holder extends Component {
+		@EntityId public int target = -1;
+		@EntityId public int dead = -1;
+		@EntityId public IntBag targets = new IntBag();
+	}
+}
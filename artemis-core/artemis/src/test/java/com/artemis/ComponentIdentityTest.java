@@ -0,0 +1,116 @@
+package com.artemis;
+
+import com.artemis.utils.BitVector;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ComponentIdentityTest {
+
+	@SuppressWarnings("unchecked")
+	private static final Class<? extends Component>[] TYPES = new Class[] {
+		C0.class, C1.class, C2.class, C3.class, C4.class,
+		C5.class, C6.class, C7.class, C8.class, C9.class,
+		C10.class, C11.class, C12.class, C13.class, C14.class, C15.class
+	};
+
+	@Test
+	public void all_compositions_resolve_to_unique_identities() {
+		World world = new World();
+		ComponentManager cm = world.getComponentManager();
+		ComponentTypeFactory tf = cm.getTypeFactory();
+
+		int[] indices = indices(tf, 10);
+
+		int compositions = 1 << indices.length;
+		int[] identities = new int[compositions];
+		for (int mask = 0; compositions > mask; mask++) {
+			identities[mask] = cm.compositionIdentity(composition(mask, indices, 0));
+			for (int j = 0; mask > j; j++)
+				assertNotEquals(identities[j], identities[mask]);
+		}
+
+		assertEquals(ComponentManager.NO_COMPONENTS, identities[0]);
+		for (int mask = 0; compositions > mask; mask++) {
+			assertEquals(identities[mask], cm.compositionIdentity(composition(mask, indices, 0)));
+			assertEquals(identities[mask], cm.compositionIdentity(composition(mask, indices, 256)));
+		}
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void compact_identities_throw_when_exhausted() {
+		World world = new World();
+		allocateCompositions(world, 1 << 16);
+	}
+
+	@Test
+	public void wide_identities_exceed_short_range() {
+		World world = new World(new WorldConfigurationBuilder()
+			.wideCompositionIdentity(true)
+			.build());
+
+		ComponentManager cm = world.getComponentManager();
+		assertTrue(cm.isWideCompositionIdentity());
+
+		int[] indices = allocateCompositions(world, 1 << 16);
+
+		int entityId = world.create();
+		EntityEdit edit = world.edit(entityId);
+		for (Class<? extends Component> type : TYPES)
+			edit.create(type);
+		world.process();
+
+		int identity = cm.getIdentity(entityId);
+		assertTrue(identity > Short.MAX_VALUE);
+		assertEquals(identity, cm.compositionIdentity(composition((1 << 16) - 1, indices, 0)));
+
+		EntityTransmuter transmuter = new EntityTransmuterFactory(world).remove(C0.class).build();
+		transmuter.transmute(entityId);
+		world.process();
+		assertEquals(cm.compositionIdentity(composition((1 << 16) - 2, indices, 0)), cm.getIdentity(entityId));
+	}
+
+	private static int[] allocateCompositions(World world, int compositions) {
+		ComponentManager cm = world.getComponentManager();
+		int[] indices = indices(cm.getTypeFactory(), TYPES.length);
+		for (int mask = 0; compositions > mask; mask++)
+			cm.compositionIdentity(composition(mask, indices, 0));
+
+		return indices;
+	}
+
+	private static int[] indices(ComponentTypeFactory tf, int count) {
+		int[] indices = new int[count];
+		for (int i = 0; count > i; i++)
+			indices[i] = tf.getIndexFor(TYPES[i]);
+
+		return indices;
+	}
+
+	private static BitVector composition(int mask, int[] indices, int capacity) {
+		BitVector bits = new BitVector(capacity);
+		for (int i = 0; indices.length > i; i++) {
+			if ((mask & (1 << i)) != 0)
+				bits.set(indices[i]);
+		}
+
+		return bits;
+	}
+
+	public static class C0 extends Component {}
+	public static class C1 extends Component {}
+	public static class C2 extends Component {}
+	public static class C3 extends Component {}
+	public static class C4 extends Component {}
+	public static class C5 extends Component {}
+	public static class C6 extends Component {}
+	public static class C7 extends Component {}
+	public static class C8 extends Component {}
+	public static class C9 extends Component {}
+	public static class C10 extends Component {}
+	public static class C11 extends Component {}
+	public static class C12 extends Component {}
+	public static class C13 extends Component {}
+	public static class C14 extends Component {}
+	public static class C15 extends Component {}
+}
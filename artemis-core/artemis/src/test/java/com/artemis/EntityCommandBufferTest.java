@@ -0,0 +1,126 @@
+package com.artemis;
+
+import com.artemis.component.ComponentX;
+import com.artemis.component.ComponentY;
+import com.artemis.utils.IntBag;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EntityCommandBufferTest {
+
+	@Test
+	public void recording_does_not_touch_world() {
+		World world = new World();
+		int id = world.create();
+		world.process();
+
+		EntityCommandBuffer commands = new EntityCommandBuffer();
+		commands.create(id, ComponentX.class);
+		commands.create();
+		world.process();
+
+		assertFalse(world.getMapper(ComponentX.class).has(id));
+		assertEquals(1, entities(world, Aspect.all()).size());
+		assertEquals(2, commands.size());
+	}
+
+	@Test
+	public void playback_creates_and_edits_entities() {
+		World world = new World();
+		int existing = world.create();
+		world.process();
+
+		EntityCommandBuffer commands = new EntityCommandBuffer();
+		int placeholder = commands.create();
+		assertTrue(placeholder < 0);
+		commands.create(placeholder, ComponentX.class);
+		commands.create(existing, ComponentY.class);
+		commands.playback(world);
+		world.process();
+
+		assertTrue(commands.isEmpty());
+		assertEquals(1, entities(world, Aspect.all(ComponentX.class)).size());
+		assertTrue(world.getMapper(ComponentY.class).has(existing));
+	}
+
+	@Test
+	public void playback_with_archetype() {
+		World world = new World();
+		Archetype archetype = new ArchetypeBuilder().add(ComponentX.class).build(world);
+
+		EntityCommandBuffer commands = new EntityCommandBuffer();
+		int placeholder = commands.create(archetype);
+		commands.create(placeholder, ComponentY.class);
+		commands.playback(world);
+		world.process();
+
+		assertEquals(1, entities(world, Aspect.all(ComponentX.class, ComponentY.class)).size());
+	}
+
+	@Test
+	public void commands_after_delete_are_discarded() {
+		World world = new World();
+		int id = world.create();
+		world.process();
+
+		EntityCommandBuffer commands = new EntityCommandBuffer();
+		commands.delete(id);
+		commands.create(id, ComponentX.class);
+		commands.playback(world);
+		world.process();
+
+		assertEquals(0, entities(world, Aspect.all()).size());
+	}
+
+	@Test
+	public void commands_preserve_order_per_entity() {
+		World world = new World();
+		int a = world.create();
+		int b = world.create();
+		world.process();
+
+		EntityCommandBuffer commands = new EntityCommandBuffer();
+		commands.create(b, ComponentX.class);
+		commands.create(a, ComponentX.class);
+		commands.remove(b, ComponentX.class);
+		commands.create(b, ComponentY.class);
+		commands.playback(world);
+		world.process();
+
+		assertTrue(world.getMapper(ComponentX.class).has(a));
+		assertFalse(world.getMapper(ComponentX.class).has(b));
+		assertTrue(world.getMapper(ComponentY.class).has(b));
+	}
+
+	@Test
+	public void submitted_buffers_played_back_on_process() throws Exception {
+		final World world = new World();
+		final EntityCommandBuffer commands = new EntityCommandBuffer();
+
+		Thread worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; 100 > i; i++)
+					commands.create(commands.create(), ComponentX.class);
+
+				world.submit(commands);
+			}
+		});
+		worker.start();
+		worker.join();
+
+		world.process();
+		assertEquals(100, entities(world, Aspect.all(ComponentX.class)).size());
+		assertTrue(commands.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknown_placeholder_throws() {
+		new EntityCommandBuffer().delete(-1);
+	}
+
+	private static IntBag entities(World world, Aspect.Builder aspect) {
+		return world.getAspectSubscriptionManager().get(aspect).getEntities();
+	}
+}
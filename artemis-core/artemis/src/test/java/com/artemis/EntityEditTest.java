@@ -3,6 +3,8 @@ package com.artemis;
 
 import static com.artemis.Aspect.all;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import com.artemis.utils.IntBag;
@@ -10,6 +12,7 @@ import org.junit.Test;
 
 import com.artemis.component.ComponentX;
 import com.artemis.component.ComponentY;
+import com.artemis.component.ReusedComponent;
 
 public class EntityEditTest {
 	
@@ -80,8 +83,155 @@ public class EntityEditTest {
 		w.process();
 	}
 
+	@Test
+	public void coalescing_edit_resolves_composition_once() {
+		World world = new World(new WorldConfigurationBuilder()
+			.coalescingEdits(true)
+			.build());
+
+		EntitySubscription subscription = world.getAspectSubscriptionManager()
+			.get(all(ComponentX.class, ComponentY.class));
+
+		int id = world.create();
+		world.edit(id)
+			.create(ComponentX.class);
+		world.edit(id)
+			.create(ComponentY.class);
+
+		assertTrue(world.getMapper(ComponentX.class).has(id));
+		assertTrue(world.getMapper(ComponentY.class).has(id));
+
+		world.process();
+
+		// no intermediate composition for X alone
+		assertEquals(1, world.getComponentManager().getIdentity(id));
+		assertEquals(1, subscription.getEntities().size());
+	}
+
+	@Test
+	public void coalescing_edits_of_interleaved_entities() {
+		World world = new World(new WorldConfigurationBuilder()
+			.coalescingEdits(true)
+			.build());
+
+		EntitySubscription subscription = world.getAspectSubscriptionManager()
+			.get(all(ComponentX.class, ComponentY.class));
+
+		int a = world.create();
+		int b = world.create();
+		world.edit(a).create(ComponentX.class);
+		world.edit(b).create(ComponentY.class);
+		world.edit(a).remove(ComponentX.class).add(new ComponentY()).create(ComponentX.class);
+		world.process();
+
+		IntBag entities = subscription.getEntities();
+		assertEquals(1, entities.size());
+		assertEquals(a, entities.get(0));
+	}
+
+	@Test
+	public void coalescing_edit_committed_before_transmute() {
+		World world = new World(new WorldConfigurationBuilder()
+			.coalescingEdits(true)
+			.build());
+
+		EntityTransmuter transmuter = new EntityTransmuterFactory(world)
+			.add(ComponentY.class)
+			.build();
+
+		int id = world.create();
+		world.edit(id).create(ComponentX.class);
+		transmuter.transmute(id);
+		world.process();
+
+		assertTrue(world.getMapper(ComponentX.class).has(id));
+		assertTrue(world.getMapper(ComponentY.class).has(id));
+		assertEquals(1, world.getAspectSubscriptionManager()
+			.get(all(ComponentX.class, ComponentY.class))
+			.getEntities().size());
+	}
+
+	@Test
+	public void coalescing_edit_committed_before_delete() {
+		World world = new World(new WorldConfigurationBuilder()
+			.coalescingEdits(true)
+			.build());
 
+		int id = world.create();
+		world.process();
+
+		world.edit(id).create(ComponentX.class);
+		world.delete(id);
+		world.process();
+
+		assertFalse(world.getMapper(ComponentX.class).has(id));
+	}
 	
+	@Test
+	public void coalescing_edit_staged_again_after_mapper_commit() {
+		World world = new World(new WorldConfigurationBuilder()
+			.coalescingEdits(true)
+			.build());
+
+		EntitySubscription subscription = world.getAspectSubscriptionManager()
+			.get(all(ComponentX.class, ComponentY.class));
+
+		int id = world.create();
+		world.edit(id).create(ComponentX.class);
+		world.getMapper(ReusedComponent.class).create(id);
+		world.edit(id).create(ComponentY.class);
+		world.process();
+
+		assertEquals(1, subscription.getEntities().size());
+	}
+
+	@Test
+	public void coalescing_edit_held_across_other_edits() {
+		World world = new World(new WorldConfigurationBuilder()
+			.coalescingEdits(true)
+			.build());
+
+		EntitySubscription subscription = world.getAspectSubscriptionManager()
+			.get(all(ComponentX.class, ComponentY.class));
+
+		int a = world.create();
+		int b = world.create();
+		EntityEdit held = world.edit(a);
+		held.create(ComponentX.class);
+		world.edit(b).create(ComponentY.class);
+		held.create(ComponentY.class);
+		world.process();
+
+		IntBag entities = subscription.getEntities();
+		assertEquals(1, entities.size());
+		assertEquals(a, entities.get(0));
+	}
+
+	@Test
+	public void coalescing_edits_by_listeners_are_committed() {
+		final World world = new World(new WorldConfigurationBuilder()
+			.coalescingEdits(true)
+			.build());
+
+		AspectSubscriptionManager asm = world.getAspectSubscriptionManager();
+		EntitySubscription subscription = asm.get(all(ComponentX.class, ComponentY.class));
+		asm.get(all(ComponentX.class)).addSubscriptionListener(new EntitySubscription.SubscriptionListener() {
+			@Override
+			public void inserted(IntBag entities) {
+				for (int i = 0, s = entities.size(); s > i; i++)
+					world.edit(entities.get(i)).create(ComponentY.class);
+			}
+
+			@Override
+			public void removed(IntBag entities) {}
+		});
+
+		world.edit(world.create()).create(ComponentX.class);
+		world.process();
+
+		assertEquals(1, subscription.getEntities().size());
+	}
+
 	private static class LeManager extends Manager {
 		int added;
 
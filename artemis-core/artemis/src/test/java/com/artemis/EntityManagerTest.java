@@ -7,6 +7,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.artemis.component.ComponentX;
+import com.artemis.utils.IntBag;
 
 import static org.junit.Assert.*;
 
@@ -50,6 +51,45 @@ public class EntityManagerTest {
 		assertEquals(ids.toString(), 3, ids.size());
 	}
 	
+	@Test
+	public void delete_all_entities_in_bag() {
+		IntBag ids = new IntBag();
+		for (int i = 0; 10 > i; i++)
+			ids.add(world.create());
+		world.process();
+
+		world.edit(ids.get(3)).create(ComponentX.class);
+		world.deleteAll(ids);
+		world.process();
+
+		EntityManager em = world.getEntityManager();
+		for (int i = 0; 10 > i; i++)
+			assertFalse(em.isActive(ids.get(i)));
+
+		assertFalse(world.getMapper(ComponentX.class).has(ids.get(3)));
+	}
+
+	@Test
+	public void delete_all_entities_matching_aspect() {
+		ComponentMapper<ComponentX> xMapper = world.getMapper(ComponentX.class);
+		for (int i = 0; 200 > i; i++) {
+			int id = world.create();
+			if (i % 3 == 0)
+				xMapper.create(id);
+		}
+		world.process();
+
+		world.deleteAll(Aspect.all(ComponentX.class));
+		world.process();
+
+		EntityManager em = world.getEntityManager();
+		for (int id = 0; 200 > id; id++)
+			assertEquals(id % 3 != 0, em.isActive(id));
+
+		assertEquals(133, world.getAspectSubscriptionManager()
+			.get(Aspect.all()).getEntities().size());
+	}
+
 	@Test
 	public void is_active_check_never_throws() {
 		EntityManager em = world.getEntityManager();
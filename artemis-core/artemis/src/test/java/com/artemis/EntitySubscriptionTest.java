@@ -1,12 +1,16 @@
 package com.artemis;
 
+import com.artemis.EntitySubscription.Maintenance;
 import com.artemis.component.ComponentX;
 import com.artemis.component.ComponentY;
 import com.artemis.systems.IteratingSystem;
+import com.artemis.utils.BitVector;
 import com.artemis.utils.IntBag;
 
 import org.junit.Test;
 
+import java.util.Random;
+
 import static com.artemis.Aspect.all;
 import static org.junit.Assert.*;
 
@@ -20,6 +24,115 @@ public class EntitySubscriptionTest {
 		assertEquals(allX.hashCode(), allX2.hashCode());
 	}
 
+	@Test
+	public void maintained_entities_match_active_entities() {
+		for (Maintenance maintenance : Maintenance.values()) {
+			assertMaintained(maintenance, all(ComponentX.class).exclude(ComponentY.class), false);
+			assertMaintained(maintenance, all(), false);
+		}
+	}
+
+	@Test
+	public void compressed_entities_match_active_entities() {
+		for (Maintenance maintenance : Maintenance.values()) {
+			assertMaintained(maintenance, all(ComponentX.class).exclude(ComponentY.class), true);
+			assertMaintained(maintenance, all(ComponentY.class), true);
+		}
+	}
+
+	@Test
+	public void compressed_subscriptions_by_configuration() {
+		World world = new World(new WorldConfiguration().setCompressedSubscriptions(true));
+		AspectSubscriptionManager asm = world.getAspectSubscriptionManager();
+		assertFalse(asm.get(all()).isCompressed());
+
+		EntitySubscription subscription = asm.get(all(ComponentX.class));
+		assertTrue(subscription.isCompressed());
+
+		int e = world.create();
+		world.edit(e).create(ComponentX.class);
+		world.process();
+		assertTrue(subscription.getActiveEntityIds().get(e));
+
+		subscription.setCompressed(false);
+		assertFalse(subscription.isCompressed());
+		assertTrue(subscription.getActiveEntityIds().get(e));
+		assertEquals(1, subscription.getEntities().size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void subscription_of_all_entities_is_never_compressed() {
+		new World().getAspectSubscriptionManager().get(all()).setCompressed(true);
+	}
+
+	private static void assertMaintained(Maintenance maintenance, Aspect.Builder aspect, boolean compressed) {
+		World world = new World();
+		EntitySubscription subscription = world.getAspectSubscriptionManager().get(aspect);
+
+		// populated before changing maintenance
+		for (int i = 0; 100 > i; i++)
+			world.edit(world.create()).create(ComponentX.class);
+		world.process();
+
+		subscription.setMaintenance(maintenance);
+		assertSame(maintenance, subscription.getMaintenance());
+		subscription.setCompressed(compressed);
+
+		ComponentMapper<ComponentX> mapperX = world.getMapper(ComponentX.class);
+		ComponentMapper<ComponentY> mapperY = world.getMapper(ComponentY.class);
+		Random rng = new Random(42);
+		for (int tick = 0; 100 > tick; tick++) {
+			IntBag before = new IntBag();
+			before.addAll(subscription.getEntities());
+
+			for (int i = 0; 20 > i; i++) {
+				int id = rng.nextInt(150);
+				EntityManager em = world.getEntityManager();
+				if (id >= em.entities.size() || !em.isActive(id) || world.batchProcessor.isDeleted(id)) {
+					world.edit(world.create()).create(ComponentX.class);
+					continue;
+				}
+
+				switch (rng.nextInt(5)) {
+					case 0: mapperX.create(id); break;
+					case 1: mapperX.remove(id); break;
+					case 2: mapperY.create(id); break;
+					case 3: mapperY.remove(id); break;
+					case 4: world.delete(id); break;
+				}
+			}
+			world.process();
+
+			int count = subscription.getEntityCount();
+			assertEntities(maintenance, subscription, before);
+			assertEquals(maintenance.name(), subscription.getEntities().size(), count);
+		}
+	}
+
+	private static void assertEntities(Maintenance maintenance, EntitySubscription subscription, IntBag before) {
+		IntBag entities = subscription.getEntities();
+		BitVector seen = new BitVector();
+		for (int i = 0; entities.size() > i; i++) {
+			assertFalse(maintenance.name(), seen.get(entities.get(i)));
+			seen.set(entities.get(i));
+		}
+		assertEquals(maintenance.name(), subscription.getActiveEntityIds(), seen);
+
+		if (maintenance == Maintenance.REBUILD || maintenance == Maintenance.SORTED) {
+			for (int i = 1; entities.size() > i; i++)
+				assertTrue(maintenance.name(), entities.get(i - 1) < entities.get(i));
+		} else if (maintenance == Maintenance.INSERTION_ORDER) {
+			// surviving entities retain relative order
+			int position = 0;
+			for (int i = 0; before.size() > i; i++) {
+				if (!seen.get(before.get(i)))
+					continue;
+
+				assertEquals(maintenance.name(), before.get(i), entities.get(position++));
+			}
+		}
+	}
+
 	@Test
 	public void entity_subscriptions_are_reused_when_appropriate_test() {
 		World world = new World();
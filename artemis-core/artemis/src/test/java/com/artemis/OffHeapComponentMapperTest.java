@@ -0,0 +1,190 @@
+package com.artemis;
+
+import com.artemis.annotations.Columnar;
+import com.artemis.annotations.OffHeap;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class OffHeapComponentMapperTest {
+
+	@Test
+	public void off_heap_types_get_off_heap_mappers() {
+		World world = new World();
+		assertTrue(world.getMapper(Body.class) instanceof OffHeapComponentMapper);
+	}
+
+	@Test
+	public void records_survive_slab_growth() {
+		World world = new World();
+		OffHeapComponentMapper<Body> mapper = (OffHeapComponentMapper<Body>) world.getMapper(Body.class);
+		assertEquals(24, mapper.getStride());
+
+		int[] ids = new int[1000];
+		for (int i = 0; ids.length > i; i++) {
+			ids[i] = world.create();
+			Body body = mapper.create(ids[i]);
+			assertEquals(1f, body.x, 0f);
+			body.x = i;
+			body.mass = i * 2.0;
+			body.ticks = i * 3L;
+		}
+
+		int mass = mapper.offset("mass");
+		for (int i = 0; ids.length > i; i++) {
+			assertEquals(i * 2.0, mapper.getDouble(ids[i], mass), 0);
+
+			Body body = mapper.get(ids[i]);
+			assertEquals(i, body.x, 0f);
+			assertEquals(i * 3L, body.ticks);
+			assertEquals(0, body.flags);
+		}
+	}
+
+	@Test
+	public void slots_are_reused() {
+		World world = new World();
+		OffHeapComponentMapper<Body> mapper = (OffHeapComponentMapper<Body>) world.getMapper(Body.class);
+
+		int[] ids = new int[200];
+		for (int i = 0; ids.length > i; i++)
+			mapper.create(ids[i] = world.create());
+		world.process();
+
+		long reserved = mapper.getReservedBytes();
+		for (int round = 0; 10 > round; round++) {
+			for (int id : ids)
+				mapper.remove(id);
+			world.process();
+
+			for (int id : ids)
+				assertEquals(1f, mapper.create(id).x, 0f);
+			world.process();
+		}
+
+		assertEquals(reserved, mapper.getReservedBytes());
+	}
+
+	@Test
+	public void pooled_slots_are_reset_on_release() {
+		World world = new World();
+		OffHeapComponentMapper<PooledBody> mapper =
+			(OffHeapComponentMapper<PooledBody>) world.getMapper(PooledBody.class);
+
+		int e = world.create();
+		PooledBody body = mapper.create(e);
+		assertEquals(7, body.charges);
+		body.charges = 2;
+		body.heat = 10f;
+		world.process();
+
+		world.delete(e);
+		world.process();
+		assertNull(mapper.get(e));
+
+		int recycled = world.create();
+		body = mapper.create(recycled);
+		assertEquals(7, body.charges);
+		assertEquals(-1f, body.heat, 0f);
+	}
+
+	@Test
+	public void direct_access_writes_back_loaded_flyweight() {
+		World world = new World();
+		OffHeapComponentMapper<Body> mapper = (OffHeapComponentMapper<Body>) world.getMapper(Body.class);
+		int x = mapper.offset("x");
+
+		int e = world.create();
+		mapper.create(e).x = 4f;
+		assertEquals(4f, mapper.getFloat(e, x), 0f);
+
+		mapper.get(e).x = 5f;
+		mapper.setFloat(e, x, 6f);
+		assertEquals(6f, mapper.get(e).x, 0f);
+	}
+
+	@Test
+	public void registered_slab_allocator_is_used() throws IOException {
+		File directory = slabDirectory();
+
+		World world = new World(new WorldConfiguration()
+			.register(SlabAllocator.class.getName(), new MappedSlabAllocator(directory)));
+
+		ComponentMapper<Body> mapper = world.getMapper(Body.class);
+		for (int i = 0; 1000 > i; i++)
+			mapper.create(world.create()).ticks = i;
+
+		for (int i = 0; 1000 > i; i++)
+			assertEquals(i, mapper.get(i).ticks);
+
+		File[] slabs = directory.listFiles();
+		assertEquals(1, slabs.length);
+		assertTrue(slabs[0].getName().startsWith(Body.class.getName()));
+
+		world.dispose();
+		assertEquals(0, directory.listFiles().length);
+	}
+
+	@Test
+	public void worlds_sharing_slab_directory_keep_apart() throws IOException {
+		File directory = slabDirectory();
+		MappedSlabAllocator allocator = new MappedSlabAllocator(directory);
+
+		World a = new World(new WorldConfiguration()
+			.register(SlabAllocator.class.getName(), allocator));
+		World b = new World(new WorldConfiguration()
+			.register(SlabAllocator.class.getName(), new MappedSlabAllocator(directory)));
+
+		a.getMapper(Body.class).create(a.create()).ticks = 1;
+		b.getMapper(Body.class).create(b.create()).ticks = 2;
+
+		assertEquals(2, directory.listFiles().length);
+		assertEquals(1, a.getMapper(Body.class).get(0).ticks);
+		assertEquals(2, b.getMapper(Body.class).get(0).ticks);
+
+		a.dispose();
+		b.dispose();
+	}
+
+	@Test(expected = InvalidComponentException.class)
+	public void off_heap_and_columnar_are_exclusive() {
+		new World().getMapper(Confused.class);
+	}
+
+	private static File slabDirectory() throws IOException {
+		File directory = File.createTempFile("artemis", "slabs");
+		assertTrue(directory.delete());
+		assertTrue(directory.mkdir());
+		directory.deleteOnExit();
+		return directory;
+	}
+
+	@OffHeap
+	public static class Body extends Component {
+		public float x = 1f;
+		public int flags;
+		public double mass;
+		public long ticks;
+	}
+
+	@OffHeap
+	public static class PooledBody extends PooledComponent {
+		public int charges = 7;
+		public float heat;
+
+		@Override
+		protected void reset() {
+			charges = 7;
+			heat = -1f;
+		}
+	}
+
+	@OffHeap
+	@Columnar
+	public static class Confused extends Component {
+		public int value;
+	}
+}
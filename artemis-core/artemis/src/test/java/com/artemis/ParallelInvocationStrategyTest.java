@@ -0,0 +1,203 @@
+package com.artemis;
+
+import com.artemis.annotations.All;
+import com.artemis.annotations.Columnar;
+import com.artemis.annotations.Reads;
+import com.artemis.annotations.Writes;
+import com.artemis.systems.IteratingSystem;
+import com.artemis.utils.ImmutableBag;
+import com.artemis.utils.IntBag;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ParallelInvocationStrategyTest {
+
+	@Test
+	public void non_conflicting_systems_share_stage() {
+		World world = new World(new WorldConfigurationBuilder()
+			.with(new IncrementA(), new CopyAToB(), new IncrementC(), new ReadC())
+			.register(new ParallelInvocationStrategy(2))
+			.build());
+
+		ParallelInvocationStrategy strategy = world.getInvocationStrategy();
+		ImmutableBag<ImmutableBag<BaseSystem>> stages = strategy.getStages();
+
+		// ComponentManager, EntityManager, AspectSubscriptionManager
+		assertEquals(3 + 2, stages.size());
+		assertStage(stages.get(3), IncrementA.class, IncrementC.class);
+		assertStage(stages.get(4), CopyAToB.class, ReadC.class);
+	}
+
+	@Test
+	public void systems_after_barrier_start_new_stage() {
+		World world = new World(new WorldConfigurationBuilder()
+			.with(new IncrementA(), new Spawner(), new IncrementC())
+			.register(new ParallelInvocationStrategy(2))
+			.build());
+
+		ParallelInvocationStrategy strategy = world.getInvocationStrategy();
+		ImmutableBag<ImmutableBag<BaseSystem>> stages = strategy.getStages();
+
+		assertEquals(3 + 3, stages.size());
+		assertStage(stages.get(3), IncrementA.class);
+		assertStage(stages.get(4), Spawner.class);
+		assertStage(stages.get(5), IncrementC.class);
+	}
+
+	@Test
+	public void readers_of_flyweights_never_share_stage() {
+		World world = new World(new WorldConfigurationBuilder()
+			.with(new ReadF(), new ReadFAndC())
+			.register(new ParallelInvocationStrategy(2))
+			.build());
+
+		ParallelInvocationStrategy strategy = world.getInvocationStrategy();
+		ImmutableBag<ImmutableBag<BaseSystem>> stages = strategy.getStages();
+
+		assertEquals(3 + 2, stages.size());
+		assertStage(stages.get(3), ReadF.class);
+		assertStage(stages.get(4), ReadFAndC.class);
+	}
+
+	@Test
+	public void same_outcome_as_sequential_strategy() {
+		World sequential = createWorld(new InvocationStrategy());
+		World parallel = createWorld(new ParallelInvocationStrategy(4));
+
+		for (int i = 0; 20 > i; i++) {
+			sequential.process();
+			parallel.process();
+		}
+
+		assertSameState(sequential, parallel);
+	}
+
+	@Test
+	public void disabled_systems_are_not_processed() {
+		World world = createWorld(new ParallelInvocationStrategy(2));
+		world.getSystem(IncrementC.class).setEnabled(false);
+		world.process();
+		world.process();
+
+		ComponentMapper<C> mapper = world.getMapper(C.class);
+		IntBag entities = world.getAspectSubscriptionManager().get(Aspect.all(C.class)).getEntities();
+		assertTrue(entities.size() > 0);
+		for (int i = 0; entities.size() > i; i++)
+			assertEquals(0, mapper.get(entities.get(i)).value);
+	}
+
+	private static World createWorld(SystemInvocationStrategy strategy) {
+		return new World(new WorldConfigurationBuilder()
+			.with(new Spawner(), new IncrementA(), new CopyAToB(), new IncrementC())
+			.register(strategy)
+			.build());
+	}
+
+	private static void assertSameState(World expected, World actual) {
+		IntBag expectedIds = expected.getAspectSubscriptionManager().get(Aspect.all()).getEntities();
+		IntBag actualIds = actual.getAspectSubscriptionManager().get(Aspect.all()).getEntities();
+		assertEquals(expectedIds, actualIds);
+
+		ComponentMapper<A> expectedA = expected.getMapper(A.class);
+		ComponentMapper<B> expectedB = expected.getMapper(B.class);
+		ComponentMapper<C> expectedC = expected.getMapper(C.class);
+		ComponentMapper<A> actualA = actual.getMapper(A.class);
+		ComponentMapper<B> actualB = actual.getMapper(B.class);
+		ComponentMapper<C> actualC = actual.getMapper(C.class);
+		for (int i = 0; expectedIds.size() > i; i++) {
+			int id = expectedIds.get(i);
+			assertEquals(expectedA.get(id).value, actualA.get(id).value);
+			assertEquals(expectedB.get(id).value, actualB.get(id).value);
+			assertEquals(expectedC.get(id).value, actualC.get(id).value);
+		}
+	}
+
+	private static void assertStage(ImmutableBag<BaseSystem> stage, Class<?>... systems) {
+		assertEquals(systems.length, stage.size());
+		for (int i = 0; systems.length > i; i++)
+			assertEquals(systems[i], stage.get(i).getClass());
+	}
+
+	public static class A extends Component {
+		public int value;
+	}
+
+	public static class B extends Component {
+		public int value;
+	}
+
+	public static class C extends Component {
+		public int value;
+	}
+
+	@Columnar
+	public static class F extends Component {
+		public float value;
+	}
+
+	public static class Spawner extends BaseSystem {
+		@Override
+		protected void processSystem() {
+			int id = world.create();
+			world.edit(id).create(A.class);
+			world.edit(id).create(B.class);
+			world.edit(id).create(C.class);
+		}
+	}
+
+	@All(A.class)
+	@Writes(A.class)
+	public static class IncrementA extends IteratingSystem {
+		ComponentMapper<A> mapper;
+
+		@Override
+		protected void process(int entityId) {
+			mapper.get(entityId).value += entityId;
+		}
+	}
+
+	@All({A.class, B.class})
+	@Writes(B.class)
+	public static class CopyAToB extends IteratingSystem {
+		ComponentMapper<A> mapperA;
+		ComponentMapper<B> mapperB;
+
+		@Override
+		protected void process(int entityId) {
+			mapperB.get(entityId).value += 2 * mapperA.get(entityId).value;
+		}
+	}
+
+	@All(C.class)
+	@Writes(C.class)
+	public static class IncrementC extends IteratingSystem {
+		ComponentMapper<C> mapper;
+
+		@Override
+		protected void process(int entityId) {
+			mapper.get(entityId).value++;
+		}
+	}
+
+	@All(C.class)
+	@Reads(C.class)
+	public static class ReadC extends IteratingSystem {
+		@Override
+		protected void process(int entityId) {}
+	}
+
+	@All(F.class)
+	@Reads(F.class)
+	public static class ReadF extends IteratingSystem {
+		@Override
+		protected void process(int entityId) {}
+	}
+
+	@All({F.class, C.class})
+	@Reads(C.class)
+	public static class ReadFAndC extends IteratingSystem {
+		@Override
+		protected void process(int entityId) {}
+	}
+}
@@ -7,6 +7,8 @@ import com.artemis.utils.Bag;
 import com.artemis.utils.IntBag;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static com.artemis.annotations.LinkPolicy.Policy.CHECK_SOURCE;
 import static com.artemis.annotations.LinkPolicy.Policy.CHECK_SOURCE_AND_TARGETS;
 import static com.artemis.annotations.LinkPolicy.Policy.SKIP;
@@ -461,6 +463,120 @@ public class EntityLinkManagerTest {
 		world.process();
 	}
 
+	@Test
+	public void event_driven_unilink_test() {
+		EntityLinkManager elm = new EntityLinkManager(true, true, true);
+		World world = new World(new WorldConfiguration()
+			.setSystem(elm));
+
+		final int padding = world.create();
+		final int otherA = world.create();
+		final int otherB = world.create();
+		final int e = world.create();
+
+		ComponentMapper<EntityLink> mapper = world.getMapper(EntityLink.class);
+		RecordingLinkListener listener = new RecordingLinkListener();
+		elm.register(EntityLink.class, "otherId", listener);
+
+		// establish link
+		mapper.create(e).otherId = otherA;
+		world.process();
+		assertEquals("established " + e + "->" + otherA, listener.events());
+		assertSources(elm, otherA, e);
+
+		// unnoticed without modify
+		mapper.get(e).otherId = otherB;
+		world.process();
+		assertEquals("", listener.events());
+		assertSources(elm, otherB);
+
+		// target change
+		mapper.modify(e).otherId = otherB;
+		world.process();
+		assertEquals("changed " + e + "->" + otherB + " from " + otherA, listener.events());
+		assertSources(elm, otherA);
+		assertSources(elm, otherB, e);
+
+		// target dead
+		world.delete(otherB);
+		world.process();
+		assertEquals(-1, mapper.get(e).otherId);
+		assertEquals("dead " + e + "->" + otherB, listener.events());
+		assertSources(elm, otherB);
+
+		// kill link
+		mapper.modify(e).otherId = otherA;
+		world.process();
+		world.delete(e);
+		world.process();
+		assertEquals("established " + e + "->" + otherA + ", killed " + e + "->" + otherA, listener.events());
+		assertSources(elm, otherA);
+	}
+
+	@Test
+	public void event_driven_multilink_test() {
+		World world = new World(new WorldConfiguration()
+			.setSystem(new EntityLinkManager(true, true, true)));
+
+		final int otherA = world.create();
+		final int otherB = world.create();
+		final int e = world.create();
+
+		ComponentMapper<MultiLinkCheckAll> mapper = world.getMapper(MultiLinkCheckAll.class);
+		mapper.create(e).other.add(otherA);
+		mapper.get(e).other.add(otherB);
+		world.process();
+
+		world.delete(otherB);
+		world.process();
+		assertEquals(1, mapper.get(e).other.size());
+		assertEquals(otherA, mapper.get(e).other.get(0));
+	}
+
+	@Test
+	public void sources_by_target_test() {
+		World world = new World(new WorldConfiguration()
+			.setSystem(EntityLinkManager.class));
+		EntityLinkManager elm = world.getSystem(EntityLinkManager.class);
+
+		final int target = world.create();
+		final int other = world.create();
+		ComponentMapper<EntityLink> mapper = world.getMapper(EntityLink.class);
+		ComponentMapper<EntityLinkB> mapperB = world.getMapper(EntityLinkB.class);
+
+		int a = world.create();
+		int b = world.create();
+		int c = world.create();
+		mapper.create(a).otherId = target;
+		mapper.create(b).otherId = target;
+		mapper.create(c).otherId = other;
+		mapperB.create(c).other = world.getEntity(target);
+		world.process();
+		assertSources(elm, target, a, b, c);
+		assertSources(elm, other, c);
+
+		mapper.get(a).otherId = other;
+		world.delete(b);
+		world.process();
+		assertSources(elm, target, c);
+		assertSources(elm, other, a, c);
+
+		world.delete(target);
+		world.process();
+		assertSources(elm, target);
+		assertNull(mapperB.get(c).other);
+	}
+
+	private static void assertSources(EntityLinkManager elm, int target, int... expected) {
+		IntBag sources = elm.getSources(target, new IntBag());
+		int[] actual = new int[sources.size()];
+		for (int i = 0; actual.length > i; i++)
+			actual[i] = sources.get(i);
+
+		Arrays.sort(actual);
+		assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+	}
+
 	public static class EntityLink extends Component {
 		@EntityId
 		public int otherId = -1;
@@ -542,6 +658,43 @@ public class EntityLinkManagerTest {
 		}
 	}
 
+	private static class RecordingLinkListener implements LinkListener {
+		private final StringBuilder events = new StringBuilder();
+
+		String events() {
+			String s = events.toString();
+			events.setLength(0);
+			return s;
+		}
+
+		private void record(String event) {
+			if (events.length() > 0)
+				events.append(", ");
+
+			events.append(event);
+		}
+
+		@Override
+		public void onLinkEstablished(int sourceId, int targetId) {
+			record("established " + sourceId + "->" + targetId);
+		}
+
+		@Override
+		public void onLinkKilled(int sourceId, int targetId) {
+			record("killed " + sourceId + "->" + targetId);
+		}
+
+		@Override
+		public void onTargetDead(int sourceId, int deadTargetId) {
+			record("dead " + sourceId + "->" + deadTargetId);
+		}
+
+		@Override
+		public void onTargetChanged(int sourceId, int targetId, int oldTargetId) {
+			record("changed " + sourceId + "->" + targetId + " from " + oldTargetId);
+		}
+	}
+
 	private static class EmptyLinkListener implements LinkListener {
 		private final int e;
 		private final int otherA;
@@ -2,6 +2,8 @@ package com.artemis.managers;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import com.artemis.WorldConfiguration;
 import org.junit.Before;
@@ -9,6 +11,11 @@ import org.junit.Test;
 
 import com.artemis.Entity;
 import com.artemis.World;
+import com.artemis.utils.ImmutableBag;
+import com.artemis.utils.ImmutableIntBag;
+import com.artemis.utils.IntBag;
+
+import java.util.Arrays;
 
 public class GroupManagerTest {
 	private static final String GROUPIE = "groupie";
@@ -63,4 +70,136 @@ public class GroupManagerTest {
 		assertEquals(0, gm.getEntities(GROUPIE2).size());
 		assertFalse(gm.isInAnyGroup(entity));
 	}
+
+	@Test
+	public void group_names_are_interned() {
+		int id = gm.getGroupId(GROUPIE);
+		int id2 = gm.getGroupId(GROUPIE2);
+
+		assertEquals(0, id);
+		assertEquals(1, id2);
+		assertEquals(id, gm.getGroupId(GROUPIE));
+		assertEquals(GROUPIE2, gm.getGroupName(id2));
+		assertEquals(2, gm.getGroupCount());
+	}
+
+	@Test
+	public void string_and_id_api_share_membership() {
+		int entity = world.create();
+		int id = gm.getGroupId(GROUPIE);
+
+		gm.add(entity, id);
+		assertTrue(gm.isInGroup(entity, GROUPIE));
+		assertTrue(gm.isInGroup(entity, id));
+		assertFalse(gm.isInGroup(entity, GROUPIE2));
+		assertFalse(gm.isInGroup(entity, null));
+
+		gm.remove(entity, GROUPIE);
+		assertFalse(gm.isInGroup(entity, id));
+		assertFalse(gm.isInAnyGroup(entity));
+	}
+
+	@Test
+	public void entity_ids_reflect_membership_changes() {
+		int e1 = world.create();
+		int e2 = world.create();
+		int e3 = world.create();
+
+		ImmutableIntBag ids = gm.getEntityIds(GROUPIE);
+		gm.add(e3, GROUPIE);
+		gm.add(e1, GROUPIE);
+		gm.add(e2, GROUPIE);
+		assertSame(ids, gm.getEntityIds(GROUPIE));
+		assertIds(gm.getEntityIds(GROUPIE), e1, e2, e3);
+
+		gm.remove(e2, GROUPIE);
+		assertIds(gm.getEntityIds(GROUPIE), e1, e3);
+		assertEquals(2, gm.getEntities(GROUPIE).size());
+		assertEquals(e3, gm.getEntities(GROUPIE).get(1).getId());
+	}
+
+	@Test
+	public void groups_of_entity_ordered_by_group_id() {
+		int entity = world.create();
+		gm.getGroupId("a");
+		gm.getGroupId("b");
+		gm.getGroupId("c");
+
+		gm.add(entity, "c", "a");
+		assertEquals("Bag(a, c)", gm.getGroups(entity).toString());
+		assertEquals(0, gm.getGroups(world.create()).size());
+	}
+
+	@Test
+	public void groups_of_entity_are_kept_up_to_date() {
+		int entity = world.create();
+		gm.add(entity, "a");
+		ImmutableBag<String> groups = gm.getGroups(entity);
+		assertSame(groups, gm.getGroups(entity));
+
+		gm.add(entity, "b");
+		assertEquals("Bag(a, b)", groups.toString());
+
+		gm.remove(entity, "a");
+		assertEquals("Bag(b)", groups.toString());
+
+		gm.removeFromAllGroups(entity);
+		assertEquals(0, gm.getGroups(entity).size());
+	}
+
+	@Test
+	public void group_intersections_and_unions() {
+		int a = gm.getGroupId("a");
+		int b = gm.getGroupId("b");
+		int c = gm.getGroupId("c");
+		for (int i = 0; 200 > i; i++) {
+			int entity = world.create();
+			if (i % 2 == 0) gm.add(entity, a);
+			if (i % 3 == 0) gm.add(entity, b);
+			if (i == 199) gm.add(entity, c);
+		}
+
+		IntBag out = new IntBag();
+		gm.getEntityIdsInAll(out, a, b);
+		assertEquals(34, out.size());
+		for (int i = 0; out.size() > i; i++)
+			assertEquals(0, out.get(i) % 6);
+
+		gm.getEntityIdsInAny(out, b, c);
+		assertEquals(68, out.size());
+		assertEquals(199, out.get(67));
+
+		assertEquals(0, gm.getEntityIdsInAll(out, a, c).size());
+		assertEquals(0, gm.getEntityIdsInAll(out).size());
+	}
+
+	@Test
+	public void compaction_moves_memberships() {
+		int e1 = world.create();
+		int e2 = world.create();
+		int e3 = world.create();
+		gm.add(e1, GROUPIE);
+		gm.add(e3, GROUPIE, GROUPIE2);
+		world.process();
+
+		world.delete(e1);
+		world.delete(e2);
+		world.process();
+		world.compact();
+
+		// e3 moved to slot 0
+		assertIds(gm.getEntityIds(GROUPIE), 0);
+		assertIds(gm.getEntityIds(GROUPIE2), 0);
+		assertEquals("Bag(groupie, groupie2)", gm.getGroups(0).toString());
+		assertFalse(gm.isInAnyGroup(e3));
+		assertEquals(0, gm.getGroups(e3).size());
+	}
+
+	private static void assertIds(ImmutableIntBag actual, int... expected) {
+		int[] ids = new int[actual.size()];
+		for (int i = 0; ids.length > i; i++)
+			ids[i] = actual.get(i);
+
+		assertEquals(Arrays.toString(expected), Arrays.toString(ids));
+	}
 }
@@ -0,0 +1,53 @@
+package com.artemis.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeHistogramTest {
+
+	@Test
+	public void buckets_bound_relative_error() {
+		for (long nanos = 0; 1 << 20 > nanos; nanos += 7) {
+			long upper = TimeHistogram.upperBound(TimeHistogram.bucket(nanos));
+			assertTrue(nanos + " <= " + upper, nanos <= upper);
+			assertTrue(nanos + " ~ " + upper, upper - nanos <= Math.max(0, nanos / TimeHistogram.SUB_BUCKETS));
+		}
+	}
+
+	@Test
+	public void buckets_are_ordered() {
+		long previous = -1;
+		for (int bucket = 0; 400 > bucket; bucket++) {
+			long upper = TimeHistogram.upperBound(bucket);
+			assertTrue(upper > previous);
+			assertEquals(bucket, TimeHistogram.bucket(upper));
+			previous = upper;
+		}
+	}
+
+	@Test
+	public void percentiles() {
+		TimeHistogram histogram = new TimeHistogram();
+		assertEquals(0, histogram.percentile(99));
+
+		for (int i = 1; 100 >= i; i++)
+			histogram.record(i * 1000);
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(50500, histogram.getMeanNanos());
+		assertEquals(100000, histogram.getMaxNanos());
+		assertWithin(50000, histogram.percentile(50));
+		assertWithin(99000, histogram.percentile(99));
+		assertEquals(100000, histogram.percentile(100));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMaxNanos());
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue(expected + " ~ " + actual, actual >= expected);
+		assertTrue(expected + " ~ " + actual, actual - expected <= expected / TimeHistogram.SUB_BUCKETS);
+	}
+}
@@ -0,0 +1,198 @@
+package com.artemis.metrics;
+
+import com.artemis.*;
+import com.artemis.component.ComponentX;
+import com.artemis.component.ComponentY;
+import com.artemis.systems.IteratingSystem;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import javax.management.openmbean.CompositeData;
+
+import static org.junit.Assert.*;
+
+public class WorldMetricsTest {
+
+	@Test
+	public void systems_are_profiled_per_tick() {
+		WorldMetrics metrics = new WorldMetrics();
+		World world = world(metrics, new Spawner(), new XSystem());
+
+		for (int i = 0; 3 > i; i++)
+			world.process();
+
+		MetricsSnapshot snapshot = metrics.snapshot();
+		assertEquals(3, snapshot.getTicks());
+		assertEquals(3, snapshot.getTickTime().getCount());
+		assertTrue(snapshot.getSyncTime().getCount() >= 3);
+
+		MetricsSnapshot.SystemStats xs = snapshot.getSystem("XSystem");
+		assertEquals(3, xs.getTime().getCount());
+		assertEquals(10, xs.getLastEntitiesProcessed());
+		assertEquals(5 + 10 + 10, xs.getEntitiesProcessed());
+
+		assertEquals(15, snapshot.getEntitiesCreated().getTotal());
+		assertEquals(5, snapshot.getEntitiesCreated().getLastTick());
+		assertEquals(5, snapshot.getEntitiesDeleted().getTotal());
+		assertEquals(5, snapshot.getEntitiesDeleted().getMaxTick());
+	}
+
+	@Test
+	public void compositions_allocated_per_tick() {
+		WorldMetrics metrics = new WorldMetrics();
+		World world = world(metrics, new XSystem());
+		world.process();
+
+		int id = world.create();
+		world.edit(id).create(ComponentX.class);
+		world.process();
+		assertEquals(1, metrics.snapshot().getCompositionsAllocated().getLastTick());
+
+		world.edit(id).create(ComponentY.class);
+		world.process();
+		world.edit(id).remove(ComponentY.class);
+		world.process();
+
+		MetricsSnapshot.CounterStats compositions = metrics.snapshot().getCompositionsAllocated();
+		assertEquals(0, compositions.getLastTick());
+		assertEquals(2, compositions.getTotal());
+	}
+
+	@Test
+	public void systems_not_processing_are_not_recorded() {
+		WorldMetrics metrics = new WorldMetrics();
+		XSystem system = new XSystem();
+		World world = world(metrics, system);
+
+		world.process();
+		system.setEnabled(false);
+		world.process();
+		assertFalse(system.isEnabled());
+
+		assertEquals(1, metrics.snapshot().getSystem("XSystem").getTime().getCount());
+	}
+
+	@Test
+	public void failing_systems_are_recorded() {
+		WorldMetrics metrics = new WorldMetrics();
+		World world = world(metrics, new FailingSystem());
+
+		try {
+			world.process();
+			fail("expected failure");
+		} catch (IllegalStateException expected) {}
+
+		assertEquals(1, metrics.snapshot().getSystem("FailingSystem").getTime().getCount());
+	}
+
+	@Test
+	public void woven_profilers_take_precedence() {
+		WorldMetrics metrics = new WorldMetrics();
+		World world = world(metrics, new WovenSystem());
+
+		world.process();
+		world.process();
+		assertEquals(2, metrics.snapshot().getSystem("WovenSystem").getTime().getCount());
+	}
+
+	@Test
+	public void reset_discards_metrics() {
+		WorldMetrics metrics = new WorldMetrics();
+		World world = world(metrics, new Spawner(), new XSystem());
+		world.process();
+		world.process();
+
+		metrics.reset();
+		world.process();
+
+		MetricsSnapshot snapshot = metrics.snapshot();
+		assertEquals(1, snapshot.getTicks());
+		assertEquals(1, snapshot.getSystem("XSystem").getTime().getCount());
+		assertEquals(5, snapshot.getEntitiesCreated().getTotal());
+	}
+
+	@Test
+	public void snapshot_is_exposed_via_jmx() throws Exception {
+		WorldMetrics metrics = new WorldMetrics();
+		World world = world(metrics, new XSystem());
+		world.process();
+
+		ObjectName name = WorldMetricsJmx.register(metrics, "jmx-test");
+		try {
+			Object ticks = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Ticks");
+			assertEquals(1L, ticks);
+
+			CompositeData snapshot = (CompositeData) ManagementFactory.getPlatformMBeanServer()
+				.getAttribute(name, "Snapshot");
+			assertEquals(1L, snapshot.get("ticks"));
+			CompositeData[] systems = (CompositeData[]) snapshot.get("systems");
+			assertTrue(systems.length > 0);
+		} finally {
+			WorldMetricsJmx.unregister(name);
+		}
+	}
+
+	private static World world(WorldMetrics metrics, BaseSystem... systems) {
+		return new World(new WorldConfigurationBuilder()
+			.with(systems)
+			.register(new MetricsInvocationStrategy(metrics))
+			.build());
+	}
+
+	/** Creates 5 entities per tick, deleting those of two ticks ago. */
+	private static class Spawner extends BaseSystem {
+		private ComponentMapper<ComponentX> mapper;
+		private int tick;
+
+		@Override
+		protected void processSystem() {
+			if (tick >= 2) {
+				for (int i = 0; 5 > i; i++)
+					world.delete((tick - 2) * 5 + i);
+			}
+
+			for (int i = 0; 5 > i; i++)
+				mapper.create(world.create());
+
+			tick++;
+		}
+	}
+
+	private static class XSystem extends IteratingSystem {
+		XSystem() {
+			super(Aspect.all(ComponentX.class));
+		}
+
+		@Override
+		protected void process(int entityId) {}
+	}
+
+	private static class FailingSystem extends BaseSystem {
+		@Override
+		protected void processSystem() {
+			throw new IllegalStateException();
+		}
+	}
+
+	/** As woven by {@code @Profile(using = MetricsProfiler.class)}. */
+	private static class WovenSystem extends XSystem {
+		private MetricsProfiler $profiler;
+
+		@Override
+		protected void initialize() {
+			$profiler = new MetricsProfiler();
+			$profiler.initialize(this, world);
+		}
+
+		@Override
+		protected void begin() {
+			$profiler.start();
+		}
+
+		@Override
+		protected void end() {
+			$profiler.stop();
+		}
+	}
+}
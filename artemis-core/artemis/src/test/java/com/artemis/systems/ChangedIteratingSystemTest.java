@@ -0,0 +1,151 @@
+package com.artemis.systems;
+
+import com.artemis.Aspect;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfiguration;
+import com.artemis.component.ComponentX;
+import com.artemis.component.ComponentY;
+import com.artemis.utils.IntBag;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ChangedIteratingSystemTest {
+
+	@Test
+	public void created_components_are_reported_once() {
+		ChangedX system = new ChangedX();
+		World world = new World(new WorldConfiguration().setSystem(system));
+		ComponentMapper<ComponentX> mapper = world.getMapper(ComponentX.class);
+		for (int i = 0; 5 > i; i++)
+			mapper.create(world.create());
+
+		world.process();
+		assertProcessed(system, 0, 1, 2, 3, 4);
+
+		world.process();
+		assertProcessed(system);
+	}
+
+	@Test
+	public void only_flagged_components_are_reported() {
+		ChangedX system = new ChangedX();
+		World world = new World(new WorldConfiguration().setSystem(system));
+		ComponentMapper<ComponentX> mapper = world.getMapper(ComponentX.class);
+		for (int i = 0; 10 > i; i++)
+			mapper.create(world.create());
+		world.process();
+		system.processed.setSize(0);
+
+		mapper.get(2).text = "read, but not flagged";
+		mapper.modify(7).text = "changed";
+		mapper.markChanged(4);
+		world.process();
+		assertProcessed(system, 4, 7);
+	}
+
+	@Test
+	public void entities_leaving_subscription_are_not_reported() {
+		ChangedX system = new ChangedX();
+		World world = new World(new WorldConfiguration().setSystem(system));
+		ComponentMapper<ComponentX> mapper = world.getMapper(ComponentX.class);
+		for (int i = 0; 3 > i; i++)
+			mapper.create(world.create());
+		world.process();
+		system.processed.setSize(0);
+
+		mapper.markChanged(0);
+		mapper.markChanged(1);
+		world.delete(1);
+		world.process();
+		assertProcessed(system, 0);
+	}
+
+	@Test
+	public void changes_accumulate_while_disabled() {
+		ChangedX system = new ChangedX();
+		World world = new World(new WorldConfiguration().setSystem(system));
+		ComponentMapper<ComponentX> mapper = world.getMapper(ComponentX.class);
+		for (int i = 0; 3 > i; i++)
+			mapper.create(world.create());
+		world.process();
+		system.processed.setSize(0);
+
+		system.setEnabled(false);
+		mapper.markChanged(2);
+		world.process();
+		mapper.markChanged(0);
+		world.process();
+
+		system.setEnabled(true);
+		world.process();
+		assertProcessed(system, 0, 2);
+	}
+
+	@Test
+	public void explicitly_watched_types() {
+		ChangedYOfX system = new ChangedYOfX();
+		World world = new World(new WorldConfiguration().setSystem(system));
+		ComponentMapper<ComponentX> mx = world.getMapper(ComponentX.class);
+		ComponentMapper<ComponentY> my = world.getMapper(ComponentY.class);
+		for (int i = 0; 4 > i; i++) {
+			int id = world.create();
+			mx.create(id);
+			if (id % 2 == 0)
+				my.create(id);
+		}
+
+		world.process();
+		assertProcessed(system, 0, 2);
+
+		mx.markChanged(1);
+		my.markChanged(2);
+		world.process();
+		assertProcessed(system, 2);
+		assertTrue(my.isTrackingChanges());
+
+		world.dispose();
+		assertFalse(my.isTrackingChanges());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void aspect_without_required_types_must_watch_types() {
+		new World(new WorldConfiguration().setSystem(new ChangedIteratingSystem(Aspect.one(ComponentX.class)) {
+			@Override
+			protected void process(int entityId) {}
+		}));
+	}
+
+	private static void assertProcessed(ChangedX system, int... expected) {
+		IntBag processed = system.processed;
+		int[] actual = Arrays.copyOf(processed.getData(), processed.size());
+		assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+		processed.setSize(0);
+	}
+
+	private static class ChangedX extends ChangedIteratingSystem {
+		final IntBag processed = new IntBag();
+
+		ChangedX() {
+			super(Aspect.all(ComponentX.class));
+		}
+
+		ChangedX(Aspect.Builder aspect, Class<ComponentY> watched) {
+			super(aspect, watched);
+		}
+
+		@Override
+		protected void process(int entityId) {
+			processed.add(entityId);
+		}
+	}
+
+	private static class ChangedYOfX extends ChangedX {
+		ChangedYOfX() {
+			super(Aspect.all(ComponentX.class), ComponentY.class);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package com.artemis.systems;
+
+import com.artemis.Aspect;
+import com.artemis.Component;
+import com.artemis.ComponentMapper;
+import com.artemis.InvalidComponentException;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.annotations.Columnar;
+import com.artemis.component.ComponentX;
+import com.artemis.component.ComponentY;
+import com.artemis.utils.IntBag;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+public class ParallelIteratingSystemTest {
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+
+	@After
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void every_entity_processed_once() {
+		CountingSystem system = new CountingSystem(pool, 1000);
+		system.setChunkSize(16);
+		World world = new World(new WorldConfigurationBuilder()
+			.with(system)
+			.build());
+
+		for (int i = 0; 1000 > i; i++)
+			world.edit(world.create()).create(ComponentX.class);
+
+		world.process();
+		world.process();
+
+		for (int i = 0; 1000 > i; i++)
+			assertEquals(2, system.processed.get(i));
+	}
+
+	@Test
+	public void deferred_changes_applied_after_pass() {
+		DeferringSystem system = new DeferringSystem(pool);
+		system.setChunkSize(8);
+		World world = new World(new WorldConfigurationBuilder()
+			.with(system)
+			.build());
+
+		for (int i = 0; 100 > i; i++)
+			world.edit(world.create()).create(ComponentX.class);
+
+		world.process();
+		assertEquals(100, system.seen.get());
+
+		world.process();
+
+		IntBag withX = world.getAspectSubscriptionManager().get(Aspect.all(ComponentX.class)).getEntities();
+		IntBag withY = world.getAspectSubscriptionManager().get(Aspect.all(ComponentY.class)).getEntities();
+		assertEquals(50, withX.size());
+		assertEquals(50, withY.size());
+		for (int i = 0; withY.size() > i; i++)
+			assertEquals(0, withY.get(i) % 2);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void deferred_changes_outside_of_process_throws() {
+		DeferringSystem system = new DeferringSystem(pool);
+		new World(new WorldConfigurationBuilder()
+			.with(system)
+			.build());
+
+		system.deleteOutsideOfProcess(0);
+	}
+
+	@Test(expected = InvalidComponentException.class)
+	public void flyweight_aspects_are_rejected() {
+		new World(new WorldConfigurationBuilder()
+			.with(new FlyweightSystem(pool))
+			.build());
+	}
+
+	private static class CountingSystem extends ParallelIteratingSystem {
+		private final AtomicIntegerArray processed;
+
+		CountingSystem(ForkJoinPool pool, int entities) {
+			super(Aspect.all(ComponentX.class), pool);
+			processed = new AtomicIntegerArray(entities);
+		}
+
+		@Override
+		protected void process(int entityId) {
+			processed.incrementAndGet(entityId);
+		}
+	}
+
+	private static class DeferringSystem extends ParallelIteratingSystem {
+		private final AtomicInteger seen = new AtomicInteger();
+
+		private ComponentMapper<ComponentX> mapper;
+
+		DeferringSystem(ForkJoinPool pool) {
+			super(Aspect.all(ComponentX.class), pool);
+		}
+
+		@Override
+		protected void process(int entityId) {
+			seen.incrementAndGet();
+			assertTrue(mapper.has(entityId));
+			if (entityId % 2 == 0) {
+				create(entityId, ComponentY.class);
+			} else {
+				delete(entityId);
+			}
+		}
+
+		void deleteOutsideOfProcess(int entityId) {
+			delete(entityId);
+		}
+	}
+
+	@Columnar
+	public static class Flyweight extends Component {
+		public float value;
+	}
+
+	private static class FlyweightSystem extends ParallelIteratingSystem {
+		FlyweightSystem(ForkJoinPool pool) {
+			super(Aspect.all(Flyweight.class), pool);
+		}
+
+		@Override
+		protected void process(int entityId) {}
+	}
+}
@@ -0,0 +1,215 @@
+package com.artemis.systems;
+
+import com.artemis.Aspect;
+import com.artemis.Component;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfiguration;
+import com.artemis.utils.IntBag;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ScheduledIteratingSystemTest {
+
+	@Test
+	public void entities_expire_in_deadline_order() {
+		Expirer system = new Expirer();
+		World world = world(system);
+		int a = timer(world, 3);
+		int b = timer(world, 1);
+		int c = timer(world, 3);
+		int d = timer(world, 2);
+
+		tick(world);
+		assertExpired(system, b);
+		assertEquals(3, system.getScheduledCount());
+		assertEquals(1f, system.getRemainingTimeUntilProcessing(), 0.0001f);
+
+		tick(world);
+		assertExpired(system, d);
+
+		tick(world);
+		assertEquals(2, system.expired.size());
+		assertTrue(system.expired.contains(a));
+		assertTrue(system.expired.contains(c));
+		system.expired.setSize(0);
+
+		tick(world);
+		assertExpired(system);
+		assertEquals(0, system.getScheduledCount());
+	}
+
+	@Test
+	public void renewed_timers_wait_for_next_run() {
+		Expirer system = new Expirer();
+		system.renewal = 0;
+		World world = world(system);
+		int id = timer(world, 1);
+
+		tick(world);
+		assertExpired(system, id);
+		assertTrue(system.isScheduled(id));
+
+		tick(world);
+		assertExpired(system, id);
+	}
+
+	@Test
+	public void rescheduling_replaces_deadline() {
+		Expirer system = new Expirer();
+		World world = world(system);
+		int id = timer(world, 1);
+		tick(world);
+		assertExpired(system, id);
+
+		system.schedule(id, 5);
+		system.schedule(id, 2);
+		assertEquals(2f, system.getTimeUntilExpiry(id), 0.0001f);
+
+		tick(world);
+		assertExpired(system);
+		tick(world);
+		assertExpired(system, id);
+	}
+
+	@Test
+	public void entities_leaving_subscription_are_cancelled() {
+		Expirer system = new Expirer();
+		World world = world(system);
+		int a = timer(world, 1);
+		int b = timer(world, 1);
+		world.process();
+		assertEquals(2, system.getScheduledCount());
+
+		world.getMapper(Timer.class).remove(a);
+		world.delete(b);
+		world.process();
+		assertFalse(system.isScheduled(a));
+		assertFalse(system.isScheduled(b));
+
+		tick(world);
+		assertExpired(system);
+	}
+
+	@Test
+	public void timers_follow_compacted_entities() {
+		Expirer system = new Expirer();
+		World world = world(system);
+		for (int i = 0; 4 > i; i++)
+			world.create();
+
+		int id = timer(world, 2);
+		world.process();
+
+		for (int i = 0; 4 > i; i++)
+			world.delete(i);
+		world.compact();
+
+		assertTrue(system.isScheduled(0));
+		assertFalse(system.isScheduled(id));
+
+		tick(world);
+		tick(world);
+		assertExpired(system, 0);
+	}
+
+	@Test
+	public void random_schedules_match_brute_force() {
+		Expirer system = new Expirer();
+		World world = world(system);
+		Random rng = new Random(0x71e);
+
+		int entityCount = 500;
+		float[] deadlines = new float[entityCount];
+		for (int i = 0; entityCount > i; i++) {
+			int delay = 1 + rng.nextInt(50);
+			deadlines[timer(world, delay)] = delay;
+		}
+		world.process();
+
+		for (int now = 1; 100 > now; now++) {
+			for (int i = 0; 20 > i; i++) {
+				int id = rng.nextInt(entityCount);
+				if (rng.nextInt(4) == 0) {
+					system.cancel(id);
+					deadlines[id] = 0;
+				} else {
+					int delay = 1 + rng.nextInt(50);
+					system.schedule(id, delay);
+					deadlines[id] = (now - 1) + delay;
+				}
+			}
+
+			tick(world);
+
+			IntBag expected = new IntBag();
+			for (int id = 0; entityCount > id; id++) {
+				if (deadlines[id] != 0 && deadlines[id] <= now) {
+					expected.add(id);
+					deadlines[id] = 0;
+				}
+			}
+
+			int[] actual = Arrays.copyOf(system.expired.getData(), system.expired.size());
+			Arrays.sort(actual);
+			assertEquals("t=" + now,
+				Arrays.toString(Arrays.copyOf(expected.getData(), expected.size())),
+				Arrays.toString(actual));
+			system.expired.setSize(0);
+		}
+	}
+
+	private static World world(Expirer system) {
+		World world = new World(new WorldConfiguration().setSystem(system));
+		world.delta = 0;
+		return world;
+	}
+
+	private static int timer(World world, float delay) {
+		int id = world.create();
+		world.getMapper(Timer.class).create(id).delay = delay;
+		return id;
+	}
+
+	private static void tick(World world) {
+		world.delta = 1;
+		world.process();
+	}
+
+	private static void assertExpired(Expirer system, int... expected) {
+		IntBag expired = system.expired;
+		int[] actual = Arrays.copyOf(expired.getData(), expired.size());
+		assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+		expired.setSize(0);
+	}
+
+	public static class Timer extends Component {
+		public float delay;
+	}
+
+	private static class Expirer extends ScheduledIteratingSystem {
+		private ComponentMapper<Timer> timers;
+		final IntBag expired = new IntBag();
+		float renewal = -1;
+
+		Expirer() {
+			super(Aspect.all(Timer.class));
+		}
+
+		@Override
+		protected float getRemainingDelay(int entityId) {
+			return timers.get(entityId).delay;
+		}
+
+		@Override
+		protected void processExpired(int entityId) {
+			expired.add(entityId);
+			if (renewal >= 0)
+				schedule(entityId, renewal);
+		}
+	}
+}
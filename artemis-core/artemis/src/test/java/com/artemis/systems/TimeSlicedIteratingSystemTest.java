@@ -0,0 +1,123 @@
+package com.artemis.systems;
+
+import com.artemis.Aspect;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.WorldConfiguration;
+import com.artemis.component.ComponentX;
+import com.artemis.utils.IntBag;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TimeSlicedIteratingSystemTest {
+
+	@Test
+	public void passes_are_spread_over_slices() {
+		Sliced system = new Sliced(4);
+		World world = world(system, 10);
+
+		int[] counts = new int[8];
+		for (int i = 0; counts.length > i; i++) {
+			world.process();
+			counts[i] = system.getProcessedCount();
+		}
+
+		assertEquals("[3, 3, 3, 1, 3, 3, 3, 1]", Arrays.toString(counts));
+		assertEquals(2, system.getCompletedPasses());
+
+		// every entity processed once per pass, in id order
+		int[] processed = Arrays.copyOf(system.processed.getData(), system.processed.size());
+		assertEquals("[0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9]",
+			Arrays.toString(processed));
+	}
+
+	@Test
+	public void pass_resumes_across_subscription_changes() {
+		Sliced system = new Sliced(3);
+		World world = world(system, 10);
+		ComponentMapper<ComponentX> mapper = world.getMapper(ComponentX.class);
+
+		world.process();
+		assertProcessed(system, 0, 1, 2, 3);
+
+		// 7 leaves and 10 joins ahead of cursor
+		mapper.remove(1);
+		mapper.remove(7);
+		mapper.create(world.create());
+		world.process();
+
+		// 1 rejoins behind cursor, waiting for next pass
+		mapper.create(1);
+		world.process();
+		assertEquals(1, system.getCompletedPasses());
+		world.process();
+		assertProcessed(system, 4, 5, 6, 8, 9, 10, 0, 1, 2, 3);
+	}
+
+	@Test
+	public void budget_ends_slice_early() {
+		Sliced system = new Sliced(1);
+		system.setBudgetNanos(1);
+		World world = world(system, 40);
+
+		world.process();
+		assertEquals(16, system.getProcessedCount());
+		world.process();
+		assertEquals(16, system.getProcessedCount());
+		world.process();
+		assertEquals(8, system.getProcessedCount());
+		assertEquals(1, system.getCompletedPasses());
+
+		system.setBudgetNanos(0);
+		world.process();
+		assertEquals(40, system.getProcessedCount());
+	}
+
+	@Test
+	public void empty_subscription_completes_no_passes() {
+		Sliced system = new Sliced(3);
+		World world = world(system, 0);
+		world.process();
+		world.process();
+
+		assertEquals(0, system.getProcessedCount());
+		assertEquals(0, system.getCompletedPasses());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void slices_must_be_positive() {
+		new Sliced(0);
+	}
+
+	private static World world(Sliced system, int entityCount) {
+		World world = new World(new WorldConfiguration().setSystem(system));
+		ComponentMapper<ComponentX> mapper = world.getMapper(ComponentX.class);
+		for (int i = 0; entityCount > i; i++)
+			mapper.create(world.create());
+
+		return world;
+	}
+
+	private static void assertProcessed(Sliced system, int... expected) {
+		IntBag processed = system.processed;
+		int[] actual = Arrays.copyOf(processed.getData(), processed.size());
+		assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+		processed.setSize(0);
+	}
+
+	private static class Sliced extends TimeSlicedIteratingSystem {
+		final IntBag processed = new IntBag();
+
+		Sliced(int slices) {
+			super(Aspect.all(ComponentX.class), slices);
+		}
+
+		@Override
+		protected void process(int entityId) {
+			processed.add(entityId);
+		}
+	}
+}
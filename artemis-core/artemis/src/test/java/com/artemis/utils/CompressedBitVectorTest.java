@@ -0,0 +1,70 @@
+package com.artemis.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompressedBitVectorTest {
+
+	@Test
+	public void matches_bit_vector() {
+		Random rng = new Random(7);
+		// sparse, clustered and dense chunks
+		int[] ranges = {1 << 22, 70000, 5000};
+		for (int range : ranges) {
+			BitVector expected = new BitVector();
+			CompressedBitVector actual = new CompressedBitVector();
+			for (int i = 0; 200000 > i; i++) {
+				int index = rng.nextInt(range);
+				if (rng.nextInt(3) == 0) {
+					expected.clear(index);
+					actual.clear(index);
+				} else {
+					expected.set(index);
+					actual.set(index);
+				}
+			}
+
+			assertEquals(expected.cardinality(), actual.cardinality());
+			assertEquals(expected.length(), actual.length());
+			assertEquals(expected, actual.toBitVector(new BitVector()));
+
+			IntBag expectedIds = expected.toIntBag(new IntBag());
+			IntBag actualIds = actual.toIntBag(new IntBag());
+			assertEquals(expectedIds.size(), actualIds.size());
+			for (int i = 0, s = expectedIds.size(); s > i; i++) {
+				int id = expectedIds.get(i);
+				assertEquals(id, actualIds.get(i));
+				assertTrue(actual.get(id));
+				assertEquals(id, actual.nextSetBit(i == 0 ? 0 : expectedIds.get(i - 1) + 1));
+			}
+			assertEquals(-1, actual.nextSetBit(expected.length()));
+		}
+	}
+
+	@Test
+	public void chunks_convert_between_array_and_bitmap() {
+		CompressedBitVector bits = new CompressedBitVector();
+		int base = 3 << 16;
+		for (int i = 0; CompressedBitVector.ARRAY_MAX + 1 > i; i++)
+			bits.set(base + 2 * i);
+
+		long bitmap = bits.sizeInBytes();
+		assertEquals(CompressedBitVector.ARRAY_MAX + 1, bits.cardinality());
+
+		for (int i = 0; CompressedBitVector.ARRAY_MAX > i; i++)
+			bits.clear(base + 2 * i);
+
+		assertTrue(bitmap > bits.sizeInBytes());
+		assertEquals(1, bits.cardinality());
+		assertTrue(bits.get(base + 2 * CompressedBitVector.ARRAY_MAX));
+		assertEquals(base + 2 * CompressedBitVector.ARRAY_MAX, bits.nextSetBit(0));
+
+		bits.clear(base + 2 * CompressedBitVector.ARRAY_MAX);
+		assertTrue(bits.isEmpty());
+		assertEquals(0, bits.length());
+		assertEquals(-1, bits.nextSetBit(0));
+	}
+}
@@ -0,0 +1,210 @@
+package com.artemis.io;
+
+import com.artemis.annotations.EntityId;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+/**
+ * Encoding of a single component field in a columnar snapshot. Persisted
+ * by ordinal; only append new constants.
+ */
+enum ColumnType {
+	BOOLEAN(1) {
+		@Override
+		void write(ColumnWriter out, Field f, Object c) throws IllegalAccessException {
+			out.putBoolean(f.getBoolean(c));
+		}
+
+		@Override
+		void read(ByteBuffer in, Field f, Object c, int[] ids) throws IllegalAccessException {
+			f.setBoolean(c, in.get() != 0);
+		}
+	},
+	BYTE(1) {
+		@Override
+		void write(ColumnWriter out, Field f, Object c) throws IllegalAccessException {
+			out.putByte(f.getByte(c));
+		}
+
+		@Override
+		void read(ByteBuffer in, Field f, Object c, int[] ids) throws IllegalAccessException {
+			f.setByte(c, in.get());
+		}
+	},
+	SHORT(2) {
+		@Override
+		void write(ColumnWriter out, Field f, Object c) throws IllegalAccessException {
+			out.putShort(f.getShort(c));
+		}
+
+		@Override
+		void read(ByteBuffer in, Field f, Object c, int[] ids) throws IllegalAccessException {
+			f.setShort(c, in.getShort());
+		}
+	},
+	CHAR(2) {
+		@Override
+		void write(ColumnWriter out, Field f, Object c) throws IllegalAccessException {
+			out.putChar(f.getChar(c));
+		}
+
+		@Override
+		void read(ByteBuffer in, Field f, Object c, int[] ids) throws IllegalAccessException {
+			f.setChar(c, in.getChar());
+		}
+	},
+	INT(4) {
+		@Override
+		void write(ColumnWriter out, Field f, Object c) throws IllegalAccessException {
+			out.putInt(f.getInt(c));
+		}
+
+		@Override
+		void read(ByteBuffer in, Field f, Object c, int[] ids) throws IllegalAccessException {
+			f.setInt(c, in.getInt());
+		}
+	},
+	LONG(8) {
+		@Override
+		void write(ColumnWriter out, Field f, Object c) throws IllegalAccessException {
+			out.putLong(f.getLong(c));
+		}
+
+		@Override
+		void read(ByteBuffer in, Field f, Object c, int[] ids) throws IllegalAccessException {
+			f.setLong(c, in.getLong());
+		}
+	},
+	FLOAT(4) {
+		@Override
+		void write(ColumnWriter out, Field f, Object c) throws IllegalAccessException {
+			out.putFloat(f.getFloat(c));
+		}
+
+		@Override
+		void read(ByteBuffer in, Field f, Object c, int[] ids) throws IllegalAccessException {
+			f.setFloat(c, in.getFloat());
+		}
+	},
+	DOUBLE(8) {
+		@Override
+		void write(ColumnWriter out, Field f, Object c) throws IllegalAccessException {
+			out.putDouble(f.getDouble(c));
+		}
+
+		@Override
+		void read(ByteBuffer in, Field f, Object c, int[] ids) throws IllegalAccessException {
+			f.setDouble(c, in.getDouble());
+		}
+	},
+	/** Length prefixed UTF-8; variable width. */
+	STRING(-1) {
+		@Override
+		void write(ColumnWriter out, Field f, Object c) throws IllegalAccessException {
+			out.putString((String) f.get(c));
+		}
+
+		@Override
+		void read(ByteBuffer in, Field f, Object c, int[] ids) throws IllegalAccessException {
+			f.set(c, readString(in));
+		}
+
+		@Override
+		long size(Field f, Object c) throws IllegalAccessException {
+			return ColumnWriter.sizeOf((String) f.get(c));
+		}
+
+		@Override
+		void skip(ByteBuffer in) {
+			int length = in.getInt();
+			if (length > 0)
+				in.position(in.position() + length);
+		}
+	},
+	/** {@link EntityId} annotated int, translated to the loaded entity on read. */
+	ENTITY_ID(4) {
+		@Override
+		void write(ColumnWriter out, Field f, Object c) throws IllegalAccessException {
+			out.putInt(f.getInt(c));
+		}
+
+		@Override
+		void read(ByteBuffer in, Field f, Object c, int[] ids) throws IllegalAccessException {
+			f.setInt(c, translate(in.getInt(), ids));
+		}
+	};
+
+	/** Bytes per value, {@code -1} if variable. */
+	final int width;
+
+	ColumnType(int width) {
+		this.width = width;
+	}
+
+	abstract void write(ColumnWriter out, Field f, Object c) throws IllegalAccessException;
+
+	/**
+	 * @param ids translates saved entity ids to loaded entity ids.
+	 */
+	abstract void read(ByteBuffer in, Field f, Object c, int[] ids) throws IllegalAccessException;
+
+	/** @return bytes written by {@link #write} for component c. */
+	long size(Field f, Object c) throws IllegalAccessException {
+		return width;
+	}
+
+	/** Advances past a single value. */
+	void skip(ByteBuffer in) {
+		in.position(in.position() + width);
+	}
+
+	/**
+	 * @return column type of field, or {@code null} if unsupported.
+	 */
+	static ColumnType of(Field f) {
+		Class<?> type = f.getType();
+		if (int.class == type)
+			return f.isAnnotationPresent(EntityId.class) ? ENTITY_ID : INT;
+		else if (float.class == type)
+			return FLOAT;
+		else if (boolean.class == type)
+			return BOOLEAN;
+		else if (long.class == type)
+			return LONG;
+		else if (double.class == type)
+			return DOUBLE;
+		else if (byte.class == type)
+			return BYTE;
+		else if (short.class == type)
+			return SHORT;
+		else if (char.class == type)
+			return CHAR;
+		else if (String.class == type)
+			return STRING;
+		else
+			return null;
+	}
+
+	static ColumnType valueOf(byte ordinal) {
+		ColumnType[] types = values();
+		if (ordinal < 0 || ordinal >= types.length)
+			throw new SerializationException("Unknown column type: " + ordinal);
+
+		return types[ordinal];
+	}
+
+	static int translate(int savedId, int[] ids) {
+		return (savedId >= 0 && ids.length > savedId) ? ids[savedId] : -1;
+	}
+
+	static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length == -1)
+			return null;
+
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, ColumnWriter.UTF_8);
+	}
+}
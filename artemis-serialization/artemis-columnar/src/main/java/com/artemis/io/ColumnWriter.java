@@ -0,0 +1,116 @@
+package com.artemis.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Buffered big-endian writer for columnar snapshots.
+ */
+final class ColumnWriter {
+	static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final OutputStream out;
+	private final ByteBuffer buffer;
+
+	ColumnWriter(OutputStream out, int bufferSize) {
+		this.out = out;
+		buffer = ByteBuffer.allocate(bufferSize);
+	}
+
+	void putBoolean(boolean value) {
+		putByte((byte) (value ? 1 : 0));
+	}
+
+	void putByte(byte value) {
+		ensure(1);
+		buffer.put(value);
+	}
+
+	void putShort(short value) {
+		ensure(2);
+		buffer.putShort(value);
+	}
+
+	void putChar(char value) {
+		ensure(2);
+		buffer.putChar(value);
+	}
+
+	void putInt(int value) {
+		ensure(4);
+		buffer.putInt(value);
+	}
+
+	void putLong(long value) {
+		ensure(8);
+		buffer.putLong(value);
+	}
+
+	void putFloat(float value) {
+		ensure(4);
+		buffer.putFloat(value);
+	}
+
+	void putDouble(double value) {
+		ensure(8);
+		buffer.putDouble(value);
+	}
+
+	void putInts(int[] values, int offset, int length) {
+		for (int i = offset, s = offset + length; s > i; i++)
+			putInt(values[i]);
+	}
+
+	/** Writes length prefixed UTF-8, {@code -1} length for {@code null}. */
+	void putString(String value) {
+		if (value == null) {
+			putInt(-1);
+			return;
+		}
+
+		byte[] bytes = value.getBytes(UTF_8);
+		putInt(bytes.length);
+		putBytes(bytes);
+	}
+
+	void putBytes(byte[] bytes) {
+		int offset = 0;
+		while (bytes.length > offset) {
+			ensure(1);
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	void flush() {
+		drain();
+		try {
+			out.flush();
+		} catch (IOException e) {
+			throw new SerializationException(e);
+		}
+	}
+
+	/** @return number of bytes {@link #putString} writes for value. */
+	static int sizeOf(String value) {
+		return (value != null) ? 4 + value.getBytes(UTF_8).length : 4;
+	}
+
+	private void ensure(int bytes) {
+		if (bytes > buffer.remaining())
+			drain();
+	}
+
+	private void drain() {
+		try {
+			out.write(buffer.array(), 0, buffer.position());
+		} catch (IOException e) {
+			throw new SerializationException(e);
+		}
+
+		buffer.clear();
+	}
+}
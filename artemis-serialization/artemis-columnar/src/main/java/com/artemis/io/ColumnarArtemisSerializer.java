@@ -0,0 +1,744 @@
+package com.artemis.io;
+
+import com.artemis.*;
+import com.artemis.annotations.Columnar;
+import com.artemis.annotations.EntityId;
+import com.artemis.annotations.Transient;
+import com.artemis.components.SerializationTag;
+import com.artemis.managers.GroupManager;
+import com.artemis.managers.TagManager;
+import com.artemis.managers.WorldSerializationManager;
+import com.artemis.utils.Bag;
+import com.artemis.utils.BitVector;
+import com.artemis.utils.ConverterUtil;
+import com.artemis.utils.ImmutableIntBag;
+import com.artemis.utils.IntBag;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static com.artemis.utils.reflect.ClassReflection.isAnnotationPresent;
+
+/**
+ * {@link WorldSerializationManager.ArtemisSerializer} writing binary,
+ * columnar snapshots.
+ * <p>
+ * A snapshot starts with an index of all saved component types, listing
+ * each type's field columns and the offset of its column block. The index
+ * is followed by the saved entities grouped by composition, and by tags,
+ * groups and {@link SerializationTag keys}. Each component type is then
+ * written as a contiguous block, one column per field, holding a value for
+ * every entity with the component.
+ * <p>
+ * Loading creates the entities of each composition in bulk and fills
+ * component fields column by column; {@link Columnar} components are
+ * written straight into the mapper's columns. {@link #load(File, Class)}
+ * memory maps the snapshot instead of copying it onto the heap.
+ * <p>
+ * {@link DeltaSnapshots} writes incremental snapshots in the same layout,
+ * holding only changed entities and the ids of deleted entities.
+ * <p>
+ * Component fields must be primitives or {@code String}s; {@link EntityId}
+ * annotated ints are translated to the loaded entities. {@code Entity},
+ * {@code Bag} and other object fields are rejected, as are
+ * {@link SaveFileFormat} subclasses declaring fields of their own. Fields
+ * removed since a snapshot was taken are skipped when loading it, fields
+ * added keep their default values.
+ */
+public class ColumnarArtemisSerializer extends WorldSerializationManager.ArtemisSerializer<Void> {
+	static final int MAGIC = 0x41525443; // ARTC
+	static final int DELTA_MAGIC = 0x41525444; // ARTD
+	static final int VERSION = 1;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final ReferenceTracker referenceTracker;
+	private final Map<Class<? extends Component>, ComponentLayout> layouts =
+		new IdentityHashMap<Class<? extends Component>, ComponentLayout>();
+	private final Bag<Component> components = new Bag<Component>();
+
+	public ColumnarArtemisSerializer(World world) {
+		super(world);
+		referenceTracker = new ReferenceTracker(world);
+	}
+
+	/**
+	 * Not supported; all component fields are written as columns.
+	 *
+	 * @throws SerializationException always
+	 */
+	@Override
+	public WorldSerializationManager.ArtemisSerializer<Void> register(Class<?> type, Void serializer) {
+		throw new SerializationException("Columnar snapshots don't support custom serializers.");
+	}
+
+	@Override
+	public void save(OutputStream out, SaveFileFormat save) {
+		checkFormat(save.getClass());
+
+		referenceTracker.inspectTypes(world);
+		referenceTracker.preWrite(save);
+		write(new ColumnWriter(out, BUFFER_SIZE), MAGIC, save.metadata.version, save.entities, null);
+	}
+
+	/**
+	 * Writes a delta snapshot, see {@link DeltaSnapshots}. Referenced entities
+	 * are not pulled into the snapshot; references are resolved against the
+	 * entities of the whole chain when replayed.
+	 *
+	 * @param entities created or changed entities.
+	 * @param deleted ids of deleted entities, as saved by earlier snapshots.
+	 */
+	void saveDelta(OutputStream out, IntBag entities, IntBag deleted) {
+		write(new ColumnWriter(out, BUFFER_SIZE), DELTA_MAGIC, SaveFileFormat.Metadata.LATEST, entities, deleted);
+	}
+
+	private void write(ColumnWriter writer, int magic, int metadataVersion, IntBag entities, IntBag deleted) {
+		// entities grouped by composition
+		Bag<ComponentLayout> types = new Bag<ComponentLayout>();
+		Map<Class<? extends Component>, Integer> typeIndices =
+			new IdentityHashMap<Class<? extends Component>, Integer>();
+		Bag<IntBag> runs = new Bag<IntBag>();
+		Bag<int[]> runTypes = new Bag<int[]>();
+
+		ArchetypeChunks chunks = new ArchetypeChunks(world, entities, Integer.MAX_VALUE);
+		IntBag run = new IntBag();
+		while (chunks.next(run)) {
+			runTypes.add(typeIndices(run.get(0), types, typeIndices));
+			runs.add(run);
+			run = new IntBag();
+		}
+
+		IntBag[] rows = new IntBag[types.size()];
+		for (int i = 0; rows.length > i; i++)
+			rows[i] = new IntBag();
+
+		for (int i = 0, s = runs.size(); s > i; i++) {
+			for (int type : runTypes.get(i))
+				rows[type].addAll(runs.get(i));
+		}
+
+		writer.putInt(magic);
+		writer.putInt(VERSION);
+		writer.putInt(metadataVersion);
+		writer.putInt(entities.size());
+		if (deleted != null) {
+			writer.putInt(deleted.size());
+			writer.putInts(deleted.getData(), 0, deleted.size());
+		}
+
+		// index of column blocks
+		writer.putInt(types.size());
+		long offset = 0;
+		for (int i = 0, s = types.size(); s > i; i++) {
+			ComponentLayout layout = types.get(i);
+			writer.putString(layout.type.getName());
+			writer.putInt(layout.fields.length);
+			for (int f = 0; layout.fields.length > f; f++) {
+				writer.putString(layout.fields[f].getName());
+				writer.putByte((byte) layout.columns[f].ordinal());
+			}
+			writer.putInt(rows[i].size());
+			writer.putLong(offset);
+
+			offset += blockSize(layout, rows[i]);
+		}
+
+		writer.putInt(runs.size());
+		for (int i = 0, s = runs.size(); s > i; i++) {
+			int[] typesInRun = runTypes.get(i);
+			writer.putInt(typesInRun.length);
+			writer.putInts(typesInRun, 0, typesInRun.length);
+
+			IntBag ids = runs.get(i);
+			writer.putInt(ids.size());
+			writer.putInts(ids.getData(), 0, ids.size());
+		}
+
+		BitVector saved = ConverterUtil.toBitVector(entities, new BitVector());
+		writeTags(writer, saved);
+		writeGroups(writer, saved);
+		writeKeys(writer, entities);
+
+		for (int i = 0, s = types.size(); s > i; i++)
+			writeBlock(writer, types.get(i), rows[i]);
+
+		writer.flush();
+	}
+
+	@Override
+	public <T extends SaveFileFormat> T load(InputStream is, Class<T> format) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try {
+			int read;
+			while ((read = is.read(buffer)) != -1)
+				bytes.write(buffer, 0, read);
+		} catch (IOException e) {
+			throw new SerializationException(e);
+		}
+
+		return load(ByteBuffer.wrap(bytes.toByteArray()), format);
+	}
+
+	/**
+	 * Loads snapshot by memory mapping the file. Nothing refers to the
+	 * mapping once loaded, but it's only unmapped when garbage collected;
+	 * until then, the file can't be deleted on some platforms.
+	 */
+	public <T extends SaveFileFormat> T load(File file, Class<T> format) {
+		return load(map(file), format);
+	}
+
+	/**
+	 * Loads snapshot from buffer, starting at its current position. The
+	 * buffer itself is not modified.
+	 */
+	public <T extends SaveFileFormat> T load(ByteBuffer buffer, Class<T> format) {
+		T save = newFormat(format);
+		load(buffer, save, new int[0], false);
+		return save;
+	}
+
+	/**
+	 * Loads a base or delta snapshot into the world. Entities of a delta
+	 * already loaded from earlier snapshots of the chain are updated in place.
+	 *
+	 * @param ids translates saved entity ids to loaded entity ids.
+	 * @return {@code ids}, grown to fit all loaded entities.
+	 */
+	int[] load(ByteBuffer buffer, SaveFileFormat save, int[] ids, boolean delta) {
+		ByteBuffer in = buffer.duplicate();
+		in.order(ByteOrder.BIG_ENDIAN);
+
+		int magic = in.getInt();
+		if (magic == DELTA_MAGIC && !delta)
+			throw new SerializationException("Delta snapshots must be replayed through DeltaSnapshots.");
+		if (magic == MAGIC && delta)
+			throw new SerializationException("Expected a delta snapshot, found a base snapshot.");
+		if (magic != MAGIC && magic != DELTA_MAGIC)
+			throw new SerializationException("Not a columnar snapshot.");
+
+		int version = in.getInt();
+		if (version != VERSION)
+			throw new SerializationException("Unsupported columnar snapshot version: " + version);
+
+		save.metadata.version = in.getInt();
+		int entityCount = in.getInt();
+
+		if (delta) {
+			for (int i = 0, s = in.getInt(); s > i; i++) {
+				int savedId = in.getInt();
+				int id = ColumnType.translate(savedId, ids);
+				if (id != -1) {
+					world.delete(id);
+					ids[savedId] = -1;
+				}
+			}
+		}
+
+		ColumnBlock[] blocks = new ColumnBlock[in.getInt()];
+		for (int i = 0; blocks.length > i; i++)
+			blocks[i] = new ColumnBlock(in, layout(componentType(ColumnType.readString(in))));
+
+		IntBag loaded = save.entities;
+		loaded.ensureCapacity(loaded.size() + entityCount);
+		for (int run = 0, runs = in.getInt(); runs > run; run++) {
+			int[] typesInRun = new int[in.getInt()];
+			ArchetypeBuilder builder = new ArchetypeBuilder();
+			for (int i = 0; typesInRun.length > i; i++) {
+				typesInRun[i] = in.getInt();
+				builder.add(blocks[typesInRun[i]].layout.type);
+			}
+
+			int offset = loaded.size();
+			int count = in.getInt();
+			if (delta) {
+				Archetype archetype = builder.build(world);
+				for (int i = 0; count > i; i++) {
+					int savedId = in.getInt();
+					int id = ColumnType.translate(savedId, ids);
+					if (id != -1) {
+						reshape(id, blocks, typesInRun);
+					} else {
+						id = world.create(archetype);
+						ids = ensureCapacity(ids, savedId);
+						ids[savedId] = id;
+					}
+					loaded.add(id);
+				}
+			} else {
+				world.create(builder.build(world), count, loaded);
+
+				int[] loadedIds = loaded.getData();
+				for (int i = 0; count > i; i++) {
+					int savedId = in.getInt();
+					ids = ensureCapacity(ids, savedId);
+					ids[savedId] = loadedIds[offset + i];
+				}
+			}
+
+			int[] loadedIds = loaded.getData();
+			for (int type : typesInRun) {
+				IntBag rows = blocks[type].entities;
+				for (int i = offset, s = offset + count; s > i; i++)
+					rows.add(loadedIds[i]);
+			}
+		}
+
+		readTags(in, ids);
+		readGroups(in, ids);
+		readKeys(in, ids, save);
+
+		int columnsStart = in.position();
+		for (ColumnBlock block : blocks) {
+			in.position(columnsStart + (int) block.offset);
+			readBlock(in, block, ids);
+		}
+
+		return ids;
+	}
+
+	/**
+	 * Matches composition of an entity loaded from an earlier snapshot to the
+	 * composition saved by a delta. Tags and groups are reassigned by the delta.
+	 */
+	private void reshape(int entityId, ColumnBlock[] blocks, int[] typesInRun) {
+		components.clear();
+		world.getComponentManager().getComponentsFor(entityId, components);
+		for (int i = 0, s = components.size(); s > i; i++) {
+			Class<? extends Component> type = components.get(i).getClass();
+			if (!isAnnotationPresent(type, Transient.class) && !contains(blocks, typesInRun, type))
+				world.getMapper(type).remove(entityId);
+		}
+		components.clear();
+
+		for (int type : typesInRun)
+			world.getMapper(blocks[type].layout.type).create(entityId);
+
+		TagManager tagManager = world.getSystem(TagManager.class);
+		if (tagManager != null && tagManager.getTag(entityId) != null)
+			tagManager.unregister(tagManager.getTag(entityId));
+
+		GroupManager groupManager = world.getSystem(GroupManager.class);
+		if (groupManager != null)
+			groupManager.removeFromAllGroups(entityId);
+	}
+
+	private static boolean contains(ColumnBlock[] blocks, int[] typesInRun, Class<? extends Component> type) {
+		for (int index : typesInRun) {
+			if (blocks[index].layout.type == type)
+				return true;
+		}
+
+		return false;
+	}
+
+	private int[] typeIndices(int entityId,
+	                          Bag<ComponentLayout> types,
+	                          Map<Class<? extends Component>, Integer> typeIndices) {
+
+		components.clear();
+		world.getComponentManager().getComponentsFor(entityId, components);
+
+		IntBag indices = new IntBag();
+		for (int i = 0, s = components.size(); s > i; i++) {
+			Class<? extends Component> type = components.get(i).getClass();
+			if (isAnnotationPresent(type, Transient.class))
+				continue;
+
+			Integer index = typeIndices.get(type);
+			if (index == null) {
+				index = types.size();
+				typeIndices.put(type, index);
+				types.add(layout(type));
+			}
+			indices.add(index);
+		}
+		components.clear();
+
+		return Arrays.copyOf(indices.getData(), indices.size());
+	}
+
+	private long blockSize(ComponentLayout layout, IntBag rows) {
+		ComponentMapper<? extends Component> mapper = world.getMapper(layout.type);
+		int[] ids = rows.getData();
+
+		long size = 0;
+		for (int f = 0; layout.fields.length > f; f++) {
+			ColumnType column = layout.columns[f];
+			if (column.width != -1) {
+				size += (long) column.width * rows.size();
+				continue;
+			}
+
+			try {
+				for (int i = 0, s = rows.size(); s > i; i++)
+					size += column.size(layout.fields[f], mapper.get(ids[i]));
+			} catch (IllegalAccessException e) {
+				throw new SerializationException(e);
+			}
+		}
+
+		return size;
+	}
+
+	private void writeBlock(ColumnWriter out, ComponentLayout layout, IntBag rows) {
+		ComponentMapper<? extends Component> mapper = world.getMapper(layout.type);
+		int[] ids = rows.getData();
+		int size = rows.size();
+
+		for (int f = 0; layout.fields.length > f; f++) {
+			ColumnType column = layout.columns[f];
+			if (mapper instanceof ColumnComponentMapper) {
+				writeColumn(out, (ColumnComponentMapper<?>) mapper, layout.fields[f].getName(), column, ids, size);
+				continue;
+			}
+
+			Field field = layout.fields[f];
+			try {
+				for (int i = 0; size > i; i++)
+					column.write(out, field, mapper.get(ids[i]));
+			} catch (IllegalAccessException e) {
+				throw new SerializationException(e);
+			}
+		}
+	}
+
+	private static void writeColumn(ColumnWriter out,
+	                                ColumnComponentMapper<?> mapper,
+	                                String field,
+	                                ColumnType column,
+	                                int[] ids,
+	                                int size) {
+		switch (column) {
+			case FLOAT:
+				ColumnComponentMapper.FloatColumn floats = mapper.floatColumn(field);
+				for (int i = 0; size > i; i++)
+					out.putFloat(floats.get(ids[i]));
+				break;
+			case INT:
+			case ENTITY_ID:
+				ColumnComponentMapper.IntColumn ints = mapper.intColumn(field);
+				for (int i = 0; size > i; i++)
+					out.putInt(ints.get(ids[i]));
+				break;
+			case LONG:
+				ColumnComponentMapper.LongColumn longs = mapper.longColumn(field);
+				for (int i = 0; size > i; i++)
+					out.putLong(longs.get(ids[i]));
+				break;
+			case DOUBLE:
+				ColumnComponentMapper.DoubleColumn doubles = mapper.doubleColumn(field);
+				for (int i = 0; size > i; i++)
+					out.putDouble(doubles.get(ids[i]));
+				break;
+			default:
+				throw new SerializationException("Unexpected column type: " + column);
+		}
+	}
+
+	private void readBlock(ByteBuffer in, ColumnBlock block, int[] ids) {
+		ComponentLayout layout = block.layout;
+		ComponentMapper<? extends Component> mapper = world.getMapper(layout.type);
+
+		int[] rows = block.entities.getData();
+		int size = block.entities.size();
+		if (size != block.rows) {
+			throw new SerializationException("Corrupt snapshot, expected " + block.rows
+				+ " " + layout.type.getSimpleName() + " but found " + size + ".");
+		}
+
+		for (int c = 0; block.columns.length > c; c++) {
+			ColumnType column = block.columns[c];
+			int f = layout.indexOf(block.names[c]);
+			if (f == -1) {
+				skip(in, column, size);
+				continue;
+			}
+
+			if (!compatible(layout.columns[f], column)) {
+				throw new SerializationException("Field type changed: "
+					+ layout.type.getSimpleName() + "." + block.names[c]);
+			}
+
+			if (mapper instanceof ColumnComponentMapper) {
+				readColumn(in, (ColumnComponentMapper<?>) mapper, block.names[c], column, rows, size, ids);
+				continue;
+			}
+
+			Field field = layout.fields[f];
+			try {
+				for (int i = 0; size > i; i++)
+					column.read(in, field, mapper.get(rows[i]), ids);
+			} catch (IllegalAccessException e) {
+				throw new SerializationException(e);
+			}
+		}
+
+		if (mapper instanceof FlyweightComponentMapper)
+			((FlyweightComponentMapper<?>) mapper).flush();
+	}
+
+	private static void readColumn(ByteBuffer in,
+	                               ColumnComponentMapper<?> mapper,
+	                               String field,
+	                               ColumnType column,
+	                               int[] rows,
+	                               int size,
+	                               int[] ids) {
+		switch (column) {
+			case FLOAT:
+				ColumnComponentMapper.FloatColumn floats = mapper.floatColumn(field);
+				for (int i = 0; size > i; i++)
+					floats.set(rows[i], in.getFloat());
+				break;
+			case INT:
+				ColumnComponentMapper.IntColumn ints = mapper.intColumn(field);
+				for (int i = 0; size > i; i++)
+					ints.set(rows[i], in.getInt());
+				break;
+			case ENTITY_ID:
+				ColumnComponentMapper.IntColumn references = mapper.intColumn(field);
+				for (int i = 0; size > i; i++)
+					references.set(rows[i], ColumnType.translate(in.getInt(), ids));
+				break;
+			case LONG:
+				ColumnComponentMapper.LongColumn longs = mapper.longColumn(field);
+				for (int i = 0; size > i; i++)
+					longs.set(rows[i], in.getLong());
+				break;
+			case DOUBLE:
+				ColumnComponentMapper.DoubleColumn doubles = mapper.doubleColumn(field);
+				for (int i = 0; size > i; i++)
+					doubles.set(rows[i], in.getDouble());
+				break;
+			default:
+				throw new SerializationException("Unexpected column type: " + column);
+		}
+	}
+
+	private static void skip(ByteBuffer in, ColumnType column, int rows) {
+		if (column.width != -1) {
+			in.position(in.position() + column.width * rows);
+		} else {
+			for (int i = 0; rows > i; i++)
+				column.skip(in);
+		}
+	}
+
+	/** {@link EntityId} may be added or removed, as long as the field stays an int. */
+	private static boolean compatible(ColumnType current, ColumnType saved) {
+		if (current == saved)
+			return true;
+
+		return (current == ColumnType.INT || current == ColumnType.ENTITY_ID)
+			&& (saved == ColumnType.INT || saved == ColumnType.ENTITY_ID);
+	}
+
+	private void writeTags(ColumnWriter out, BitVector saved) {
+		TagManager tagManager = world.getSystem(TagManager.class);
+		Bag<String> tags = new Bag<String>();
+		IntBag tagged = new IntBag();
+		if (tagManager != null) {
+			for (String tag : tagManager.getRegisteredTags()) {
+				int id = tagManager.getEntityId(tag);
+				if (id != -1 && saved.get(id)) {
+					tags.add(tag);
+					tagged.add(id);
+				}
+			}
+		}
+
+		out.putInt(tags.size());
+		for (int i = 0, s = tags.size(); s > i; i++) {
+			out.putString(tags.get(i));
+			out.putInt(tagged.get(i));
+		}
+	}
+
+	private void readTags(ByteBuffer in, int[] ids) {
+		TagManager tagManager = world.getSystem(TagManager.class);
+		for (int i = 0, s = in.getInt(); s > i; i++) {
+			String tag = ColumnType.readString(in);
+			int id = ColumnType.translate(in.getInt(), ids);
+			if (tagManager != null && id != -1)
+				tagManager.register(tag, id);
+		}
+	}
+
+	private void writeGroups(ColumnWriter out, BitVector saved) {
+		GroupManager groupManager = world.getSystem(GroupManager.class);
+		if (groupManager == null) {
+			out.putInt(0);
+			return;
+		}
+
+		Bag<String> names = new Bag<String>();
+		Bag<IntBag> members = new Bag<IntBag>();
+		for (int group = 0, s = groupManager.getGroupCount(); s > group; group++) {
+			ImmutableIntBag<?> ids = groupManager.getEntityIds(group);
+			IntBag savedIds = new IntBag();
+			for (int i = 0, size = ids.size(); size > i; i++) {
+				if (saved.get(ids.get(i)))
+					savedIds.add(ids.get(i));
+			}
+
+			if (!savedIds.isEmpty()) {
+				names.add(groupManager.getGroupName(group));
+				members.add(savedIds);
+			}
+		}
+
+		out.putInt(names.size());
+		for (int i = 0, s = names.size(); s > i; i++) {
+			IntBag ids = members.get(i);
+			out.putString(names.get(i));
+			out.putInt(ids.size());
+			out.putInts(ids.getData(), 0, ids.size());
+		}
+	}
+
+	private void readGroups(ByteBuffer in, int[] ids) {
+		GroupManager groupManager = world.getSystem(GroupManager.class);
+		for (int i = 0, s = in.getInt(); s > i; i++) {
+			String group = ColumnType.readString(in);
+			for (int j = 0, members = in.getInt(); members > j; j++) {
+				int id = ColumnType.translate(in.getInt(), ids);
+				if (groupManager != null && id != -1)
+					groupManager.add(id, group);
+			}
+		}
+	}
+
+	private void writeKeys(ColumnWriter out, IntBag entities) {
+		ComponentMapper<SerializationTag> keys = world.getMapper(SerializationTag.class);
+		IntBag keyed = new IntBag();
+		int[] ids = entities.getData();
+		for (int i = 0, s = entities.size(); s > i; i++) {
+			if (keys.has(ids[i]))
+				keyed.add(ids[i]);
+		}
+
+		out.putInt(keyed.size());
+		for (int i = 0, s = keyed.size(); s > i; i++) {
+			out.putString(keys.get(keyed.get(i)).tag);
+			out.putInt(keyed.get(i));
+		}
+	}
+
+	private void readKeys(ByteBuffer in, int[] ids, SaveFileFormat save) {
+		ComponentMapper<SerializationTag> keys = world.getMapper(SerializationTag.class);
+		for (int i = 0, s = in.getInt(); s > i; i++) {
+			String key = ColumnType.readString(in);
+			int id = ColumnType.translate(in.getInt(), ids);
+			if (id != -1) {
+				keys.create(id).tag = key;
+				save.tracker.register(key, world.getEntity(id));
+			}
+		}
+	}
+
+	private ComponentLayout layout(Class<? extends Component> type) {
+		ComponentLayout layout = layouts.get(type);
+		if (layout == null) {
+			layout = new ComponentLayout(type);
+			layouts.put(type, layout);
+		}
+
+		return layout;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Class<? extends Component> componentType(String name) {
+		try {
+			Class<?> type = Class.forName(name);
+			if (!Component.class.isAssignableFrom(type))
+				throw new SerializationException("Not a component type: " + name);
+
+			return (Class<? extends Component>) type;
+		} catch (ClassNotFoundException e) {
+			throw new SerializationException("No component type with name: " + name, e);
+		}
+	}
+
+	/**
+	 * Maps the file read-only. The file is closed right away; the mapping
+	 * lives until the returned buffer is garbage collected.
+	 */
+	static ByteBuffer map(File file) {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new SerializationException("Unable to map snapshots larger than 2GB: " + file);
+
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			throw new SerializationException("Unable to map " + file, e);
+		}
+	}
+
+	private static <T extends SaveFileFormat> T newFormat(Class<T> format) {
+		try {
+			return format.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new SerializationException("Unable to instantiate " + format.getSimpleName(), e);
+		}
+	}
+
+	private static void checkFormat(Class<?> format) {
+		for (Class<?> c = format; c != SaveFileFormat.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic())
+					continue;
+
+				throw new SerializationException("Columnar snapshots only persist entities, unable to save "
+					+ c.getSimpleName() + "." + field.getName());
+			}
+		}
+	}
+
+	private static int[] ensureCapacity(int[] ids, int index) {
+		if (ids.length > index)
+			return ids;
+
+		int length = ids.length;
+		int[] grown = Arrays.copyOf(ids, Math.max(index + 1, 2 * length));
+		Arrays.fill(grown, length, grown.length, -1);
+		return grown;
+	}
+
+	/** Index entry of a component type's columns. */
+	private static final class ColumnBlock {
+		final ComponentLayout layout;
+		final String[] names;
+		final ColumnType[] columns;
+		final int rows;
+		final long offset;
+
+		/** Loaded entities, in row order. */
+		final IntBag entities = new IntBag();
+
+		ColumnBlock(ByteBuffer in, ComponentLayout layout) {
+			this.layout = layout;
+
+			names = new String[in.getInt()];
+			columns = new ColumnType[names.length];
+			for (int i = 0; names.length > i; i++) {
+				names[i] = ColumnType.readString(in);
+				columns[i] = ColumnType.valueOf(in.get());
+			}
+
+			rows = in.getInt();
+			offset = in.getLong();
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.artemis.io;
+
+import com.artemis.Component;
+import com.artemis.PooledComponent;
+import com.artemis.utils.Bag;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Persisted fields of a component type, one column per field.
+ */
+final class ComponentLayout {
+	final Class<? extends Component> type;
+	final Field[] fields;
+	final ColumnType[] columns;
+
+	ComponentLayout(Class<? extends Component> type) {
+		this.type = type;
+
+		Bag<Field> found = new Bag<Field>(Field.class);
+		for (Class<?> c = type; c != Component.class && c != PooledComponent.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic())
+					continue;
+
+				if (ColumnType.of(field) == null) {
+					throw new SerializationException("Unsupported field type for columnar snapshots: "
+						+ type.getSimpleName() + "." + field.getName()
+						+ " (" + field.getType().getSimpleName() + ")");
+				}
+
+				field.setAccessible(true);
+				found.add(field);
+			}
+		}
+
+		fields = new Field[found.size()];
+		columns = new ColumnType[found.size()];
+		for (int i = 0; fields.length > i; i++) {
+			fields[i] = found.get(i);
+			columns[i] = ColumnType.of(fields[i]);
+		}
+	}
+
+	/** @return index of field, or {@code -1} if no longer present. */
+	int indexOf(String name) {
+		for (int i = 0; fields.length > i; i++) {
+			if (fields[i].getName().equals(name))
+				return i;
+		}
+
+		return -1;
+	}
+}
@@ -0,0 +1,242 @@
+package com.artemis.io;
+
+import com.artemis.*;
+import com.artemis.components.SerializationTag;
+import com.artemis.utils.BitVector;
+import com.artemis.utils.ImmutableBag;
+import com.artemis.utils.IntBag;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import static com.artemis.Aspect.all;
+
+/**
+ * Incremental snapshots of all entities, written by a
+ * {@link ColumnarArtemisSerializer}.
+ * <p>
+ * A chain starts with a base snapshot, followed by deltas holding only the
+ * entities created or changed since the previous snapshot of the chain,
+ * along with the ids of entities deleted since. An entity is changed once
+ * its composition changes, or when any of its components are created,
+ * replaced or {@link ComponentMapper#markChanged(int) marked as changed}.
+ * Writes directly to component fields go unnoticed, as with
+ * {@link com.artemis.systems.ChangedIteratingSystem}; use
+ * {@link ComponentMapper#modify(int)}. Tags and groups are saved with the
+ * entities, but changing them alone doesn't flag the entity.
+ * <p>
+ * {@link #load(ByteBuffer, ByteBuffer...)} replays a base snapshot and its
+ * deltas, updating entities of earlier snapshots in place, so references
+ * held by unchanged entities stay valid. {@link World#compact()} rewrites
+ * references without flagging entities, hence the next snapshot after
+ * compacting is a base snapshot.
+ * <p>
+ * Chains are compacted by rebasing: {@link #save(OutputStream)} writes a
+ * new base snapshot once the chain holds {@link #setMaxChainLength(int)}
+ * deltas, or when the pending changes cover more than
+ * {@link #setRebaseRatio(float)} of all entities. Snapshots of the former
+ * chain are no longer needed after that. Loading always starts a new chain,
+ * as loaded entities don't keep their saved ids.
+ * <p>
+ * Save between invocations of {@link World#process()}; entities created
+ * or changed since the last process are included once processed.
+ */
+public class DeltaSnapshots {
+	private final World world;
+	private final ColumnarArtemisSerializer backend;
+	private final EntitySubscription allEntities;
+
+	/** Entities created or changed since the last snapshot. */
+	private final BitVector changed = new BitVector();
+
+	/** Deleted entities, by their id as of the last snapshot. */
+	private final BitVector deleted = new BitVector();
+
+	private int trackedTypes;
+
+	/** Deltas since the base snapshot, {@code -1} if there's no base. */
+	private int chainLength = -1;
+	private int maxChainLength = 16;
+	private float rebaseRatio = 0.5f;
+
+	public DeltaSnapshots(World world, ColumnarArtemisSerializer backend) {
+		this.world = world;
+		this.backend = backend;
+
+		world.getAspectSubscriptionManager().trackChanges(changed);
+		world.getEntityManager().registerEntityStore(changed);
+		world.getEntityManager().register(new EntityManager.RemapListener() {
+			@Override
+			public void remapped(IntBag from, IntBag to) {
+				// references held by entities that didn't move are rewritten too
+				chainLength = -1;
+			}
+		});
+
+		allEntities = world.getAspectSubscriptionManager().get(all());
+		allEntities.addSubscriptionListener(new EntitySubscription.SubscriptionListener() {
+			@Override
+			public void inserted(IntBag entities) {}
+
+			@Override
+			public void removed(IntBag entities) {
+				int[] ids = entities.getData();
+				for (int i = 0, s = entities.size(); s > i; i++) {
+					deleted.set(ids[i]);
+					changed.clear(ids[i]);
+				}
+			}
+		});
+
+		trackComponentChanges();
+	}
+
+	/**
+	 * Writes a base snapshot if the chain is due for compaction, otherwise
+	 * a delta.
+	 *
+	 * @return {@code true} if a base snapshot was written, starting a new chain.
+	 */
+	public boolean save(OutputStream out) {
+		changed.and(allEntities.getActiveEntityIds());
+		boolean rebase = chainLength == -1
+			|| chainLength >= maxChainLength
+			|| changed.cardinality() > rebaseRatio * allEntities.getEntities().size();
+
+		if (rebase) {
+			saveBase(out);
+		} else {
+			saveDelta(out);
+		}
+
+		return rebase;
+	}
+
+	/**
+	 * Writes a snapshot of all entities, starting a new chain.
+	 */
+	public void saveBase(OutputStream out) {
+		trackComponentChanges();
+		backend.save(out, new SaveFileFormat(allEntities.getEntities()));
+
+		reset();
+		chainLength = 0;
+	}
+
+	/**
+	 * Writes entities created or changed, and ids of entities deleted since
+	 * the previous snapshot of the chain.
+	 *
+	 * @throws IllegalStateException if no base snapshot has been written
+	 *         since creation, loading or compaction of the world.
+	 */
+	public void saveDelta(OutputStream out) {
+		if (chainLength == -1)
+			throw new IllegalStateException("Delta snapshots require a base snapshot, see #saveBase.");
+
+		trackComponentChanges();
+		changed.and(allEntities.getActiveEntityIds());
+		backend.saveDelta(out, changed.toIntBag(new IntBag()), deleted.toIntBag(new IntBag()));
+
+		reset();
+		chainLength++;
+	}
+
+	/**
+	 * Loads a base snapshot followed by its deltas, in the order written.
+	 * The next snapshot written is a base snapshot.
+	 *
+	 * @return loaded entities, and entities by {@link SerializationTag key}.
+	 */
+	public SaveFileFormat load(ByteBuffer base, ByteBuffer... deltas) {
+		SaveFileFormat save = new SaveFileFormat();
+		int[] ids = backend.load(base, save, new int[0], false);
+		for (ByteBuffer delta : deltas)
+			ids = backend.load(delta, save, ids, true);
+
+		// loaded entities of earlier snapshots may have been deleted since
+		IntBag loaded = save.entities;
+		loaded.setSize(0);
+		for (int id : ids) {
+			if (id != -1)
+				loaded.add(id);
+		}
+
+		save.tracker = new SerializationKeyTracker();
+		ComponentMapper<SerializationTag> keys = world.getMapper(SerializationTag.class);
+		for (int i = 0, s = loaded.size(); s > i; i++) {
+			int id = loaded.get(i);
+			if (keys.has(id))
+				save.tracker.register(keys.get(id).tag, world.getEntity(id));
+		}
+
+		chainLength = -1;
+		return save;
+	}
+
+	/**
+	 * Loads memory mapped snapshots, see {@link #load(ByteBuffer, ByteBuffer...)}.
+	 * As with {@link ColumnarArtemisSerializer#load(File, Class)}, mappings are
+	 * released once garbage collected.
+	 */
+	public SaveFileFormat load(File base, File... deltas) {
+		ByteBuffer[] buffers = new ByteBuffer[deltas.length];
+		for (int i = 0; deltas.length > i; i++)
+			buffers[i] = ColumnarArtemisSerializer.map(deltas[i]);
+
+		return load(ColumnarArtemisSerializer.map(base), buffers);
+	}
+
+	/**
+	 * @param maxChainLength deltas written before {@link #save(OutputStream)}
+	 *                       writes a new base snapshot.
+	 */
+	public void setMaxChainLength(int maxChainLength) {
+		this.maxChainLength = maxChainLength;
+	}
+
+	/**
+	 * @param rebaseRatio share of changed entities, of all entities, above
+	 *                    which {@link #save(OutputStream)} writes a new base
+	 *                    snapshot.
+	 */
+	public void setRebaseRatio(float rebaseRatio) {
+		this.rebaseRatio = rebaseRatio;
+	}
+
+	/**
+	 * @return number of deltas since the base snapshot, or {@code -1} if no
+	 *         base snapshot has been written since creation, loading or
+	 *         compaction of the world.
+	 */
+	public int getChainLength() {
+		return chainLength;
+	}
+
+	/**
+	 * Stops tracking changes.
+	 */
+	public void dispose() {
+		world.getAspectSubscriptionManager().untrackChanges(changed);
+		world.getEntityManager().unregisterEntityStore(changed);
+
+		ImmutableBag<ComponentType> types = world.getComponentManager().getComponentTypes();
+		for (int i = 0; trackedTypes > i; i++)
+			world.getMapper(types.get(i).getType()).untrackChanges(changed);
+
+		trackedTypes = 0;
+	}
+
+	/** Tracks component types registered since last invocation. */
+	private void trackComponentChanges() {
+		ImmutableBag<ComponentType> types = world.getComponentManager().getComponentTypes();
+		for (int s = types.size(); s > trackedTypes; trackedTypes++)
+			world.getMapper(types.get(trackedTypes).getType()).trackChanges(changed);
+	}
+
+	private void reset() {
+		changed.clear();
+		deleted.clear();
+	}
+}
@@ -0,0 +1,7 @@
+package com.artemis.component;
+
+import com.artemis.Component;
+
+public class Position extends Component {
+	public float x, y;
+}
@@ -0,0 +1,15 @@
+package com.artemis.component;
+
+import com.artemis.Component;
+
+public class Stats extends Component {
+	public boolean alive;
+	public byte level;
+	public short armor;
+	public char grade;
+	public int health;
+	public long experience;
+	public double ratio;
+	public String name;
+	public transient int cached;
+}
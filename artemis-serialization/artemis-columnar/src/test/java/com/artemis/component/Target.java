@@ -0,0 +1,8 @@
+package com.artemis.component;
+
+import com.artemis.Component;
+import com.artemis.annotations.EntityId;
+
+public class Target extends Component {
+	@EntityId public int entityId = -1;
+}
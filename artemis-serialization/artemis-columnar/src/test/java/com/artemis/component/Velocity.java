@@ -0,0 +1,12 @@
+package com.artemis.component;
+
+import com.artemis.Component;
+import com.artemis.annotations.Columnar;
+import com.artemis.annotations.EntityId;
+
+@Columnar
+public class Velocity extends Component {
+	public float x, y;
+	public long ticks;
+	@EntityId public int follow = -1;
+}
@@ -0,0 +1,254 @@
+package com.artemis.managers;
+
+import com.artemis.*;
+import com.artemis.annotations.Wire;
+import com.artemis.component.*;
+import com.artemis.components.SerializationTag;
+import com.artemis.io.ColumnarArtemisSerializer;
+import com.artemis.io.SaveFileFormat;
+import com.artemis.io.SerializationException;
+import com.artemis.utils.IntBag;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+@Wire(failOnNull = false)
+public class ColumnarWorldSerializationManagerTest {
+	private WorldSerializationManager manger;
+	private TagManager tags;
+	private GroupManager groups;
+	private World world;
+	private EntitySubscription allEntities;
+	private ColumnarArtemisSerializer backend;
+
+	@Before
+	public void setup() {
+		setupWorld();
+
+		EntityEdit ee = world.createEntity().edit();
+		Position p = ee.create(Position.class);
+		p.x = 1;
+		p.y = 2;
+		Stats stats = ee.create(Stats.class);
+		stats.alive = true;
+		stats.level = 3;
+		stats.armor = 400;
+		stats.grade = 'b';
+		stats.health = 50;
+		stats.experience = 1L << 40;
+		stats.ratio = 0.25;
+		stats.name = "\u00e6nima";
+		stats.cached = 123;
+		tags.register("tag1", ee.getEntity());
+
+		EntityEdit ee2 = world.createEntity().edit();
+		ee2.create(Position.class).x = 3;
+		groups.add(ee2.getEntity(), "group1");
+		groups.add(ee2.getEntity(), "group2");
+
+		EntityEdit ee3 = world.createEntity().edit();
+		ee3.create(Position.class).x = 4;
+		ee3.create(Stats.class).name = null;
+		ee3.create(SerializationTag.class).tag = "key3";
+		groups.add(ee3.getEntity(), "group1");
+
+		world.process();
+		assertEquals(3, allEntities.getEntities().size());
+	}
+
+	private void setupWorld() {
+		world = new World(new WorldConfiguration()
+				.setSystem(GroupManager.class)
+				.setSystem(TagManager.class)
+				.setSystem(WorldSerializationManager.class));
+
+		world.inject(this);
+		backend = new ColumnarArtemisSerializer(world);
+		manger.setSerializer(backend);
+
+		allEntities = world.getAspectSubscriptionManager().get(Aspect.all());
+	}
+
+	@Test
+	public void save_load_new_world() {
+		byte[] save = save(allEntities.getEntities());
+
+		setupWorld();
+		SaveFileFormat load = manger.load(new ByteArrayInputStream(save), SaveFileFormat.class);
+		world.process();
+
+		assertEquals(3, load.entities.size());
+		assertEquals(3, allEntities.getEntities().size());
+		assertLoaded(load);
+	}
+
+	@Test
+	public void save_load_same_world() {
+		byte[] save = save(allEntities.getEntities());
+		deleteAll();
+
+		SaveFileFormat load = manger.load(new ByteArrayInputStream(save), SaveFileFormat.class);
+		world.process();
+
+		assertEquals(3, allEntities.getEntities().size());
+		assertLoaded(load);
+	}
+
+	@Test
+	public void load_memory_mapped_file() throws Exception {
+		File file = File.createTempFile("columnar", ".bin");
+		try {
+			FileOutputStream fos = new FileOutputStream(file);
+			manger.save(fos, new SaveFileFormat(allEntities.getEntities()));
+			fos.close();
+
+			deleteAll();
+
+			SaveFileFormat load = backend.load(file, SaveFileFormat.class);
+			world.process();
+
+			assertEquals(3, allEntities.getEntities().size());
+			assertLoaded(load);
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void save_load_entity_references() {
+		int target = tags.getEntityId("tag1");
+
+		EntityEdit ee = world.createEntity().edit();
+		ee.create(Target.class).entityId = target;
+		ee.create(Velocity.class);
+		tags.register("holder", ee.getEntity());
+
+		EntityEdit ee2 = world.createEntity().edit();
+		ee2.create(Target.class);
+		tags.register("no-target", ee2.getEntity());
+		world.process();
+
+		ComponentMapper<Velocity> velocities = world.getMapper(Velocity.class);
+		velocities.get(ee.getEntityId()).follow = ee.getEntityId();
+
+		// referenced entity is saved implicitly
+		IntBag toSave = new IntBag();
+		toSave.add(ee.getEntityId());
+		toSave.add(ee2.getEntityId());
+		byte[] save = save(toSave);
+
+		setupWorld();
+		SaveFileFormat load = manger.load(new ByteArrayInputStream(save), SaveFileFormat.class);
+		world.process();
+
+		assertEquals(3, load.entities.size());
+
+		int holder = tags.getEntityId("holder");
+		assertEquals(tags.getEntityId("tag1"), world.getMapper(Target.class).get(holder).entityId);
+		assertEquals(holder, world.getMapper(Velocity.class).get(holder).follow);
+		assertEquals(-1, world.getMapper(Target.class).get(tags.getEntityId("no-target")).entityId);
+	}
+
+	@Test
+	public void save_load_columnar_components() {
+		IntBag ids = allEntities.getEntities();
+		ComponentMapper<Velocity> velocities = world.getMapper(Velocity.class);
+		for (int i = 0, s = ids.size(); s > i; i++) {
+			Velocity v = velocities.create(ids.get(i));
+			v.x = i;
+			v.y = -i;
+			v.ticks = 1000L * i;
+		}
+		world.process();
+
+		byte[] save = save(allEntities.getEntities());
+
+		setupWorld();
+		SaveFileFormat load = manger.load(new ByteArrayInputStream(save), SaveFileFormat.class);
+		world.process();
+
+		velocities = world.getMapper(Velocity.class);
+		ColumnComponentMapper<Velocity> columns = (ColumnComponentMapper<Velocity>) velocities;
+		for (int i = 0, s = load.entities.size(); s > i; i++) {
+			int id = load.entities.get(i);
+			float x = columns.floatColumn("x").get(id);
+			assertEquals(-x, velocities.get(id).y, 0f);
+			assertEquals(1000L * (long) x, velocities.get(id).ticks);
+			assertEquals(-1, velocities.get(id).follow);
+		}
+	}
+
+	@Test(expected = SerializationException.class)
+	public void save_unsupported_field_type_fails() {
+		world.createEntity().edit().create(EntityBagHolder.class);
+		world.process();
+
+		save(allEntities.getEntities());
+	}
+
+	@Test(expected = SerializationException.class)
+	public void save_format_with_fields_fails() {
+		manger.save(new ByteArrayOutputStream(), new CustomSaveFormat(allEntities.getEntities()));
+	}
+
+	@Test(expected = SerializationException.class)
+	public void load_not_a_snapshot_fails() {
+		manger.load(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}), SaveFileFormat.class);
+	}
+
+	private void assertLoaded(SaveFileFormat load) {
+		Entity tagged = tags.getEntity("tag1");
+		assertNotNull(tagged);
+		assertEquals(1f, tagged.getComponent(Position.class).x, 0f);
+		assertEquals(2f, tagged.getComponent(Position.class).y, 0f);
+
+		Stats stats = tagged.getComponent(Stats.class);
+		assertTrue(stats.alive);
+		assertEquals(3, stats.level);
+		assertEquals(400, stats.armor);
+		assertEquals('b', stats.grade);
+		assertEquals(50, stats.health);
+		assertEquals(1L << 40, stats.experience);
+		assertEquals(0.25, stats.ratio, 0);
+		assertEquals("\u00e6nima", stats.name);
+		assertEquals(0, stats.cached);
+
+		assertEquals(2, groups.getEntities("group1").size());
+		assertEquals(1, groups.getEntities("group2").size());
+		assertEquals(3f, groups.getEntities("group2").get(0).getComponent(Position.class).x, 0f);
+
+		Entity keyed = load.get("key3");
+		assertNotNull(keyed);
+		assertEquals("key3", keyed.getComponent(SerializationTag.class).tag);
+		assertEquals(4f, keyed.getComponent(Position.class).x, 0f);
+		assertNull(keyed.getComponent(Stats.class).name);
+	}
+
+	private byte[] save(IntBag entities) {
+		SaveFileFormat save = new SaveFileFormat(entities);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+		manger.save(baos, save);
+		return baos.toByteArray();
+	}
+
+	private void deleteAll() {
+		IntBag entities = allEntities.getEntities();
+		for (int i = 0, s = entities.size(); s > i; i++)
+			world.delete(entities.get(i));
+
+		world.process();
+	}
+
+	public static class CustomSaveFormat extends SaveFileFormat {
+		public String level = "level-1";
+
+		public CustomSaveFormat(IntBag entities) {
+			super(entities);
+		}
+
+		public CustomSaveFormat() {}
+	}
+}
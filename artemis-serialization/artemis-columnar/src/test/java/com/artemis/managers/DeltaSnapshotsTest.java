@@ -0,0 +1,233 @@
+package com.artemis.managers;
+
+import com.artemis.*;
+import com.artemis.annotations.Wire;
+import com.artemis.component.*;
+import com.artemis.io.ColumnarArtemisSerializer;
+import com.artemis.io.DeltaSnapshots;
+import com.artemis.io.SaveFileFormat;
+import com.artemis.io.SerializationException;
+import com.artemis.utils.Bag;
+import com.artemis.utils.IntBag;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+@Wire(failOnNull = false)
+public class DeltaSnapshotsTest {
+	private TagManager tags;
+	private GroupManager groups;
+	private WorldSerializationManager manager;
+	private ComponentMapper<Position> positions;
+	private ComponentMapper<Target> targets;
+	private ComponentMapper<Velocity> velocities;
+	private World world;
+	private EntitySubscription allEntities;
+	private DeltaSnapshots snapshots;
+
+	private Bag<ByteBuffer> chain;
+
+	@Before
+	public void setup() {
+		setupWorld();
+		chain = new Bag<ByteBuffer>();
+
+		for (int i = 0; 100 > i; i++) {
+			int id = world.create();
+			positions.create(id).x = i;
+		}
+
+		EntityEdit ee = world.createEntity().edit();
+		ee.create(Position.class).x = -1;
+		tags.register("player", ee.getEntity());
+		groups.add(ee.getEntity(), "heroes");
+
+		EntityEdit ee2 = world.createEntity().edit();
+		ee2.create(Target.class).entityId = ee.getEntityId();
+		tags.register("hunter", ee2.getEntity());
+
+		world.process();
+		assertTrue(save());
+	}
+
+	private void setupWorld() {
+		world = new World(new WorldConfiguration()
+			.setSystem(GroupManager.class)
+			.setSystem(TagManager.class)
+			.setSystem(WorldSerializationManager.class));
+
+		world.inject(this);
+		ColumnarArtemisSerializer backend = new ColumnarArtemisSerializer(world);
+		manager.setSerializer(backend);
+		snapshots = new DeltaSnapshots(world, backend);
+
+		allEntities = world.getAspectSubscriptionManager().get(Aspect.all());
+	}
+
+	@Test
+	public void replay_deltas_into_new_world() {
+		int player = tags.getEntityId("player");
+		positions.modify(player).y = 5;
+		velocities.create(player).follow = tags.getEntityId("hunter");
+
+		world.delete(allEntities.getEntities().get(0));
+		int spawned = world.create();
+		positions.create(spawned).x = 1000;
+		targets.create(spawned).entityId = player;
+		tags.register("spawned", spawned);
+		world.process();
+		assertFalse(save());
+
+		// unchanged entities keep referencing changed entities
+		positions.remove(player);
+		groups.add(player, "legends");
+		world.delete(tags.getEntityId("spawned"));
+		world.process();
+		assertFalse(save());
+
+		int entityCount = allEntities.getEntities().size();
+
+		setupWorld();
+		SaveFileFormat load = replay();
+		world.process();
+
+		assertEquals(entityCount, load.entities.size());
+		assertEquals(entityCount, allEntities.getEntities().size());
+
+		player = tags.getEntityId("player");
+		int hunter = tags.getEntityId("hunter");
+		assertNull(tags.getEntity("spawned"));
+		assertFalse(positions.has(player));
+		assertEquals(hunter, velocities.get(player).follow);
+		assertEquals(player, targets.get(hunter).entityId);
+		assertEquals(1, groups.getEntities("heroes").size());
+		assertEquals(1, groups.getEntities("legends").size());
+	}
+
+	@Test
+	public void delta_only_holds_changed_entities() {
+		ByteBuffer base = chain.get(0);
+
+		positions.modify(tags.getEntityId("player")).x = 42;
+		world.process();
+		assertFalse(save());
+
+		ByteBuffer delta = chain.get(1);
+		assertTrue(delta.remaining() * 5 < base.remaining());
+
+		setupWorld();
+		replay();
+		world.process();
+
+		assertEquals(102, allEntities.getEntities().size());
+		assertEquals(42f, positions.get(tags.getEntityId("player")).x, 0f);
+		assertEquals(1, groups.getEntities("heroes").size());
+	}
+
+	@Test
+	public void replay_after_world_compaction() {
+		snapshots.setRebaseRatio(1f);
+
+		// stays in place, while its reference is remapped
+		IntBag entities = allEntities.getEntities();
+		int watcher = entities.get(50);
+		targets.create(watcher).entityId = tags.getEntityId("player");
+		tags.register("watcher", watcher);
+		world.process();
+		assertFalse(save());
+
+		for (int i = 0; 50 > i; i++)
+			world.delete(entities.get(i));
+
+		world.process();
+		world.compact();
+		world.process();
+		assertEquals(watcher, tags.getEntityId("watcher"));
+
+		positions.modify(tags.getEntityId("player")).x = 7;
+		world.process();
+		assertTrue(save());
+
+		setupWorld();
+		replay();
+		world.process();
+
+		assertEquals(52, allEntities.getEntities().size());
+		int player = tags.getEntityId("player");
+		assertEquals(7f, positions.get(player).x, 0f);
+		assertEquals(player, targets.get(tags.getEntityId("hunter")).entityId);
+		assertEquals(player, targets.get(tags.getEntityId("watcher")).entityId);
+	}
+
+	@Test
+	public void long_chains_are_rebased() {
+		snapshots.setMaxChainLength(2);
+
+		assertFalse(save());
+		assertFalse(save());
+		assertTrue(save());
+		assertEquals(0, snapshots.getChainLength());
+	}
+
+	@Test
+	public void widespread_changes_are_rebased() {
+		IntBag entities = allEntities.getEntities();
+		for (int i = 0; 60 > i; i++)
+			positions.modify(entities.get(i)).y = 1;
+
+		world.process();
+		assertTrue(save());
+	}
+
+	@Test
+	public void loading_starts_new_chain() {
+		assertFalse(save());
+
+		setupWorld();
+		replay();
+		world.process();
+
+		assertEquals(-1, snapshots.getChainLength());
+		assertTrue(save());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void delta_without_base_fails() {
+		setupWorld();
+		snapshots.saveDelta(new ByteArrayOutputStream());
+	}
+
+	@Test(expected = SerializationException.class)
+	public void load_delta_as_snapshot_fails() {
+		assertFalse(save());
+
+		setupWorld();
+		ByteBuffer delta = chain.get(1);
+		byte[] bytes = new byte[delta.remaining()];
+		delta.duplicate().get(bytes);
+		manager.load(new ByteArrayInputStream(bytes), SaveFileFormat.class);
+	}
+
+	private boolean save() {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		boolean base = snapshots.save(baos);
+		if (base)
+			chain.clear();
+
+		chain.add(ByteBuffer.wrap(baos.toByteArray()));
+		return base;
+	}
+
+	private SaveFileFormat replay() {
+		ByteBuffer[] deltas = new ByteBuffer[chain.size() - 1];
+		for (int i = 0; deltas.length > i; i++)
+			deltas[i] = chain.get(i + 1);
+
+		return snapshots.load(chain.get(0), deltas);
+	}
+}
@@ -0,0 +1,21 @@
+package com.artemis.io;
+
+import com.artemis.Component;
+
+/**
+ * Entity read from a partition, not yet added to the world. Lets
+ * partitions be decoded concurrently, as decoding never touches the world.
+ *
+ * @see KryoEntitySerializer#attach(DetachedEntity)
+ */
+final class DetachedEntity {
+	int oldId;
+	int archetype;
+	String tag;
+	String keyTag;
+	String[] groups;
+	Component[] components;
+
+	/** Set by {@link KryoEntitySerializer#attach(DetachedEntity)}. */
+	int entityId = -1;
+}
@@ -10,6 +10,13 @@ import com.esotericsoftware.kryo.io.*;
 import com.esotericsoftware.kryo.util.MapReferenceResolver;
 
 import java.io.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * {@link com.artemis.managers.WorldSerializationManager.ArtemisSerializer} implementation with {@link Kryo} as a backend.
@@ -23,8 +30,15 @@ import java.io.*;
  * All {@link IntBag}s are treated as annotated with {@link com.artemis.annotations.EntityId}, if component has IntBag for other purpose, custom serializer is required.
  * Only {@link Bag}s of {@link Entity}s are supported, if component has other type of Bag, custom serializer is required.
  *
+ * Entities can be serialized in partitions, concurrently, see {@link #setParallel(Executor, int)}.
  */
 public class KryoArtemisSerializer extends WorldSerializationManager.ArtemisSerializer<Serializer> {
+	/**
+	 * Written in place of the entity count of partitioned saves, followed
+	 * by the actual count, see {@link #readHeader(Input)}.
+	 */
+	private static final int PARTITIONED = -1;
+
 	private final Kryo kryo;
 	private final KryoComponentLookupSerializer lookup;
 	private final KryoIntBagEntitySerializer intBagEntitySerializer;
@@ -34,6 +48,17 @@ public class KryoArtemisSerializer extends WorldSerializationManager.ArtemisSeri
 
 	private ReferenceTracker referenceTracker;
 
+	private Executor executor;
+	private int partitions = 1;
+
+	// one serializer, and thus Kryo instance, per concurrently processed partition
+	private final Bag<KryoArtemisSerializer> partitionSerializers = new Bag<KryoArtemisSerializer>();
+	private final BlockingQueue<KryoArtemisSerializer> idleSerializers = new LinkedBlockingQueue<KryoArtemisSerializer>();
+
+	// replayed on partition serializers
+	private final Bag<Class<?>> registeredTypes = new Bag<Class<?>>();
+	private final Bag<Serializer> registeredSerializers = new Bag<Serializer>();
+
 	public KryoArtemisSerializer (World world) {
 		super(world);
 
@@ -69,17 +94,151 @@ public class KryoArtemisSerializer extends WorldSerializationManager.ArtemisSeri
 	@Override
 	public WorldSerializationManager.ArtemisSerializer register (Class<?> type, Serializer serializer) {
 		kryo.register(type, serializer);
+		registeredTypes.add(type);
+		registeredSerializers.add(serializer);
+		for (int i = 0, s = partitionSerializers.size(); s > i; i++) {
+			partitionSerializers.get(i).register(type, serializer);
+		}
 		return this;
 	}
 
 	public WorldSerializationManager.ArtemisSerializer register (Class<?> type) {
 		kryo.register(type);
+		registeredTypes.add(type);
+		registeredSerializers.add(null);
+		for (int i = 0, s = partitionSerializers.size(); s > i; i++) {
+			partitionSerializers.get(i).register(type);
+		}
+		return this;
+	}
+
+	/**
+	 * <p>Saves entities in {@code partitions} ranges, serialized concurrently
+	 * on {@code executor}, each by its own {@link Kryo} instance. Partitions
+	 * are written in order, as they complete, into a single file.</p>
+	 *
+	 * <p>{@link #load(InputStream, Class)} reads both partitioned and regular
+	 * data. Partitions are decoded on {@code executor} if set, otherwise on
+	 * the calling thread; entities are always added to the world on the
+	 * calling thread.</p>
+	 *
+	 * <p>Partition instances are configured through {@link #register}, and
+	 * share the registered serializers: these must not keep state between
+	 * calls. Changes made directly through {@link #getKryo()} aren't seen by
+	 * the partitions. When loading, {@link com.artemis.io.KryoEntitySerializer.ComponentFieldSerializer}s
+	 * are initialized without {@link EntityEdit}, as components are instantiated
+	 * before being added.</p>
+	 *
+	 * <p>Partitions only read from the world, including the
+	 * {@link com.artemis.managers.GroupManager}; the world must not be
+	 * modified until {@code save} returns. As with
+	 * {@link #saveStreaming(OutputStream, SaveFileFormat, int)}, entities
+	 * are written as top-level objects and Kryo references are reset per
+	 * entity: non-entity objects shared by components of several entities
+	 * are written once per entity, and loaded back as separate copies.</p>
+	 *
+	 * @param executor runs partitions, {@code null} to save without partitions.
+	 * @param partitions number of partitions to save, {@code 1} to save without partitions.
+	 * @return this serializer
+	 */
+	public KryoArtemisSerializer setParallel(Executor executor, int partitions) {
+		if (partitions < 1)
+			throw new IllegalArgumentException("partitions must be at least 1, was " + partitions);
+
+		this.executor = executor;
+		this.partitions = partitions;
 		return this;
 	}
 
 	@Override
 	public void save(OutputStream os, SaveFileFormat save) {
+		if (executor != null && partitions > 1) {
+			savePartitioned(os, save);
+			return;
+		}
+
+		Output output = new Output(os);
+		writeHeader(output, save, false);
+		kryo.writeObject(output, save);
+		output.flush();
+		output.close();
+		entitySerializer.clearSerializerCache();
+	}
+
+	/**
+	 * Writes entities in chunks sharing composition, each entity as a
+	 * top-level object. Kryo references are thus reset per entity, and
+	 * each chunk is flushed to {@code os} once written. Non-entity objects
+	 * shared by components of several entities are consequently written
+	 * once per entity, and loaded back as separate copies.
+	 *
+	 * @see #loadStreaming(InputStream, Class)
+	 */
+	@Override
+	public void saveStreaming(OutputStream os, SaveFileFormat save, int chunkSize) {
+		Output output = new Output(os);
+		writeHeader(output, save, false);
 
+		ArchetypeChunks chunks = new ArchetypeChunks(world, save.entities, chunkSize);
+		IntBag chunk = new IntBag(chunkSize);
+		while (chunks.next(chunk)) {
+			intBagEntitySerializer.writeEntities(kryo, output, chunk);
+			output.flush();
+		}
+		output.writeInt(0);
+
+		// entities already written
+		IntBag entities = save.entities;
+		save.entities = new IntBag();
+		try {
+			kryo.writeObject(output, save);
+		} finally {
+			save.entities = entities;
+		}
+
+		output.flush();
+		output.close();
+		entitySerializer.clearSerializerCache();
+	}
+
+	private void savePartitioned(OutputStream os, SaveFileFormat save) {
+		Output output = new Output(os);
+		writeHeader(output, save, true);
+
+		// partitions read flyweight components from storage
+		world.getComponentManager().flushFlyweights();
+		ensurePartitionSerializers(partitions);
+
+		IntBag entities = save.entities;
+		Bag<Future<byte[]>> written = new Bag<Future<byte[]>>(partitions);
+		for (int i = 0; partitions > i; i++) {
+			int from = (int) ((long) entities.size() * i / partitions);
+			int to = (int) ((long) entities.size() * (i + 1) / partitions);
+			written.add(submit(new WritePartition(save, from, to)));
+		}
+
+		output.writeInt(partitions);
+		for (int i = 0; partitions > i; i++) {
+			byte[] partition = await(written.get(i));
+			output.writeInt(partition.length);
+			output.writeBytes(partition);
+			output.flush();
+		}
+
+		// entities already written
+		save.entities = new IntBag();
+		try {
+			kryo.writeObject(output, save);
+		} finally {
+			save.entities = entities;
+		}
+
+		output.flush();
+		output.close();
+		entitySerializer.clearSerializerCache();
+	}
+
+	private void writeHeader(Output output, SaveFileFormat save, boolean partitioned) {
 		referenceTracker.inspectTypes(world);
 		referenceTracker.preWrite(save);
 
@@ -92,23 +251,95 @@ public class KryoArtemisSerializer extends WorldSerializationManager.ArtemisSeri
 		entitySerializer.archetypeMapper.serializationState = save;
 		save.componentIdentifiers.build();
 
-		Output output = new Output(os);
 		kryo.writeObject(output, save.componentIdentifiers);
 		kryo.writeObject(output, save.archetypes);
+		if (partitioned)
+			output.writeInt(PARTITIONED);
+
 		output.writeInt(save.entities.size());
-		kryo.writeObject(output, save);
-		output.flush();
-		output.close();
-		entitySerializer.clearSerializerCache();
 	}
 
 	@Override
 	public  <T extends SaveFileFormat> T load(InputStream is, Class<T> format) {
-		entitySerializer.preLoad();
-
 		Input input = new ByteBufferInput(is);
+		if (readHeader(input))
+			return loadPartitioned(input, format);
+
+		T t = kryo.readObject(input, format);
+		return postLoad(t);
+	}
+
+	private <T extends SaveFileFormat> T loadPartitioned(Input input, Class<T> format) {
+		int count = input.readInt();
+		ensurePartitionSerializers(executor != null ? Math.min(count, partitions) : 1);
+
+		// decoding overlaps with reading subsequent partitions
+		Bag<Future<Bag<DetachedEntity>>> read = new Bag<Future<Bag<DetachedEntity>>>(count);
+		for (int i = 0; count > i; i++) {
+			byte[] partition = input.readBytes(input.readInt());
+			read.add(submit(new ReadPartition(entitySerializer.serializationState, partition)));
+		}
+
+		// entities are added in partition order, as by regular loading
+		Bag<Entity> translatedIds = intBagEntitySerializer.getTranslatedIds();
+		IntBag entities = new IntBag();
+		Bag<Bag<DetachedEntity>> decoded = new Bag<Bag<DetachedEntity>>(count);
+		for (int i = 0; count > i; i++) {
+			Bag<DetachedEntity> partition = await(read.get(i));
+			for (int j = 0, s = partition.size(); s > j; j++) {
+				DetachedEntity e = partition.get(j);
+				entitySerializer.attach(e);
+				translatedIds.set(e.oldId, world.getEntity(e.entityId));
+				entities.add(e.entityId);
+			}
+			decoded.add(partition);
+		}
+
+		T t = kryo.readObject(input, format);
+		t.entities = entities;
+		t = postLoad(t);
+
+		// references translated while detached, also flyweight mappers copy components
+		for (int i = 0; count > i; i++) {
+			Bag<DetachedEntity> partition = decoded.get(i);
+			for (int j = 0, s = partition.size(); s > j; j++) {
+				entitySerializer.addComponents(partition.get(j));
+			}
+		}
+
+		return t;
+	}
+
+	/**
+	 * Reads data written by {@link #saveStreaming(OutputStream, SaveFileFormat, int)}
+	 * directly from {@code is}.
+	 */
+	@Override
+	public <T extends SaveFileFormat> T loadStreaming(InputStream is, Class<T> format) {
+		Input input = new Input(is);
+		if (readHeader(input))
+			throw new SerializationException("Partitioned data can only be read by load().");
+
+		IntBag entities = new IntBag();
+		int read;
+		do {
+			// chunks until the terminating empty chunk
+			read = intBagEntitySerializer.readEntities(kryo, input, entities);
+		} while (read > 0);
+
+		T t = kryo.readObject(input, format);
+		t.entities = entities;
+		return postLoad(t);
+	}
+
+	/**
+	 * @return {@code true} if entities were saved in partitions.
+	 */
+	private boolean readHeader(Input input) {
+		entitySerializer.preLoad();
 
 		SaveFileFormat partial = new SaveFileFormat((IntBag)null);
+
 		partial.componentIdentifiers = kryo.readObject(input, SaveFileFormat.ComponentIdentifiers.class);
 		transmuterEntrySerializer.identifiers = partial.componentIdentifiers;
 
@@ -122,9 +353,16 @@ public class KryoArtemisSerializer extends WorldSerializationManager.ArtemisSeri
 		}
 
 		referenceTracker.inspectTypes(partial.componentIdentifiers.typeToId.keySet());
-		entitySerializer.factory.configureWith(input.readInt());
+		int entityCount = input.readInt();
+		boolean partitioned = (entityCount == PARTITIONED);
+		if (partitioned)
+			entityCount = input.readInt();
 
-		T t = kryo.readObject(input, format);
+		entitySerializer.factory.configureWith(entityCount);
+		return partitioned;
+	}
+
+	private <T extends SaveFileFormat> T postLoad(T t) {
 		t.tracker = entitySerializer.keyTracker;
 		referenceTracker.translate(intBagEntitySerializer.getTranslatedIds());
 
@@ -137,4 +375,98 @@ public class KryoArtemisSerializer extends WorldSerializationManager.ArtemisSeri
 	public Kryo getKryo () {
 		return kryo;
 	}
+
+	private void ensurePartitionSerializers(int count) {
+		while (partitionSerializers.size() < count) {
+			KryoArtemisSerializer serializer = new KryoArtemisSerializer(world);
+			serializer.entitySerializer.flyweightCopies = new Bag<Component>();
+			for (int i = 0, s = registeredTypes.size(); s > i; i++) {
+				Serializer registered = registeredSerializers.get(i);
+				if (registered != null) {
+					serializer.register(registeredTypes.get(i), registered);
+				} else {
+					serializer.register(registeredTypes.get(i));
+				}
+			}
+
+			partitionSerializers.add(serializer);
+			idleSerializers.add(serializer);
+		}
+	}
+
+	private <T> Future<T> submit(Callable<T> partition) {
+		FutureTask<T> task = new FutureTask<T>(partition);
+		if (executor != null) {
+			executor.execute(task);
+		} else {
+			task.run();
+		}
+
+		return task;
+	}
+
+	private static <T> T await(Future<T> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SerializationException(e);
+		} catch (ExecutionException e) {
+			throw new SerializationException("Failed serializing partition.", e.getCause());
+		}
+	}
+
+	/** Serializes a range of the saved entities. */
+	private final class WritePartition implements Callable<byte[]> {
+		private final SaveFileFormat save;
+		private final IntBag partition;
+
+		WritePartition(SaveFileFormat save, int from, int to) {
+			this.save = save;
+			partition = new IntBag(to - from);
+			System.arraycopy(save.entities.getData(), from, partition.getData(), 0, to - from);
+			partition.setSize(to - from);
+		}
+
+		@Override
+		public byte[] call() throws InterruptedException {
+			KryoArtemisSerializer serializer = idleSerializers.take();
+			try {
+				serializer.entitySerializer.serializationState = save;
+
+				Output output = new Output(4096, -1);
+				serializer.intBagEntitySerializer.writeEntities(serializer.kryo, output, partition);
+				return output.toBytes();
+			} finally {
+				serializer.entitySerializer.clearSerializerCache();
+				idleSerializers.add(serializer);
+			}
+		}
+	}
+
+	/** Decodes a partition without adding entities to the world. */
+	private final class ReadPartition implements Callable<Bag<DetachedEntity>> {
+		private final SaveFileFormat state;
+		private final byte[] partition;
+
+		ReadPartition(SaveFileFormat state, byte[] partition) {
+			this.state = state;
+			this.partition = partition;
+		}
+
+		@Override
+		public Bag<DetachedEntity> call() throws InterruptedException {
+			KryoArtemisSerializer serializer = idleSerializers.take();
+			try {
+				serializer.entitySerializer.serializationState = state;
+
+				Bag<DetachedEntity> entities = new Bag<DetachedEntity>(DetachedEntity.class);
+				serializer.intBagEntitySerializer.readDetached(serializer.kryo, new Input(partition), serializer.entitySerializer, entities);
+				return entities;
+			} finally {
+				serializer.entitySerializer.clearSerializerCache();
+				idleSerializers.add(serializer);
+			}
+		}
+	}
 }
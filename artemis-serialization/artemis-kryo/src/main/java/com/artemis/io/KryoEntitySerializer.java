@@ -26,6 +26,7 @@ public class KryoEntitySerializer extends Serializer<Entity> {
 	private final World world;
 	private final ReferenceTracker referenceTracker;
 	private final DefaultObjectStore defaultValues;
+	private final ComponentCopier copier;
 	final EntityPoolFactory factory;
 
 	private GroupManager groupManager;
@@ -36,6 +37,12 @@ public class KryoEntitySerializer extends Serializer<Entity> {
 
 	private ComponentMapper<SerializationTag> saveTagMapper;
 
+	/**
+	 * When set, flyweight components are copied into these instances rather
+	 * than read through their mapper, allowing concurrent writes.
+	 */
+	Bag<Component> flyweightCopies;
+
 	SerializationKeyTracker keyTracker;
 	ArchetypeMapper archetypeMapper;
 	SaveFileFormat serializationState;
@@ -44,6 +51,7 @@ public class KryoEntitySerializer extends Serializer<Entity> {
 		this.world = world;
 		this.referenceTracker = referenceTracker;
 		defaultValues = new DefaultObjectStore();
+		copier = new ComponentCopier(world);
 		factory = new EntityPoolFactory(world);
 		world.inject(this);
 
@@ -72,7 +80,11 @@ public class KryoEntitySerializer extends Serializer<Entity> {
 			isSerializingEntity = true;
 		}
 
-		world.getComponentManager().getComponentsFor(e.getId(), components);
+		if (flyweightCopies != null) {
+			world.getComponentManager().copyComponentsFor(e.getId(), components, flyweightCopies);
+		} else {
+			world.getComponentManager().getComponentsFor(e.getId(), components);
+		}
 		components.sort(comparator);
 
 		// write archetype id
@@ -205,6 +217,75 @@ public class KryoEntitySerializer extends Serializer<Entity> {
 		return e;
 	}
 
+	/**
+	 * Reads an entity written by {@link #write} as {@link DetachedEntity},
+	 * without touching the world.
+	 */
+	DetachedEntity readDetached (Kryo kryo, Input input) {
+		isSerializingEntity = true;
+
+		DetachedEntity e = new DetachedEntity();
+		e.archetype = input.readInt();
+		e.tag = input.readString();
+		e.keyTag = input.readString();
+		e.groups = new String[input.readInt()];
+		for (int i = 0; i < e.groups.length; i++) {
+			e.groups[i] = input.readString();
+		}
+
+		SaveFileFormat.ComponentIdentifiers identifiers = serializationState.componentIdentifiers;
+
+		e.components = new Component[input.readInt()];
+		for (int i = 0; i < e.components.length; i++) {
+			int id = input.readShort();
+			final Class<? extends Component> type = identifiers.idToType.get(id);
+			// without an edit, components are instantiated outside the world
+			e.components[i] = kryo.readObject(input, type, serializer(kryo, type, null));
+		}
+
+		isSerializingEntity = false;
+
+		return e;
+	}
+
+	/**
+	 * Adds a {@link DetachedEntity} to the world, in the same order as
+	 * {@link #read} would have created it. Components are added by
+	 * {@link #addComponents(DetachedEntity)}, once entity references
+	 * have been translated.
+	 */
+	void attach (DetachedEntity detached) {
+		Entity e = factory.createEntity();
+		if (detached.tag != null) {
+			tagManager.register(detached.tag, e);
+		}
+		if (detached.keyTag != null) {
+			keyTracker.register(detached.keyTag, e);
+			saveTagMapper.create(e).tag = detached.keyTag;
+		}
+		for (String group : detached.groups) {
+			groupManager.add(e, group);
+		}
+
+		archetypeMapper.transmute(e, detached.archetype);
+
+		for (Component c : detached.components) {
+			referenceTracker.addEntityReferencingComponent(c);
+		}
+
+		detached.entityId = e.getId();
+	}
+
+	/**
+	 * Copies the components read into those created by the archetype.
+	 */
+	void addComponents (DetachedEntity detached) {
+		EntityEdit edit = world.edit(detached.entityId);
+		for (Component c : detached.components) {
+			copier.copyShallow(c, edit.create(c.getClass()));
+		}
+	}
+
 	private Map<Class, Serializer> serializers = new HashMap<Class, Serializer>();
 
 	private Serializer serializer (Kryo kryo, Class<? extends Component> type, EntityEdit edit) {
@@ -241,6 +322,9 @@ public class KryoEntitySerializer extends Serializer<Entity> {
 		}
 
 		@Override protected T create (Kryo kryo, Input input, Class type) {
+			if (edit == null)
+				return (T)super.create(kryo, input, type);
+
 			return (T)edit.create(type);
 		}
 	}
@@ -63,6 +63,68 @@ public class KryoIntBagEntitySerializer extends Serializer<IntBag> {
 		return bag;
 	}
 
+	/**
+	 * Writes entities as top-level objects, so that references are
+	 * reset after each entity.
+	 */
+	void writeEntities(Kryo kryo, Output output, IntBag entities) {
+		recursionLevel++;
+
+		output.writeInt(entities.size());
+		for (int i = 0, s = entities.size(); s > i; i++) {
+			Entity e = world.getEntity(entities.get(i));
+			output.writeInt(e.getId());
+			kryo.writeObject(output, e);
+		}
+
+		recursionLevel--;
+	}
+
+	/**
+	 * Reads entities written by {@link #writeEntities}.
+	 *
+	 * @return number of entities read
+	 */
+	int readEntities(Kryo kryo, Input input, IntBag out) {
+		recursionLevel++;
+
+		int count = input.readInt();
+		for (int i = 0; i < count; i++) {
+			int oldId = input.readInt();
+			Entity e = kryo.readObject(input, Entity.class);
+			translatedIds.set(oldId, e);
+			out.add(e.getId());
+		}
+
+		recursionLevel--;
+		return count;
+	}
+
+	/**
+	 * Reads entities written by {@link #writeEntities} without adding them
+	 * to the world, see {@link KryoEntitySerializer#attach(DetachedEntity)}.
+	 */
+	void readDetached(Kryo kryo, Input input, KryoEntitySerializer entitySerializer, Bag<DetachedEntity> out) {
+		recursionLevel++;
+
+		// entities were written as top-level objects, each resetting kryo
+		kryo.setAutoReset(false);
+		try {
+			int count = input.readInt();
+			out.ensureCapacity(out.size() + count);
+			for (int i = 0; i < count; i++) {
+				int oldId = input.readInt();
+				DetachedEntity e = entitySerializer.readDetached(kryo, input);
+				e.oldId = oldId;
+				out.add(e);
+				kryo.reset();
+			}
+		} finally {
+			kryo.setAutoReset(true);
+			recursionLevel--;
+		}
+	}
+
 	public Bag<Entity> getTranslatedIds() {
 		return translatedIds;
 	}
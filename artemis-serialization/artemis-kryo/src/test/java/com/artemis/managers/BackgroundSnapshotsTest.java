@@ -0,0 +1,231 @@
+package com.artemis.managers;
+
+import com.artemis.*;
+import com.artemis.annotations.Wire;
+import com.artemis.component.*;
+import com.artemis.io.BackgroundSnapshots;
+import com.artemis.io.KryoArtemisSerializer;
+import com.artemis.io.SaveFileFormat;
+import com.artemis.io.SnapshotReport;
+import com.artemis.utils.Bag;
+import com.artemis.utils.IntBag;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+@Wire(failOnNull = false)
+public class BackgroundSnapshotsTest {
+	private WorldSerializationManager manager;
+	private TagManager tags;
+	private GroupManager groups;
+	private ComponentMapper<ComponentX> xs;
+	private ComponentMapper<Position> positions;
+	private ComponentMapper<EntityHolder> holders;
+	private World world;
+	private EntitySubscription allEntities;
+
+	private QueuedExecutor executor;
+	private BackgroundSnapshots snapshots;
+
+	@Before
+	public void setup() {
+		world = setupWorld();
+		executor = new QueuedExecutor();
+		snapshots = new BackgroundSnapshots(world, executor);
+		snapshots.setSerializer(backend(snapshots.getSnapshotWorld()));
+
+		for (int i = 0; 10 > i; i++) {
+			int id = world.create();
+			xs.create(id).text = "entity " + i;
+			positions.create(id).xy.set(i, -i);
+		}
+		world.process();
+
+		int player = allEntities.getEntities().get(0);
+		tags.register("player", player);
+		groups.add(player, "heroes");
+
+		int hunter = world.create();
+		EntityHolder holder = holders.create(hunter);
+		holder.entity = world.getEntity(player);
+		holder.entityId = player;
+		tags.register("hunter", hunter);
+
+		world.process();
+	}
+
+	private World setupWorld() {
+		World world = new World(new WorldConfiguration()
+			.setSystem(GroupManager.class)
+			.setSystem(TagManager.class)
+			.setSystem(WorldSerializationManager.class));
+
+		world.inject(this);
+		manager.setSerializer(backend(world));
+		allEntities = world.getAspectSubscriptionManager().get(Aspect.all());
+		return world;
+	}
+
+	private static KryoArtemisSerializer backend(World world) {
+		KryoArtemisSerializer backend = new KryoArtemisSerializer(world);
+		backend.register(ComponentX.class);
+		backend.register(EntityHolder.class);
+		return backend;
+	}
+
+	@Test
+	public void snapshot_unaffected_by_later_changes() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Future<SnapshotReport> snapshot = snapshots.save(out, new SaveFileFormat(allEntities));
+		assertTrue(snapshots.isBusy());
+
+		// world keeps running before the snapshot is serialized
+		int player = tags.getEntityId("player");
+		xs.get(player).text = "changed";
+		positions.get(player).xy.set(100, 100);
+		world.delete(tags.getEntityId("hunter"));
+		world.createEntity().edit().create(ComponentX.class);
+		world.process();
+
+		executor.runAll();
+		SnapshotReport report = snapshot.get();
+		assertFalse(snapshots.isBusy());
+		assertEquals(11, report.getEntityCount());
+		assertEquals(11, report.getCopiedCount());
+
+		setupWorld();
+		SaveFileFormat load = manager.load(new ByteArrayInputStream(out.toByteArray()), SaveFileFormat.class);
+		world.process();
+
+		assertEquals(11, load.entities.size());
+		player = tags.getEntityId("player");
+		assertEquals("entity 0", xs.get(player).text);
+		assertEquals(0f, positions.get(player).xy.x, 0f);
+		assertEquals(1, groups.getEntities("heroes").size());
+
+		EntityHolder holder = holders.get(tags.getEntityId("hunter"));
+		assertEquals(player, holder.entity.getId());
+		assertEquals(player, holder.entityId);
+	}
+
+	@Test
+	public void referenced_entities_are_captured() throws Exception {
+		IntBag hunter = new IntBag();
+		hunter.add(tags.getEntityId("hunter"));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Future<SnapshotReport> snapshot = snapshots.save(out, new SaveFileFormat(hunter));
+		executor.runAll();
+		assertEquals(2, snapshot.get().getEntityCount());
+
+		setupWorld();
+		manager.load(new ByteArrayInputStream(out.toByteArray()), SaveFileFormat.class);
+		world.process();
+
+		assertEquals(2, allEntities.getEntities().size());
+		assertEquals(tags.getEntityId("player"), holders.get(tags.getEntityId("hunter")).entityId);
+	}
+
+	@Test
+	public void serialize_on_own_thread() throws Exception {
+		BackgroundSnapshots snapshots = new BackgroundSnapshots(world);
+		snapshots.setSerializer(backend(snapshots.getSnapshotWorld()));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SnapshotReport report = snapshots.save(out, new SaveFileFormat(allEntities)).get();
+		snapshots.dispose();
+
+		assertEquals(11, report.getEntityCount());
+		assertTrue(report.getSerializeNanos() > 0);
+
+		setupWorld();
+		manager.load(new ByteArrayInputStream(out.toByteArray()), SaveFileFormat.class);
+		world.process();
+
+		assertEquals(11, allEntities.getEntities().size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void save_while_serializing_fails() {
+		snapshots.save(new ByteArrayOutputStream(), new SaveFileFormat(allEntities));
+		snapshots.save(new ByteArrayOutputStream(), new SaveFileFormat(allEntities));
+	}
+
+	@Test
+	public void incremental_capture_copies_changed_entities() throws Exception {
+		snapshots.setIncremental(true);
+		save(new ByteArrayOutputStream());
+
+		int player = tags.getEntityId("player");
+		xs.modify(player).text = "modified";
+		world.delete(allEntities.getEntities().get(5));
+		world.process();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SnapshotReport report = save(out);
+		assertEquals(10, report.getEntityCount());
+		assertEquals(1, report.getCopiedCount());
+
+		setupWorld();
+		manager.load(new ByteArrayInputStream(out.toByteArray()), SaveFileFormat.class);
+		world.process();
+
+		assertEquals(10, allEntities.getEntities().size());
+		assertEquals("modified", xs.get(tags.getEntityId("player")).text);
+	}
+
+	@Test
+	public void recapture_after_compaction() throws Exception {
+		snapshots.setIncremental(true);
+		save(new ByteArrayOutputStream());
+
+		IntBag entities = allEntities.getEntities();
+		for (int i = 1; 5 > i; i++)
+			world.delete(entities.get(i));
+
+		world.process();
+		world.compact();
+		world.process();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SnapshotReport report = save(out);
+		assertEquals(7, report.getCopiedCount());
+
+		setupWorld();
+		manager.load(new ByteArrayInputStream(out.toByteArray()), SaveFileFormat.class);
+		world.process();
+
+		assertEquals(7, allEntities.getEntities().size());
+		int player = tags.getEntityId("player");
+		assertEquals(player, holders.get(tags.getEntityId("hunter")).entityId);
+	}
+
+	private SnapshotReport save(ByteArrayOutputStream out) throws Exception {
+		Future<SnapshotReport> snapshot = snapshots.save(out, new SaveFileFormat(allEntities));
+		executor.runAll();
+		return snapshot.get();
+	}
+
+	/** Runs tasks when told to, standing in for a background thread. */
+	private static class QueuedExecutor implements Executor {
+		private final Bag<Runnable> tasks = new Bag<Runnable>();
+
+		@Override
+		public void execute(Runnable task) {
+			tasks.add(task);
+		}
+
+		void runAll() {
+			for (int i = 0, s = tasks.size(); s > i; i++)
+				tasks.get(i).run();
+
+			tasks.clear();
+		}
+	}
+}
@@ -12,6 +12,7 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -19,6 +20,8 @@ import org.junit.Test;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.Assert.*;
 
@@ -32,6 +35,7 @@ public class KryoWorldSerializationManagerTest {
 	private EntitySubscription allEntities;
 	private KryoArtemisSerializer backend;
 	private ComponentMapper<SerializationTag> serializationTagMapper;
+	private final ExecutorService executor = Executors.newFixedThreadPool(2);
 
 	@Before
 	public void setup() {
@@ -58,6 +62,11 @@ public class KryoWorldSerializationManagerTest {
 		assertEquals(3, allEntities.getEntities().size());
 	}
 
+	@After
+	public void shutdown() {
+		executor.shutdown();
+	}
+
 	private void setupWorld() {
 		world = new World(new WorldConfiguration()
 				.setSystem(GroupManager.class)
@@ -203,23 +212,7 @@ public class KryoWorldSerializationManagerTest {
 
 	@Test
 	public void serializer_save_load_with_groups_and_tags_and_keys() throws Exception {
-		setKeys();
-		setTags();
-		setGroups();
-
-		byte[] save = save(allEntities);
-
-		deleteAll();
-
-		ByteArrayInputStream bais = new ByteArrayInputStream(save);
-		SaveFileFormat load = manger.load(bais, SaveFileFormat.class);
-		world.process();
-
-		assertEquals(3, allEntities.getEntities().size());
-
-		assertTags();
-		assertGroups();
-		assertKeys(load);
+		assertGroupsTagsAndKeysRoundTrip(SaveMode.REGULAR);
 	}
 
 	@Test
@@ -516,6 +509,153 @@ public class KryoWorldSerializationManagerTest {
 		assertEquals(holder.strings.get(1), holder2.strings.get(1));
 	}
 
+	@Test
+	public void save_load_streaming_with_groups_and_tags_and_keys() throws Exception {
+		assertGroupsTagsAndKeysRoundTrip(SaveMode.STREAMING);
+	}
+
+	@Test
+	public void save_load_streaming_entity_references() throws Exception {
+		assertEntityReferencesRoundTrip(SaveMode.STREAMING);
+	}
+
+	@Test
+	public void save_load_parallel_with_groups_and_tags_and_keys() throws Exception {
+		assertGroupsTagsAndKeysRoundTrip(SaveMode.PARALLEL);
+	}
+
+	@Test
+	public void save_load_parallel_entity_references() throws Exception {
+		assertEntityReferencesRoundTrip(SaveMode.PARALLEL);
+
+		Entity tagged = tags.getEntity("tag1");
+		assertEquals("hello", tagged.getComponent(ComponentX.class).text);
+		assertNotNull(tagged.getComponent(ReusedComponent.class));
+	}
+
+	@Test
+	public void save_load_parallel_columnar_components() throws Exception {
+		ComponentMapper<Velocity> velocities = world.getMapper(Velocity.class);
+		int previous = -1;
+		for (int i = 0; 32 > i; i++) {
+			int id = world.create();
+			Velocity velocity = velocities.create(id);
+			velocity.x = i;
+			velocity.ticks = i;
+			velocity.follow = previous;
+			previous = id;
+		}
+		world.process();
+
+		// pending flyweight changes are saved too
+		velocities.get(previous).y = 42;
+
+		byte[] save = save(allEntities.getEntities(), SaveMode.PARALLEL);
+		assertEquals(31f, velocities.get(previous).x, 0f);
+
+		deleteAll();
+
+		SaveFileFormat load = load(save, SaveMode.PARALLEL);
+		world.process();
+
+		assertEquals(35, load.entities.size());
+		int[] byX = new int[32];
+		for (int i = 0, s = load.entities.size(); s > i; i++) {
+			int id = load.entities.get(i);
+			if (velocities.has(id))
+				byX[(int) velocities.get(id).x] = id;
+		}
+
+		for (int i = 0; 32 > i; i++) {
+			Velocity velocity = velocities.get(byX[i]);
+			assertEquals(i, velocity.ticks);
+			assertEquals(i == 0 ? -1 : byX[i - 1], velocity.follow);
+			assertEquals(i == 31 ? 42f : 0f, velocity.y, 0f);
+		}
+	}
+
+	@Test
+	public void save_load_without_kryo_references() throws Exception {
+		backend.getKryo().setReferences(false);
+		assertGroupsTagsAndKeysRoundTrip(SaveMode.REGULAR);
+	}
+
+	@Test
+	public void save_load_parallel_without_kryo_references() throws Exception {
+		backend.getKryo().setReferences(false);
+		assertGroupsTagsAndKeysRoundTrip(SaveMode.PARALLEL);
+	}
+
+	@Test
+	public void load_parallel_save_without_executor() throws Exception {
+		byte[] save = save(allEntities.getEntities(), SaveMode.PARALLEL);
+		backend.setParallel(null, 1);
+
+		deleteAll();
+
+		manger.load(new ByteArrayInputStream(save), SaveFileFormat.class);
+		world.process();
+
+		assertEquals(3, allEntities.getEntities().size());
+	}
+
+	private void assertGroupsTagsAndKeysRoundTrip(SaveMode mode) {
+		setKeys();
+		setTags();
+		setGroups();
+
+		byte[] save = save(allEntities.getEntities(), mode);
+
+		deleteAll();
+
+		SaveFileFormat load = load(save, mode);
+		world.process();
+
+		assertEquals(3, load.entities.size());
+		assertEquals(3, allEntities.getEntities().size());
+
+		assertTags();
+		assertGroups();
+		assertKeys(load);
+	}
+
+	private void assertEntityReferencesRoundTrip(SaveMode mode) {
+		setTags();
+
+		EntityEdit ee1 = world.createEntity().edit();
+		EntityIntBagHolder holder = ee1.create(EntityIntBagHolder.class);
+		holder.entities.add(tags.getEntity("tag1").getId());
+		holder.entities.add(tags.getEntity("tag3").getId());
+		tags.register("entity-holder", ee1.getEntity());
+
+		EntityEdit ee2 = world.createEntity().edit();
+		ee2.create(EntityBagHolder.class).entities.add(tags.getEntity("tag3"));
+		ee2.create(EntityHolder.class).entityId = tags.getEntity("tag1").getId();
+		ee2.getEntity().getComponent(EntityHolder.class).entity = tags.getEntity("tag3");
+		tags.register("entity-bag-holder", ee2.getEntity());
+
+		world.process();
+
+		byte[] save = save(allEntities.getEntities(), mode);
+
+		deleteAll();
+
+		load(save, mode);
+		world.process();
+
+		assertEquals(5, allEntities.getEntities().size());
+
+		IntBag ids = tags.getEntity("entity-holder").getComponent(EntityIntBagHolder.class).entities;
+		assertEquals(2, ids.size());
+		assertEquals(tags.getEntity("tag1"), world.getEntity(ids.get(0)));
+		assertEquals(tags.getEntity("tag3"), world.getEntity(ids.get(1)));
+
+		Entity bagHolder = tags.getEntity("entity-bag-holder");
+		assertEquals(tags.getEntity("tag3"), bagHolder.getComponent(EntityBagHolder.class).entities.get(0));
+		assertEquals(tags.getEntity("tag1").getId(), bagHolder.getComponent(EntityHolder.class).entityId);
+		assertEquals(tags.getEntity("tag3"), bagHolder.getComponent(EntityHolder.class).entity);
+	}
+
 	private void setTags() {
 		IntBag entities = allEntities.getEntities();
 		tags.register("tag1", world.getEntity(entities.get(0)));
@@ -563,6 +703,30 @@ public class KryoWorldSerializationManagerTest {
 		return baos.toByteArray();
 	}
 
+	private byte[] save(IntBag entities, SaveMode mode) {
+		SaveFileFormat save = new SaveFileFormat(entities);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+		switch (mode) {
+			case STREAMING:
+				manger.saveStreaming(baos, save, 2);
+				break;
+			case PARALLEL:
+				backend.setParallel(executor, 3);
+				manger.save(baos, save);
+				break;
+			default:
+				manger.save(baos, save);
+		}
+		return baos.toByteArray();
+	}
+
+	private SaveFileFormat load(byte[] save, SaveMode mode) {
+		ByteArrayInputStream bais = new ByteArrayInputStream(save);
+		return (mode == SaveMode.STREAMING)
+			? manger.loadStreaming(bais, SaveFileFormat.class)
+			: manger.load(bais, SaveFileFormat.class);
+	}
+
 	private int deleteAll() {
 		IntBag entities = allEntities.getEntities();
 		int size = entities.size();
@@ -573,4 +737,8 @@ public class KryoWorldSerializationManagerTest {
 		world.process();
 		return size;
 	}
+
+	private enum SaveMode {
+		REGULAR, STREAMING, PARALLEL
+	}
 }
@@ -0,0 +1,83 @@
+package com.artemis.io;
+
+import com.artemis.World;
+import com.artemis.utils.IntBag;
+
+/**
+ * Splits entities into chunks of at most {@code chunkSize} entities sharing
+ * composition, for streaming saves. Entities retain their relative order
+ * within each composition.
+ *
+ * @see com.artemis.managers.WorldSerializationManager#saveStreaming
+ */
+public class ArchetypeChunks {
+	private final int chunkSize;
+
+	/** Entity ids, grouped by composition. */
+	private final int[] entities;
+	private final int[] compositions;
+	private int cursor;
+	private int compositionId = -1;
+
+	public ArchetypeChunks(World world, IntBag entities, int chunkSize) {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+
+		this.chunkSize = chunkSize;
+
+		int size = entities.size();
+		int[] ids = entities.getData();
+		int[] cids = new int[size];
+		int maxCid = 0;
+		for (int i = 0; size > i; i++) {
+			cids[i] = world.compositionId(ids[i]);
+			maxCid = Math.max(maxCid, cids[i]);
+		}
+
+		// counting sort by composition
+		int[] offsets = new int[maxCid + 2];
+		for (int i = 0; size > i; i++)
+			offsets[cids[i] + 1]++;
+
+		for (int i = 1; offsets.length > i; i++)
+			offsets[i] += offsets[i - 1];
+
+		this.entities = new int[size];
+		this.compositions = new int[size];
+		for (int i = 0; size > i; i++) {
+			int index = offsets[cids[i]]++;
+			this.entities[index] = ids[i];
+			this.compositions[index] = cids[i];
+		}
+	}
+
+	/**
+	 * @param out receives next chunk; reset before use.
+	 * @return {@code false} if all entities have been returned.
+	 */
+	public boolean next(IntBag out) {
+		out.setSize(0);
+		if (cursor == entities.length)
+			return false;
+
+		compositionId = compositions[cursor];
+		while (entities.length > cursor
+				&& chunkSize > out.size()
+				&& compositions[cursor] == compositionId) {
+
+			out.add(entities[cursor++]);
+		}
+
+		return true;
+	}
+
+	/** @return composition id of last chunk, or -1 before the first chunk. */
+	public int getCompositionId() {
+		return compositionId;
+	}
+
+	/** @return total number of entities. */
+	public int size() {
+		return entities.length;
+	}
+}
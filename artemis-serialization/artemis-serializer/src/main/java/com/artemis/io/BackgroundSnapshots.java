@@ -0,0 +1,451 @@
+package com.artemis.io;
+
+import com.artemis.*;
+import com.artemis.annotations.Transient;
+import com.artemis.components.SerializationTag;
+import com.artemis.managers.GroupManager;
+import com.artemis.managers.TagManager;
+import com.artemis.managers.WorldSerializationManager;
+import com.artemis.utils.Bag;
+import com.artemis.utils.BitVector;
+import com.artemis.utils.ImmutableBag;
+import com.artemis.utils.ImmutableIntBag;
+import com.artemis.utils.IntBag;
+
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import static com.artemis.Aspect.all;
+import static com.artemis.utils.reflect.ClassReflection.isAnnotationPresent;
+
+/**
+ * Saves entities in the background, while the world keeps processing.
+ * <p>
+ * {@link #save(OutputStream, SaveFileFormat)} first captures the saved
+ * entities into a separate snapshot world, blocking until done, then
+ * serializes the snapshot world on the executor with the backend passed to
+ * {@link #setSerializer}. Backends must be created for
+ * {@link #getSnapshotWorld()}. Capture and serialize times are reported
+ * separately, see {@link SnapshotReport}.
+ * <p>
+ * The snapshot world shares entity ids with the world, and is kept between
+ * snapshots; only entities whose composition differs since the previous
+ * capture are restructured. Component fields are deep copied, see
+ * {@link ComponentCopier}; {@link Transient} components other than
+ * {@link SerializationTag} are not captured. Tags and groups are copied
+ * if the world has a {@link TagManager} or {@link GroupManager}.
+ * <p>
+ * With {@link #setIncremental(boolean) incremental capture}, only entities
+ * created or changed since the previous capture are copied. Entities are
+ * changed once their composition changes, or when any of their components
+ * are created, replaced or {@link ComponentMapper#markChanged(int) marked
+ * as changed}; writes directly to component fields go unnoticed.
+ * <p>
+ * Capture between invocations of {@link World#process()}. One snapshot is
+ * serialized at a time. Not available under GWT.
+ */
+public class BackgroundSnapshots {
+	private final World world;
+	private final World snapshotWorld;
+	private final WorldSerializationManager serializationManager;
+	private final Executor executor;
+	private final ExecutorService ownedExecutor;
+
+	private final ReferenceTracker referenceTracker;
+	private final ComponentCopier copier;
+	private final EntitySubscription allEntities;
+	private final Archetype emptyArchetype;
+
+	/** Snapshot world entities holding captured components. */
+	private final BitVector occupied = new BitVector();
+	private int snapshotEntityCount;
+
+	/** Structure of captured entities, by composition id in the world. */
+	private final Bag<Shape> shapes = new Bag<Shape>();
+	private EntityTransmuter emptyTransmuter;
+	private int registeredTypes;
+	private int snapshotTypes = -1;
+
+	private boolean incremental;
+	private final BitVector changed = new BitVector();
+	private int trackedTypes;
+	private boolean recaptureAll = true;
+
+	private final Bag<Component> components = new Bag<Component>();
+	private FutureTask<SnapshotReport> pending;
+
+	/**
+	 * Serializes snapshots on a daemon thread of its own.
+	 */
+	public BackgroundSnapshots(World world) {
+		this(world, Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "artemis-snapshots");
+				thread.setDaemon(true);
+				return thread;
+			}
+		}), true);
+	}
+
+	/**
+	 * @param executor serializes snapshots.
+	 */
+	public BackgroundSnapshots(World world, Executor executor) {
+		this(world, executor, false);
+	}
+
+	private BackgroundSnapshots(World world, Executor executor, boolean owned) {
+		this.world = world;
+		this.executor = executor;
+		ownedExecutor = owned ? (ExecutorService) executor : null;
+
+		WorldConfiguration config = new WorldConfiguration();
+		if (world.getSystem(TagManager.class) != null)
+			config.setSystem(TagManager.class);
+		if (world.getSystem(GroupManager.class) != null)
+			config.setSystem(GroupManager.class);
+		config.setSystem(WorldSerializationManager.class);
+
+		snapshotWorld = new World(config);
+		serializationManager = snapshotWorld.getSystem(WorldSerializationManager.class);
+		emptyArchetype = new ArchetypeBuilder().build(snapshotWorld);
+
+		referenceTracker = new ReferenceTracker(world);
+		copier = new ComponentCopier(snapshotWorld);
+		allEntities = world.getAspectSubscriptionManager().get(all());
+
+		world.getEntityManager().register(new EntityManager.RemapListener() {
+			@Override
+			public void remapped(IntBag from, IntBag to) {
+				recaptureAll = true;
+			}
+		});
+	}
+
+	/**
+	 * @return world holding captured entities; pass it to the backend's constructor.
+	 */
+	public World getSnapshotWorld() {
+		return snapshotWorld;
+	}
+
+	/**
+	 * @param backend serializer created for {@link #getSnapshotWorld()}.
+	 */
+	public void setSerializer(WorldSerializationManager.ArtemisSerializer<?> backend) {
+		checkIdle();
+		serializationManager.setSerializer(backend);
+	}
+
+	/**
+	 * @param incremental only copy entities created or changed since the
+	 *                    previous capture.
+	 */
+	public void setIncremental(boolean incremental) {
+		if (this.incremental == incremental)
+			return;
+
+		this.incremental = incremental;
+		AspectSubscriptionManager asm = world.getAspectSubscriptionManager();
+		if (incremental) {
+			asm.trackChanges(changed);
+			world.getEntityManager().registerEntityStore(changed);
+			recaptureAll = true;
+		} else {
+			asm.untrackChanges(changed);
+			world.getEntityManager().unregisterEntityStore(changed);
+			untrackComponentChanges();
+			changed.clear();
+		}
+	}
+
+	/**
+	 * Captures {@code format.entities}, along with referenced entities, then
+	 * serializes them in the background. The entities are copied during
+	 * capture; {@code format} itself is handed to the backend, and must not
+	 * be modified until the returned future completes. {@code out} is written
+	 * to from the executor.
+	 *
+	 * @return completes once serialized.
+	 * @throws IllegalStateException if the previous snapshot is still being serialized.
+	 */
+	public Future<SnapshotReport> save(final OutputStream out, final SaveFileFormat format) {
+		checkIdle();
+
+		long start = System.nanoTime();
+		final int copiedCount = capture(format);
+		final long captureNanos = System.nanoTime() - start;
+
+		pending = new FutureTask<SnapshotReport>(new Callable<SnapshotReport>() {
+			@Override
+			public SnapshotReport call() {
+				long start = System.nanoTime();
+				serializationManager.save(out, format);
+				return new SnapshotReport(format.entities.size(), copiedCount,
+					captureNanos, System.nanoTime() - start);
+			}
+		});
+
+		executor.execute(pending);
+		return pending;
+	}
+
+	/**
+	 * @return {@code true} if a snapshot is being serialized.
+	 */
+	public boolean isBusy() {
+		return pending != null && !pending.isDone();
+	}
+
+	/**
+	 * Stops tracking changes, and shuts down the executor unless passed
+	 * to the constructor. Pending snapshots are still completed.
+	 */
+	public void dispose() {
+		setIncremental(false);
+		if (ownedExecutor != null)
+			ownedExecutor.shutdown();
+	}
+
+	private void checkIdle() {
+		if (isBusy())
+			throw new IllegalStateException("Previous snapshot is still being serialized.");
+	}
+
+	/**
+	 * Mirrors saved entities into the snapshot world, replacing
+	 * {@code format.entities} with the captured entities.
+	 *
+	 * @return number of copied entities.
+	 */
+	private int capture(SaveFileFormat format) {
+		IntBag entities = new IntBag(format.entities.size());
+		entities.addAll(format.entities);
+		format.entities = entities;
+
+		// pulls in referenced entities
+		referenceTracker.inspectTypes(world);
+		referenceTracker.preWrite(format);
+
+		BitVector active = allEntities.getActiveEntityIds();
+		int[] ids = entities.getData();
+		int size = 0;
+		for (int i = 0, s = entities.size(); s > i; i++) {
+			if (active.get(ids[i]))
+				ids[size++] = ids[i];
+		}
+		entities.setSize(size);
+
+		registerTypes();
+		if (size > 0)
+			ensureEntities(ids[size - 1] + 1);
+
+		BitVector captured = new BitVector(snapshotEntityCount);
+		for (int i = 0; size > i; i++)
+			captured.unsafeSet(ids[i]);
+
+		for (int id = occupied.nextSetBit(0); id >= 0; id = occupied.nextSetBit(id + 1)) {
+			if (!captured.get(id)) {
+				emptyTransmuter.transmute(id);
+				occupied.clear(id);
+			}
+		}
+
+		boolean copyAll = !incremental || recaptureAll;
+		int copied = 0;
+		for (int i = 0; size > i; i++) {
+			int id = ids[i];
+			if (!copyAll && occupied.get(id) && !changed.get(id))
+				continue;
+
+			copy(id);
+			occupied.set(id);
+			copied++;
+		}
+
+		for (int i = 0, s = shapes.size(); s > i; i++) {
+			Shape shape = shapes.get(i);
+			if (shape != null)
+				shape.flush();
+		}
+
+		copyTags(captured);
+		copyGroups(captured);
+		snapshotWorld.process();
+
+		if (incremental)
+			trackComponentChanges();
+
+		changed.clear();
+		recaptureAll = false;
+		return copied;
+	}
+
+	private void copy(int entityId) {
+		int cid = world.compositionId(entityId);
+		Shape shape = shapes.safeGet(cid);
+		if (shape == null) {
+			shape = new Shape(entityId);
+			shapes.set(cid, shape);
+		}
+
+		if (snapshotWorld.compositionId(entityId) != shape.snapshotCid) {
+			shape.transmuter.transmute(entityId);
+			shape.snapshotCid = snapshotWorld.compositionId(entityId);
+		}
+
+		for (int i = 0; shape.source.length > i; i++)
+			copier.copy(shape.source[i].get(entityId), shape.target[i].get(entityId));
+	}
+
+	/** Registers component types in the snapshot world, invalidating shapes if needed. */
+	private void registerTypes() {
+		ImmutableBag<ComponentType> types = world.getComponentManager().getComponentTypes();
+		for (int s = types.size(); s > registeredTypes; registeredTypes++)
+			snapshotWorld.getMapper(types.get(registeredTypes).getType());
+
+		ImmutableBag<ComponentType> snapshotTypes = snapshotWorld.getComponentManager().getComponentTypes();
+		if (this.snapshotTypes != snapshotTypes.size()) {
+			this.snapshotTypes = snapshotTypes.size();
+			shapes.clear();
+
+			EntityTransmuterFactory empty = new EntityTransmuterFactory(snapshotWorld);
+			for (int i = 0, s = snapshotTypes.size(); s > i; i++)
+				empty.remove(snapshotTypes.get(i).getType());
+
+			emptyTransmuter = empty.build();
+		}
+	}
+
+	/** Snapshot world entity ids match, as its entities are never deleted. */
+	private void ensureEntities(int count) {
+		if (snapshotEntityCount >= count)
+			return;
+
+		IntBag created = new IntBag(count - snapshotEntityCount);
+		snapshotWorld.create(emptyArchetype, count - snapshotEntityCount, created);
+		for (int i = 0, s = created.size(); s > i; i++) {
+			if (created.get(i) != snapshotEntityCount + i)
+				throw new IllegalStateException("Snapshot world out of sync.");
+		}
+
+		snapshotEntityCount = count;
+	}
+
+	private void copyTags(BitVector captured) {
+		TagManager source = world.getSystem(TagManager.class);
+		TagManager target = snapshotWorld.getSystem(TagManager.class);
+		if (source == null || target == null)
+			return;
+
+		Bag<String> tags = new Bag<String>();
+		for (String tag : target.getRegisteredTags())
+			tags.add(tag);
+
+		for (int i = 0, s = tags.size(); s > i; i++)
+			target.unregister(tags.get(i));
+
+		for (String tag : source.getRegisteredTags()) {
+			int id = source.getEntityId(tag);
+			if (id != -1 && captured.get(id))
+				target.register(tag, id);
+		}
+	}
+
+	private void copyGroups(BitVector captured) {
+		GroupManager source = world.getSystem(GroupManager.class);
+		GroupManager target = snapshotWorld.getSystem(GroupManager.class);
+		if (source == null || target == null)
+			return;
+
+		IntBag members = new IntBag();
+		for (int group = 0, s = target.getGroupCount(); s > group; group++) {
+			ImmutableIntBag ids = target.getEntityIds(group);
+			members.setSize(0);
+			for (int i = 0, size = ids.size(); size > i; i++)
+				members.add(ids.get(i));
+
+			for (int i = 0, size = members.size(); size > i; i++)
+				target.remove(members.get(i), group);
+		}
+
+		for (int group = 0, s = source.getGroupCount(); s > group; group++) {
+			String name = source.getGroupName(group);
+			ImmutableIntBag ids = source.getEntityIds(group);
+			for (int i = 0, size = ids.size(); size > i; i++) {
+				if (captured.get(ids.get(i)))
+					target.add(ids.get(i), name);
+			}
+		}
+	}
+
+	private void trackComponentChanges() {
+		ImmutableBag<ComponentType> types = world.getComponentManager().getComponentTypes();
+		for (int s = types.size(); s > trackedTypes; trackedTypes++)
+			world.getMapper(types.get(trackedTypes).getType()).trackChanges(changed);
+	}
+
+	private void untrackComponentChanges() {
+		ImmutableBag<ComponentType> types = world.getComponentManager().getComponentTypes();
+		for (int i = 0; trackedTypes > i; i++)
+			world.getMapper(types.get(i).getType()).untrackChanges(changed);
+
+		trackedTypes = 0;
+	}
+
+	/** Captured component types of a composition, and how to transmute to it. */
+	private final class Shape {
+		final ComponentMapper<Component>[] source;
+		final ComponentMapper<Component>[] target;
+		final EntityTransmuter transmuter;
+		int snapshotCid = -1;
+
+		@SuppressWarnings("unchecked")
+		Shape(int entityId) {
+			components.clear();
+			world.getComponentManager().getComponentsFor(entityId, components);
+
+			Bag<Class<? extends Component>> types = new Bag<Class<? extends Component>>();
+			for (int i = 0, s = components.size(); s > i; i++) {
+				Class<? extends Component> type = components.get(i).getClass();
+				if (SerializationTag.class == type || !isAnnotationPresent(type, Transient.class))
+					types.add(type);
+			}
+			components.clear();
+
+			source = new ComponentMapper[types.size()];
+			target = new ComponentMapper[types.size()];
+			for (int i = 0, s = types.size(); s > i; i++) {
+				source[i] = (ComponentMapper<Component>) world.getMapper(types.get(i));
+				target[i] = (ComponentMapper<Component>) snapshotWorld.getMapper(types.get(i));
+			}
+
+			EntityTransmuterFactory factory = new EntityTransmuterFactory(snapshotWorld);
+			ImmutableBag<ComponentType> snapshotTypes = snapshotWorld.getComponentManager().getComponentTypes();
+			for (int i = 0, s = snapshotTypes.size(); s > i; i++) {
+				Class<? extends Component> type = snapshotTypes.get(i).getType();
+				if (types.contains(type)) {
+					factory.add(type);
+				} else {
+					factory.remove(type);
+				}
+			}
+
+			transmuter = factory.build();
+		}
+
+		void flush() {
+			for (ComponentMapper<Component> mapper : target) {
+				if (mapper instanceof FlyweightComponentMapper)
+					((FlyweightComponentMapper<?>) mapper).flush();
+			}
+		}
+	}
+}
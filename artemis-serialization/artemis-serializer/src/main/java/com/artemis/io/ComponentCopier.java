@@ -0,0 +1,199 @@
+package com.artemis.io;
+
+import com.artemis.Component;
+import com.artemis.Entity;
+import com.artemis.PooledComponent;
+import com.artemis.World;
+import com.artemis.utils.Bag;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Deep copies persisted component fields into components of another world,
+ * sharing entity ids with the source world.
+ * <p>
+ * Strings, boxed primitives and enums are shared; {@link Entity} references
+ * resolve to the entity with the same id in the target world. Arrays,
+ * collections and maps are copied element by element, other objects field
+ * by field, requiring a no-arg constructor. Transient fields are skipped,
+ * as they aren't serialized either.
+ */
+final class ComponentCopier {
+	private static final Field[] NO_FIELDS = new Field[0];
+
+	private final World target;
+	private final Map<Class<?>, Field[]> fields = new IdentityHashMap<Class<?>, Field[]>();
+
+	/** Copies made while copying the current component; preserves shared references. */
+	private final Map<Object, Object> copies = new IdentityHashMap<Object, Object>();
+
+	ComponentCopier(World target) {
+		this.target = target;
+	}
+
+	/**
+	 * Copies fields of {@code source} to {@code destination}, both of the same type.
+	 */
+	void copy(Component source, Component destination) {
+		try {
+			copyFields(source, destination);
+		} catch (IllegalAccessException e) {
+			throw new SerializationException(e);
+		} finally {
+			copies.clear();
+		}
+	}
+
+	/**
+	 * Copies fields of {@code source} to {@code destination}, both of the
+	 * same type, sharing all referenced objects.
+	 */
+	void copyShallow(Component source, Component destination) {
+		try {
+			for (Field f : fields(source.getClass()))
+				f.set(destination, f.get(source));
+		} catch (IllegalAccessException e) {
+			throw new SerializationException(e);
+		}
+	}
+
+	private void copyFields(Object source, Object destination) throws IllegalAccessException {
+		for (Field f : fields(source.getClass())) {
+			Class<?> type = f.getType();
+			if (!type.isPrimitive())
+				f.set(destination, copyValue(f.get(source)));
+			else if (int.class == type)
+				f.setInt(destination, f.getInt(source));
+			else if (float.class == type)
+				f.setFloat(destination, f.getFloat(source));
+			else if (boolean.class == type)
+				f.setBoolean(destination, f.getBoolean(source));
+			else if (long.class == type)
+				f.setLong(destination, f.getLong(source));
+			else if (double.class == type)
+				f.setDouble(destination, f.getDouble(source));
+			else if (byte.class == type)
+				f.setByte(destination, f.getByte(source));
+			else if (short.class == type)
+				f.setShort(destination, f.getShort(source));
+			else
+				f.setChar(destination, f.getChar(source));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object copyValue(Object value) throws IllegalAccessException {
+		if (value == null || isImmutable(value))
+			return value;
+
+		if (value instanceof Entity)
+			return target.getEntity(((Entity) value).getId());
+
+		Object copy = copies.get(value);
+		if (copy != null)
+			return copy;
+
+		Class<?> type = value.getClass();
+		if (type.isArray()) {
+			int length = Array.getLength(value);
+			copy = Array.newInstance(type.getComponentType(), length);
+			copies.put(value, copy);
+			if (type.getComponentType().isPrimitive()) {
+				System.arraycopy(value, 0, copy, 0, length);
+			} else {
+				Object[] values = (Object[]) value;
+				Object[] copied = (Object[]) copy;
+				for (int i = 0; length > i; i++)
+					copied[i] = copyValue(values[i]);
+			}
+		} else if (value instanceof Collection) {
+			Collection<Object> collection = (Collection<Object>) newInstance(type);
+			copies.put(value, collection);
+			for (Object element : (Collection<?>) value)
+				collection.add(copyValue(element));
+
+			copy = collection;
+		} else if (value instanceof Map) {
+			Map<Object, Object> map = (Map<Object, Object>) newInstance(type);
+			copies.put(value, map);
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+				map.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+
+			copy = map;
+		} else {
+			copy = newInstance(type);
+			copies.put(value, copy);
+			copyFields(value, copy);
+		}
+
+		return copy;
+	}
+
+	private static boolean isImmutable(Object value) {
+		Class<?> type = value.getClass();
+		return String.class == type
+			|| Integer.class == type
+			|| Float.class == type
+			|| Boolean.class == type
+			|| Long.class == type
+			|| Double.class == type
+			|| Byte.class == type
+			|| Short.class == type
+			|| Character.class == type
+			|| Class.class == type
+			|| value instanceof Enum;
+	}
+
+	private Field[] fields(Class<?> type) {
+		Field[] declared = fields.get(type);
+		if (declared == null) {
+			declared = resolveFields(type);
+			fields.put(type, declared);
+		}
+
+		return declared;
+	}
+
+	private static Field[] resolveFields(Class<?> type) {
+		Bag<Field> found = new Bag<Field>(Field.class);
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			if (c == Component.class || c == PooledComponent.class)
+				break;
+
+			for (Field field : c.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic())
+					continue;
+
+				field.setAccessible(true);
+				found.add(field);
+			}
+		}
+
+		if (found.isEmpty())
+			return NO_FIELDS;
+
+		Field[] resolved = new Field[found.size()];
+		for (int i = 0; resolved.length > i; i++)
+			resolved[i] = found.get(i);
+
+		return resolved;
+	}
+
+	private static Object newInstance(Class<?> type) {
+		try {
+			Constructor<?> constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return constructor.newInstance();
+		} catch (Exception e) {
+			throw new SerializationException("Unable to copy " + type.getName()
+				+ ", requires a no-arg constructor.", e);
+		}
+	}
+}
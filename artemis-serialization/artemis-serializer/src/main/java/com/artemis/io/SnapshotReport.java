@@ -0,0 +1,46 @@
+package com.artemis.io;
+
+/**
+ * Outcome of a snapshot saved by {@link BackgroundSnapshots}.
+ */
+public final class SnapshotReport {
+	private final int entityCount;
+	private final int copiedCount;
+	private final long captureNanos;
+	private final long serializeNanos;
+
+	SnapshotReport(int entityCount, int copiedCount, long captureNanos, long serializeNanos) {
+		this.entityCount = entityCount;
+		this.copiedCount = copiedCount;
+		this.captureNanos = captureNanos;
+		this.serializeNanos = serializeNanos;
+	}
+
+	/** @return number of saved entities, including referenced entities. */
+	public int getEntityCount() {
+		return entityCount;
+	}
+
+	/** @return number of entities copied during capture. */
+	public int getCopiedCount() {
+		return copiedCount;
+	}
+
+	/** @return time spent capturing the snapshot, blocking the world. */
+	public long getCaptureNanos() {
+		return captureNanos;
+	}
+
+	/** @return time spent serializing the snapshot, in the background. */
+	public long getSerializeNanos() {
+		return serializeNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "SnapshotReport[entities=" + entityCount
+			+ ", copied=" + copiedCount
+			+ ", capture=" + (captureNanos / 1000) + "us"
+			+ ", serialize=" + (serializeNanos / 1000) + "us]";
+	}
+}
@@ -67,6 +67,37 @@ public class WorldSerializationManager extends BaseSystem {
 		backend.save(out, format);
 	}
 
+	/**
+	 * <p>Saves entities in chunks of at most {@code chunkSize} entities sharing
+	 * composition, writing each chunk to {@code out} before serializing the
+	 * next. Peak memory is proportional to the chunk size rather than the
+	 * number of saved entities.</p>
+	 *
+	 * <p>Entities are written grouped by composition. The output can only be
+	 * read by {@link #loadStreaming(InputStream, Class)}.</p>
+	 *
+	 * @throws SerializationException if {@link ArtemisSerializer} was not set,
+	 *         or doesn't support streaming
+	 */
+	public void saveStreaming(OutputStream out, SaveFileFormat format, int chunkSize) {
+		if (backend == null) {
+			throw new SerializationException("Missing ArtemisSerializer, see #setSerializer.");
+		}
+
+		world.inject(format);
+		backend.saveStreaming(out, format, chunkSize);
+	}
+
+	/**
+	 * Loads data written by {@link #saveStreaming(OutputStream, SaveFileFormat, int)},
+	 * reading directly from the stream regardless of {@link #alwaysLoadStreamMemory}.
+	 *
+	 * @throws SerializationException if {@link ArtemisSerializer} doesn't support streaming
+	 */
+	public <T extends SaveFileFormat> T loadStreaming(InputStream is, Class<T> format) {
+		return backend.loadStreaming(is, format);
+	}
+
 	private ByteArrayOutputStream byteArrayOutputStream() {
 		if (baos == null) {
 			baos = new ByteArrayOutputStream();
@@ -116,5 +147,20 @@ public class WorldSerializationManager extends BaseSystem {
 		 * Deserializes data (usually a file) of a known class to a SaveFileFormat.
 		 */
 		protected abstract <T extends SaveFileFormat> T load(InputStream is, Class<T> format);
+
+		/**
+		 * Serializes entities in chunks, see {@link WorldSerializationManager#saveStreaming}.
+		 * Not supported unless overridden.
+		 */
+		protected void saveStreaming(OutputStream out, SaveFileFormat format, int chunkSize) {
+			throw new SerializationException(getClass().getSimpleName() + " doesn't support streaming.");
+		}
+
+		/**
+		 * Deserializes data written by {@link #saveStreaming}. Not supported unless overridden.
+		 */
+		protected <T extends SaveFileFormat> T loadStreaming(InputStream is, Class<T> format) {
+			throw new SerializationException(getClass().getSimpleName() + " doesn't support streaming.");
+		}
 	}
 }